@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.discovery;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.util.ExpiringCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node local cache of the serialized OpenID Provider configuration document of each tenant. Building the document
+ * reads every external claim of the OIDC dialect and the OIDC scopes of the tenant, so it is built once per tenant
+ * and served from this cache until it expires or is cleared.
+ * <p>
+ * The document of a tenant is cleared by the tenant and identity provider management listeners of this component when
+ * the tenant or its resident identity provider is updated on this node. Claims and scopes are managed outside this
+ * component and do not notify it of changes, hence cached documents also expire after the configured time.
+ */
+public class OIDProviderConfigCache {
+
+    private static final Log log = LogFactory.getLog(OIDProviderConfigCache.class);
+
+    // This config property is defined in identity.xml
+    private static final String CACHE_EXPIRY_TIME = "OAuth.OIDCDiscovery.CacheExpiryTime";
+    private static final int DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS = 300;
+
+    private static volatile OIDProviderConfigCache instance;
+
+    private final long expiryTimeInMillis;
+    private final ExpiringCache<String, OIDProviderConfigDocument> documents =
+            new ExpiringCache<>(Integer.MAX_VALUE);
+
+    OIDProviderConfigCache(long expiryTimeInMillis) {
+
+        this.expiryTimeInMillis = expiryTimeInMillis;
+    }
+
+    public static OIDProviderConfigCache getInstance() {
+
+        if (instance == null) {
+            synchronized (OIDProviderConfigCache.class) {
+                if (instance == null) {
+                    int expiryTime = OAuth2PropertyUtil.getIntProperty(CACHE_EXPIRY_TIME,
+                            DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS, 0);
+                    instance = new OIDProviderConfigCache(TimeUnit.SECONDS.toMillis(expiryTime));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @return cached document of the tenant or null if it is not cached or has expired
+     */
+    public OIDProviderConfigDocument getValueFromCache(String tenantDomain) {
+
+        return documents.get(tenantDomain);
+    }
+
+    /**
+     * Cache the serialized configuration document of the given tenant.
+     *
+     * @param tenantDomain tenant domain
+     * @param body         serialized OpenID Provider configuration
+     * @return cached document
+     */
+    public OIDProviderConfigDocument addToCache(String tenantDomain, String body) {
+
+        OIDProviderConfigDocument document = new OIDProviderConfigDocument(body);
+        documents.put(tenantDomain, document, System.currentTimeMillis() + expiryTimeInMillis);
+        if (log.isDebugEnabled()) {
+            log.debug("Cached the OpenID Provider configuration of tenant: " + tenantDomain + " with entity tag: " +
+                    document.getEntityTag());
+        }
+        return document;
+    }
+
+    public void clearCacheEntry(String tenantDomain) {
+
+        documents.remove(tenantDomain);
+    }
+
+    public void clear() {
+
+        documents.clear();
+    }
+
+    public long getExpiryTimeInMillis() {
+
+        return expiryTimeInMillis;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.discovery;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Serialized OpenID Provider configuration document of a tenant along with its entity tag. The entity tag is derived
+ * from the content, so all nodes of a cluster hand out the same tag for the same document and clients only need to
+ * download the document again when it has actually changed.
+ */
+public class OIDProviderConfigDocument {
+
+    private final byte[] body;
+    private final String entityTag;
+
+    public OIDProviderConfigDocument(String body) {
+
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+        this.entityTag = generateEntityTag(this.body);
+    }
+
+    /**
+     * @return UTF-8 encoded document. The returned array is shared and must not be modified.
+     */
+    public byte[] getBody() {
+
+        return body;
+    }
+
+    /**
+     * @return entity tag of the document without the surrounding quotes
+     */
+    public String getEntityTag() {
+
+        return entityTag;
+    }
+
+    /**
+     * @param ifNoneMatch value of the If-None-Match request header
+     * @return true if the client already holds the current version of the document
+     */
+    public boolean matches(String ifNoneMatch) {
+
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if ("*".equals(tag)) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (StringUtils.strip(tag, "\"").equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String generateEntityTag(byte[] body) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available in every Java platform.
+            throw new IllegalStateException("SHA-256 algorithm is not available", e);
+        }
+    }
+}
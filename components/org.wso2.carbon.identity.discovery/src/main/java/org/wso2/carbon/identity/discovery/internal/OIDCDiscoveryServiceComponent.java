@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.discovery.internal;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
@@ -29,6 +30,8 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
 import org.wso2.carbon.identity.discovery.DefaultOIDCProcessor;
 import org.wso2.carbon.identity.discovery.OIDCProcessor;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
+import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 
 /**
  * Service component for OpenID Connect Discovery.
@@ -49,6 +52,28 @@ public class OIDCDiscoveryServiceComponent {
         try {
             bundleContext = context.getBundleContext();
             bundleContext.registerService(OIDCProcessor.class.getName(), DefaultOIDCProcessor.getInstance(), null);
+
+            // The cached OpenID Provider configuration of a tenant is cleared when the tenant or its resident identity
+            // provider is updated.
+            ServiceRegistration tenantMgtListenerSR = bundleContext.registerService(TenantMgtListener.class.getName(),
+                    new OIDCDiscoveryTenantMgtListener(), null);
+            if (tenantMgtListenerSR != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("OIDCDiscovery - TenantMgtListener registered.");
+                }
+            } else {
+                log.error("OIDCDiscovery - TenantMgtListener could not be registered.");
+            }
+
+            ServiceRegistration idpMgtListenerSR = bundleContext.registerService(
+                    IdentityProviderMgtListener.class.getName(), new OIDCDiscoveryIdPMgtListener(), null);
+            if (idpMgtListenerSR != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("OIDCDiscovery - IdentityProviderMgtListener registered.");
+                }
+            } else {
+                log.error("OIDCDiscovery - IdentityProviderMgtListener could not be registered.");
+            }
             // exposing server configuration as a service
             if (log.isDebugEnabled()) {
                 log.debug("Identity OIDCDiscovery bundle is activated");
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.discovery;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OIDProviderConfigCache.
+ */
+public class OIDProviderConfigCacheTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String CONFIG = "{\"issuer\":\"https://localhost:9443/oauth2/token\"}";
+
+    @Test
+    public void testAddToCache() {
+
+        OIDProviderConfigCache cache = new OIDProviderConfigCache(60000);
+        assertNull(cache.getValueFromCache(TENANT_DOMAIN));
+
+        OIDProviderConfigDocument document = cache.addToCache(TENANT_DOMAIN, CONFIG);
+        assertSame(cache.getValueFromCache(TENANT_DOMAIN), document);
+        assertEquals(new String(document.getBody(), StandardCharsets.UTF_8), CONFIG);
+
+        cache.clearCacheEntry(TENANT_DOMAIN);
+        assertNull(cache.getValueFromCache(TENANT_DOMAIN), "Cleared document should not be served.");
+    }
+
+    @Test
+    public void testExpiredDocumentIsNotServed() {
+
+        OIDProviderConfigCache cache = new OIDProviderConfigCache(0);
+        cache.addToCache(TENANT_DOMAIN, CONFIG);
+        assertNull(cache.getValueFromCache(TENANT_DOMAIN), "Expired document should not be served.");
+    }
+
+    @Test
+    public void testEntityTag() {
+
+        OIDProviderConfigDocument document = new OIDProviderConfigDocument(CONFIG);
+        String entityTag = document.getEntityTag();
+
+        assertEquals(new OIDProviderConfigDocument(CONFIG).getEntityTag(), entityTag,
+                "Entity tag should only depend on the content.");
+        assertNotEquals(new OIDProviderConfigDocument(CONFIG + " ").getEntityTag(), entityTag);
+
+        assertTrue(document.matches("\"" + entityTag + "\""));
+        assertTrue(document.matches("W/\"" + entityTag + "\""));
+        assertTrue(document.matches("\"other\", \"" + entityTag + "\""));
+        assertTrue(document.matches("*"));
+        assertFalse(document.matches("\"other\""));
+        assertFalse(document.matches(null));
+    }
+}
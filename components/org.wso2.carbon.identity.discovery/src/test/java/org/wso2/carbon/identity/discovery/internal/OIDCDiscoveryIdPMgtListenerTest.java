@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.discovery.internal;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.discovery.OIDProviderConfigCache;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OIDCDiscoveryIdPMgtListener.
+ */
+@PrepareForTest(OIDProviderConfigCache.class)
+public class OIDCDiscoveryIdPMgtListenerTest {
+
+    @Mock
+    private OIDProviderConfigCache oidProviderConfigCache;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        initMocks(this);
+        mockStatic(OIDProviderConfigCache.class);
+        when(OIDProviderConfigCache.getInstance()).thenReturn(oidProviderConfigCache);
+    }
+
+    @Test
+    public void testDoPostUpdateResidentIdP() throws Exception {
+        assertTrue(new OIDCDiscoveryIdPMgtListener().doPostUpdateResidentIdP(new IdentityProvider(), "foo.com"));
+        verify(oidProviderConfigCache).clearCacheEntry("foo.com");
+    }
+}
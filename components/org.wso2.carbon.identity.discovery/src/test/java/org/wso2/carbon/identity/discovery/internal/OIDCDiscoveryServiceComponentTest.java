@@ -30,8 +30,13 @@ import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
 import org.wso2.carbon.identity.discovery.DefaultOIDCProcessor;
+import org.wso2.carbon.identity.discovery.OIDCProcessor;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
+import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 
 import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -40,6 +45,7 @@ import static org.powermock.api.mockito.PowerMockito.doAnswer;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @PrepareForTest(BundleContext.class)
 public class OIDCDiscoveryServiceComponentTest {
@@ -74,21 +80,23 @@ public class OIDCDiscoveryServiceComponentTest {
         mockStatic(BundleContext.class);
         when(context.getBundleContext()).thenReturn(bundleContext);
 
-        final String[] serviceName = new String[1];
+        final Map<String, Object> services = new HashMap<>();
 
         doAnswer(new Answer<Object>() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
-                DefaultOIDCProcessor defaultOIDCProcessor = (DefaultOIDCProcessor) invocation.getArguments()[1];
-                serviceName[0] = defaultOIDCProcessor.getClass().getName();
+                services.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
                 return null;
             }
-        }).when(bundleContext).registerService(anyString(), any(DefaultOIDCProcessor.class), any(Dictionary.class));
+        }).when(bundleContext).registerService(anyString(), any(), any(Dictionary.class));
 
         OIDCDiscoveryServiceComponent oidcDiscoveryServiceComponent = new OIDCDiscoveryServiceComponent();
         oidcDiscoveryServiceComponent.activate(context);
 
-        assertEquals(DefaultOIDCProcessor.class.getName(), serviceName[0], "error");
+        assertEquals(DefaultOIDCProcessor.class.getName(),
+                services.get(OIDCProcessor.class.getName()).getClass().getName(), "error");
+        assertTrue(services.get(TenantMgtListener.class.getName()) instanceof OIDCDiscoveryTenantMgtListener);
+        assertTrue(services.get(IdentityProviderMgtListener.class.getName()) instanceof OIDCDiscoveryIdPMgtListener);
     }
 
     @Test
@@ -74,6 +74,7 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeRespDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.model.CarbonOAuthAuthzRequest;
 import org.wso2.carbon.identity.oauth2.model.OAuth2Parameters;
+import org.wso2.carbon.identity.oauth2.util.IDTokenVerifier;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionState;
 import org.wso2.carbon.identity.oidc.session.util.OIDCSessionManagementUtil;
@@ -1308,8 +1309,9 @@ public class OAuth2AuthzEndpoint {
                                      OAuth2Parameters oauth2Params, String loggedInUser,
                                      boolean hasUserApproved) throws OAuthSystemException {
         try {
-            String idTokenHint = oauth2Params.getIDTokenHint();
-            if (isIdTokenValidationFailed(idTokenHint)) {
+            SignedJWT idTokenHint = IDTokenVerifier.getInstance().verify(oauth2Params.getIDTokenHint());
+            if (idTokenHint == null) {
+                log.error("ID token signature validation failed.");
                 return getErrorRedirectURL(oauth2Params, OAuth2ErrorCodes.ACCESS_DENIED);
             }
 
@@ -1342,25 +1344,13 @@ public class OAuth2AuthzEndpoint {
         return getOAuthServerConfiguration().getOpenIDConnectSkipeUserConsentConfig() || hasUserApproved;
     }
 
-    private boolean isIdTokenSubjectEqualsToLoggedInUser(String loggedInUser, String idTokenHint) throws ParseException {
+    private boolean isIdTokenSubjectEqualsToLoggedInUser(String loggedInUser, SignedJWT idTokenHint)
+            throws ParseException {
 
-        String subjectValue = getSubjectFromIdToken(idTokenHint);
+        String subjectValue = idTokenHint.getJWTClaimsSet().getSubject();
         return StringUtils.isNotEmpty(loggedInUser) && loggedInUser.equals(subjectValue);
     }
 
-    private String getSubjectFromIdToken(String idTokenHint) throws ParseException {
-        return SignedJWT.parse(idTokenHint).getJWTClaimsSet().getSubject();
-    }
-
-    private boolean isIdTokenValidationFailed(String idTokenHint) {
-
-        if (!OAuth2Util.validateIdToken(idTokenHint)) {
-            log.error("ID token signature validation failed.");
-            return true;
-        }
-        return false;
-    }
-
     private boolean isUserSessionNotExists(AuthenticatedUser user) {
         return user == null;
     }
@@ -34,6 +34,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import java.util.List;
+
 @Path("/introspect")
 @Consumes({MediaType.APPLICATION_FORM_URLENCODED})
 @Produces(MediaType.APPLICATION_JSON)
@@ -43,6 +45,7 @@ public class OAuth2IntrospectionEndpoint {
     private final static String DEFAULT_TOKEN_TYPE_HINT = "bearer";
     private final static String DEFAULT_TOKEN_TYPE = "Bearer";
     private final static String JWT_TOKEN_TYPE = "JWT";
+    private final static int MAX_BATCH_SIZE = 100;
 
     /**
      * @param token access token or refresh token
@@ -77,22 +80,107 @@ public class OAuth2IntrospectionEndpoint {
         }
 
         // validate the access token against the OAuth2TokenValidationService OSGi service.
-        introspectionRequest = new OAuth2TokenValidationRequestDTO();
+        introspectionRequest = buildIntrospectionRequest(token, tokenTypeHint);
+        introspectionResponse = getTokenValidationService().buildIntrospectionResponse(introspectionRequest);
+
+        try {
+            return Response.ok(buildIntrospectionResponse(introspectionResponse, tokenTypeHint),
+                    MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
+        } catch (JSONException e) {
+            log.error("Error occured while building the json response.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{'error': 'Error occured while building the json response.'}").build();
+        }
+    }
+
+    /**
+     * Introspect several tokens in one request. Each token is sent as a separate token parameter and the response is
+     * a JSON array holding the introspection response of each token, in the order the tokens are sent.
+     *
+     * @param tokens        access tokens or refresh tokens
+     * @param tokenTypeHint hint for the type of the tokens submitted for introspection
+     * @return
+     */
+    @POST
+    @Path("/batch")
+    public Response introspectBatch(@FormParam("token") List<String> tokens,
+                                    @FormParam("token_type_hint") String tokenTypeHint) {
+
+        if (tokenTypeHint == null) {
+            tokenTypeHint = DEFAULT_TOKEN_TYPE_HINT;
+        }
+
+        if (tokens == null || tokens.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("{\"error\": \"Invalid input\"}").build();
+        }
+        if (tokens.size() > MAX_BATCH_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("{\"error\": \"Number of tokens exceeds " +
+                    "the maximum of " + MAX_BATCH_SIZE + "\"}").build();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Introspecting " + tokens.size() + " tokens with token type hint: " + tokenTypeHint);
+        }
+
+        OAuth2TokenValidationRequestDTO[] introspectionRequests = new OAuth2TokenValidationRequestDTO[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            if (StringUtils.isBlank(tokens.get(i))) {
+                return Response.status(Response.Status.BAD_REQUEST).entity("{\"error\": \"Invalid input\"}")
+                        .build();
+            }
+            introspectionRequests[i] = buildIntrospectionRequest(tokens.get(i), tokenTypeHint);
+        }
+
+        OAuth2IntrospectionResponseDTO[] introspectionResponses =
+                getTokenValidationService().buildIntrospectionResponses(introspectionRequests);
+
+        StringBuilder responses = new StringBuilder("[");
+        try {
+            for (int i = 0; i < introspectionResponses.length; i++) {
+                if (i > 0) {
+                    responses.append(',');
+                }
+                responses.append(buildIntrospectionResponse(introspectionResponses[i], tokenTypeHint));
+            }
+        } catch (JSONException e) {
+            log.error("Error occured while building the json response.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{'error': 'Error occured while building the json response.'}").build();
+        }
+        responses.append(']');
+        return Response.ok(responses.toString(), MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
+    }
+
+    private OAuth2TokenValidationRequestDTO buildIntrospectionRequest(String token, String tokenTypeHint) {
+
+        OAuth2TokenValidationRequestDTO introspectionRequest = new OAuth2TokenValidationRequestDTO();
         OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = introspectionRequest.new OAuth2AccessToken();
         accessToken.setIdentifier(token);
         accessToken.setTokenType(tokenTypeHint);
         introspectionRequest.setAccessToken(accessToken);
+        return introspectionRequest;
+    }
+
+    private OAuth2TokenValidationService getTokenValidationService() {
 
-        OAuth2TokenValidationService tokenService = (OAuth2TokenValidationService) PrivilegedCarbonContext
-                .getThreadLocalCarbonContext().getOSGiService(OAuth2TokenValidationService.class);
+        return (OAuth2TokenValidationService) PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                .getOSGiService(OAuth2TokenValidationService.class);
+    }
 
-        introspectionResponse = tokenService.buildIntrospectionResponse(introspectionRequest);
+    /**
+     * @param introspectionResponse introspection response of a token
+     * @param tokenTypeHint         hint for the type of the token submitted for introspection
+     * @return JSON introspection response, which only marks the token inactive if the introspection failed
+     * @throws JSONException
+     */
+    private String buildIntrospectionResponse(OAuth2IntrospectionResponseDTO introspectionResponse,
+                                              String tokenTypeHint) throws JSONException {
 
         if (introspectionResponse.getError() != null) {
             if (log.isDebugEnabled()) {
                 log.debug("The error why token is made inactive: " + introspectionResponse.getError());
             }
-            return Response.status(Response.Status.OK).entity("{\"active\":false}").build();
+            return "{\"active\":false}";
         }
 
         IntrospectionResponseBuilder respBuilder = new IntrospectionResponseBuilder()
@@ -113,12 +201,6 @@ public class OAuth2IntrospectionEndpoint {
                     .setIssuer(introspectionResponse.getIss());
         }
 
-        try {
-            return Response.ok(respBuilder.build(), MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
-        } catch (JSONException e) {
-            log.error("Error occured while building the json response.", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{'error': 'Error occured while building the json response.'}").build();
-        }
+        return respBuilder.build();
     }
 }
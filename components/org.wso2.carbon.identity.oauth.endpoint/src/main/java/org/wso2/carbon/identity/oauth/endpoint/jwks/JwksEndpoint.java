@@ -20,6 +20,7 @@ package org.wso2.carbon.identity.oauth.endpoint.jwks;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.RSAKey;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,21 +32,41 @@ import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.utils.CarbonUtils;
+import java.io.File;
 import java.io.FileInputStream;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.cert.Certificate;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import javax.jws.WebService;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
-
+/**
+ * Serves the JWKS document of the signing key of a tenant.
+ * <p>
+ * The serialized document is cached per tenant domain for {@code OAuth.JWKS.CacheExpiryTime} seconds. There is no
+ * explicit per tenant invalidation method. Instead, a cached document is built again from the keystore when it is
+ * older than {@link OAuth2Util#getSigningKeyClearedTime(String)}, the last time
+ * {@link OAuth2Util#clearSigningKeyCache(int)} was called for the tenant. The tenant management listener of the OAuth
+ * component calls it when a tenant is updated, deactivated or deleted. That time is recorded on the node the tenant
+ * event is raised on, hence other nodes of a cluster build the document again only once it expires. On expiry, the
+ * super tenant document is only built again if the keystore file has been modified.
+ */
 @WebService
 public class JwksEndpoint {
     private static final Log log = LogFactory.getLog(JwksEndpoint.class);
@@ -55,39 +76,92 @@ public class JwksEndpoint {
     private static final String SECURITY_KEY_STORE_KEY_ALIAS = "Security.KeyStore.KeyAlias";
     private static final String KEYS = "keys";
 
+    // This config property is defined in identity.xml
+    private static final String JWKS_CACHE_EXPIRY_TIME = "OAuth.JWKS.CacheExpiryTime";
+    private static final int DEFAULT_JWKS_CACHE_EXPIRY_TIME_IN_SECONDS = 300;
+
+    // Pre-serialized JWKS documents keyed by tenant domain.
+    private static final Map<String, JwksDocument> jwksDocuments = new ConcurrentHashMap<>();
+
     @GET
     @Path(value = "/jwks")
     @Produces(MediaType.APPLICATION_JSON)
-    public String jwks() {
+    public Response jwks(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
 
         String tenantDomain = getTenantDomain();
-        String keystorePath = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_LOCATION);
+        JwksDocument jwksDocument = jwksDocuments.get(tenantDomain);
+        if (jwksDocument != null && jwksDocument.builtTime <= OAuth2Util.getSigningKeyClearedTime(tenantDomain)) {
+            // The signing keys of the tenant were cleared after the document was built, so build it again from the
+            // keystore instead of renewing it.
+            jwksDocument = null;
+        }
+
+        if (jwksDocument == null || jwksDocument.isExpired(System.currentTimeMillis())) {
+            try {
+                int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+                if (!MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain) &&
+                        isInvalidTenantId(tenantId)) {
+                    String errorMessage = "Invalid Tenant: " + tenantDomain;
+                    return logAndReturnError(errorMessage, null, Response.Status.BAD_REQUEST);
+                }
+                jwksDocument = loadJwksDocument(tenantDomain, tenantId, jwksDocument);
+                jwksDocuments.put(tenantDomain, jwksDocument);
+            } catch (Exception e) {
+                String errorMessage = "Error while generating the keyset for " + tenantDomain + " tenant domain.";
+                return logAndReturnError(errorMessage, e, Response.Status.INTERNAL_SERVER_ERROR);
+            }
+        }
 
-        try (FileInputStream file = new FileInputStream(keystorePath)) {
-            int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-            RSAPublicKey publicKey;
-            if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain)) {
+        if (jwksDocument.matches(ifNoneMatch)) {
+            return Response.notModified(jwksDocument.entityTag).cacheControl(jwksDocument.cacheControl).build();
+        }
+        return Response.ok(jwksDocument.body, MediaType.APPLICATION_JSON).tag(jwksDocument.entityTag)
+                .cacheControl(jwksDocument.cacheControl).build();
+    }
+
+    /**
+     * Clear the cached documents of all tenants. This is only used by tests.
+     */
+    static void clearJwksCache() {
+
+        jwksDocuments.clear();
+    }
+
+    private JwksDocument loadJwksDocument(String tenantDomain, int tenantId, JwksDocument expiredDocument)
+            throws Exception {
+
+        long expiryTimeInMillis = getJwksCacheExpiryTimeInMillis();
+        RSAPublicKey publicKey;
+        long keystoreLastModified = 0;
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain)) {
+            File keystoreFile = new File(CarbonUtils.getServerConfiguration()
+                    .getFirstProperty(SECURITY_KEY_STORE_LOCATION));
+            keystoreLastModified = keystoreFile.lastModified();
+            if (expiredDocument != null && keystoreLastModified != 0 &&
+                    expiredDocument.keystoreLastModified == keystoreLastModified) {
+                // The keystore has not been changed since the document was built, so keep serving it.
+                return expiredDocument.renew(expiryTimeInMillis);
+            }
+            try (FileInputStream file = new FileInputStream(keystoreFile)) {
                 KeyStore keystore = KeyStore.getInstance(KeyStore.getDefaultType());
                 String password = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_PW);
                 keystore.load(file, password.toCharArray());
                 String alias = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_KEY_ALIAS);
                 // Get certificate of public key
                 publicKey = getRsaPublicKey(alias, keystore);
-            } else {
-                if (isInvalidTenantId(tenantId)) {
-                    String errorMessage = "Invalid Tenant: " + tenantDomain;
-                    return logAndReturnError(errorMessage, null);
-                }
-                KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
-                KeyStore keyStore = keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
-                // Get certificate of public key
-                publicKey = getRsaPublicKey(tenantDomain, keyStore);
             }
-            return buildResponse(tenantDomain, tenantId, publicKey);
-        } catch (Exception e) {
-            String errorMessage = "Error while generating the keyset for " + tenantDomain + " tenant domain.";
-            return logAndReturnError(errorMessage, e);
+        } else {
+            KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+            KeyStore keyStore = keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
+            // Get certificate of public key
+            publicKey = getRsaPublicKey(tenantDomain, keyStore);
         }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Building the JWKS document of tenant domain: " + tenantDomain);
+        }
+        return new JwksDocument(buildResponse(tenantDomain, tenantId, publicKey), keystoreLastModified,
+                expiryTimeInMillis);
     }
 
     private String buildResponse(String tenantDomain, int tenantId, RSAPublicKey publicKey)
@@ -121,13 +195,19 @@ public class JwksEndpoint {
         return MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
     }
 
-    private String logAndReturnError(String errorMesage, Exception e) {
+    private Response logAndReturnError(String errorMesage, Exception e, Response.Status status) {
         if (e != null) {
             log.error(errorMesage, e);
         } else {
             log.error(errorMesage);
         }
-        return errorMesage;
+        return Response.status(status).entity(errorMesage).build();
+    }
+
+    private long getJwksCacheExpiryTimeInMillis() {
+
+        return TimeUnit.SECONDS.toMillis(OAuth2PropertyUtil.getIntProperty(JWKS_CACHE_EXPIRY_TIME,
+                DEFAULT_JWKS_CACHE_EXPIRY_TIME_IN_SECONDS, 0));
     }
 
     /**
@@ -139,4 +219,71 @@ public class JwksEndpoint {
         String ksName = tenantDomain.trim().replace(".", "-");
         return (ksName + ".jks");
     }
+
+    /**
+     * Serialized JWKS document of a tenant along with its entity tag and the keystore state it was built from. The
+     * document is built again when the signing keys of the tenant are cleared through
+     * {@link OAuth2Util#clearSigningKeyCache(int)} after the build time.
+     */
+    private static class JwksDocument {
+
+        private final String body;
+        private final EntityTag entityTag;
+        private final CacheControl cacheControl;
+        private final long keystoreLastModified;
+        private final long builtTime;
+        private final long validUntil;
+
+        private JwksDocument(String body, long keystoreLastModified, long expiryTimeInMillis) {
+
+            this(body, new EntityTag(DigestUtils.sha256Hex(body)), keystoreLastModified, System.currentTimeMillis(),
+                    expiryTimeInMillis);
+        }
+
+        private JwksDocument(String body, EntityTag entityTag, long keystoreLastModified, long builtTime,
+                             long expiryTimeInMillis) {
+
+            this.body = body;
+            this.entityTag = entityTag;
+            this.keystoreLastModified = keystoreLastModified;
+            this.builtTime = builtTime;
+            this.validUntil = System.currentTimeMillis() + expiryTimeInMillis;
+            this.cacheControl = new CacheControl();
+            this.cacheControl.setMaxAge((int) TimeUnit.MILLISECONDS.toSeconds(expiryTimeInMillis));
+        }
+
+        private JwksDocument renew(long expiryTimeInMillis) {
+
+            return new JwksDocument(body, entityTag, keystoreLastModified, builtTime, expiryTimeInMillis);
+        }
+
+        private boolean isExpired(long now) {
+
+            return now >= validUntil;
+        }
+
+        /**
+         * @param ifNoneMatch value of the If-None-Match request header
+         * @return true if the client already holds the current version of the document
+         */
+        private boolean matches(String ifNoneMatch) {
+
+            if (StringUtils.isBlank(ifNoneMatch)) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if ("*".equals(tag)) {
+                    return true;
+                }
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (StringUtils.strip(tag, "\"").equals(entityTag.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
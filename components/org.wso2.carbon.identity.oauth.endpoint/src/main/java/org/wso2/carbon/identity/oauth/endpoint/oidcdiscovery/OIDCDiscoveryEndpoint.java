@@ -26,18 +26,25 @@ import org.wso2.carbon.base.ServerConfigurationException;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.discovery.OIDCDiscoveryEndPointException;
 import org.wso2.carbon.identity.discovery.OIDCProcessor;
+import org.wso2.carbon.identity.discovery.OIDProviderConfigCache;
+import org.wso2.carbon.identity.discovery.OIDProviderConfigDocument;
 import org.wso2.carbon.identity.discovery.builders.OIDProviderResponseBuilder;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.endpoint.oidcdiscovery.impl.OIDProviderJSONResponseBuilder;
 import org.wso2.carbon.identity.oauth.endpoint.util.EndpointUtil;
 
+import java.util.concurrent.TimeUnit;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 @Path("/oidcdiscovery")
@@ -48,7 +55,8 @@ public class OIDCDiscoveryEndpoint {
     @GET
     @Path("/.well-known/openid-configuration")
     @Produces("application/json")
-    public Response getOIDProviderConfiguration(@Context HttpServletRequest request) {
+    public Response getOIDProviderConfiguration(@Context HttpServletRequest request,
+                                                @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
 
         String tenantDomain = null;
         Object tenantObj = IdentityUtil.threadLocalProperties.get().get(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
@@ -59,24 +67,36 @@ public class OIDCDiscoveryEndpoint {
             tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
         }
 
-        return this.getResponse(request, tenantDomain);
+        return this.getResponse(request, tenantDomain, ifNoneMatch);
     }
 
-    private Response getResponse(HttpServletRequest request, String tenant) {
-        String response;
-        OIDCProcessor processor = EndpointUtil.getOIDCService();
-        try {
-            OIDProviderResponseBuilder responseBuilder = new OIDProviderJSONResponseBuilder();
-            response = responseBuilder.getOIDProviderConfigString(processor.getResponse(request, tenant));
-        } catch (OIDCDiscoveryEndPointException e) {
-            Response.ResponseBuilder errorResponse = Response.status(processor.handleError(e));
-            return errorResponse.entity(e.getMessage()).build();
-        } catch (ServerConfigurationException e) {
-            log.error("Server Configuration error occured.", e);
-            Response.ResponseBuilder errorResponse = Response.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            return errorResponse.entity("Error in reading configuration.").build();
+    private Response getResponse(HttpServletRequest request, String tenant, String ifNoneMatch) {
+
+        OIDProviderConfigCache cache = OIDProviderConfigCache.getInstance();
+        OIDProviderConfigDocument document = cache.getValueFromCache(tenant);
+        if (document == null) {
+            OIDCProcessor processor = EndpointUtil.getOIDCService();
+            try {
+                OIDProviderResponseBuilder responseBuilder = new OIDProviderJSONResponseBuilder();
+                String response = responseBuilder.getOIDProviderConfigString(processor.getResponse(request, tenant));
+                document = cache.addToCache(tenant, response);
+            } catch (OIDCDiscoveryEndPointException e) {
+                Response.ResponseBuilder errorResponse = Response.status(processor.handleError(e));
+                return errorResponse.entity(e.getMessage()).build();
+            } catch (ServerConfigurationException e) {
+                log.error("Server Configuration error occured.", e);
+                Response.ResponseBuilder errorResponse = Response.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return errorResponse.entity("Error in reading configuration.").build();
+            }
+        }
+
+        EntityTag entityTag = new EntityTag(document.getEntityTag());
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge((int) TimeUnit.MILLISECONDS.toSeconds(cache.getExpiryTimeInMillis()));
+        if (document.matches(ifNoneMatch)) {
+            return Response.notModified(entityTag).cacheControl(cacheControl).build();
         }
         Response.ResponseBuilder responseBuilder = Response.status(HttpServletResponse.SC_OK);
-        return responseBuilder.entity(response).build();
+        return responseBuilder.entity(document.getBody()).tag(entityTag).cacheControl(cacheControl).build();
     }
 }
@@ -75,6 +75,7 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeRespDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.model.CarbonOAuthAuthzRequest;
 import org.wso2.carbon.identity.oauth2.model.OAuth2Parameters;
+import org.wso2.carbon.identity.oauth2.util.IDTokenVerifier;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionManager;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionState;
@@ -85,7 +86,6 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.file.Paths;
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -129,7 +129,7 @@ import static org.testng.FileAssert.fail;
 @PrepareForTest({ OAuth2Util.class, SessionDataCache.class, OAuthServerConfiguration.class, IdentityDatabaseUtil.class,
         EndpointUtil.class, FrameworkUtils.class, EndpointUtil.class, OpenIDConnectUserRPStore.class,
         CarbonOAuthAuthzRequest.class, IdentityTenantUtil.class, OAuthResponse.class, SignedJWT.class,
-        OIDCSessionManagementUtil.class, CarbonUtils.class, SessionDataCache.class})
+        OIDCSessionManagementUtil.class, CarbonUtils.class, SessionDataCache.class, IDTokenVerifier.class})
 public class OAuth2AuthzEndpointTest extends TestOAuthEndpointBase {
 
     @Mock
@@ -174,6 +174,9 @@ public class OAuth2AuthzEndpointTest extends TestOAuthEndpointBase {
     @Mock
     SignedJWT signedJWT;
 
+    @Mock
+    IDTokenVerifier idTokenVerifier;
+
     @Mock
     ReadOnlyJWTClaimsSet readOnlyJWTClaimsSet;
 
@@ -1018,15 +1021,9 @@ public class OAuth2AuthzEndpointTest extends TestOAuthEndpointBase {
         when(openIDConnectUserRPStore.hasUserApproved(any(AuthenticatedUser.class), anyString(), anyString())).
                 thenReturn(hasUserApproved);
 
-        spy(OAuth2Util.class);
-        doReturn(idTokenHintValid).when(OAuth2Util.class, "validateIdToken", anyString());
-
-        mockStatic(SignedJWT.class);
-        if ("invalid".equals(idTokenHint)) {
-            when(SignedJWT.parse(anyString())).thenThrow(new ParseException("error",1));
-        } else {
-            when(SignedJWT.parse(anyString())).thenReturn(signedJWT);
-        }
+        mockStatic(IDTokenVerifier.class);
+        when(IDTokenVerifier.getInstance()).thenReturn(idTokenVerifier);
+        when(idTokenVerifier.verify(anyString())).thenReturn(idTokenHintValid ? signedJWT : null);
         when(signedJWT.getJWTClaimsSet()).thenReturn(readOnlyJWTClaimsSet);
         when(readOnlyJWTClaimsSet.getSubject()).thenReturn(idTokenHintSubject);
         when(oAuth2Service.getOauthApplicationState(CLIENT_ID_VALUE)).thenReturn("ACTIVE");
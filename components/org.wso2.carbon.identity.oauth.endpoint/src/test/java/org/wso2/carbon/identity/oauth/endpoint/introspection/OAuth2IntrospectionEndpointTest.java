@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.introspection;
+
+import org.json.JSONArray;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.ws.rs.core.Response;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for OAuth2IntrospectionEndpoint.
+ */
+@PrepareForTest({PrivilegedCarbonContext.class})
+public class OAuth2IntrospectionEndpointTest extends PowerMockIdentityBaseTest {
+
+    private static final String ACTIVE_TOKEN_PREFIX = "active";
+
+    @Mock
+    private PrivilegedCarbonContext mockedPrivilegedCarbonContext;
+
+    @Mock
+    private OAuth2TokenValidationService mockedTokenValidationService;
+
+    private OAuth2IntrospectionEndpoint introspectionEndpoint;
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(PrivilegedCarbonContext.class);
+        when(PrivilegedCarbonContext.getThreadLocalCarbonContext()).thenReturn(mockedPrivilegedCarbonContext);
+        when(mockedPrivilegedCarbonContext.getOSGiService(OAuth2TokenValidationService.class))
+                .thenReturn(mockedTokenValidationService);
+        when(mockedTokenValidationService.buildIntrospectionResponses(any(OAuth2TokenValidationRequestDTO[].class)))
+                .thenAnswer(new Answer<OAuth2IntrospectionResponseDTO[]>() {
+                    @Override
+                    public OAuth2IntrospectionResponseDTO[] answer(InvocationOnMock invocation) {
+
+                        OAuth2TokenValidationRequestDTO[] requests =
+                                (OAuth2TokenValidationRequestDTO[]) invocation.getArguments()[0];
+                        OAuth2IntrospectionResponseDTO[] responses =
+                                new OAuth2IntrospectionResponseDTO[requests.length];
+                        for (int i = 0; i < requests.length; i++) {
+                            String token = requests[i].getAccessToken().getIdentifier();
+                            responses[i] = new OAuth2IntrospectionResponseDTO();
+                            responses[i].setActive(token.startsWith(ACTIVE_TOKEN_PREFIX));
+                            responses[i].setClientId(token);
+                        }
+                        return responses;
+                    }
+                });
+        introspectionEndpoint = new OAuth2IntrospectionEndpoint();
+    }
+
+    @DataProvider(name = "invalidTokenLists")
+    public Object[][] invalidTokenLists() {
+
+        return new Object[][]{
+                {null},
+                {Collections.emptyList()},
+                {Arrays.asList(ACTIVE_TOKEN_PREFIX + "1", " ")},
+                {getTokens(101)}
+        };
+    }
+
+    @Test(dataProvider = "invalidTokenLists")
+    public void testIntrospectBatchWithInvalidTokens(List<String> tokens) {
+
+        Response response = introspectionEndpoint.introspectBatch(tokens, null);
+
+        assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+        verify(mockedTokenValidationService, never())
+                .buildIntrospectionResponses(any(OAuth2TokenValidationRequestDTO[].class));
+    }
+
+    @Test
+    public void testIntrospectBatchWithMaximumNumberOfTokens() throws Exception {
+
+        Response response = introspectionEndpoint.introspectBatch(getTokens(100), null);
+
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        assertEquals(new JSONArray((String) response.getEntity()).length(), 100);
+    }
+
+    @Test
+    public void testIntrospectBatchPreservesOrder() throws Exception {
+
+        List<String> tokens = Arrays.asList(ACTIVE_TOKEN_PREFIX + "1", "revoked2", ACTIVE_TOKEN_PREFIX + "3");
+
+        Response response = introspectionEndpoint.introspectBatch(tokens, "bearer");
+
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        JSONArray introspectionResponses = new JSONArray((String) response.getEntity());
+        assertEquals(introspectionResponses.length(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(introspectionResponses.getJSONObject(i).getString(IntrospectionResponse.CLIENT_ID),
+                    tokens.get(i));
+            assertEquals(introspectionResponses.getJSONObject(i).getBoolean(IntrospectionResponse.ACTIVE),
+                    tokens.get(i).startsWith(ACTIVE_TOKEN_PREFIX));
+        }
+    }
+
+    private List<String> getTokens(int count) {
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tokens.add(ACTIVE_TOKEN_PREFIX + i);
+        }
+        return tokens;
+    }
+}
@@ -46,12 +46,20 @@ import java.nio.file.Paths;
 import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -101,6 +109,87 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
 
     @Test(dataProvider = "provideTenantDomain")
     public void testJwks(String tenantDomain, int tenantId) throws Exception {
+
+        ThreadLocal<Map<String, Object>> threadLocalProperties = mockJwksDependencies(tenantDomain, tenantId);
+        JwksEndpoint.clearJwksCache();
+
+        Response response = jwksEndpoint.jwks(null);
+        String result = (String) response.getEntity();
+
+        try {
+            JSONObject jwksJson = new JSONObject(result);
+            JSONArray objectArray = jwksJson.getJSONArray("keys");
+            JSONObject keyObject = objectArray.getJSONObject(0);
+            assertEquals(keyObject.get("kid"), CERT_THUMB_PRINT, "Incorrect kid value");
+            assertEquals(keyObject.get("alg"), ALG, "Incorrect alg value");
+            assertEquals(keyObject.get("use"), USE, "Incorrect use value");
+            assertEquals(keyObject.get("kty"), "RSA", "Incorrect kty value");
+            assertEquals(response.getStatus(), Response.Status.OK.getStatusCode(), "Incorrect response status");
+        } catch (JSONException e) {
+            if ("invalid.com".equals(tenantDomain)) {
+                assertTrue(result.contains("Invalid Tenant"),
+                        "Error message for non existing tenant is not found");
+            } else if (tenantDomain == null) {
+                assertTrue(result.contains("Error while generating the keyset"),
+                        "Error message for thrown exception is not found");
+            } else {
+                fail("Unexpected exception: " + e.getMessage());
+            }
+        }
+
+        threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
+    }
+
+    @Test
+    public void testJwksIsServedFromCache() throws Exception {
+
+        reset(keyStoreManager);
+        ThreadLocal<Map<String, Object>> threadLocalProperties = mockJwksDependencies("foo.com", 1);
+        JwksEndpoint.clearJwksCache();
+
+        Response response = jwksEndpoint.jwks(null);
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode(), "Incorrect response status");
+        Object eTag = response.getMetadata().getFirst(HttpHeaders.ETAG);
+        assertNotNull(eTag, "ETag header is not set");
+        assertNotNull(response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL), "Cache-Control header is not set");
+
+        Response cachedResponse = jwksEndpoint.jwks(null);
+        assertEquals(cachedResponse.getEntity(), response.getEntity(), "Cached JWKS document is different");
+        assertEquals(cachedResponse.getMetadata().getFirst(HttpHeaders.ETAG), eTag, "ETag changed between calls");
+
+        Response notModifiedResponse = jwksEndpoint.jwks("\"" + ((EntityTag) eTag).getValue() + "\"");
+        assertEquals(notModifiedResponse.getStatus(), Response.Status.NOT_MODIFIED.getStatusCode(),
+                "Matching If-None-Match header should return 304");
+        assertNull(notModifiedResponse.getEntity(), "304 response should not have a body");
+
+        Response modifiedResponse = jwksEndpoint.jwks("\"outdated\"");
+        assertEquals(modifiedResponse.getStatus(), Response.Status.OK.getStatusCode(),
+                "Non matching If-None-Match header should return the document");
+
+        // The tenant keystore should be loaded only once while the cached document is valid.
+        verify(keyStoreManager, times(1)).getKeyStore("foo-com.jks");
+
+        threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
+    }
+
+    @Test
+    public void testJwksIsRebuiltWhenSigningKeysAreCleared() throws Exception {
+
+        reset(keyStoreManager);
+        ThreadLocal<Map<String, Object>> threadLocalProperties = mockJwksDependencies("foo.com", 1);
+        JwksEndpoint.clearJwksCache();
+
+        assertEquals(jwksEndpoint.jwks(null).getStatus(), Response.Status.OK.getStatusCode());
+        when(OAuth2Util.getSigningKeyClearedTime("foo.com")).thenReturn(System.currentTimeMillis());
+        assertEquals(jwksEndpoint.jwks(null).getStatus(), Response.Status.OK.getStatusCode());
+
+        verify(keyStoreManager, times(2)).getKeyStore("foo-com.jks");
+
+        threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
+    }
+
+    private ThreadLocal<Map<String, Object>> mockJwksDependencies(String tenantDomain, int tenantId) throws Exception {
+
         Path keystorePath = Paths.get(System.getProperty(CarbonBaseConstants.CARBON_HOME), "repository", "resources",
                 "security", "wso2carbon.jks");
         mockOAuthServerConfiguration();
@@ -138,30 +227,7 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
         mockStatic(KeyStoreManager.class);
         when(KeyStoreManager.getInstance(anyInt())).thenReturn(keyStoreManager);
         when(keyStoreManager.getKeyStore("foo-com.jks")).thenReturn(getKeyStoreFromFile("foo-com.jks", "foo.com"));
-
-        String result = jwksEndpoint.jwks();
-
-        try {
-            JSONObject jwksJson = new JSONObject(result);
-            JSONArray objectArray = jwksJson.getJSONArray("keys");
-            JSONObject keyObject = objectArray.getJSONObject(0);
-            assertEquals(keyObject.get("kid"), CERT_THUMB_PRINT, "Incorrect kid value");
-            assertEquals(keyObject.get("alg"), ALG, "Incorrect alg value");
-            assertEquals(keyObject.get("use"), USE, "Incorrect use value");
-            assertEquals(keyObject.get("kty"), "RSA", "Incorrect kty value");
-        } catch (JSONException e) {
-            if ("invalid.com".equals(tenantDomain)) {
-                assertTrue(result.contains("Invalid Tenant"),
-                        "Error message for non existing tenant is not found");
-            } else if (tenantDomain == null) {
-                assertTrue(result.contains("Error while generating the keyset"),
-                        "Error message for thrown exception is not found");
-            } else {
-                fail("Unexpected exception: " + e.getMessage());
-            }
-        }
-
-        threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
+        return threadLocalProperties;
     }
 
     private void mockOAuthServerConfiguration() throws Exception {
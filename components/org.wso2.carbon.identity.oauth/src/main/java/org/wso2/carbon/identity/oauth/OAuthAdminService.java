@@ -30,7 +30,6 @@ import org.wso2.carbon.identity.application.common.IdentityApplicationManagement
 import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.cache.AppInfoCache;
-import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
@@ -47,8 +46,11 @@ import org.wso2.carbon.identity.oauth.event.OAuthEventInterceptor;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.dao.TokenRevocationFilter;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
-import org.wso2.carbon.identity.oauth2.model.ClientCredentialDO;
+import org.wso2.carbon.identity.oauth2.util.BulkTokenRevocationEngine;
+import org.wso2.carbon.identity.oauth2.util.BulkTokenRevocationProgress;
+import org.wso2.carbon.identity.oauth2.util.ClientCredentialVerifier;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
@@ -443,49 +445,32 @@ public class OAuthAdminService extends AbstractAdmin {
     public void updateOauthSecretKey(String consumerKey) throws IdentityOAuthAdminException {
 
         String newSecretKey = OAuthUtil.getRandomNumber();
-        CacheEntry clientCredentialDO = new ClientCredentialDO(newSecretKey);
         Properties properties = new Properties();
         properties.setProperty(OAuthConstants.OAUTH_APP_NEW_SECRET_KEY, newSecretKey);
         properties.setProperty(OAuthConstants.ACTION_PROPERTY_KEY, OAuthConstants.ACTION_REGENERATE);
         updateAppAndRevokeTokensAndAuthzCodes(consumerKey, properties);
-        OAuthCache.getInstance().addToCache(new OAuthCacheKey(consumerKey), clientCredentialDO);
+        // The new secret is cached by the next successful client authentication.
+        ClientCredentialVerifier.getInstance().invalidate(consumerKey);
         if (log.isDebugEnabled()) {
-            log.debug("Client Secret for OAuth app with consumerKey: " + consumerKey + " updated in OAuthCache.");
+            log.debug("Client Secret for OAuth app with consumerKey: " + consumerKey + " updated.");
         }
     }
 
+    /**
+     * Revoke the access tokens and authorization codes of an application and update its state or secret.
+     * <p>
+     * The access tokens are revoked in several transactions before the application is updated, so that a failure
+     * leaves the application unchanged and the call can be retried until all tokens are revoked. Tokens issued while
+     * the application is being updated are revoked once it is updated.
+     */
     private void updateAppAndRevokeTokensAndAuthzCodes(String consumerKey,
                                                        Properties properties) throws IdentityOAuthAdminException {
-        int countToken = 0;
         try {
-            Set<AccessTokenDO> activeDetailedTokens = OAuthTokenPersistenceFactory.getInstance()
-                    .getAccessTokenDAO().getActiveAcessTokenDataByConsumerKey(consumerKey);
-            String[] accessTokens = new String[activeDetailedTokens.size()];
-
-            for (AccessTokenDO detailToken : activeDetailedTokens) {
-                String token = detailToken.getAccessToken();
-                accessTokens[countToken] = token;
-                countToken++;
-
-                OAuthCacheKey cacheKeyToken = new OAuthCacheKey(token);
-                OAuthCache.getInstance().clearCacheEntry(cacheKeyToken);
-
-                String scope = OAuth2Util.buildScopeString(detailToken.getScope());
-                String authorizedUser = detailToken.getAuthzUser().toString();
-                boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(authorizedUser);
-                String cacheKeyString;
-                if (isUsernameCaseSensitive) {
-                    cacheKeyString = consumerKey + ":" + authorizedUser + ":" + scope;
-                } else {
-                    cacheKeyString = consumerKey + ":" + authorizedUser.toLowerCase() + ":" + scope;
-                }
-                OAuthCacheKey cacheKeyUser = new OAuthCacheKey(cacheKeyString);
-                OAuthCache.getInstance().clearCacheEntry(cacheKeyUser);
-            }
-
+            BulkTokenRevocationProgress progress = BulkTokenRevocationEngine.getInstance()
+                    .revokeTokens(TokenRevocationFilter.forConsumerKey(consumerKey), false);
             if (log.isDebugEnabled()) {
-                log.debug("Access tokens and token of users are removed from the cache for OAuth App with " +
-                        "consumerKey: " + consumerKey);
+                log.debug(progress.getAccessTokenCount() + " access tokens are revoked and removed from the cache " +
+                        "for OAuth App with consumerKey: " + consumerKey);
             }
 
             Set<String> authorizationCodes = OAuthTokenPersistenceFactory.getInstance()
@@ -495,13 +480,20 @@ public class OAuthAdminService extends AbstractAdmin {
                 OAuthCache.getInstance().clearCacheEntry(cacheKey);
             }
             if (log.isDebugEnabled()) {
-                log.debug("Access tokens are removed from the cache for OAuth App with consumerKey: " + consumerKey);
+                log.debug("Authorization codes are removed from the cache for OAuth App with consumerKey: " +
+                        consumerKey);
             }
 
             OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO()
                     .updateAppAndRevokeTokensAndAuthzCodes(consumerKey, properties,
-                            authorizationCodes.toArray(new String[authorizationCodes.size()]), accessTokens);
+                            authorizationCodes.toArray(new String[authorizationCodes.size()]), new String[0]);
 
+            progress = BulkTokenRevocationEngine.getInstance()
+                    .revokeTokens(TokenRevocationFilter.forConsumerKey(consumerKey), false);
+            if (log.isDebugEnabled()) {
+                log.debug(progress.getAccessTokenCount() + " access tokens issued while updating the OAuth App " +
+                        "with consumerKey: " + consumerKey + " are revoked.");
+            }
         } catch (IdentityOAuth2Exception | IdentityApplicationManagementException e) {
             throw handleError("Error in updating oauth app & revoking access tokens and authz " +
                     "codes for OAuth App with consumerKey: " + consumerKey, e);
@@ -516,10 +508,19 @@ public class OAuthAdminService extends AbstractAdmin {
      */
     public void removeOAuthApplicationData(String consumerKey) throws IdentityOAuthAdminException {
 
+        try {
+            // Access tokens are deleted along with the application, hence remove them from the cache beforehand.
+            BulkTokenRevocationEngine.getInstance()
+                    .clearCachedTokens(TokenRevocationFilter.forConsumerKey(consumerKey));
+        } catch (IdentityOAuth2Exception e) {
+            throw handleError("Error while removing access tokens of OAuth App with consumerKey: " + consumerKey +
+                    " from the cache", e);
+        }
         OAuthAppDAO dao = new OAuthAppDAO();
         dao.removeConsumerApplication(consumerKey);
         // remove client credentials from cache
         OAuthCache.getInstance().clearCacheEntry(new OAuthCacheKey(consumerKey));
+        ClientCredentialVerifier.getInstance().invalidate(consumerKey);
         AppInfoCache.getInstance().clearCacheEntry(consumerKey);
         if (log.isDebugEnabled()) {
             log.debug("Client credentials are removed from the cache for OAuth App with consumerKey: " + consumerKey);
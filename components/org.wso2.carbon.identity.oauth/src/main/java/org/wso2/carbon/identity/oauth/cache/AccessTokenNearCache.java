@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.ExpiringCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional node local, on heap cache of active access tokens keyed by the token identifier. It is consulted before
+ * the distributed {@link OAuthCache} when validating bearer tokens so that repeated validation of the same token on
+ * a node does not need a cluster cache round trip.
+ * <p>
+ * Entries live until the earlier of the configured time to live and the remaining lifetime of the access token.
+ * They are invalidated whenever the corresponding {@link OAuthCache} entry is cleared or removed, which covers
+ * revocation and cache invalidation messages received from other nodes.
+ */
+public class AccessTokenNearCache {
+
+    private static final Log log = LogFactory.getLog(AccessTokenNearCache.class);
+
+    // These config properties are defined in identity.xml
+    private static final String NEAR_CACHE_ENABLE = "OAuth.AccessTokenNearCache.Enable";
+    private static final String NEAR_CACHE_CAPACITY = "OAuth.AccessTokenNearCache.Capacity";
+    private static final String NEAR_CACHE_TIME_TO_LIVE = "OAuth.AccessTokenNearCache.TimeToLive";
+
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_TIME_TO_LIVE_IN_SECONDS = 60;
+
+    private static volatile AccessTokenNearCache instance;
+
+    private final boolean enabled;
+    private final long timeToLiveInMillis;
+    private final ExpiringCache<String, AccessTokenDO> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    AccessTokenNearCache(boolean enabled, int capacity, long timeToLiveInMillis) {
+
+        this.enabled = enabled;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+        this.entries = new ExpiringCache<>(capacity);
+    }
+
+    public static AccessTokenNearCache getInstance() {
+
+        if (instance == null) {
+            synchronized (AccessTokenNearCache.class) {
+                if (instance == null) {
+                    boolean enabled = OAuth2PropertyUtil.getBooleanProperty(NEAR_CACHE_ENABLE, false);
+                    int capacity = OAuth2PropertyUtil.getIntProperty(NEAR_CACHE_CAPACITY, DEFAULT_CAPACITY, 1);
+                    int timeToLive = OAuth2PropertyUtil.getIntProperty(NEAR_CACHE_TIME_TO_LIVE,
+                            DEFAULT_TIME_TO_LIVE_IN_SECONDS, 1);
+                    if (enabled) {
+                        log.info("Access token near cache is enabled with capacity : " + capacity +
+                                " and time to live : " + timeToLive + "s");
+                    }
+                    instance = new AccessTokenNearCache(enabled, capacity, TimeUnit.SECONDS.toMillis(timeToLive));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * @param tokenIdentifier access token identifier
+     * @return cached access token or null if it is not cached or has expired
+     */
+    public AccessTokenDO getValueFromCache(String tokenIdentifier) {
+
+        if (!enabled || tokenIdentifier == null) {
+            return null;
+        }
+
+        AccessTokenDO accessTokenDO = entries.get(tokenIdentifier);
+        if (accessTokenDO == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return accessTokenDO;
+    }
+
+    public void addToCache(String tokenIdentifier, AccessTokenDO accessTokenDO) {
+
+        if (!enabled || tokenIdentifier == null || accessTokenDO == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long expiryTime = now + timeToLiveInMillis;
+        // A negative validity period means that the access token never expires.
+        if (accessTokenDO.getValidityPeriodInMillis() >= 0 && accessTokenDO.getIssuedTime() != null) {
+            long tokenExpiryTime = accessTokenDO.getIssuedTime().getTime() + accessTokenDO.getValidityPeriodInMillis();
+            if (tokenExpiryTime <= now) {
+                return;
+            }
+            expiryTime = Math.min(expiryTime, tokenExpiryTime);
+        }
+        entries.put(tokenIdentifier, accessTokenDO, expiryTime);
+    }
+
+    public void clearCacheEntry(String tokenIdentifier) {
+
+        if (enabled && tokenIdentifier != null) {
+            entries.remove(tokenIdentifier);
+        }
+    }
+
+    public void clear() {
+
+        entries.clear();
+    }
+
+    public int size() {
+
+        return entries.size();
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+}
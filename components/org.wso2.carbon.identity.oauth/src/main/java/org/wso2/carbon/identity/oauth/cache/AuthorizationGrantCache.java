@@ -20,7 +20,6 @@ package org.wso2.carbon.identity.oauth.cache;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
 import org.wso2.carbon.identity.application.common.cache.BaseCache;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
@@ -36,11 +35,14 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
     private static volatile AuthorizationGrantCache instance;
     private static final Log log = LogFactory.getLog(AuthorizationGrantCache.class);
 
+    private final AuthorizationGrantCacheWriteBehindStore sessionStore;
+
     /**
      * Private constructor which will not allow to create objects of this class from outside
      */
     private AuthorizationGrantCache() {
         super(AUTHORIZATION_GRANT_CACHE_NAME);
+        sessionStore = AuthorizationGrantCacheWriteBehindStore.create(AUTHORIZATION_GRANT_CACHE_NAME);
     }
 
     /**
@@ -59,6 +61,17 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
         }
         return instance;
     }
+
+    /**
+     * Get the store that writes the cache entries to the SessionDataStore. It reports the store lag and the number of
+     * writes saved when write behind is enabled.
+     *
+     * @return session data store of the cache entries
+     */
+    public AuthorizationGrantCacheWriteBehindStore getSessionStore() {
+        return sessionStore;
+    }
+
     /**
      * Add a cache entry by access token.
      *
@@ -69,9 +82,9 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
         super.addToCache(key, entry);
         String tokenId = entry.getTokenId();
         if (tokenId != null) {
-            storeToSessionStore(tokenId, entry);
+            storeToSessionStore(tokenId, entry, false);
         } else {
-            storeToSessionStore(replaceFromTokenId(key.getUserAttributesId()), entry);
+            storeToSessionStore(replaceFromTokenId(key.getUserAttributesId()), entry, false);
         }
 
     }
@@ -100,6 +113,18 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
         clearFromSessionStore(replaceFromTokenId(key.getUserAttributesId()));
     }
 
+    /**
+     * Clears a cache entry by access token when the token id is already known, so that the token id is not looked
+     * up from the database.
+     *
+     * @param key     Key to clear cache.
+     * @param tokenId Id of the access token.
+     */
+    public void clearCacheEntryByTokenId(AuthorizationGrantCacheKey key, String tokenId) {
+        super.clearCacheEntry(key);
+        clearFromSessionStore(tokenId);
+    }
+
     /**
      * Add a cache entry by authorization code.
      *
@@ -108,7 +133,8 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
      */
     public void addToCacheByCode(AuthorizationGrantCacheKey key, AuthorizationGrantCacheEntry entry) {
         super.addToCache(key, entry);
-        storeToSessionStore(entry.getCodeId(), entry);
+        // Code ids are unique per authorization code and the entry is added once, when the code is issued.
+        storeToSessionStore(entry.getCodeId(), entry, true);
     }
 
     /**
@@ -136,6 +162,18 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
         clearFromSessionStore(replaceFromCodeId(key.getUserAttributesId()));
     }
 
+    /**
+     * Clears a cache entry by authorization code when the code id is already known, so that the code id is not
+     * looked up from the database.
+     *
+     * @param key    Key to clear cache.
+     * @param codeId Id of the authorization code.
+     */
+    public void clearCacheEntryByCodeId(AuthorizationGrantCacheKey key, String codeId) {
+        super.clearCacheEntry(key);
+        clearFromSessionStore(codeId);
+    }
+
     /**
      * Retrieve the authorization code id using the authorization code
      * @param authzCode Authorization code
@@ -171,7 +209,7 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
      * @param id to clear cache.
      */
     private void clearFromSessionStore(String id) {
-        SessionDataStore.getInstance().clearSessionData(id, AUTHORIZATION_GRANT_CACHE_NAME);
+        sessionStore.clear(id);
     }
 
     /**
@@ -180,17 +218,17 @@ public class AuthorizationGrantCache extends BaseCache<AuthorizationGrantCacheKe
      * @return
      */
     private AuthorizationGrantCacheEntry getFromSessionStore(String id) {
-        return (AuthorizationGrantCacheEntry) SessionDataStore.getInstance().getSessionData(id,
-                AUTHORIZATION_GRANT_CACHE_NAME);
+        return sessionStore.get(id);
     }
 
     /**
      * Store cache entry in SessionDataStore
      * @param id session data key
      * @param entry cache entry to store
+     * @param newEntry whether no entry can have been stored with the session data key before
      */
-    private void storeToSessionStore(String id, AuthorizationGrantCacheEntry entry) {
-        SessionDataStore.getInstance().storeSessionData(id, AUTHORIZATION_GRANT_CACHE_NAME, entry);
+    private void storeToSessionStore(String id, AuthorizationGrantCacheEntry entry, boolean newEntry) {
+        sessionStore.store(id, entry, newEntry);
     }
 
 }
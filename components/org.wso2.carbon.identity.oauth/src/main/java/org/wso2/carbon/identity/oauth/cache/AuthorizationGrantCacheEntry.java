@@ -21,43 +21,51 @@ package org.wso2.carbon.identity.oauth.cache;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.openidconnect.model.RequestObject;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.LinkedHashSet;
 import java.util.Map;
 
 /**
  * Contains authenticated user attributes and nonce value.
+ * <p>
+ * The fields are serialized with {@link CacheEntryCodec} rather than default Java serialization. The
+ * serialVersionUID was changed along with the format, so entries written by an older version can not be read. All
+ * the nodes of a cluster need to be restarted together when upgrading, and entries persisted in the session data
+ * store by the older version are discarded.
  */
 public class AuthorizationGrantCacheEntry extends CacheEntry {
 
-    private static final long serialVersionUID = -3043225645166013281L;
+    private static final long serialVersionUID = 2464467394920811009L;
 
-    private String codeId;
+    private transient String codeId;
 
-    private String tokenId;
+    private transient String tokenId;
 
-    private Map<ClaimMapping, String> userAttributes;
+    private transient Map<ClaimMapping, String> userAttributes;
 
-    private String nonceValue;
+    private transient String nonceValue;
 
-    private String pkceCodeChallenge;
+    private transient String pkceCodeChallenge;
 
-    private String pkceCodeChallengeMethod;
+    private transient String pkceCodeChallengeMethod;
 
-    private LinkedHashSet acrValue;
+    private transient LinkedHashSet acrValue;
 
-    private String essentialClaims;
+    private transient String essentialClaims;
 
-    private long authTime;
+    private transient long authTime;
 
-    private long maxAge;
+    private transient long maxAge;
 
-    private RequestObject requestObject;
+    private transient RequestObject requestObject;
 
     /*
         OIDC sub claim. This should be formatted based on the Service Provider configurations to append
         userStoreDomain and tenantDomain.
      */
-    private String subjectClaim;
+    private transient String subjectClaim;
 
     public String getSubjectClaim() {
         return subjectClaim;
@@ -158,4 +166,40 @@ public class AuthorizationGrantCacheEntry extends CacheEntry {
     public void setPkceCodeChallengeMethod(String pkceCodeChallengeMethod) {
         this.pkceCodeChallengeMethod = pkceCodeChallengeMethod;
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+
+        out.defaultWriteObject();
+        CacheEntryCodec.Writer writer = new CacheEntryCodec.Writer(out);
+        writer.writeString(codeId);
+        writer.writeString(tokenId);
+        writer.writeClaimMappings(userAttributes);
+        writer.writeString(nonceValue);
+        writer.writeString(pkceCodeChallenge);
+        writer.writeString(pkceCodeChallengeMethod);
+        writer.writeRawSet(acrValue);
+        writer.writeString(essentialClaims);
+        writer.writeVarLong(authTime);
+        writer.writeVarLong(maxAge);
+        writer.writeObject(requestObject);
+        writer.writeString(subjectClaim);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+        in.defaultReadObject();
+        CacheEntryCodec.Reader reader = new CacheEntryCodec.Reader(in);
+        codeId = reader.readString();
+        tokenId = reader.readString();
+        userAttributes = reader.readClaimMappings();
+        nonceValue = reader.readString();
+        pkceCodeChallenge = reader.readString();
+        pkceCodeChallengeMethod = reader.readString();
+        acrValue = reader.readRawSet();
+        essentialClaims = reader.readString();
+        authTime = reader.readVarLong();
+        maxAge = reader.readVarLong();
+        requestObject = (RequestObject) reader.readObject();
+        subjectClaim = reader.readString();
+    }
 }
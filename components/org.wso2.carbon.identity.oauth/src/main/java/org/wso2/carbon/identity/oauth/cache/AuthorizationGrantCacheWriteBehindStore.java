@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write behind buffer between {@link AuthorizationGrantCache} and the {@link SessionDataStore}. Stores and clears of
+ * cache entries are queued per session data key and written by a background thread every
+ * {@code OAuth.AuthorizationGrantCache.WriteBehind.FlushInterval} milliseconds.
+ * <p>
+ * Operations on the same key within a flush interval are coalesced so that only the last one is written. A clear of an
+ * entry that was added as a new entry and is not written yet, such as the authorization code entry that is replaced
+ * by the access token entry when the code is exchanged, drops both operations. Reads on this node see the queued
+ * operations. Other nodes may not find an entry in the store until it is written, but they are normally served by the
+ * distributed cache.
+ * <p>
+ * Write behind must only be enabled when the authorization grant cache is distributed across the cluster, since other
+ * nodes rely on the distributed cache to see an entry until it is written. With node local caches, a token request
+ * served by another node than the authorization request fails until the entry is written.
+ * <p>
+ * When {@code OAuth.AuthorizationGrantCache.WriteBehind.MaxPendingEntries} operations are queued, operations on keys
+ * that are not queued are written on the caller's thread. A write that fails is retried with the following flushes up
+ * to {@value #MAX_WRITE_ATTEMPTS} times before it is dropped. Pending operations are written when the store is shut
+ * down with the bundle.
+ */
+public class AuthorizationGrantCacheWriteBehindStore {
+
+    private static final Log log = LogFactory.getLog(AuthorizationGrantCacheWriteBehindStore.class);
+
+    // These config properties are defined in identity.xml
+    private static final String WRITE_BEHIND_ENABLE = "OAuth.AuthorizationGrantCache.WriteBehind.Enable";
+    private static final String WRITE_BEHIND_FLUSH_INTERVAL = "OAuth.AuthorizationGrantCache.WriteBehind.FlushInterval";
+    private static final String WRITE_BEHIND_MAX_PENDING_ENTRIES =
+            "OAuth.AuthorizationGrantCache.WriteBehind.MaxPendingEntries";
+
+    private static final int DEFAULT_FLUSH_INTERVAL_IN_MILLIS = 1000;
+    private static final int DEFAULT_MAX_PENDING_ENTRIES = 10000;
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final long SHUTDOWN_TIMEOUT_IN_MILLIS = 10000;
+
+    private final String cacheName;
+    private final boolean enabled;
+    private final int maxPendingEntries;
+    private final Map<String, PendingOperation> pendingOperations = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+
+    private final AtomicLong storedCount = new AtomicLong();
+    private final AtomicLong clearedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong synchronousWriteCount = new AtomicLong();
+    private final AtomicLong failedWriteCount = new AtomicLong();
+    private volatile long lastFlushLagInMillis;
+    private volatile long maxFlushLagInMillis;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean shutdown;
+
+    AuthorizationGrantCacheWriteBehindStore(String cacheName, boolean enabled, int maxPendingEntries) {
+
+        this.cacheName = cacheName;
+        this.enabled = enabled;
+        this.maxPendingEntries = maxPendingEntries;
+    }
+
+    /**
+     * Create the write behind store of a cache as configured in identity.xml and, if it is enabled, schedule the
+     * background flush.
+     *
+     * @param cacheName name under which entries are kept in the session data store
+     * @return write behind store
+     */
+    static AuthorizationGrantCacheWriteBehindStore create(String cacheName) {
+
+        boolean enabled = OAuth2PropertyUtil.getBooleanProperty(WRITE_BEHIND_ENABLE, false);
+        int flushInterval = OAuth2PropertyUtil.getIntProperty(WRITE_BEHIND_FLUSH_INTERVAL,
+                DEFAULT_FLUSH_INTERVAL_IN_MILLIS, 1);
+        int maxPendingEntries = OAuth2PropertyUtil.getIntProperty(WRITE_BEHIND_MAX_PENDING_ENTRIES,
+                DEFAULT_MAX_PENDING_ENTRIES, 1);
+        final AuthorizationGrantCacheWriteBehindStore store =
+                new AuthorizationGrantCacheWriteBehindStore(cacheName, enabled, maxPendingEntries);
+        if (enabled) {
+            log.info("Write behind of " + cacheName + " entries to the session data store is enabled with flush " +
+                    "interval : " + flushInterval + "ms and max pending entries : " + maxPendingEntries);
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+
+                    Thread thread = new Thread(runnable, "AuthorizationGrantCacheWriteBehind");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+
+                    store.flush();
+                }
+            }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+            store.scheduler = scheduler;
+        }
+        return store;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled && !shutdown;
+    }
+
+    /**
+     * Stop the background flush and write the pending operations. Operations received after this are written on the
+     * caller's thread.
+     */
+    public void shutdown() {
+
+        if (!enabled || shutdown) {
+            return;
+        }
+        shutdown = true;
+        ScheduledExecutorService currentScheduler = scheduler;
+        if (currentScheduler != null) {
+            currentScheduler.shutdown();
+            try {
+                if (!currentScheduler.awaitTermination(SHUTDOWN_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Timed out while waiting for the running flush of " + cacheName + " entries.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS && !pendingOperations.isEmpty(); attempt++) {
+            flush();
+        }
+        if (!pendingOperations.isEmpty()) {
+            log.error(pendingOperations.size() + " " + cacheName + " operations could not be written to the " +
+                    "session data store on shutdown.");
+        }
+        log.info("Write behind of " + cacheName + " entries to the session data store is stopped.");
+    }
+
+    /**
+     * Store an entry in the session data store.
+     *
+     * @param id       session data key
+     * @param entry    cache entry
+     * @param newEntry whether the key is new, i.e. no entry can have been stored with this key before
+     */
+    public void store(String id, AuthorizationGrantCacheEntry entry, boolean newEntry) {
+
+        if (!isEnabled()) {
+            storeToSessionStore(id, entry);
+            return;
+        }
+
+        synchronized (lock) {
+            PendingOperation current = pendingOperations.get(id);
+            if (current == null && pendingOperations.size() >= maxPendingEntries) {
+                synchronousWriteCount.incrementAndGet();
+            } else {
+                boolean persisted = !newEntry;
+                if (current != null) {
+                    coalescedCount.incrementAndGet();
+                    persisted = current.mayBePersisted();
+                }
+                pendingOperations.put(id, new PendingOperation(entry, persisted, System.currentTimeMillis()));
+                return;
+            }
+        }
+        storeToSessionStore(id, entry);
+    }
+
+    /**
+     * Clear an entry from the session data store.
+     *
+     * @param id session data key
+     */
+    public void clear(String id) {
+
+        if (!isEnabled()) {
+            clearFromSessionStore(id);
+            return;
+        }
+
+        synchronized (lock) {
+            PendingOperation current = pendingOperations.get(id);
+            if (current != null && !current.mayBePersisted()) {
+                // Nothing was written for this key yet, hence neither the store nor the clear needs to be written.
+                pendingOperations.remove(id);
+                skippedCount.incrementAndGet();
+                return;
+            }
+            if (current == null && pendingOperations.size() >= maxPendingEntries) {
+                synchronousWriteCount.incrementAndGet();
+            } else {
+                if (current != null) {
+                    coalescedCount.incrementAndGet();
+                }
+                pendingOperations.put(id, new PendingOperation(null, true, System.currentTimeMillis()));
+                return;
+            }
+        }
+        clearFromSessionStore(id);
+    }
+
+    /**
+     * Get an entry from the session data store, taking the operations that are not written yet into account.
+     *
+     * @param id session data key
+     * @return cache entry or null if there is no entry for the key
+     */
+    public AuthorizationGrantCacheEntry get(String id) {
+
+        if (enabled) {
+            PendingOperation pendingOperation = pendingOperations.get(id);
+            if (pendingOperation != null) {
+                return pendingOperation.entry;
+            }
+        }
+        return (AuthorizationGrantCacheEntry) SessionDataStore.getInstance().getSessionData(id, cacheName);
+    }
+
+    /**
+     * Write all pending operations to the session data store.
+     */
+    public void flush() {
+
+        if (pendingOperations.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long oldestEnqueueTime = start;
+        int written = 0;
+        List<Map.Entry<String, PendingOperation>> operations = new ArrayList<>(pendingOperations.entrySet());
+        for (Map.Entry<String, PendingOperation> operation : operations) {
+            String id = operation.getKey();
+            PendingOperation pendingOperation = operation.getValue();
+            synchronized (lock) {
+                if (pendingOperations.get(id) != pendingOperation) {
+                    // Replaced or dropped after the snapshot was taken.
+                    continue;
+                }
+                pendingOperation.inFlight = true;
+            }
+
+            boolean retry = false;
+            try {
+                if (pendingOperation.entry != null) {
+                    storeToSessionStore(id, pendingOperation.entry);
+                    storedCount.incrementAndGet();
+                } else {
+                    clearFromSessionStore(id);
+                    clearedCount.incrementAndGet();
+                }
+                written++;
+            } catch (RuntimeException e) {
+                failedWriteCount.incrementAndGet();
+                retry = ++pendingOperation.failedAttempts < MAX_WRITE_ATTEMPTS;
+                if (retry) {
+                    log.warn("Error while writing " + cacheName + " entry to the session data store. The write " +
+                            "will be retried with the next flush.", e);
+                } else {
+                    log.error("Error while writing " + cacheName + " entry to the session data store. The entry " +
+                            "is dropped after " + MAX_WRITE_ATTEMPTS + " failed attempts.", e);
+                }
+            }
+
+            if (retry) {
+                // Kept for the next flush unless a later operation on the key has replaced it.
+                continue;
+            }
+            synchronized (lock) {
+                if (pendingOperations.get(id) == pendingOperation) {
+                    pendingOperations.remove(id);
+                }
+            }
+            oldestEnqueueTime = Math.min(oldestEnqueueTime, pendingOperation.enqueueTime);
+        }
+
+        long end = System.currentTimeMillis();
+        lastFlushLagInMillis = end - oldestEnqueueTime;
+        maxFlushLagInMillis = Math.max(maxFlushLagInMillis, lastFlushLagInMillis);
+        if (log.isDebugEnabled()) {
+            log.debug("Wrote " + written + " " + cacheName + " operations to the session data store in " +
+                    (end - start) + "ms. Store lag : " + lastFlushLagInMillis + "ms, pending operations : " +
+                    pendingOperations.size() + ", coalesced : " + coalescedCount.get() + ", skipped : " +
+                    skippedCount.get());
+        }
+    }
+
+    /**
+     * @return number of operations that are not written to the session data store yet
+     */
+    public int getPendingCount() {
+
+        return pendingOperations.size();
+    }
+
+    /**
+     * @return age in milliseconds of the oldest operation that is not written to the session data store yet
+     */
+    public long getPendingLagInMillis() {
+
+        long oldestEnqueueTime = Long.MAX_VALUE;
+        for (PendingOperation pendingOperation : pendingOperations.values()) {
+            oldestEnqueueTime = Math.min(oldestEnqueueTime, pendingOperation.enqueueTime);
+        }
+        if (oldestEnqueueTime == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - oldestEnqueueTime);
+    }
+
+    /**
+     * @return time in milliseconds between queueing and writing the oldest operation of the last flush
+     */
+    public long getLastFlushLagInMillis() {
+
+        return lastFlushLagInMillis;
+    }
+
+    /**
+     * @return highest value of {@link #getLastFlushLagInMillis()} so far
+     */
+    public long getMaxFlushLagInMillis() {
+
+        return maxFlushLagInMillis;
+    }
+
+    public long getStoredCount() {
+
+        return storedCount.get();
+    }
+
+    public long getClearedCount() {
+
+        return clearedCount.get();
+    }
+
+    /**
+     * @return number of queued operations replaced by a later operation on the same key
+     */
+    public long getCoalescedCount() {
+
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return number of queued stores dropped together with the clear of the same key
+     */
+    public long getSkippedCount() {
+
+        return skippedCount.get();
+    }
+
+    /**
+     * @return number of operations written on the caller's thread
+     */
+    public long getSynchronousWriteCount() {
+
+        return synchronousWriteCount.get();
+    }
+
+    public long getFailedWriteCount() {
+
+        return failedWriteCount.get();
+    }
+
+    private void storeToSessionStore(String id, AuthorizationGrantCacheEntry entry) {
+
+        SessionDataStore.getInstance().storeSessionData(id, cacheName, entry);
+    }
+
+    private void clearFromSessionStore(String id) {
+
+        SessionDataStore.getInstance().clearSessionData(id, cacheName);
+    }
+
+    /**
+     * A store, or a clear if the entry is null, that is not written to the session data store yet.
+     */
+    private static class PendingOperation {
+
+        private final AuthorizationGrantCacheEntry entry;
+        private final boolean persisted;
+        private final long enqueueTime;
+        private volatile boolean inFlight;
+        private int failedAttempts;
+
+        private PendingOperation(AuthorizationGrantCacheEntry entry, boolean persisted, long enqueueTime) {
+
+            this.entry = entry;
+            this.persisted = persisted;
+            this.enqueueTime = enqueueTime;
+        }
+
+        /**
+         * @return whether an entry may exist in the session data store for the key of this operation
+         */
+        private boolean mayBePersisted() {
+
+            return persisted || inFlight;
+        }
+    }
+}
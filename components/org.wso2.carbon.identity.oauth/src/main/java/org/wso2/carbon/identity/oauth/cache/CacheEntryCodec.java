@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.oauth2.model.OAuth2Parameters;
+import org.wso2.carbon.identity.openidconnect.model.RequestObject;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary encoding of the fields of cache entries, used by the {@code writeObject} and {@code readObject}
+ * methods of the entries in place of the default Java serialization of their fields. The encoded entries are what is
+ * replicated in the distributed cache and persisted in the session data store.
+ * <p>
+ * Lengths and sizes are written as variable length integers, strings as UTF-8 and claim URIs only once per entry.
+ * Claim mappings, OAuth2 parameters, string collections and maps are written without class descriptors. Values of
+ * other types, such as authenticated users and request objects, are written with Java serialization. Every entry
+ * starts with a format version, which has to be incremented whenever the encoding of an entry changes.
+ */
+final class CacheEntryCodec {
+
+    static final int VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int STRING_SET = 1;
+    private static final int SERIALIZED = 2;
+
+    private CacheEntryCodec() {
+
+    }
+
+    /**
+     * Writes the fields of one cache entry.
+     */
+    static final class Writer {
+
+        private final ObjectOutput out;
+        private final Map<String, Integer> stringTable = new HashMap<>();
+
+        Writer(ObjectOutput out) throws IOException {
+
+            this.out = out;
+            writeVarInt(VERSION);
+        }
+
+        void writeVarInt(int value) throws IOException {
+
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        void writeVarLong(long value) throws IOException {
+
+            // Zig zag encoding keeps small negative values short as well.
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            out.writeByte((int) zigZag);
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+
+            out.writeBoolean(value);
+        }
+
+        void writeString(String value) throws IOException {
+
+            if (value == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            out.write(bytes);
+        }
+
+        /**
+         * Write a string that is likely to be repeated within the entry, such as a claim URI. Repeated strings are
+         * written as a reference to the first occurrence.
+         */
+        void writeSharedString(String value) throws IOException {
+
+            if (value == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            Integer index = stringTable.get(value);
+            if (index != null) {
+                writeVarInt(index + 2);
+                return;
+            }
+            stringTable.put(value, stringTable.size());
+            writeVarInt(1);
+            writeString(value);
+        }
+
+        void writeStrings(String[] values) throws IOException {
+
+            if (values == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            writeVarInt(values.length + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        void writeStringSet(Set<String> values) throws IOException {
+
+            if (values == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        /**
+         * Write a set whose elements are expected to be strings, falling back to Java serialization otherwise.
+         */
+        void writeRawSet(Set<?> values) throws IOException {
+
+            if (values == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            for (Object value : values) {
+                if (value != null && !(value instanceof String)) {
+                    writeVarInt(SERIALIZED);
+                    out.writeObject(values);
+                    return;
+                }
+            }
+            writeVarInt(STRING_SET);
+            writeVarInt(values.size());
+            for (Object value : values) {
+                writeString((String) value);
+            }
+        }
+
+        void writeStringArrayMap(Map<String, String[]> values) throws IOException {
+
+            if (values == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (Map.Entry<String, String[]> entry : values.entrySet()) {
+                writeString(entry.getKey());
+                writeStrings(entry.getValue());
+            }
+        }
+
+        void writeClaimMappings(Map<ClaimMapping, String> values) throws IOException {
+
+            if (values == null) {
+                writeVarInt(NULL);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (Map.Entry<ClaimMapping, String> entry : values.entrySet()) {
+                writeClaimMapping(entry.getKey());
+                writeString(entry.getValue());
+            }
+        }
+
+        void writeObject(Object value) throws IOException {
+
+            out.writeObject(value);
+        }
+
+        void writeOAuth2Parameters(OAuth2Parameters parameters) throws IOException {
+
+            if (parameters == null) {
+                out.writeBoolean(false);
+                return;
+            }
+            out.writeBoolean(true);
+            writeString(parameters.getApplicationName());
+            writeString(parameters.getRedirectURI());
+            writeStringSet(parameters.getScopes());
+            writeString(parameters.getState());
+            writeString(parameters.getResponseType());
+            writeString(parameters.getClientId());
+            writeString(parameters.getNonce());
+            writeString(parameters.getDisplay());
+            writeString(parameters.getPrompt());
+            writeString(parameters.getIDTokenHint());
+            writeString(parameters.getLoginHint());
+            writeString(parameters.getPkceCodeChallenge());
+            writeString(parameters.getPkceCodeChallengeMethod());
+            writeRawSet(parameters.getACRValues());
+            writeString(parameters.getTenantDomain());
+            writeVarLong(parameters.getAuthTime());
+            writeVarLong(parameters.getMaxAge());
+            writeString(parameters.getResponseMode());
+            writeString(parameters.getEssentialClaims());
+            writeString(parameters.getDisplayName());
+            writeObject(parameters.getRequestObject());
+        }
+
+        private void writeClaimMapping(ClaimMapping claimMapping) throws IOException {
+
+            if (claimMapping == null) {
+                out.writeBoolean(false);
+                return;
+            }
+            out.writeBoolean(true);
+            writeClaim(claimMapping.getLocalClaim());
+            writeClaim(claimMapping.getRemoteClaim());
+            writeString(claimMapping.getDefaultValue());
+            out.writeBoolean(claimMapping.isRequested());
+            out.writeBoolean(claimMapping.isMandatory());
+        }
+
+        private void writeClaim(Claim claim) throws IOException {
+
+            if (claim == null) {
+                out.writeBoolean(false);
+                return;
+            }
+            out.writeBoolean(true);
+            writeSharedString(claim.getClaimUri());
+            writeVarInt(claim.getClaimId());
+        }
+    }
+
+    /**
+     * Reads the fields of one cache entry written by a {@link Writer}.
+     */
+    static final class Reader {
+
+        private final ObjectInput in;
+        private final List<String> stringTable = new ArrayList<>();
+
+        Reader(ObjectInput in) throws IOException {
+
+            this.in = in;
+            int version = readVarInt();
+            if (version != VERSION) {
+                throw new InvalidObjectException("Unsupported cache entry format version: " + version);
+            }
+        }
+
+        int readVarInt() throws IOException {
+
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new InvalidObjectException("Malformed variable length integer.");
+        }
+
+        long readVarLong() throws IOException {
+
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+            }
+            throw new InvalidObjectException("Malformed variable length long.");
+        }
+
+        boolean readBoolean() throws IOException {
+
+            return in.readBoolean();
+        }
+
+        String readString() throws IOException {
+
+            int length = readVarInt();
+            if (length == NULL) {
+                return null;
+            }
+            byte[] bytes = new byte[length - 1];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String readSharedString() throws IOException {
+
+            int reference = readVarInt();
+            if (reference == NULL) {
+                return null;
+            }
+            if (reference == 1) {
+                // Shared strings are claim URIs and the like, hence the same instance is used across entries.
+                String value = readString().intern();
+                stringTable.add(value);
+                return value;
+            }
+            int index = reference - 2;
+            if (index >= stringTable.size()) {
+                throw new InvalidObjectException("Invalid string reference: " + index);
+            }
+            return stringTable.get(index);
+        }
+
+        String[] readStrings() throws IOException {
+
+            int size = readVarInt();
+            if (size == NULL) {
+                return null;
+            }
+            String[] values = new String[size - 1];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        Set<String> readStringSet() throws IOException {
+
+            int size = readVarInt();
+            if (size == NULL) {
+                return null;
+            }
+            Set<String> values = new LinkedHashSet<>();
+            for (int i = 1; i < size; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        LinkedHashSet readRawSet() throws IOException, ClassNotFoundException {
+
+            int type = readVarInt();
+            if (type == NULL) {
+                return null;
+            }
+            if (type == SERIALIZED) {
+                return (LinkedHashSet) in.readObject();
+            }
+            int size = readVarInt();
+            LinkedHashSet<String> values = new LinkedHashSet<>();
+            for (int i = 0; i < size; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        Map<String, String[]> readStringArrayMap() throws IOException {
+
+            int size = readVarInt();
+            if (size == NULL) {
+                return null;
+            }
+            Map<String, String[]> values = new LinkedHashMap<>();
+            for (int i = 1; i < size; i++) {
+                values.put(readString(), readStrings());
+            }
+            return values;
+        }
+
+        Map<ClaimMapping, String> readClaimMappings() throws IOException {
+
+            int size = readVarInt();
+            if (size == NULL) {
+                return null;
+            }
+            Map<ClaimMapping, String> values = new LinkedHashMap<>();
+            for (int i = 1; i < size; i++) {
+                values.put(readClaimMapping(), readString());
+            }
+            return values;
+        }
+
+        Object readObject() throws IOException, ClassNotFoundException {
+
+            return in.readObject();
+        }
+
+        OAuth2Parameters readOAuth2Parameters() throws IOException, ClassNotFoundException {
+
+            if (!in.readBoolean()) {
+                return null;
+            }
+            OAuth2Parameters parameters = new OAuth2Parameters();
+            parameters.setApplicationName(readString());
+            parameters.setRedirectURI(readString());
+            parameters.setScopes(readStringSet());
+            parameters.setState(readString());
+            parameters.setResponseType(readString());
+            parameters.setClientId(readString());
+            parameters.setNonce(readString());
+            parameters.setDisplay(readString());
+            parameters.setPrompt(readString());
+            parameters.setIDTokenHint(readString());
+            parameters.setLoginHint(readString());
+            parameters.setPkceCodeChallenge(readString());
+            parameters.setPkceCodeChallengeMethod(readString());
+            parameters.setACRValues(readRawSet());
+            parameters.setTenantDomain(readString());
+            parameters.setAuthTime(readVarLong());
+            parameters.setMaxAge(readVarLong());
+            parameters.setResponseMode(readString());
+            parameters.setEssentialClaims(readString());
+            parameters.setDisplayName(readString());
+            parameters.setRequestObject((RequestObject) readObject());
+            return parameters;
+        }
+
+        private ClaimMapping readClaimMapping() throws IOException {
+
+            if (!in.readBoolean()) {
+                return null;
+            }
+            ClaimMapping claimMapping = new ClaimMapping();
+            claimMapping.setLocalClaim(readClaim());
+            claimMapping.setRemoteClaim(readClaim());
+            claimMapping.setDefaultValue(readString());
+            claimMapping.setRequested(in.readBoolean());
+            claimMapping.setMandatory(in.readBoolean());
+            return claimMapping;
+        }
+
+        private Claim readClaim() throws IOException {
+
+            if (!in.readBoolean()) {
+                return null;
+            }
+            Claim claim = new Claim();
+            claim.setClaimUri(readSharedString());
+            claim.setClaimId(readVarInt());
+            return claim;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * ClientCredentialCache is used to cache the salted hash of client secrets, keyed by client id.
+ */
+public class ClientCredentialCache extends BaseCache<String, ClientCredentialCacheEntry> {
+
+    private static final String CLIENT_CREDENTIAL_CACHE_NAME = "ClientCredentialCache";
+
+    private static volatile ClientCredentialCache instance;
+
+    private ClientCredentialCache() {
+        super(CLIENT_CREDENTIAL_CACHE_NAME);
+    }
+
+    /**
+     * Returns ClientCredentialCache instance
+     *
+     * @return instance of ClientCredentialCache
+     */
+    public static ClientCredentialCache getInstance() {
+        CarbonUtils.checkSecurity();
+        if (instance == null) {
+            synchronized (ClientCredentialCache.class) {
+                if (instance == null) {
+                    instance = new ClientCredentialCache();
+                }
+            }
+        }
+        return instance;
+    }
+}
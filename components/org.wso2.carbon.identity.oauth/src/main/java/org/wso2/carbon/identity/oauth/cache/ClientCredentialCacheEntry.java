@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Salted hash of the client secret of an OAuth application. The secret itself is not kept, so neither the cache nor
+ * a cluster member replicating it holds the plain text or the encrypted secret.
+ */
+public class ClientCredentialCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -4786532176251908762L;
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int SALT_LENGTH = 16;
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    private final byte[] salt;
+    private final byte[] secretHash;
+
+    public ClientCredentialCacheEntry(String clientSecret) {
+
+        salt = new byte[SALT_LENGTH];
+        secureRandom.nextBytes(salt);
+        secretHash = hash(salt, clientSecret);
+    }
+
+    /**
+     * Check whether the given secret is the secret of this entry. The comparison takes the same time irrespective of
+     * where the hashes differ, so that the secret cannot be guessed from the response times.
+     *
+     * @param clientSecret client secret to check
+     * @return true if the secret matches
+     */
+    public boolean matches(String clientSecret) {
+
+        return clientSecret != null && MessageDigest.isEqual(secretHash, hash(salt, clientSecret));
+    }
+
+    private static byte[] hash(byte[] salt, String clientSecret) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            digest.update(salt);
+            return digest.digest(clientSecret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported.", e);
+        }
+    }
+}
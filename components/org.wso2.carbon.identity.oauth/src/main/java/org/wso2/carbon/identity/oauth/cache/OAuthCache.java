@@ -45,4 +45,28 @@ public class OAuthCache extends BaseCache<OAuthCacheKey, CacheEntry> {
         }
         return instance;
     }
+
+    @Override
+    public void addToCache(OAuthCacheKey key, CacheEntry entry) {
+        super.addToCache(key, entry);
+        clearNearCacheEntry(key);
+    }
+
+    @Override
+    public void clearCacheEntry(OAuthCacheKey key) {
+        super.clearCacheEntry(key);
+        clearNearCacheEntry(key);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        AccessTokenNearCache.getInstance().clear();
+    }
+
+    private void clearNearCacheEntry(OAuthCacheKey key) {
+        if (key != null) {
+            AccessTokenNearCache.getInstance().clearCacheEntry(key.getCacheKeyString());
+        }
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * ScopeBindingCache is used to cache the roles bound to the scopes of a tenant, as used by the scope validators.
+ * Unlike the {@link OAuthScopeCache}, scopes without bindings or without a scope definition are also cached.
+ */
+public class ScopeBindingCache extends BaseCache<OAuthScopeCacheKey, ScopeBindingCacheEntry> {
+
+    private static final String SCOPE_BINDING_CACHE_NAME = "ScopeBindingCache";
+
+    private static volatile ScopeBindingCache instance;
+
+    private ScopeBindingCache() {
+        super(SCOPE_BINDING_CACHE_NAME);
+    }
+
+    /**
+     * Returns ScopeBindingCache instance
+     *
+     * @return instance of ScopeBindingCache
+     */
+    public static ScopeBindingCache getInstance() {
+        CarbonUtils.checkSecurity();
+        if (instance == null) {
+            synchronized (ScopeBindingCache.class) {
+                if (instance == null) {
+                    instance = new ScopeBindingCache();
+                }
+            }
+        }
+        return instance;
+    }
+}
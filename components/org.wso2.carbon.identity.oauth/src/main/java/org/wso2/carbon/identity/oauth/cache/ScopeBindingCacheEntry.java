@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Roles bound to a scope of a tenant.
+ */
+public class ScopeBindingCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 6398451063521867207L;
+
+    private final List<String> bindings;
+
+    public ScopeBindingCacheEntry(Collection<String> bindings) {
+
+        this.bindings = bindings == null ? Collections.<String>emptyList() :
+                Collections.unmodifiableList(new ArrayList<>(bindings));
+    }
+
+    /**
+     * @return unmodifiable list of the roles bound to the scope
+     */
+    public List<String> getBindings() {
+
+        return bindings;
+    }
+}
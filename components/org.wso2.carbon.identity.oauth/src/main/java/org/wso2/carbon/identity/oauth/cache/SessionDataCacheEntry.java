@@ -21,22 +21,33 @@ package org.wso2.carbon.identity.oauth.cache;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.oauth2.model.OAuth2Parameters;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Contains the authenticated user and the OAuth2 parameters of an authorization request.
+ * <p>
+ * The fields are serialized with {@link CacheEntryCodec} rather than default Java serialization. The
+ * serialVersionUID was changed along with the format, so entries written by an older version can not be read. All
+ * the nodes of a cluster need to be restarted together when upgrading, and entries persisted in the session data
+ * store by the older version are discarded.
+ */
 public class SessionDataCacheEntry extends CacheEntry {
 
-    private static final long serialVersionUID = -4123547630178387354L;
-    private AuthenticatedUser loggedInUser;
-    private OAuth2Parameters oAuth2Parameters;
-    private long authTime;
-    private String authenticatedIdPs;
-    private String essentialClaims ;
+    private static final long serialVersionUID = 4389414754927716363L;
+    private transient AuthenticatedUser loggedInUser;
+    private transient OAuth2Parameters oAuth2Parameters;
+    private transient long authTime;
+    private transient String authenticatedIdPs;
+    private transient String essentialClaims ;
 
-    private String queryString = null;
+    private transient String queryString = null;
 
-    private ConcurrentMap<String, String[]> paramMap = new ConcurrentHashMap<String, String[]>();
+    private transient ConcurrentMap<String, String[]> paramMap = new ConcurrentHashMap<String, String[]>();
 
     public OAuth2Parameters getoAuth2Parameters() {
         return oAuth2Parameters;
@@ -94,4 +105,38 @@ public class SessionDataCacheEntry extends CacheEntry {
         this.essentialClaims = essentialClaims;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+
+        out.defaultWriteObject();
+        CacheEntryCodec.Writer writer = new CacheEntryCodec.Writer(out);
+        writer.writeObject(loggedInUser);
+        writer.writeOAuth2Parameters(oAuth2Parameters);
+        writer.writeVarLong(authTime);
+        writer.writeString(authenticatedIdPs);
+        writer.writeString(essentialClaims);
+        writer.writeString(queryString);
+        writer.writeStringArrayMap(paramMap);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+        in.defaultReadObject();
+        CacheEntryCodec.Reader reader = new CacheEntryCodec.Reader(in);
+        loggedInUser = (AuthenticatedUser) reader.readObject();
+        oAuth2Parameters = reader.readOAuth2Parameters();
+        authTime = reader.readVarLong();
+        authenticatedIdPs = reader.readString();
+        essentialClaims = reader.readString();
+        queryString = reader.readString();
+        initParamMap(reader.readStringArrayMap());
+    }
+
+    private void initParamMap(Map<String, String[]> values) {
+
+        // Field initializers do not run on deserialization, hence the map is always created here.
+        paramMap = new ConcurrentHashMap<>();
+        if (values != null) {
+            paramMap.putAll(values);
+        }
+    }
 }
@@ -16,10 +16,12 @@
 
 package org.wso2.carbon.identity.oauth.listener;
 
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.application.common.listener.AbstractCacheListener;
 import org.wso2.carbon.identity.oauth.util.ClaimCacheKey;
 import org.wso2.carbon.identity.oauth.util.ClaimMetaDataCache;
 import org.wso2.carbon.identity.oauth.util.ClaimMetaDataCacheKey;
+import org.wso2.carbon.identity.oauth.util.ClaimResolutionCache;
 import org.wso2.carbon.identity.oauth.util.UserClaims;
 
 import javax.cache.event.CacheEntryEvent;
@@ -40,7 +42,10 @@ public class ClaimCacheRemoveListener extends AbstractCacheListener<ClaimCacheKe
             return;
         }
 
-        ClaimMetaDataCache.getInstance().clearCacheEntry(
-                new ClaimMetaDataCacheKey(cacheEntryEvent.getKey().getAuthenticatedUser()));
+        AuthenticatedUser authenticatedUser = cacheEntryEvent.getKey().getAuthenticatedUser();
+        ClaimMetaDataCache.getInstance().clearCacheEntry(new ClaimMetaDataCacheKey(authenticatedUser));
+        // Claims resolved for ID tokens are cached separately for the same user, hence they are cleared as well.
+        ClaimResolutionCache.getInstance().clearCacheEntry(authenticatedUser.getUserName(),
+                authenticatedUser.getUserStoreDomain(), authenticatedUser.getTenantDomain());
     }
 }
@@ -26,7 +26,6 @@ import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
-import org.wso2.carbon.identity.oauth.OAuthUtil;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheEntry;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
@@ -35,10 +34,15 @@ import org.wso2.carbon.identity.oauth.util.ClaimCacheKey;
 import org.wso2.carbon.identity.oauth.util.ClaimMetaDataCache;
 import org.wso2.carbon.identity.oauth.util.ClaimMetaDataCacheEntry;
 import org.wso2.carbon.identity.oauth.util.ClaimMetaDataCacheKey;
+import org.wso2.carbon.identity.oauth.util.ClaimResolutionCache;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.authcontext.AuthorizationContextTokenCache;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
-import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
-import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.dao.TokenRevocationFilter;
+import org.wso2.carbon.identity.oauth2.util.AuthorizationGrantCacheEvictor;
+import org.wso2.carbon.identity.oauth2.util.BulkTokenRevocationEngine;
+import org.wso2.carbon.identity.oauth2.util.UserRoleCache;
+import org.wso2.carbon.user.api.Permission;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
@@ -83,6 +87,7 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
         }
 
         removeClaimCacheEntry(username, userStoreManager);
+        clearUserRoleCacheEntry(username, userStoreManager);
 
         return revokeTokens(username, userStoreManager);
 
@@ -162,6 +167,7 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
     public boolean doPostUpdateRoleListOfUser(String userName, String[] deletedRoles, String[] newRoles,
                                               UserStoreManager userStoreManager) throws UserStoreException {
 
+        clearUserRoleCacheEntry(userName, userStoreManager);
         if (!isEnable()) {
             return true;
         }
@@ -169,34 +175,44 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPreUpdateUserListOfRole(String roleName, String[] deletedUsers, String[] newUsers,
-                                             UserStoreManager userStoreManager) throws UserStoreException {
+    public boolean doPostUpdateUserListOfRole(String roleName, String[] deletedUsers, String[] newUsers,
+                                              UserStoreManager userStoreManager) throws UserStoreException {
 
         List<String> userList = new ArrayList();
         userList.addAll(Arrays.asList(deletedUsers));
         userList.addAll(Arrays.asList(newUsers));
-        for (String username : userList) {
-            removeTokensFromCache(username, userStoreManager);
-        }
+        clearCachedDataOfRoleMembers(userList, userStoreManager);
         return true;
     }
 
     @Override
-    public boolean doPostUpdateUserListOfRole(String roleName, String[] deletedUsers, String[] newUsers,
-                                              UserStoreManager userStoreManager) throws UserStoreException {
+    public boolean doPostAddRole(String roleName, String[] userList, Permission[] permissions,
+                                 UserStoreManager userStoreManager) throws UserStoreException {
 
-        if (!isEnable()) {
-            return true;
-        }
-        List<String> userList = new ArrayList();
-        userList.addAll(Arrays.asList(deletedUsers));
-        userList.addAll(Arrays.asList(newUsers));
-        for (String username : userList) {
-            removeUserClaimsFromCache(username, userStoreManager);
+        // The users of a new role get the role the same way as the users added to an existing role.
+        if (userList != null && userList.length > 0) {
+            clearCachedDataOfRoleMembers(Arrays.asList(userList), userStoreManager);
         }
         return true;
     }
 
+    @Override
+    public boolean doPostDeleteRole(String roleName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        // The members of the role are not known once it is deleted, hence the roles of all users of the tenant are
+        // read again.
+        UserRoleCache.getInstance().clearTenant(userStoreManager.getTenantId());
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateRoleName(String roleName, String newRoleName, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        UserRoleCache.getInstance().clearTenant(userStoreManager.getTenantId());
+        return true;
+    }
+
     private boolean revokeTokensOfLockedUser(String userName, UserStoreManager userStoreManager) throws UserStoreException {
 
         String errorCode = (String) IdentityUtil.threadLocalProperties.get().get(IdentityCoreConstants.USER_ACCOUNT_STATE);
@@ -226,72 +242,12 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
         authenticatedUser.setTenantDomain(tenantDomain);
         authenticatedUser.setUserName(username);
 
-        /* This userStoreDomain variable is used for access token table partitioning. So it is set to null when access
-        token table partitioning is not enabled.*/
-        userStoreDomain = null;
-        if (OAuth2Util.checkAccessTokenPartitioningEnabled() && OAuth2Util.checkUserNameAssertionEnabled()) {
-            try {
-                userStoreDomain = OAuth2Util.getUserStoreForFederatedUser(authenticatedUser);
-            } catch (IdentityOAuth2Exception e) {
-                log.error("Error occurred while getting user store domain for User ID : " + authenticatedUser, e);
-                return true;
-            }
-        }
-
-        Set<String> clientIds;
         try {
-            // get all the distinct client Ids authorized by this user
-            clientIds = OAuthTokenPersistenceFactory.getInstance()
-                    .getTokenManagementDAO().getAllTimeAuthorizedClientIds(authenticatedUser);
+            // Revoke all the tokens of the user in chunks instead of revoking and clearing the cache of each token
+            // separately.
+            BulkTokenRevocationEngine.getInstance().revokeTokens(TokenRevocationFilter.forUser(authenticatedUser));
         } catch (IdentityOAuth2Exception e) {
-            log.error("Error occurred while retrieving apps authorized by User ID : " + authenticatedUser, e);
-            return true;
-        }
-        for (String clientId : clientIds) {
-            Set<AccessTokenDO> accessTokenDOs;
-            try {
-                // retrieve all ACTIVE or EXPIRED access tokens for particular client authorized by this user
-                accessTokenDOs = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                        .getAccessTokens(clientId, authenticatedUser, userStoreDomain, true);
-            } catch (IdentityOAuth2Exception e) {
-                String errorMsg = "Error occurred while retrieving access tokens issued for " +
-                        "Client ID : " + clientId + ", User ID : " + authenticatedUser;
-                log.error(errorMsg, e);
-                return true;
-            }
-            for (AccessTokenDO accessTokenDO : accessTokenDOs) {
-                //Clear cache
-                OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(),
-                        OAuth2Util.buildScopeString(accessTokenDO.getScope()));
-                OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser());
-                OAuthUtil.clearOAuthCache(accessTokenDO.getAccessToken());
-                AccessTokenDO scopedToken = null;
-                try {
-                    // retrieve latest access token for particular client, user and scope combination if its ACTIVE or EXPIRED
-                    scopedToken = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                            .getLatestAccessToken(clientId, authenticatedUser, userStoreDomain,
-                                    OAuth2Util.buildScopeString(accessTokenDO.getScope()), true);
-                } catch (IdentityOAuth2Exception e) {
-                    String errorMsg = "Error occurred while retrieving latest " +
-                            "access token issued for Client ID : " +
-                            clientId + ", User ID : " + authenticatedUser + " and Scope : " +
-                            OAuth2Util.buildScopeString(accessTokenDO.getScope());
-                    log.error(errorMsg, e);
-                    return true;
-                }
-                if (scopedToken != null) {
-                    try {
-                        //Revoking token from database
-                        OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                                .revokeAccessTokens(new String[]{scopedToken.getAccessToken()});
-                    } catch (IdentityOAuth2Exception e) {
-                        String errorMsg = "Error occurred while revoking " +
-                                "Access Token : " + scopedToken.getAccessToken();
-                        log.error(errorMsg, e);
-                        return true;
-                    }
-                }
-            }
+            log.error("Error occurred while revoking access tokens issued for User ID : " + authenticatedUser, e);
         }
         return true;
     }
@@ -333,6 +289,8 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
     private void removeAccessTokensFromCache(Set<String> accessTokens) {
         if (CollectionUtils.isNotEmpty(accessTokens)) {
             for (String accessToken : accessTokens) {
+                // Context tokens carry the claims of the user, hence they are regenerated with the updated claims
+                AuthorizationContextTokenCache.getInstance().clearCacheEntry(accessToken);
                 AuthorizationGrantCacheKey cacheKey = new AuthorizationGrantCacheKey(accessToken);
                 AuthorizationGrantCacheEntry cacheEntry = (AuthorizationGrantCacheEntry) AuthorizationGrantCache
                         .getInstance().getValueFromCacheByToken(cacheKey);
@@ -358,6 +316,7 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
         if (cacheKey != null) {
             claimCache.clearCacheEntry(cacheKey);
         }
+        clearClaimResolutionCacheEntry(authenticatedUser);
         return true;
     }
 
@@ -374,6 +333,7 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
         authenticatedUser.setTenantDomain(IdentityTenantUtil.getTenantDomain(userStoreManager.getTenantId()));
         authenticatedUser.setUserStoreDomain(UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration()));
 
+        clearClaimResolutionCacheEntry(authenticatedUser);
         ClaimMetaDataCacheEntry cacheEntry = ClaimMetaDataCache.getInstance().getValueFromCache(
                 new ClaimMetaDataCacheKey(authenticatedUser));
         if(cacheEntry == null) {
@@ -381,4 +341,57 @@ public class IdentityOathEventListener extends AbstractIdentityUserOperationEven
         }
         ClaimCache.getInstance().clearCacheEntry(cacheEntry.getClaimCacheKey());
     }
+
+    /**
+     * Clear the cached grants, roles and claims of the users whose roles were changed by a role update.
+     *
+     * @param userList         user names
+     * @param userStoreManager user store manager of the users
+     * @throws UserStoreException if the user store domain can not be resolved
+     */
+    private void clearCachedDataOfRoleMembers(List<String> userList, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        // A role may have a large number of users, hence the cached grants of the users are evicted in the
+        // background once the role is updated instead of one user at a time before the update.
+        AuthorizationGrantCacheEvictor.getInstance().evict(
+                IdentityTenantUtil.getTenantDomain(userStoreManager.getTenantId()),
+                UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration()), userList);
+        for (String username : userList) {
+            clearUserRoleCacheEntry(username, userStoreManager);
+        }
+
+        if (!isEnable()) {
+            return;
+        }
+        for (String username : userList) {
+            removeUserClaimsFromCache(username, userStoreManager);
+        }
+    }
+
+    /**
+     * Remove the roles of the user cached for scope validation.
+     *
+     * @param userName         user name
+     * @param userStoreManager user store manager of the user
+     * @throws UserStoreException if the user store domain can not be resolved
+     */
+    private void clearUserRoleCacheEntry(String userName, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        UserRoleCache.getInstance().clearCacheEntry(userStoreManager.getTenantId(),
+                UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration()), userName);
+    }
+
+    /**
+     * Remove the claims resolved for ID tokens of the user. They are cleared directly since the ClaimCache may not
+     * have an entry for the user, in which case no cache removal event is raised.
+     *
+     * @param authenticatedUser user
+     */
+    private void clearClaimResolutionCacheEntry(AuthenticatedUser authenticatedUser) {
+
+        ClaimResolutionCache.getInstance().clearCacheEntry(authenticatedUser.getUserName(),
+                authenticatedUser.getUserStoreDomain(), authenticatedUser.getTenantDomain());
+    }
 }
@@ -21,6 +21,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.common.listener.AbstractCacheListener;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.AccessTokenNearCache;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
@@ -40,6 +41,12 @@ public class OAuthCacheRemoveListener extends AbstractCacheListener<OAuthCacheKe
     public void entryRemoved(CacheEntryEvent<? extends OAuthCacheKey, ? extends CacheEntry> cacheEntryEvent)
             throws CacheEntryListenerException {
 
+        // Entries removed from the distributed cache, including invalidations received from other nodes, must not
+        // be served from the node local near cache.
+        if (cacheEntryEvent.getKey() != null) {
+            AccessTokenNearCache.getInstance().clearCacheEntry(cacheEntryEvent.getKey().getCacheKeyString());
+        }
+
         CacheEntry cacheEntry = cacheEntryEvent.getValue();
         if(cacheEntry == null || !(cacheEntry instanceof AccessTokenDO)){
             return;
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.tokenvaluegenerator;
+
+import org.apache.oltu.oauth2.as.issuer.ValueGenerator;
+import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Token value generator which produces the same 64 hex character SHA-256 values as {@link SHA256Generator}, but
+ * hashes random bytes drawn from a per thread {@link SecureRandom} instead of two random UUID strings. The random
+ * bytes, the digest and the hex characters are written into per thread buffers, so the only allocation per token
+ * is the returned string.
+ * <p>
+ * Enable it with the TokenValueGenerator element of the OAuth configuration in identity.xml.
+ */
+public class SecureRandomSHA256Generator implements ValueGenerator {
+
+    private static final String SHA_256 = "SHA-256";
+    private static final int RANDOM_BYTES_LENGTH = 32;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<GeneratorState> generatorState = new ThreadLocal<GeneratorState>() {
+        @Override
+        protected GeneratorState initialValue() {
+            return new GeneratorState();
+        }
+    };
+
+    @Override
+    public String generateValue() throws OAuthSystemException {
+
+        try {
+            GeneratorState state = generatorState.get();
+            state.secureRandom.nextBytes(state.randomBytes);
+            state.digest.update(state.randomBytes);
+            state.digest.digest(state.hash, 0, state.hash.length);
+            return toHex(state.hash, state.hexChars);
+        } catch (DigestException | IllegalStateException e) {
+            throw new OAuthSystemException("Error while generating the token value.", e);
+        }
+    }
+
+    @Override
+    public String generateValue(String value) throws OAuthSystemException {
+
+        if (value == null) {
+            throw new OAuthSystemException("Cannot generate a token value from a null value.");
+        }
+        try {
+            GeneratorState state = generatorState.get();
+            state.digest.update(value.getBytes(StandardCharsets.UTF_8));
+            state.digest.digest(state.hash, 0, state.hash.length);
+            return toHex(state.hash, state.hexChars);
+        } catch (DigestException | IllegalStateException e) {
+            throw new OAuthSystemException("Error while generating the token value.", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes, char[] hexChars) {
+
+        for (int i = 0; i < bytes.length; i++) {
+            hexChars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            hexChars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+        return new String(hexChars);
+    }
+
+    /**
+     * Random source, digest and buffers of a single thread.
+     */
+    private static class GeneratorState {
+
+        private final SecureRandom secureRandom = new SecureRandom();
+        private final MessageDigest digest;
+        private final byte[] randomBytes = new byte[RANDOM_BYTES_LENGTH];
+        private final byte[] hash;
+        private final char[] hexChars;
+
+        private GeneratorState() {
+
+            try {
+                digest = MessageDigest.getInstance(SHA_256);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(SHA_256 + " is not supported by the JVM.", e);
+            }
+            hash = new byte[digest.getDigestLength()];
+            hexChars = new char[hash.length * 2];
+        }
+    }
+}
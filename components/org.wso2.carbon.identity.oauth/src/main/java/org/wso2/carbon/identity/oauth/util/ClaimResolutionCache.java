@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth.util;
+
+import org.wso2.carbon.identity.oauth2.util.ExpiringCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+import org.wso2.carbon.identity.oauth2.util.UserRoleCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node local cache of the local claim values of users resolved from the user store for a set of requested claims, so
+ * that ID tokens and JWT access tokens issued repeatedly for the same user and application do not read the user store.
+ * <p>
+ * The claim values are personal data of the user, hence they are only kept in the memory of this node and are never
+ * replicated to the other nodes of a cluster. Entries are keyed by the user and hold the claim values per requested
+ * claim set. They are cleared by the user operation event listener and the {@link ClaimCache} remove listener of this
+ * component when the claims, roles or the user itself are updated or deleted on this node. Changes made on other
+ * nodes of a cluster, or directly in the user store, are picked up when the entry expires, hence the expiry time is
+ * kept short.
+ */
+public class ClaimResolutionCache {
+
+    // This config property is defined in identity.xml
+    private static final String CACHE_EXPIRY_TIME = "OAuth.ClaimResolutionCache.ExpiryTime";
+    private static final int DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS = 60;
+    // This config property is defined in identity.xml
+    private static final String MAX_ENTRIES = "OAuth.ClaimResolutionCache.MaxEntries";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static volatile ClaimResolutionCache instance;
+
+    private final long expiryTimeInMillis;
+    private final ExpiringCache<String, ClaimResolutionCacheEntry> entries;
+
+    ClaimResolutionCache(long expiryTimeInMillis, int maxEntries) {
+
+        this.expiryTimeInMillis = expiryTimeInMillis;
+        this.entries = new ExpiringCache<>(maxEntries);
+    }
+
+    public static ClaimResolutionCache getInstance() {
+
+        if (instance == null) {
+            synchronized (ClaimResolutionCache.class) {
+                if (instance == null) {
+                    int expiryTime = OAuth2PropertyUtil.getIntProperty(CACHE_EXPIRY_TIME,
+                            DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS, 0);
+                    int maxEntries = OAuth2PropertyUtil.getIntProperty(MAX_ENTRIES, DEFAULT_MAX_ENTRIES, 0);
+                    instance = new ClaimResolutionCache(TimeUnit.SECONDS.toMillis(expiryTime), maxEntries);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Build the cache key of a user. Entries are added with the user store domain of the authenticated user and
+     * cleared with the domain of the user store manager raising the event, hence the user store domain is normalized
+     * the same way as in the {@link UserRoleCache}, so that both map to the same key.
+     *
+     * @param userName        user name without the user store domain
+     * @param userStoreDomain user store domain of the user, which may be blank for users of the primary user store
+     * @param tenantDomain    tenant domain of the user
+     * @return cache key or null if the user name or the tenant domain is not known
+     */
+    public static String getCacheKey(String userName, String userStoreDomain, String tenantDomain) {
+
+        if (userName == null || tenantDomain == null) {
+            return null;
+        }
+        return tenantDomain.toLowerCase() + ":" + UserRoleCache.getNormalizedUserStoreDomain(userStoreDomain) + "/" +
+                userName;
+    }
+
+    /**
+     * Get the cached claim values of a user for a set of requested claims.
+     *
+     * @param key         cache key of the user
+     * @param claimSetKey key of the requested claim set
+     * @return copy of the claim values or null if they are not cached or have expired
+     */
+    public Map<String, String> getClaims(String key, String claimSetKey) {
+
+        if (key == null) {
+            return null;
+        }
+        ClaimResolutionCacheEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        Map<String, String> claims = entry.getClaims(claimSetKey);
+        return claims == null ? null : new HashMap<>(claims);
+    }
+
+    /**
+     * Cache the claim values of a user for a set of requested claims.
+     *
+     * @param key         cache key of the user
+     * @param claimSetKey key of the requested claim set
+     * @param claims      claim values in the local dialect
+     */
+    public void addClaims(String key, String claimSetKey, Map<String, String> claims) {
+
+        if (key == null) {
+            return;
+        }
+        // Entries are replaced rather than updated, since they are read without locking.
+        ClaimResolutionCacheEntry entry = entries.get(key);
+        ClaimResolutionCacheEntry newEntry = entry == null ? new ClaimResolutionCacheEntry() :
+                new ClaimResolutionCacheEntry(entry);
+        newEntry.putClaims(claimSetKey, claims);
+        entries.put(key, newEntry, System.currentTimeMillis() + expiryTimeInMillis);
+    }
+
+    /**
+     * Clear the cached claim values of a user.
+     *
+     * @param userName        user name without the user store domain
+     * @param userStoreDomain user store domain of the user
+     * @param tenantDomain    tenant domain of the user
+     */
+    public void clearCacheEntry(String userName, String userStoreDomain, String tenantDomain) {
+
+        entries.remove(getCacheKey(userName, userStoreDomain, tenantDomain));
+    }
+
+    public void clear() {
+
+        entries.clear();
+    }
+}
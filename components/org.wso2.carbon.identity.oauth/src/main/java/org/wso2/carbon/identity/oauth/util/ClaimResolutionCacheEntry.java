@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Claim values of a user in the local dialect, per requested claim set.
+ */
+public class ClaimResolutionCacheEntry {
+
+    private final Map<String, Map<String, String>> claimsByClaimSet;
+
+    public ClaimResolutionCacheEntry() {
+        this.claimsByClaimSet = new HashMap<>();
+    }
+
+    public ClaimResolutionCacheEntry(ClaimResolutionCacheEntry entry) {
+        this.claimsByClaimSet = new HashMap<>(entry.claimsByClaimSet);
+    }
+
+    public Map<String, String> getClaims(String claimSetKey) {
+        return claimsByClaimSet.get(claimSetKey);
+    }
+
+    public void putClaims(String claimSetKey, Map<String, String> claims) {
+        claimsByClaimSet.put(claimSetKey, new HashMap<>(claims));
+    }
+}
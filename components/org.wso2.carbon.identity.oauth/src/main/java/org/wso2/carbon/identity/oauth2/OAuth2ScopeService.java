@@ -21,9 +21,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.oauth.cache.OAuthScopeCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthScopeCacheKey;
+import org.wso2.carbon.identity.oauth.cache.ScopeBindingCache;
 import org.wso2.carbon.identity.oauth2.bean.Scope;
 import org.wso2.carbon.identity.oauth2.dao.ScopeMgtDAO;
 import org.wso2.carbon.identity.oauth2.util.Oauth2ScopeUtils;
+import org.wso2.carbon.identity.oauth2.util.ResourceScopeIndexCache;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -76,6 +78,7 @@ public class OAuth2ScopeService {
         }
 
         OAuthScopeCache.getInstance().addToCache(new OAuthScopeCacheKey(scope.getName(), Integer.toString(tenantID)), scope);
+        clearScopeValidationCaches(scope.getName(), tenantID);
         return scope;
     }
 
@@ -214,6 +217,7 @@ public class OAuth2ScopeService {
             throw Oauth2ScopeUtils.generateServerException(Oauth2ScopeConstants.ErrorMessages.
                     ERROR_CODE_FAILED_TO_DELETE_SCOPE_BY_NAME, name, e);
         }
+        clearScopeValidationCaches(name, tenantID);
     }
 
     /**
@@ -253,6 +257,7 @@ public class OAuth2ScopeService {
 
         OAuthScopeCache.getInstance().addToCache(new OAuthScopeCacheKey(updatedScope.getName(),
                 Integer.toString(tenantID)), updatedScope);
+        clearScopeValidationCaches(updatedScope.getName(), tenantID);
         return updatedScope;
     }
 
@@ -290,4 +295,17 @@ public class OAuth2ScopeService {
         }
         return scopes;
     }
+
+    /**
+     * Clear the role bindings of the scope and the resource scopes cached for scope validation, so that they are read
+     * again with the change. Resources of a scope are removed along with the scope, also when it is updated.
+     *
+     * @param name     name of the scope
+     * @param tenantID tenant ID
+     */
+    private void clearScopeValidationCaches(String name, int tenantID) {
+
+        ScopeBindingCache.getInstance().clearCacheEntry(new OAuthScopeCacheKey(name, Integer.toString(tenantID)));
+        ResourceScopeIndexCache.getInstance().invalidate();
+    }
 }
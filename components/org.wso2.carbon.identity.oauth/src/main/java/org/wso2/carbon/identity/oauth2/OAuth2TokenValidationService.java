@@ -30,7 +30,9 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.TokenValidationHandler;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -125,6 +127,46 @@ public class OAuth2TokenValidationService extends AbstractAdmin {
         return oAuth2IntrospectionResponseDTO;
     }
 
+    /**
+     * returns back the introspection responses of several tokens, in the order of the requests. The tokens are
+     * resolved together, so that the tokens which are not cached are loaded from the database with one query.
+     *
+     * @param validationReqs
+     * @return
+     */
+    public OAuth2IntrospectionResponseDTO[] buildIntrospectionResponses(OAuth2TokenValidationRequestDTO[]
+                                                                                validationReqs) {
+
+        TokenValidationHandler validationHandler = TokenValidationHandler.getInstance();
+        OAuth2IntrospectionResponseDTO[] introspectionResponses =
+                new OAuth2IntrospectionResponseDTO[validationReqs.length];
+        List<OAuth2TokenValidationRequestDTO> validatedReqs = new ArrayList<>();
+        List<Integer> validatedReqIndexes = new ArrayList<>();
+        for (int i = 0; i < validationReqs.length; i++) {
+            try {
+                triggerPreValidationListeners(validationReqs[i]);
+                validatedReqs.add(validationReqs[i]);
+                validatedReqIndexes.add(i);
+            } catch (IdentityOAuth2Exception e) {
+                OAuth2IntrospectionResponseDTO errRespDTO = new OAuth2IntrospectionResponseDTO();
+                errRespDTO.setActive(false);
+                errRespDTO.setError(e.getMessage());
+                introspectionResponses[i] = errRespDTO;
+            }
+        }
+
+        List<OAuth2IntrospectionResponseDTO> validatedResponses =
+                validationHandler.buildIntrospectionResponses(validatedReqs);
+        for (int i = 0; i < validatedReqs.size(); i++) {
+            OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO = validatedResponses.get(i);
+            triggerPostIntrospectionValidationListeners(validatedReqs.get(i), oAuth2IntrospectionResponseDTO,
+                    oAuth2IntrospectionResponseDTO.getProperties());
+            oAuth2IntrospectionResponseDTO.getProperties().remove(OAuth2Util.OAUTH2_VALIDATION_MESSAGE_CONTEXT);
+            introspectionResponses[validatedReqIndexes.get(i)] = oAuth2IntrospectionResponseDTO;
+        }
+        return introspectionResponses;
+    }
+
     private void triggerPreValidationListeners(OAuth2TokenValidationRequestDTO requestDTO)
             throws IdentityOAuth2Exception {
         OAuthEventInterceptor oAuthEventInterceptorProxy = OAuthComponentServiceHolder.getInstance()
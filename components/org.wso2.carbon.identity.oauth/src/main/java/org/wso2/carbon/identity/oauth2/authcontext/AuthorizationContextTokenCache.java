@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.authcontext;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
+import org.wso2.carbon.identity.oauth2.util.ExpiringCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node local cache of the authorization context tokens generated for access tokens, so that a token validation call
+ * for an access token which was already validated with the same requested claims does not build and sign a new JWT.
+ * <p>
+ * Entries are kept per access token and requested claim set, and expire at the earlier of the expiry of the access
+ * token and the expiry of the context token. The entries of an access token are cleared by the user operation event
+ * listener of this component together with the other cached data of the token when the claims of the user are
+ * updated, and by the {@link org.wso2.carbon.identity.oauth2.util.AuthorizationGrantCacheEvictor} when the roles of
+ * the user are updated. When the cache is full, the access tokens whose context tokens expire the soonest are evicted.
+ */
+public class AuthorizationContextTokenCache {
+
+    // This config property is defined in identity.xml
+    private static final String MAX_ENTRIES = "OAuth.AuthorizationContextTokenCache.MaxEntries";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static volatile AuthorizationContextTokenCache instance;
+
+    private final ExpiringCache<String, Map<String, ContextToken>> entries;
+
+    AuthorizationContextTokenCache(int maxEntries) {
+
+        entries = new ExpiringCache<>(maxEntries);
+    }
+
+    public static AuthorizationContextTokenCache getInstance() {
+
+        if (instance == null) {
+            synchronized (AuthorizationContextTokenCache.class) {
+                if (instance == null) {
+                    instance = new AuthorizationContextTokenCache(
+                            OAuth2PropertyUtil.getIntProperty(MAX_ENTRIES, DEFAULT_MAX_ENTRIES, 0));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param accessToken      access token
+     * @param claimSetKey      key of the requested claim set
+     * @param minimumValidTime time in milliseconds the context token should at least be valid until
+     * @return cached context token or null if it is not cached or expires before the given time
+     */
+    public ContextToken getToken(String accessToken, String claimSetKey, long minimumValidTime) {
+
+        Map<String, ContextToken> tokens = entries.get(accessToken);
+        if (tokens == null) {
+            return null;
+        }
+        ContextToken token = tokens.get(claimSetKey);
+        if (token != null && token.getExpiryTime() <= minimumValidTime) {
+            tokens.remove(claimSetKey, token);
+            return null;
+        }
+        return token;
+    }
+
+    /**
+     * Cache the context token generated for an access token.
+     *
+     * @param accessToken access token
+     * @param claimSetKey key of the requested claim set
+     * @param token       context token
+     */
+    public void addToken(String accessToken, String claimSetKey, ContextToken token) {
+
+        Map<String, ContextToken> tokens = entries.get(accessToken);
+        if (tokens == null) {
+            tokens = new ConcurrentHashMap<>();
+        }
+        tokens.put(claimSetKey, token);
+        // The entry of the access token is kept until the last of its context tokens expires.
+        long expiryTime = 0;
+        for (ContextToken contextToken : tokens.values()) {
+            expiryTime = Math.max(expiryTime, contextToken.getExpiryTime());
+        }
+        entries.put(accessToken, tokens, expiryTime);
+    }
+
+    /**
+     * Clear the context tokens generated for an access token.
+     *
+     * @param accessToken access token
+     */
+    public void clearCacheEntry(String accessToken) {
+
+        if (StringUtils.isNotEmpty(accessToken)) {
+            entries.remove(accessToken);
+        }
+    }
+
+    public void clear() {
+
+        entries.clear();
+    }
+
+    int size() {
+
+        return entries.size();
+    }
+
+    /**
+     * Serialized context token along with the application it was generated for.
+     */
+    public static class ContextToken {
+
+        private final String tokenString;
+        private final OAuthAppDO appDO;
+        private final long expiryTime;
+
+        public ContextToken(String tokenString, OAuthAppDO appDO, long expiryTime) {
+
+            this.tokenString = tokenString;
+            this.appDO = appDO;
+            this.expiryTime = expiryTime;
+        }
+
+        public String getTokenString() {
+
+            return tokenString;
+        }
+
+        public OAuthAppDO getAppDO() {
+
+            return appDO;
+        }
+
+        /**
+         * @return time in milliseconds at which the context token or the access token expires, whichever is earlier
+         */
+        public long getExpiryTime() {
+
+            return expiryTime;
+        }
+    }
+}
@@ -20,23 +20,16 @@ package org.wso2.carbon.identity.oauth2.authcontext;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.RSASSASigner;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.PlainJWT;
 import com.nimbusds.jwt.SignedJWT;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.Charsets;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
-import org.wso2.carbon.core.util.KeyStoreManager;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
-import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
-import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -62,21 +55,15 @@ import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
-import java.security.Key;
-import java.security.KeyStore;
-import java.security.MessageDigest;
-import java.security.cert.Certificate;
-import java.security.interfaces.RSAPrivateKey;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.SortedMap;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class represents the JSON Web Token generator.
@@ -104,11 +91,10 @@ public class JWTTokenGenerator implements AuthorizationContextTokenGenerator {
 
     private boolean enableSigning = true;
 
-    private static Map<Integer, Key> privateKeys = new ConcurrentHashMap<Integer, Key>();
-    private static Map<Integer, Certificate> publicCerts = new ConcurrentHashMap<Integer, Certificate>();
-
     private ClaimCache claimsLocalCache;
 
+    private AuthorizationContextTokenCache contextTokenCache = AuthorizationContextTokenCache.getInstance();
+
     public JWTTokenGenerator() {
         claimsLocalCache = ClaimCache.getInstance();
     }
@@ -168,6 +154,26 @@ public class JWTTokenGenerator implements AuthorizationContextTokenGenerator {
     public void generateToken(OAuth2TokenValidationMessageContext messageContext) throws IdentityOAuth2Exception {
 
         AccessTokenDO accessTokenDO = (AccessTokenDO)messageContext.getProperty("AccessTokenDO");
+
+        // Context tokens are reused for the same access token and requested claims until they are about to expire
+        String accessToken = accessTokenDO.getAccessToken();
+        String claimSetKey = null;
+        if (accessToken != null) {
+            claimSetKey = getClaimSetKey(messageContext);
+            long minimumValidTime = System.currentTimeMillis() +
+                    OAuthServerConfiguration.getInstance().getTimeStampSkewInSeconds() * 1000;
+            AuthorizationContextTokenCache.ContextToken cachedToken =
+                    contextTokenCache.getToken(accessToken, claimSetKey, minimumValidTime);
+            if (cachedToken != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Using the cached authorization context token of the access token.");
+                }
+                messageContext.addProperty("OAuthAppDO", cachedToken.getAppDO());
+                setAuthorizationContextToken(messageContext, cachedToken.getTokenString());
+                return;
+            }
+        }
+
         String clientId = accessTokenDO.getConsumerKey();
         long issuedTime = accessTokenDO.getIssuedTime().getTime();
         String authzUser = messageContext.getResponseDTO().getAuthorizedUser();
@@ -294,14 +300,58 @@ public class JWTTokenGenerator implements AuthorizationContextTokenGenerator {
             jwt = new PlainJWT(claimsSet);
         }
 
+        String tokenString = jwt.serialize();
         if (log.isDebugEnabled()) {
-            log.debug("JWT Assertion Value : " + jwt.serialize());
+            log.debug("JWT Assertion Value : " + tokenString);
+        }
+        if (accessToken != null) {
+            contextTokenCache.addToken(accessToken, claimSetKey, new AuthorizationContextTokenCache.ContextToken(
+                    tokenString, appDO, Math.min(expireIn, getAccessTokenExpiryTime(accessTokenDO))));
         }
+        setAuthorizationContextToken(messageContext, tokenString);
+    }
+
+    private void setAuthorizationContextToken(OAuth2TokenValidationMessageContext messageContext,
+                                              String tokenString) {
+
         OAuth2TokenValidationResponseDTO.AuthorizationContextToken token;
-        token = messageContext.getResponseDTO().new AuthorizationContextToken("JWT", jwt.serialize());
+        token = messageContext.getResponseDTO().new AuthorizationContextToken("JWT", tokenString);
         messageContext.getResponseDTO().setAuthorizationContextToken(token);
     }
 
+    /**
+     * Build the key of the requested claim set. Claims are sorted since the generated token does not depend on the
+     * order they are requested in, and the signature algorithm is included since the cache is shared by all
+     * generators.
+     */
+    private String getClaimSetKey(OAuth2TokenValidationMessageContext messageContext) {
+
+        String[] requestedClaims = null;
+        if (messageContext.getRequestDTO() != null) {
+            requestedClaims = messageContext.getRequestDTO().getRequiredClaimURIs();
+        }
+        StringBuilder claimSetKey = new StringBuilder(signatureAlgorithm.getName());
+        if (requestedClaims == null) {
+            // Default claims of the user are included when no claims are requested
+            return claimSetKey.append(" *").toString();
+        }
+        for (String claimURI : new TreeSet<String>(Arrays.asList(requestedClaims))) {
+            claimSetKey.append(' ').append(claimURI);
+        }
+        return claimSetKey.toString();
+    }
+
+    private long getAccessTokenExpiryTime(AccessTokenDO accessTokenDO) {
+
+        long validityPeriodInMillis = accessTokenDO.getValidityPeriodInMillis();
+        long issuedTime = accessTokenDO.getIssuedTime().getTime();
+        // Negative validity periods denote tokens which never expire
+        if (validityPeriodInMillis < 0 || issuedTime > Long.MAX_VALUE - validityPeriodInMillis) {
+            return Long.MAX_VALUE;
+        }
+        return issuedTime + validityPeriodInMillis;
+    }
+
     /**
      * Sign with given RSA Algorithm
      *
@@ -317,9 +367,13 @@ public class JWTTokenGenerator implements AuthorizationContextTokenGenerator {
                                        int tenantId)
             throws IdentityOAuth2Exception {
         try {
-            Key privateKey = getPrivateKey(tenantDomain, tenantId);
-            JWSSigner signer = new RSASSASigner((RSAPrivateKey) privateKey);
-            signedJWT.sign(signer);
+            if (tenantDomain == null) {
+                tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+            }
+            if (tenantId == 0) {
+                tenantId = OAuth2Util.getTenantId(tenantDomain);
+            }
+            signedJWT.sign(OAuth2Util.getJWTSigningContext(tenantDomain, tenantId).getSigner());
             return signedJWT;
         } catch (JOSEException e) {
             log.error("Error in obtaining tenant's keystore", e);
@@ -395,148 +449,6 @@ public class JWTTokenGenerator implements AuthorizationContextTokenGenerator {
         }
     }
 
-    /**
-     * Helper method to add public certificate to JWT_HEADER to signature verification.
-     *
-     * @param tenantDomain
-     * @param tenantId
-     * @throws IdentityOAuth2Exception
-     */
-    private String getThumbPrint(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
-
-        try {
-
-            Certificate certificate = getCertificate(tenantDomain, tenantId);
-
-            // TODO: maintain a hashmap with tenants' pubkey thumbprints after first initialization
-
-            //generate the SHA-1 thumbprint of the certificate
-            MessageDigest digestValue = MessageDigest.getInstance("SHA-1");
-            byte[] der = certificate.getEncoded();
-            digestValue.update(der);
-            byte[] digestInBytes = digestValue.digest();
-
-            String publicCertThumbprint = hexify(digestInBytes);
-            String base64EncodedThumbPrint = new String(new Base64(0, null, true).encode(publicCertThumbprint
-                    .getBytes(Charsets.UTF_8)), Charsets.UTF_8);
-            return base64EncodedThumbPrint;
-
-        } catch (Exception e) {
-            String error = "Error in obtaining certificate for tenant " + tenantDomain;
-            throw new IdentityOAuth2Exception(error, e);
-        }
-    }
-
-    private Key getPrivateKey(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
-
-        if (tenantDomain == null) {
-            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
-        }
-
-        if (tenantId == 0) {
-            tenantId = OAuth2Util.getTenantId(tenantDomain);
-        }
-
-        Key privateKey = null;
-
-        if (!(privateKeys.containsKey(tenantId))) {
-
-            try {
-                IdentityTenantUtil.initializeRegistry(tenantId, tenantDomain);
-            } catch (IdentityException e) {
-                throw new IdentityOAuth2Exception("Error occurred while loading registry for tenant " + tenantDomain, e);
-            }
-
-            // get tenant's key store manager
-            KeyStoreManager tenantKSM = KeyStoreManager.getInstance(tenantId);
-
-            if (!tenantDomain.equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
-                // derive key store name
-                String ksName = tenantDomain.trim().replace(".", "-");
-                String jksName = ksName + ".jks";
-                // obtain private key
-                privateKey = tenantKSM.getPrivateKey(jksName, tenantDomain);
-
-            } else {
-                try {
-                    privateKey = tenantKSM.getDefaultPrivateKey();
-                } catch (Exception e) {
-                    log.error("Error while obtaining private key for super tenant", e);
-                }
-            }
-            if (privateKey != null) {
-                privateKeys.put(tenantId, privateKey);
-            }
-        } else {
-            privateKey = privateKeys.get(tenantId);
-        }
-        return privateKey;
-    }
-
-    private Certificate getCertificate(String tenantDomain, int tenantId) throws Exception {
-
-        if (tenantDomain == null) {
-            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
-        }
-
-        if (tenantId == 0) {
-            tenantId = OAuth2Util.getTenantId(tenantDomain);
-        }
-
-        Certificate publicCert = null;
-
-        if (!(publicCerts.containsKey(tenantId))) {
-
-            try {
-                IdentityTenantUtil.initializeRegistry(tenantId, tenantDomain);
-            } catch (IdentityException e) {
-                throw new IdentityOAuth2Exception("Error occurred while loading registry for tenant " + tenantDomain, e);
-            }
-
-            // get tenant's key store manager
-            KeyStoreManager tenantKSM = KeyStoreManager.getInstance(tenantId);
-
-            KeyStore keyStore = null;
-            if (!tenantDomain.equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
-                // derive key store name
-                String ksName = tenantDomain.trim().replace(".", "-");
-                String jksName = ksName + ".jks";
-                keyStore = tenantKSM.getKeyStore(jksName);
-                publicCert = keyStore.getCertificate(tenantDomain);
-            } else {
-                publicCert = tenantKSM.getDefaultPrimaryCertificate();
-            }
-            if (publicCert != null) {
-                publicCerts.put(tenantId, publicCert);
-            }
-        } else {
-            publicCert = publicCerts.get(tenantId);
-        }
-        return publicCert;
-    }
-
-    /**
-     * Helper method to hexify a byte array.
-     * TODO:need to verify the logic
-     *
-     * @param bytes
-     * @return  hexadecimal representation
-     */
-    private String hexify(byte bytes[]) {
-
-        char[] hexDigits = {'0', '1', '2', '3', '4', '5', '6', '7',
-                '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
-
-        StringBuilder buf = new StringBuilder(bytes.length * 2);
-
-        for (int i = 0; i < bytes.length; ++i) {
-            buf.append(hexDigits[(bytes[i] & 0xf0) >> 4]);
-            buf.append(hexDigits[bytes[i] & 0x0f]);
-        }
-
-        return buf.toString();
-    }
-
     private String getMultiAttributeSeparator(String authenticatedUser, int tenantId) {
         String claimSeparator = null;
         String userDomain = IdentityUtil.extractDomainFromName(authenticatedUser);
@@ -47,6 +47,7 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeRespDTO;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.TokenIssuanceLockRegistry;
 import org.wso2.carbon.identity.openidconnect.IDTokenBuilder;
 
 import java.sql.Timestamp;
@@ -54,6 +55,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 /**
  * @deprecated use {@link AccessTokenResponseTypeHandler} instead.
@@ -133,7 +135,8 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
 
         AccessTokenDO tokenDO = null;
 
-        synchronized ((consumerKey + ":" + authorizedUser + ":" + scope).intern()) {
+        Lock tokenIssuanceLock = TokenIssuanceLockRegistry.getInstance().lock(consumerKey, authorizedUser, scope);
+        try {
 
             // check if valid access token exists in cache
             if (cacheEnabled) {
@@ -431,6 +434,8 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
                 respDTO.setScope(newAccessTokenDO.getScope());
                 respDTO.setTokenType(newAccessTokenDO.getTokenType());
             }
+        } finally {
+            tokenIssuanceLock.unlock();
         }
 
         // we only need to deal with id_token and user attributes if the request is OIDC
@@ -44,6 +44,7 @@ import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.TokenIssuanceLockRegistry;
 import org.wso2.carbon.identity.openidconnect.IDTokenBuilder;
 
 import java.sql.Timestamp;
@@ -51,6 +52,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 /**
  * ResponseTypeHandlerUtil contains all the common methods in tokenResponseTypeHandler and IDTokenResponseTypeHandler.
@@ -150,7 +152,8 @@ public class ResponseTypeHandlerUtil {
 
         AccessTokenDO tokenDO = null;
 
-        synchronized ((consumerKey + ":" + authorizedUser + ":" + scope).intern()) {
+        Lock tokenIssuanceLock = TokenIssuanceLockRegistry.getInstance().lock(consumerKey, authorizedUser, scope);
+        try {
 
             // check if valid access token exists in cache
             if (cacheEnabled) {
@@ -403,6 +406,8 @@ public class ResponseTypeHandlerUtil {
                 }
             }
 
+        } finally {
+            tokenIssuanceLock.unlock();
         }
         return  tokenDO;
     }
@@ -24,7 +24,10 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 /*
 NOTE
@@ -42,6 +45,25 @@ public interface AccessTokenDAO {
                               AccessTokenDO newAccessTokenDO, AccessTokenDO existingAccessTokenDO,
                               String rawUserStoreDomain) throws IdentityOAuth2Exception;
 
+    /**
+     * Persist a batch of access tokens using JDBC batch statements in a single transaction.
+     * <p>
+     * The default implementation is kept for DAOs which do not implement it. It persists the access tokens one by one
+     * with {@link #insertAccessToken(String, String, AccessTokenDO, AccessTokenDO, String)}.
+     *
+     * @param accessContextTokenDOs access tokens to be persisted along with the tokens they replace
+     * @throws IdentityOAuth2Exception if none of the access tokens in the batch could be persisted
+     */
+    default void insertAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs)
+            throws IdentityOAuth2Exception {
+
+        for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+            insertAccessToken(accessContextTokenDO.getAccessToken(), accessContextTokenDO.getConsumerKey(),
+                    accessContextTokenDO.getNewAccessTokenDO(), accessContextTokenDO.getExistingAccessTokenDO(),
+                    accessContextTokenDO.getUserStoreDomain());
+        }
+    }
+
     AccessTokenDO getLatestAccessToken(String consumerKey, AuthenticatedUser authzUser, String userStoreDomain,
                                        String scope, boolean includeExpiredTokens) throws IdentityOAuth2Exception;
 
@@ -50,6 +72,29 @@ public interface AccessTokenDAO {
 
     AccessTokenDO getAccessToken(String accessTokenIdentifier, boolean includeExpired) throws IdentityOAuth2Exception;
 
+    /**
+     * Retrieve the active access tokens of the given identifiers with as few queries as possible.
+     * <p>
+     * The default implementation is kept for DAOs which do not implement it. It retrieves the access tokens one by one
+     * with {@link #getAccessToken(String, boolean)}.
+     *
+     * @param accessTokenIdentifiers access token identifiers
+     * @return active access tokens keyed by identifier. Tokens which are not active are not included.
+     * @throws IdentityOAuth2Exception if the tokens cannot be retrieved
+     */
+    default Map<String, AccessTokenDO> getActiveAccessTokens(List<String> accessTokenIdentifiers)
+            throws IdentityOAuth2Exception {
+
+        Map<String, AccessTokenDO> accessTokens = new HashMap<>();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            AccessTokenDO accessTokenDO = getAccessToken(accessTokenIdentifier, false);
+            if (accessTokenDO != null) {
+                accessTokens.put(accessTokenIdentifier, accessTokenDO);
+            }
+        }
+        return accessTokens;
+    }
+
     Set<String> getAccessTokensByUser(AuthenticatedUser authenticatedUser) throws IdentityOAuth2Exception;
 
     Set<String> getActiveTokensByConsumerKey(String consumerKey) throws IdentityOAuth2Exception;
@@ -69,6 +114,36 @@ public interface AccessTokenDAO {
 
     void revokeAccessToken(String tokenId, String userId) throws IdentityOAuth2Exception;
 
+    /**
+     * Revoke all the ACTIVE and EXPIRED access tokens of the user with set based statements.
+     * <p>
+     * The default implementation is kept for DAOs which do not implement it. It only revokes the ACTIVE access tokens
+     * of the user, using {@link #getAccessTokensByUser(AuthenticatedUser)} and {@link #revokeAccessTokens(String[])}.
+     *
+     * @param authenticatedUser user
+     * @return revoked access tokens with the token id, consumer key, user and scopes populated
+     * @throws IdentityOAuth2Exception if the tokens cannot be revoked
+     */
+    default List<AccessTokenDO> revokeAccessTokensOfUser(AuthenticatedUser authenticatedUser)
+            throws IdentityOAuth2Exception {
+
+        List<AccessTokenDO> accessTokens = new ArrayList<>();
+        for (String accessToken : getAccessTokensByUser(authenticatedUser)) {
+            AccessTokenDO accessTokenDO = getAccessToken(accessToken, false);
+            if (accessTokenDO != null) {
+                accessTokens.add(accessTokenDO);
+            }
+        }
+        if (!accessTokens.isEmpty()) {
+            String[] tokens = new String[accessTokens.size()];
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = accessTokens.get(i).getAccessToken();
+            }
+            revokeAccessTokens(tokens);
+        }
+        return accessTokens;
+    }
+
     void invalidateAndCreateNewAccessToken(String oldAccessTokenId, String tokenState, String consumerKey,
                                            String tokenStateId, AccessTokenDO accessTokenDO,
                                            String userStoreDomain) throws IdentityOAuth2Exception;
@@ -55,6 +55,8 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -78,6 +80,9 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
 
     private Log log = LogFactory.getLog(AccessTokenDAOImpl.class);
 
+    // Oracle does not allow more than 1000 expressions in an IN list.
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
     @Override
     public void insertAccessToken(String accessToken, String consumerKey, AccessTokenDO accessTokenDO,
                                   String userStoreDomain) throws IdentityOAuth2Exception {
@@ -138,55 +143,19 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
             }
         }
         userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(userStoreDomain);
-        String userDomain = accessTokenDO.getAuthzUser().getUserStoreDomain();
-        String authenticatedIDP = accessTokenDO.getAuthzUser().getFederatedIdPName();
+        String userDomain = getUserDomainOfAccessToken(accessTokenDO);
         PreparedStatement insertTokenPrepStmt = null;
         PreparedStatement addScopePrepStmt = null;
 
-        if (!OAuthServerConfiguration.getInstance().isMapFederatedUsersToLocal() && accessTokenDO.getAuthzUser()
-                .isFederatedUser()) {
-            if (log.isDebugEnabled()) {
-                log.debug("Adding federated domain to user store domain to user " + accessTokenDO.getAuthzUser()
-                        .getAuthenticatedSubjectIdentifier());
-            }
-            userDomain = OAuth2Util.getFederatedUserDomain(authenticatedIDP);
-        }
-
-        if (log.isDebugEnabled()) {
-            log.debug("Userstore domain for user " + accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier()
-                    + " is :" + userDomain);
-        }
-
         String sql = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN, userDomain);
         String sqlAddScopes = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE,
                 userDomain);
 
         try {
             insertTokenPrepStmt = connection.prepareStatement(sql);
-            insertTokenPrepStmt.setString(1, getPersistenceProcessor().getProcessedAccessTokenIdentifier(accessToken));
-
-            if (accessTokenDO.getRefreshToken() != null) {
-                insertTokenPrepStmt.setString(2, getPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
-            } else {
-                insertTokenPrepStmt.setString(2, accessTokenDO.getRefreshToken());
-            }
-
-            insertTokenPrepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
             int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
-            insertTokenPrepStmt.setInt(4, tenantId);
-            insertTokenPrepStmt.setString(5, OAuth2Util.getSanitizedUserStoreDomain(userDomain));
-            insertTokenPrepStmt.setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-            insertTokenPrepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
-                    .getTimeZone(UTC)));
-            insertTokenPrepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
-            insertTokenPrepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
-            insertTokenPrepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
-            insertTokenPrepStmt.setString(11, accessTokenDO.getTokenState());
-            insertTokenPrepStmt.setString(12, accessTokenDO.getTokenType());
-            insertTokenPrepStmt.setString(13, accessTokenDO.getTokenId());
-            insertTokenPrepStmt.setString(14, accessTokenDO.getGrantType());
-            insertTokenPrepStmt.setString(15, accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier());
-            insertTokenPrepStmt.setString(16, getPersistenceProcessor().getProcessedClientId(consumerKey));
+            setInsertAccessTokenParameters(insertTokenPrepStmt, accessToken, consumerKey, accessTokenDO, userDomain,
+                    tenantId);
             insertTokenPrepStmt.execute();
 
             String accessTokenId = accessTokenDO.getTokenId();
@@ -268,6 +237,17 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         }
 
         String userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(rawUserStoreDomain);
+        if (AccessTokenPersistenceQueue.getInstance().offer(new AccessContextTokenDO(accessToken, consumerKey,
+                newAccessTokenDO, existingAccessTokenDO, userStoreDomain))) {
+            return true;
+        }
+        return persistAccessToken(accessToken, consumerKey, newAccessTokenDO, existingAccessTokenDO,
+                userStoreDomain);
+    }
+
+    private boolean persistAccessToken(String accessToken, String consumerKey, AccessTokenDO newAccessTokenDO,
+                                       AccessTokenDO existingAccessTokenDO, String userStoreDomain)
+            throws IdentityOAuth2Exception {
 
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         try {
@@ -287,6 +267,226 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         }
     }
 
+    @Override
+    public void insertAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs) throws IdentityOAuth2Exception {
+
+        if (!isPersistenceEnabled() || accessContextTokenDOs == null || accessContextTokenDOs.isEmpty()) {
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Persisting a batch of " + accessContextTokenDOs.size() + " access tokens.");
+        }
+
+        // Statements are keyed by their SQL since the table differs per user store domain when access token
+        // partitioning is enabled. They are executed in the order expire, insert token and insert scopes so that
+        // the unique constraint and the scope foreign key are satisfied within the single transaction.
+        Map<String, PreparedStatement> expireTokenPrepStmts = new LinkedHashMap<>();
+        Map<String, PreparedStatement> insertTokenPrepStmts = new LinkedHashMap<>();
+        Map<String, PreparedStatement> addScopePrepStmts = new LinkedHashMap<>();
+        // Ids of the tokens added to the statements which are not executed yet.
+        Set<String> pendingTokenIds = new HashSet<>();
+
+        boolean batchCommitted = false;
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            connection.setAutoCommit(false);
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                AccessTokenDO existingAccessTokenDO = accessContextTokenDO.getExistingAccessTokenDO();
+                if (existingAccessTokenDO != null && pendingTokenIds.contains(existingAccessTokenDO.getTokenId())) {
+                    // The token replaces a token of the same batch, which has to be inserted before it is expired,
+                    // as it would be when the tokens are persisted one by one.
+                    executeBatches(expireTokenPrepStmts);
+                    executeBatches(insertTokenPrepStmts);
+                    executeBatches(addScopePrepStmts);
+                    pendingTokenIds.clear();
+                }
+                addAccessTokenToBatch(connection, accessContextTokenDO, expireTokenPrepStmts, insertTokenPrepStmts,
+                        addScopePrepStmts);
+                pendingTokenIds.add(accessContextTokenDO.getNewAccessTokenDO().getTokenId());
+            }
+            executeBatches(expireTokenPrepStmts);
+            executeBatches(insertTokenPrepStmts);
+            executeBatches(addScopePrepStmts);
+            connection.commit();
+            batchCommitted = true;
+        } catch (SQLException | IdentityOAuth2Exception e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            if (log.isDebugEnabled()) {
+                log.debug("Error while persisting access tokens in batch mode. Falling back to persist the "
+                        + accessContextTokenDOs.size() + " access tokens individually.", e);
+            }
+        } finally {
+            closeStatements(expireTokenPrepStmts, insertTokenPrepStmts, addScopePrepStmts);
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+
+        if (!batchCommitted) {
+            insertAccessTokensIndividually(accessContextTokenDOs);
+        }
+    }
+
+    private void addAccessTokenToBatch(Connection connection, AccessContextTokenDO accessContextTokenDO,
+                                       Map<String, PreparedStatement> expireTokenPrepStmts,
+                                       Map<String, PreparedStatement> insertTokenPrepStmts,
+                                       Map<String, PreparedStatement> addScopePrepStmts)
+            throws SQLException, IdentityOAuth2Exception {
+
+        String accessToken = accessContextTokenDO.getAccessToken();
+        String consumerKey = accessContextTokenDO.getConsumerKey();
+        AccessTokenDO accessTokenDO = accessContextTokenDO.getNewAccessTokenDO();
+        if (accessTokenDO == null || accessTokenDO.getAuthzUser() == null) {
+            throw new IdentityOAuth2Exception("Access token data object with an authorized user should be " +
+                    "available for further execution.");
+        }
+
+        AccessTokenDO existingAccessTokenDO = accessContextTokenDO.getExistingAccessTokenDO();
+        if (existingAccessTokenDO != null) {
+            String userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(
+                    accessContextTokenDO.getUserStoreDomain());
+            String sql = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.UPDATE_TOKE_STATE, userStoreDomain);
+            PreparedStatement expireTokenPrepStmt = getBatchStatement(connection, sql, expireTokenPrepStmts);
+            expireTokenPrepStmt.setString(1, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+            expireTokenPrepStmt.setString(2, UUID.randomUUID().toString());
+            expireTokenPrepStmt.setString(3, existingAccessTokenDO.getTokenId());
+            expireTokenPrepStmt.addBatch();
+        }
+
+        if (OAuthServerConfiguration.getInstance().usePersistedAccessTokenAlias()) {
+            try {
+                accessToken = OAuthServerConfiguration.getInstance().getIdentityOauthTokenIssuer()
+                        .getAccessTokenHash(accessToken);
+            } catch (OAuthSystemException e) {
+                throw new IdentityOAuth2Exception("Error while getting access token hash.", e);
+            }
+        }
+
+        String userDomain = getUserDomainOfAccessToken(accessTokenDO);
+        int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
+
+        String sql = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN, userDomain);
+        PreparedStatement insertTokenPrepStmt = getBatchStatement(connection, sql, insertTokenPrepStmts);
+        setInsertAccessTokenParameters(insertTokenPrepStmt, accessToken, consumerKey, accessTokenDO, userDomain,
+                tenantId);
+        insertTokenPrepStmt.addBatch();
+
+        if (accessTokenDO.getScope() != null && accessTokenDO.getScope().length > 0) {
+            String sqlAddScopes = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE,
+                    userDomain);
+            PreparedStatement addScopePrepStmt = getBatchStatement(connection, sqlAddScopes, addScopePrepStmts);
+            for (String scope : accessTokenDO.getScope()) {
+                addScopePrepStmt.setString(1, accessTokenDO.getTokenId());
+                addScopePrepStmt.setString(2, scope);
+                addScopePrepStmt.setInt(3, tenantId);
+                addScopePrepStmt.addBatch();
+            }
+        }
+    }
+
+    private PreparedStatement getBatchStatement(Connection connection, String sql,
+                                                Map<String, PreparedStatement> prepStmts) throws SQLException {
+
+        PreparedStatement prepStmt = prepStmts.get(sql);
+        if (prepStmt == null) {
+            prepStmt = connection.prepareStatement(sql);
+            prepStmts.put(sql, prepStmt);
+        }
+        return prepStmt;
+    }
+
+    private void executeBatches(Map<String, PreparedStatement> prepStmts) throws SQLException {
+
+        for (PreparedStatement prepStmt : prepStmts.values()) {
+            prepStmt.executeBatch();
+        }
+    }
+
+    @SafeVarargs
+    private final void closeStatements(Map<String, PreparedStatement>... prepStmtMaps) {
+
+        for (Map<String, PreparedStatement> prepStmts : prepStmtMaps) {
+            for (PreparedStatement prepStmt : prepStmts.values()) {
+                IdentityDatabaseUtil.closeStatement(prepStmt);
+            }
+            prepStmts.clear();
+        }
+    }
+
+    /**
+     * Persist each access token in its own transaction. This is used when a batch could not be committed, for
+     * example due to a 'CON_APP_KEY' constraint violation, so that the existing recovery logic applies per token.
+     */
+    private void insertAccessTokensIndividually(List<AccessContextTokenDO> accessContextTokenDOs)
+            throws IdentityOAuth2Exception {
+
+        int failedCount = 0;
+        IdentityOAuth2Exception lastError = null;
+        for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+            try {
+                persistAccessToken(accessContextTokenDO.getAccessToken(), accessContextTokenDO.getConsumerKey(),
+                        accessContextTokenDO.getNewAccessTokenDO(), accessContextTokenDO.getExistingAccessTokenDO(),
+                        OAuth2Util.getSanitizedUserStoreDomain(accessContextTokenDO.getUserStoreDomain()));
+            } catch (IdentityOAuth2Exception e) {
+                failedCount++;
+                lastError = e;
+                log.error("Error occurred while persisting access token for client: " +
+                        accessContextTokenDO.getConsumerKey(), e);
+            }
+        }
+        if (failedCount == accessContextTokenDOs.size()) {
+            throw new IdentityOAuth2Exception("Error occurred while persisting a batch of " + failedCount +
+                    " access tokens.", lastError);
+        }
+    }
+
+    private String getUserDomainOfAccessToken(AccessTokenDO accessTokenDO) {
+
+        String userDomain = accessTokenDO.getAuthzUser().getUserStoreDomain();
+        if (!OAuthServerConfiguration.getInstance().isMapFederatedUsersToLocal() && accessTokenDO.getAuthzUser()
+                .isFederatedUser()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Adding federated domain to user store domain to user " + accessTokenDO.getAuthzUser()
+                        .getAuthenticatedSubjectIdentifier());
+            }
+            userDomain = OAuth2Util.getFederatedUserDomain(accessTokenDO.getAuthzUser().getFederatedIdPName());
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Userstore domain for user " + accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier()
+                    + " is :" + userDomain);
+        }
+        return userDomain;
+    }
+
+    private void setInsertAccessTokenParameters(PreparedStatement insertTokenPrepStmt, String accessToken,
+                                                String consumerKey, AccessTokenDO accessTokenDO, String userDomain,
+                                                int tenantId) throws SQLException, IdentityOAuth2Exception {
+
+        insertTokenPrepStmt.setString(1, getPersistenceProcessor().getProcessedAccessTokenIdentifier(accessToken));
+
+        if (accessTokenDO.getRefreshToken() != null) {
+            insertTokenPrepStmt.setString(2, getPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
+        } else {
+            insertTokenPrepStmt.setString(2, accessTokenDO.getRefreshToken());
+        }
+
+        insertTokenPrepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
+        insertTokenPrepStmt.setInt(4, tenantId);
+        insertTokenPrepStmt.setString(5, OAuth2Util.getSanitizedUserStoreDomain(userDomain));
+        insertTokenPrepStmt.setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        insertTokenPrepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
+                .getTimeZone(UTC)));
+        insertTokenPrepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
+        insertTokenPrepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
+        insertTokenPrepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
+        insertTokenPrepStmt.setString(11, accessTokenDO.getTokenState());
+        insertTokenPrepStmt.setString(12, accessTokenDO.getTokenType());
+        insertTokenPrepStmt.setString(13, accessTokenDO.getTokenId());
+        insertTokenPrepStmt.setString(14, accessTokenDO.getGrantType());
+        insertTokenPrepStmt.setString(15, accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier());
+        insertTokenPrepStmt.setString(16, getPersistenceProcessor().getProcessedClientId(consumerKey));
+    }
+
     @Override
     public AccessTokenDO getLatestAccessToken(String consumerKey, AuthenticatedUser authzUser,
                                               String userStoreDomain, String scope,
@@ -724,55 +924,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
             while (resultSet.next()) {
 
                 if (iterateId == 0) {
-
-                    String consumerKey = getPersistenceProcessor().getPreprocessedClientId(resultSet.getString(1));
-                    String authorizedUser = resultSet.getString(2);
-                    int tenantId = resultSet.getInt(3);
-                    String tenantDomain = OAuth2Util.getTenantDomain(tenantId);
-                    String userDomain = resultSet.getString(4);
-                    String[] scope = OAuth2Util.buildScopeArray(resultSet.getString(5));
-                    Timestamp issuedTime = resultSet.getTimestamp(6, Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-                    Timestamp refreshTokenIssuedTime = resultSet.getTimestamp(7,
-                            Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-                    long validityPeriodInMillis = resultSet.getLong(8);
-                    long refreshTokenValidityPeriodMillis = resultSet.getLong(9);
-                    String tokenType = resultSet.getString(10);
-                    String refreshToken = resultSet.getString(11);
-                    String tokenId = resultSet.getString(12);
-                    String grantType = resultSet.getString(13);
-                    String subjectIdentifier = resultSet.getString(14);
-
-                    AuthenticatedUser user = new AuthenticatedUser();
-                    user.setUserName(authorizedUser);
-                    user.setUserStoreDomain(userDomain);
-                    user.setTenantDomain(tenantDomain);
-                    ServiceProvider serviceProvider;
-                    try {
-                        serviceProvider = OAuth2ServiceComponentHolder.getApplicationMgtService().
-                                getServiceProviderByClientId(consumerKey, OAuthConstants.Scope.OAUTH2, tenantDomain);
-                    } catch (IdentityApplicationManagementException e) {
-                        throw new IdentityOAuth2Exception("Error occurred while retrieving OAuth2 application data for client id " +
-                                consumerKey, e);
-                    }
-                    user.setAuthenticatedSubjectIdentifier(subjectIdentifier, serviceProvider);
-
-                    if (!OAuthServerConfiguration.getInstance().isMapFederatedUsersToLocal() && userDomain.startsWith
-                            (OAuthConstants.UserType.FEDERATED_USER_DOMAIN_PREFIX)) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Federated prefix found in domain " + userDomain + "and federated users are not" +
-                                    " mapped to local users. Hence setting user to a federated user");
-                        }
-                        user.setFederatedUser(true);
-                    }
-
-                    dataDO = new AccessTokenDO(consumerKey, user, scope, issuedTime, refreshTokenIssuedTime,
-                            validityPeriodInMillis, refreshTokenValidityPeriodMillis, tokenType);
-                    dataDO.setAccessToken(accessTokenIdentifier);
-                    dataDO.setRefreshToken(refreshToken);
-                    dataDO.setTokenId(tokenId);
-                    dataDO.setGrantType(grantType);
-                    dataDO.setTenantID(tenantId);
-
+                    dataDO = buildAccessTokenDO(resultSet, accessTokenIdentifier);
                 } else {
                     scopes.add(resultSet.getString(5));
                 }
@@ -794,6 +946,139 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         return dataDO;
     }
 
+    @Override
+    public Map<String, AccessTokenDO> getActiveAccessTokens(List<String> accessTokenIdentifiers)
+            throws IdentityOAuth2Exception {
+
+        Map<String, AccessTokenDO> accessTokens = new HashMap<>();
+        if (accessTokenIdentifiers == null || accessTokenIdentifiers.isEmpty()) {
+            return accessTokens;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving information of " + accessTokenIdentifiers.size() + " access tokens");
+        }
+
+        // Tokens of different user stores are stored in different tables when access token partitioning is enabled.
+        Map<String, List<String>> tokensOfPartitions = new LinkedHashMap<>();
+        for (String accessTokenIdentifier : new LinkedHashSet<>(accessTokenIdentifiers)) {
+            String sql = OAuth2Util.getTokenPartitionedSqlByToken(SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS,
+                    accessTokenIdentifier);
+            List<String> tokensOfPartition = tokensOfPartitions.get(sql);
+            if (tokensOfPartition == null) {
+                tokensOfPartition = new ArrayList<>();
+                tokensOfPartitions.put(sql, tokensOfPartition);
+            }
+            tokensOfPartition.add(accessTokenIdentifier);
+        }
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            for (Map.Entry<String, List<String>> tokensOfPartition : tokensOfPartitions.entrySet()) {
+                List<String> tokens = tokensOfPartition.getValue();
+                String condition = OAuth2Util.getTokenPartitionedSqlByToken(
+                        SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS_CONDITION, tokens.get(0));
+                for (int from = 0; from < tokens.size(); from += MAX_IN_LIST_SIZE) {
+                    List<String> chunk = tokens.subList(from, Math.min(from + MAX_IN_LIST_SIZE, tokens.size()));
+                    getActiveAccessTokens(connection, tokensOfPartition.getKey() + buildPlaceholders(chunk.size()) +
+                            condition, chunk, accessTokens);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error when retrieving Access Tokens", e);
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+        return accessTokens;
+    }
+
+    private void getActiveAccessTokens(Connection connection, String sql, List<String> accessTokenIdentifiers,
+                                       Map<String, AccessTokenDO> accessTokens)
+            throws SQLException, IdentityOAuth2Exception {
+
+        Map<String, String> processedTokenIdentifiers = new HashMap<>();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = connection.prepareStatement(sql);
+            int index = 1;
+            for (String accessTokenIdentifier : accessTokenIdentifiers) {
+                String processedTokenIdentifier =
+                        getPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenIdentifier);
+                processedTokenIdentifiers.put(processedTokenIdentifier, accessTokenIdentifier);
+                ps.setString(index++, processedTokenIdentifier);
+            }
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                String accessTokenIdentifier = processedTokenIdentifiers.get(rs.getString(15));
+                if (accessTokenIdentifier == null) {
+                    continue;
+                }
+                AccessTokenDO accessTokenDO = accessTokens.get(accessTokenIdentifier);
+                if (accessTokenDO == null) {
+                    accessTokens.put(accessTokenIdentifier, buildAccessTokenDO(rs, accessTokenIdentifier));
+                } else {
+                    // Each scope of the token is returned in a separate row.
+                    accessTokenDO.setScope((String[]) ArrayUtils.add(accessTokenDO.getScope(), rs.getString(5)));
+                }
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, ps);
+        }
+    }
+
+    private AccessTokenDO buildAccessTokenDO(ResultSet resultSet, String accessTokenIdentifier)
+            throws SQLException, IdentityOAuth2Exception {
+
+        String consumerKey = getPersistenceProcessor().getPreprocessedClientId(resultSet.getString(1));
+        String authorizedUser = resultSet.getString(2);
+        int tenantId = resultSet.getInt(3);
+        String tenantDomain = OAuth2Util.getTenantDomain(tenantId);
+        String userDomain = resultSet.getString(4);
+        String[] scope = OAuth2Util.buildScopeArray(resultSet.getString(5));
+        Timestamp issuedTime = resultSet.getTimestamp(6, Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        Timestamp refreshTokenIssuedTime = resultSet.getTimestamp(7,
+                Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        long validityPeriodInMillis = resultSet.getLong(8);
+        long refreshTokenValidityPeriodMillis = resultSet.getLong(9);
+        String tokenType = resultSet.getString(10);
+        String refreshToken = resultSet.getString(11);
+        String tokenId = resultSet.getString(12);
+        String grantType = resultSet.getString(13);
+        String subjectIdentifier = resultSet.getString(14);
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName(authorizedUser);
+        user.setUserStoreDomain(userDomain);
+        user.setTenantDomain(tenantDomain);
+        ServiceProvider serviceProvider;
+        try {
+            serviceProvider = OAuth2ServiceComponentHolder.getApplicationMgtService().
+                    getServiceProviderByClientId(consumerKey, OAuthConstants.Scope.OAUTH2, tenantDomain);
+        } catch (IdentityApplicationManagementException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving OAuth2 application data for client id " +
+                    consumerKey, e);
+        }
+        user.setAuthenticatedSubjectIdentifier(subjectIdentifier, serviceProvider);
+
+        if (!OAuthServerConfiguration.getInstance().isMapFederatedUsersToLocal() && userDomain.startsWith
+                (OAuthConstants.UserType.FEDERATED_USER_DOMAIN_PREFIX)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Federated prefix found in domain " + userDomain + "and federated users are not" +
+                        " mapped to local users. Hence setting user to a federated user");
+            }
+            user.setFederatedUser(true);
+        }
+
+        AccessTokenDO dataDO = new AccessTokenDO(consumerKey, user, scope, issuedTime, refreshTokenIssuedTime,
+                validityPeriodInMillis, refreshTokenValidityPeriodMillis, tokenType);
+        dataDO.setAccessToken(accessTokenIdentifier);
+        dataDO.setRefreshToken(refreshToken);
+        dataDO.setTokenId(tokenId);
+        dataDO.setGrantType(grantType);
+        dataDO.setTenantID(tenantId);
+        return dataDO;
+    }
+
     private void updateAccessTokenState(Connection connection, String tokenId, String tokenState,
                                         String tokenStateId, String userStoreDomain)
             throws IdentityOAuth2Exception {
@@ -972,6 +1257,119 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         }
     }
 
+    /**
+     * Revoke all the ACTIVE and EXPIRED access tokens of the user in a single transaction. The tokens are read with
+     * their client and scopes in one query and revoked with one set based update per 1000 tokens, instead of looking
+     * up and revoking the tokens of each client of the user separately.
+     *
+     * @param authenticatedUser user
+     * @return revoked access tokens with the token id, consumer key, user and scopes populated
+     * @throws IdentityOAuth2Exception if the tokens cannot be revoked
+     */
+    @Override
+    public List<AccessTokenDO> revokeAccessTokensOfUser(AuthenticatedUser authenticatedUser)
+            throws IdentityOAuth2Exception {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Revoking all access tokens of user: " + authenticatedUser.toString());
+        }
+
+        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(authenticatedUser.toString());
+        int tenantId = OAuth2Util.getTenantId(authenticatedUser.getTenantDomain());
+        String userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(authenticatedUser.getUserStoreDomain());
+        String partitionUserStoreDomain = OAuth2Util.getUserStoreForFederatedUser(authenticatedUser);
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        Map<String, AccessTokenDO> accessTokens = new LinkedHashMap<>();
+        Map<String, List<String>> scopes = new HashMap<>();
+        try {
+            connection.setAutoCommit(false);
+            String sql = SQLQueries.RETRIEVE_REVOCABLE_ACCESS_TOKENS_OF_USER;
+            if (!isUsernameCaseSensitive) {
+                sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+            }
+            ps = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(sql,
+                    partitionUserStoreDomain));
+            ps.setString(1, isUsernameCaseSensitive ? authenticatedUser.getUserName() :
+                    authenticatedUser.getUserName().toLowerCase());
+            ps.setInt(2, tenantId);
+            ps.setString(3, userStoreDomain);
+            ps.setString(4, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+            ps.setString(5, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                String tokenId = rs.getString(1);
+                AccessTokenDO accessTokenDO = accessTokens.get(tokenId);
+                if (accessTokenDO == null) {
+                    accessTokenDO = new AccessTokenDO();
+                    accessTokenDO.setTokenId(tokenId);
+                    accessTokenDO.setAccessToken(getPersistenceProcessor().getPreprocessedAccessTokenIdentifier(
+                            rs.getString(2)));
+                    accessTokenDO.setConsumerKey(rs.getString(3));
+                    accessTokenDO.setAuthzUser(authenticatedUser);
+                    accessTokenDO.setTenantID(tenantId);
+                    accessTokens.put(tokenId, accessTokenDO);
+                    scopes.put(tokenId, new ArrayList<String>());
+                }
+                String scope = rs.getString(4);
+                if (scope != null) {
+                    scopes.get(tokenId).add(scope.trim());
+                }
+            }
+            IdentityDatabaseUtil.closeAllConnections(null, rs, ps);
+            rs = null;
+            ps = null;
+
+            List<String> tokenIds = new ArrayList<>(accessTokens.keySet());
+            for (int from = 0; from < tokenIds.size(); from += MAX_IN_LIST_SIZE) {
+                List<String> chunk = tokenIds.subList(from, Math.min(from + MAX_IN_LIST_SIZE, tokenIds.size()));
+                ps = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(
+                        SQLQueries.REVOKE_ACCESS_TOKENS_BY_TOKEN_IDS + buildPlaceholders(chunk.size()),
+                        partitionUserStoreDomain));
+                int index = 1;
+                ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+                ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+                ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+                for (String tokenId : chunk) {
+                    ps.setString(index++, tokenId);
+                }
+                ps.executeUpdate();
+                IdentityDatabaseUtil.closeStatement(ps);
+                ps = null;
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw new IdentityOAuth2Exception("Error occurred while revoking access tokens of user : " +
+                    authenticatedUser.getUserName() + " tenant ID : " + tenantId, e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, rs, ps);
+        }
+
+        for (AccessTokenDO accessTokenDO : accessTokens.values()) {
+            List<String> tokenScopes = scopes.get(accessTokenDO.getTokenId());
+            accessTokenDO.setScope(tokenScopes.toArray(new String[tokenScopes.size()]));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Revoked " + accessTokens.size() + " access tokens of user: " + authenticatedUser.toString());
+        }
+        return new ArrayList<>(accessTokens.values());
+    }
+
+    private static String buildPlaceholders(int count) {
+
+        StringBuilder placeholders = new StringBuilder("(");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                placeholders.append(",");
+            }
+            placeholders.append("?");
+        }
+        return placeholders.append(")").toString();
+    }
+
 
 
     /**
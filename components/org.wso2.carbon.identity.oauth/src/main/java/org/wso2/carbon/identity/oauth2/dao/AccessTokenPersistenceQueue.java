@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded queue of the access tokens which are persisted asynchronously in micro batches by
+ * {@link TokenBatchPersistenceTask}s.
+ * <p>
+ * Access tokens are only queued when {@code OAuth.TokenPersistence.PoolSize} is greater than zero. The token is then
+ * returned to the client before it is persisted. When the queue is full the token is persisted on the caller's
+ * thread, so that token issuance is throttled to the rate the database can absorb.
+ */
+public class AccessTokenPersistenceQueue {
+
+    private static final Log log = LogFactory.getLog(AccessTokenPersistenceQueue.class);
+
+    // These config properties are defined in identity.xml
+    private static final String OAUTH_TOKEN_PERSISTENCE_POOLSIZE = "OAuth.TokenPersistence.PoolSize";
+    private static final String OAUTH_TOKEN_PERSISTENCE_QUEUE_SIZE = "OAuth.TokenPersistence.QueueSize";
+    private static final String OAUTH_TOKEN_PERSISTENCE_BATCH_SIZE = "OAuth.TokenPersistence.BatchSize";
+    private static final String OAUTH_TOKEN_PERSISTENCE_FLUSH_INTERVAL = "OAuth.TokenPersistence.BatchFlushInterval";
+
+    // We read from this property for the sake of backward compatibility
+    private static final String FRAMEWORK_PERSISTENCE_POOLSIZE = "JDBCPersistenceManager.SessionDataPersist.PoolSize";
+
+    private static final int DEFAULT_POOL_SIZE = 0;
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_FLUSH_INTERVAL = 50;
+
+    private static volatile AccessTokenPersistenceQueue instance;
+
+    private final BlockingQueue<AccessContextTokenDO> accessContextTokenQueue;
+    private final TokenPersistenceMetrics metrics;
+    private final int poolSize;
+
+    AccessTokenPersistenceQueue(int poolSize, int queueSize) {
+
+        this.poolSize = Math.max(0, poolSize);
+        this.accessContextTokenQueue = new LinkedBlockingQueue<>(Math.max(1, queueSize));
+        this.metrics = new TokenPersistenceMetrics(accessContextTokenQueue);
+    }
+
+    public static AccessTokenPersistenceQueue getInstance() {
+
+        if (instance == null) {
+            synchronized (AccessTokenPersistenceQueue.class) {
+                if (instance == null) {
+                    int poolSize = OAuth2PropertyUtil.getIntProperty(OAUTH_TOKEN_PERSISTENCE_POOLSIZE,
+                            OAuth2PropertyUtil.getIntProperty(FRAMEWORK_PERSISTENCE_POOLSIZE, DEFAULT_POOL_SIZE, 0),
+                            0);
+                    AccessTokenPersistenceQueue persistenceQueue = new AccessTokenPersistenceQueue(poolSize,
+                            OAuth2PropertyUtil.getIntProperty(OAUTH_TOKEN_PERSISTENCE_QUEUE_SIZE, DEFAULT_QUEUE_SIZE,
+                                    1));
+                    persistenceQueue.startConsumers(
+                            OAuth2PropertyUtil.getIntProperty(OAUTH_TOKEN_PERSISTENCE_BATCH_SIZE, DEFAULT_BATCH_SIZE,
+                                    1),
+                            OAuth2PropertyUtil.getIntProperty(OAUTH_TOKEN_PERSISTENCE_FLUSH_INTERVAL,
+                                    DEFAULT_FLUSH_INTERVAL, 1));
+                    instance = persistenceQueue;
+                }
+            }
+        }
+        return instance;
+    }
+
+    private void startConsumers(int batchSize, long flushInterval) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        log.info("Thread pool size for OAuth Token persistent consumer : " + poolSize);
+        log.info("Access token persistence batch size : " + batchSize + ", flush interval : " + flushInterval +
+                "ms, queue size : " + accessContextTokenQueue.remainingCapacity());
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService threadPool = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "AccessTokenPersistence-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < poolSize; i++) {
+            threadPool.execute(new TokenBatchPersistenceTask(accessContextTokenQueue, batchSize, flushInterval,
+                    metrics));
+        }
+    }
+
+    /**
+     * @return whether access tokens are persisted asynchronously
+     */
+    public boolean isEnabled() {
+
+        return poolSize > 0;
+    }
+
+    /**
+     * Queue an access token to be persisted asynchronously.
+     *
+     * @param accessContextTokenDO access token along with the token it replaces
+     * @return false if asynchronous persistence is disabled or the queue is full, in which case the caller has to
+     * persist the access token
+     */
+    boolean offer(AccessContextTokenDO accessContextTokenDO) {
+
+        if (!isEnabled()) {
+            return false;
+        }
+        if (accessContextTokenQueue.offer(accessContextTokenDO)) {
+            return true;
+        }
+
+        metrics.recordBackPressure();
+        if (log.isDebugEnabled()) {
+            log.debug("Access token persistence queue is full. Persisting access token synchronously.");
+        }
+        return false;
+    }
+
+    /**
+     * Returns the runtime statistics of the asynchronous access token persistence such as the queue depth, batch
+     * sizes and commit latency.
+     *
+     * @return access token persistence metrics
+     */
+    public TokenPersistenceMetrics getMetrics() {
+
+        return metrics;
+    }
+}
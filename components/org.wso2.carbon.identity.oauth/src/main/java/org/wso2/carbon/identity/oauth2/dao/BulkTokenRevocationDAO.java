@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+
+import java.util.List;
+
+/**
+ * Set based revocation of the access tokens and authorization codes matching a {@link TokenRevocationFilter}.
+ * Tokens are processed in chunks ordered by their identifiers, each chunk in its own short transaction, so that a
+ * revocation of a large number of tokens does not hold locks on the token tables for long.
+ */
+public interface BulkTokenRevocationDAO {
+
+    /**
+     * Retrieve a chunk of the ACTIVE or EXPIRED access tokens matching the filter.
+     *
+     * @param filter                   revocation filter
+     * @param partitionUserStoreDomain user store domain of the access token table partition
+     * @param afterTokenId             identifier of the last token of the previous chunk or null for the first chunk
+     * @param chunkSize                maximum number of tokens to retrieve
+     * @return access tokens with the consumer key, user, scopes and token id populated, ordered by token id
+     * @throws IdentityOAuth2Exception if the tokens cannot be retrieved
+     */
+    List<AccessTokenDO> getAccessTokens(TokenRevocationFilter filter, String partitionUserStoreDomain,
+                                        String afterTokenId, int chunkSize) throws IdentityOAuth2Exception;
+
+    /**
+     * Revoke a chunk of the ACTIVE or EXPIRED access tokens matching the filter in a single transaction.
+     *
+     * @param filter                   revocation filter
+     * @param partitionUserStoreDomain user store domain of the access token table partition
+     * @param afterTokenId             identifier of the last token of the previous chunk or null for the first chunk
+     * @param chunkSize                maximum number of tokens to revoke
+     * @return revoked access tokens with the consumer key, user, scopes and token id populated, ordered by token id
+     * @throws IdentityOAuth2Exception if the tokens cannot be revoked
+     */
+    List<AccessTokenDO> revokeAccessTokens(TokenRevocationFilter filter, String partitionUserStoreDomain,
+                                           String afterTokenId, int chunkSize) throws IdentityOAuth2Exception;
+
+    /**
+     * Revoke a chunk of the ACTIVE authorization codes matching the filter in a single transaction.
+     *
+     * @param filter      revocation filter
+     * @param afterCodeId identifier of the last code of the previous chunk or null for the first chunk
+     * @param chunkSize   maximum number of codes to revoke
+     * @return revoked authorization codes with the consumer key, code and code id populated, ordered by code id
+     * @throws IdentityOAuth2Exception if the codes cannot be revoked
+     */
+    List<AuthzCodeDO> revokeAuthorizationCodes(TokenRevocationFilter filter, String afterCodeId, int chunkSize)
+            throws IdentityOAuth2Exception;
+
+    /**
+     * Retrieve the ACTIVE access tokens of a set of users of a user store with a single query.
+     *
+     * @param tenantId                 tenant id of the users
+     * @param userStoreDomain          user store domain of the users
+     * @param userNames                user names, lower cased if user names are case insensitive in the user store
+     * @param usernameCaseSensitive    whether user names are case sensitive in the user store
+     * @param partitionUserStoreDomain user store domain of the access token table partition
+     * @return access tokens with the token id populated
+     * @throws IdentityOAuth2Exception if the tokens cannot be retrieved
+     */
+    List<AccessTokenDO> getActiveAccessTokensOfUsers(int tenantId, String userStoreDomain, List<String> userNames,
+                                                     boolean usernameCaseSensitive, String partitionUserStoreDomain)
+            throws IdentityOAuth2Exception;
+
+    /**
+     * Retrieve the ACTIVE authorization codes of a set of users of a user store with a single query.
+     *
+     * @param tenantId              tenant id of the users
+     * @param userStoreDomain       user store domain of the users
+     * @param userNames             user names, lower cased if user names are case insensitive in the user store
+     * @param usernameCaseSensitive whether user names are case sensitive in the user store
+     * @return authorization codes with the code id populated
+     * @throws IdentityOAuth2Exception if the authorization codes cannot be retrieved
+     */
+    List<AuthzCodeDO> getActiveAuthorizationCodesOfUsers(int tenantId, String userStoreDomain, List<String> userNames,
+                                                         boolean usernameCaseSensitive) throws IdentityOAuth2Exception;
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link BulkTokenRevocationDAO}. Chunks are limited with {@link PreparedStatement#setMaxRows}
+ * and paged by the primary key so that the same queries work on all supported databases.
+ */
+public class BulkTokenRevocationDAOImpl extends AbstractOAuthDAO implements BulkTokenRevocationDAO {
+
+    private static final Log log = LogFactory.getLog(BulkTokenRevocationDAOImpl.class);
+
+    private static final String ACCESS_TOKEN_ALIAS = "T";
+    private static final String AUTHORIZATION_CODE_ALIAS = "C";
+
+    @Override
+    public List<AccessTokenDO> getAccessTokens(TokenRevocationFilter filter, String partitionUserStoreDomain,
+                                               String afterTokenId, int chunkSize) throws IdentityOAuth2Exception {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            List<AccessTokenDO> accessTokens = getAccessTokens(connection, filter, partitionUserStoreDomain,
+                    afterTokenId, chunkSize);
+            connection.commit();
+            return accessTokens;
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw new IdentityOAuth2Exception("Error occurred while retrieving access tokens matching " + filter, e);
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    @Override
+    public List<AccessTokenDO> revokeAccessTokens(TokenRevocationFilter filter, String partitionUserStoreDomain,
+                                                  String afterTokenId, int chunkSize) throws IdentityOAuth2Exception {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement ps = null;
+        try {
+            connection.setAutoCommit(false);
+            List<AccessTokenDO> accessTokens = getAccessTokens(connection, filter, partitionUserStoreDomain,
+                    afterTokenId, chunkSize);
+            if (accessTokens.isEmpty()) {
+                connection.commit();
+                return accessTokens;
+            }
+
+            String sql = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.REVOKE_ACCESS_TOKENS_BY_TOKEN_IDS +
+                    buildPlaceholders(accessTokens.size()), partitionUserStoreDomain);
+            ps = connection.prepareStatement(sql);
+            int index = 1;
+            ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+            ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+            ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+            for (AccessTokenDO accessToken : accessTokens) {
+                ps.setString(index++, accessToken.getTokenId());
+            }
+            int count = ps.executeUpdate();
+            connection.commit();
+            if (log.isDebugEnabled()) {
+                log.debug("Revoked " + count + " of " + accessTokens.size() + " access tokens matching " + filter);
+            }
+            return accessTokens;
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw new IdentityOAuth2Exception("Error occurred while revoking access tokens matching " + filter, e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, null, ps);
+        }
+    }
+
+    @Override
+    public List<AuthzCodeDO> revokeAuthorizationCodes(TokenRevocationFilter filter, String afterCodeId,
+                                                      int chunkSize) throws IdentityOAuth2Exception {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        List<AuthzCodeDO> authzCodes = new ArrayList<>();
+        try {
+            connection.setAutoCommit(false);
+            StringBuilder sql = new StringBuilder(SQLQueries.RETRIEVE_REVOCABLE_AUTHORIZATION_CODES);
+            if (afterCodeId != null) {
+                sql.append(SQLQueries.REVOCABLE_AUTHORIZATION_CODES_AFTER_CODE_ID);
+            }
+            sql.append(filter.getCondition(AUTHORIZATION_CODE_ALIAS));
+            sql.append(SQLQueries.REVOCABLE_AUTHORIZATION_CODES_ORDER_BY);
+
+            ps = connection.prepareStatement(sql.toString());
+            ps.setMaxRows(chunkSize);
+            int index = 1;
+            ps.setString(index++, OAuthConstants.AuthorizationCodeState.ACTIVE);
+            if (afterCodeId != null) {
+                ps.setString(index++, afterCodeId);
+            }
+            filter.setParameters(ps, index);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                String authorizationCode = getPersistenceProcessor().getPreprocessedAuthzCode(rs.getString(2));
+                authzCodes.add(new AuthzCodeDO(null, null, null, 0, null, rs.getString(3), authorizationCode,
+                        rs.getString(1)));
+            }
+            IdentityDatabaseUtil.closeStatement(ps);
+            ps = null;
+
+            if (!authzCodes.isEmpty()) {
+                ps = connection.prepareStatement(SQLQueries.REVOKE_AUTHORIZATION_CODES_BY_CODE_IDS +
+                        buildPlaceholders(authzCodes.size()));
+                index = 1;
+                ps.setString(index++, OAuthConstants.AuthorizationCodeState.REVOKED);
+                ps.setString(index++, OAuthConstants.AuthorizationCodeState.ACTIVE);
+                for (AuthzCodeDO authzCodeDO : authzCodes) {
+                    ps.setString(index++, authzCodeDO.getAuthzCodeId());
+                }
+                int count = ps.executeUpdate();
+                if (log.isDebugEnabled()) {
+                    log.debug("Revoked " + count + " of " + authzCodes.size() + " authorization codes matching " +
+                            filter);
+                }
+            }
+            connection.commit();
+            return authzCodes;
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw new IdentityOAuth2Exception("Error occurred while revoking authorization codes matching " + filter,
+                    e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, rs, ps);
+        }
+    }
+
+    @Override
+    public List<AccessTokenDO> getActiveAccessTokensOfUsers(int tenantId, String userStoreDomain,
+                                                            List<String> userNames, boolean usernameCaseSensitive,
+                                                            String partitionUserStoreDomain)
+            throws IdentityOAuth2Exception {
+
+        String sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS_OF_USERS + buildPlaceholders(userNames.size());
+        if (!usernameCaseSensitive) {
+            sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+        }
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        List<AccessTokenDO> accessTokens = new ArrayList<>();
+        try {
+            ps = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(sql,
+                    partitionUserStoreDomain));
+            setUserParameters(ps, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE, tenantId, userStoreDomain,
+                    userNames);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                AccessTokenDO accessTokenDO = new AccessTokenDO();
+                accessTokenDO.setTokenId(rs.getString(1));
+                accessTokenDO.setAccessToken(getPersistenceProcessor().getPreprocessedAccessTokenIdentifier(
+                        rs.getString(2)));
+                accessTokens.add(accessTokenDO);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw new IdentityOAuth2Exception("Error occurred while retrieving access tokens of users of user store: "
+                    + userStoreDomain + " in tenant: " + tenantId, e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, rs, ps);
+        }
+        return accessTokens;
+    }
+
+    @Override
+    public List<AuthzCodeDO> getActiveAuthorizationCodesOfUsers(int tenantId, String userStoreDomain,
+                                                                List<String> userNames, boolean usernameCaseSensitive)
+            throws IdentityOAuth2Exception {
+
+        String sql = SQLQueries.RETRIEVE_ACTIVE_AUTHORIZATION_CODES_OF_USERS + buildPlaceholders(userNames.size());
+        if (!usernameCaseSensitive) {
+            sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+        }
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        List<AuthzCodeDO> authzCodes = new ArrayList<>();
+        try {
+            ps = connection.prepareStatement(sql);
+            setUserParameters(ps, OAuthConstants.AuthorizationCodeState.ACTIVE, tenantId, userStoreDomain,
+                    userNames);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                String authorizationCode = getPersistenceProcessor().getPreprocessedAuthzCode(rs.getString(2));
+                authzCodes.add(new AuthzCodeDO(null, null, null, 0, null, null, authorizationCode,
+                        rs.getString(1)));
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw new IdentityOAuth2Exception("Error occurred while retrieving authorization codes of users of user " +
+                    "store: " + userStoreDomain + " in tenant: " + tenantId, e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, rs, ps);
+        }
+        return authzCodes;
+    }
+
+    private List<AccessTokenDO> getAccessTokens(Connection connection, TokenRevocationFilter filter,
+                                                String partitionUserStoreDomain, String afterTokenId,
+                                                int chunkSize) throws SQLException, IdentityOAuth2Exception {
+
+        StringBuilder sql = new StringBuilder(SQLQueries.RETRIEVE_REVOCABLE_ACCESS_TOKENS);
+        if (afterTokenId != null) {
+            sql.append(SQLQueries.REVOCABLE_ACCESS_TOKENS_AFTER_TOKEN_ID);
+        }
+        sql.append(filter.getCondition(ACCESS_TOKEN_ALIAS));
+        sql.append(SQLQueries.REVOCABLE_ACCESS_TOKENS_ORDER_BY);
+
+        Map<String, AccessTokenDO> accessTokens = new LinkedHashMap<>();
+        Map<Integer, String> tenantDomains = new HashMap<>();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(sql.toString(),
+                    partitionUserStoreDomain));
+            ps.setMaxRows(chunkSize);
+            int index = 1;
+            ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+            ps.setString(index++, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+            if (afterTokenId != null) {
+                ps.setString(index++, afterTokenId);
+            }
+            filter.setParameters(ps, index);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                int tenantId = rs.getInt(5);
+                String tenantDomain = tenantDomains.get(tenantId);
+                if (tenantDomain == null) {
+                    tenantDomain = OAuth2Util.getTenantDomain(tenantId);
+                    tenantDomains.put(tenantId, tenantDomain);
+                }
+                AuthenticatedUser user = new AuthenticatedUser();
+                user.setUserName(rs.getString(4));
+                user.setTenantDomain(tenantDomain);
+                user.setUserStoreDomain(rs.getString(6));
+
+                AccessTokenDO accessTokenDO = new AccessTokenDO();
+                accessTokenDO.setTokenId(rs.getString(1));
+                accessTokenDO.setAccessToken(getPersistenceProcessor().getPreprocessedAccessTokenIdentifier(
+                        rs.getString(2)));
+                accessTokenDO.setConsumerKey(rs.getString(3));
+                accessTokenDO.setAuthzUser(user);
+                accessTokenDO.setTenantID(tenantId);
+                accessTokenDO.setScope(new String[0]);
+                accessTokens.put(accessTokenDO.getTokenId(), accessTokenDO);
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, ps);
+        }
+
+        if (!accessTokens.isEmpty()) {
+            setScopes(connection, accessTokens, partitionUserStoreDomain);
+        }
+        return new ArrayList<>(accessTokens.values());
+    }
+
+    private void setScopes(Connection connection, Map<String, AccessTokenDO> accessTokens,
+                           String partitionUserStoreDomain) throws SQLException, IdentityOAuth2Exception {
+
+        Map<String, List<String>> scopes = new HashMap<>();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(
+                    SQLQueries.RETRIEVE_SCOPES_OF_ACCESS_TOKENS + buildPlaceholders(accessTokens.size()),
+                    partitionUserStoreDomain));
+            int index = 1;
+            for (String tokenId : accessTokens.keySet()) {
+                ps.setString(index++, tokenId);
+            }
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                String tokenId = rs.getString(1);
+                List<String> tokenScopes = scopes.get(tokenId);
+                if (tokenScopes == null) {
+                    tokenScopes = new ArrayList<>();
+                    scopes.put(tokenId, tokenScopes);
+                }
+                tokenScopes.add(rs.getString(2).trim());
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, ps);
+        }
+
+        for (Map.Entry<String, List<String>> entry : scopes.entrySet()) {
+            accessTokens.get(entry.getKey()).setScope(entry.getValue().toArray(new String[entry.getValue().size()]));
+        }
+    }
+
+    private static void setUserParameters(PreparedStatement ps, String state, int tenantId, String userStoreDomain,
+                                          List<String> userNames) throws SQLException {
+
+        int index = 1;
+        ps.setString(index++, state);
+        ps.setInt(index++, tenantId);
+        ps.setString(index++, userStoreDomain);
+        for (String userName : userNames) {
+            ps.setString(index++, userName);
+        }
+    }
+
+    private static String buildPlaceholders(int count) {
+
+        StringBuilder placeholders = new StringBuilder("(");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                placeholders.append(",");
+            }
+            placeholders.append("?");
+        }
+        return placeholders.append(")").toString();
+    }
+}
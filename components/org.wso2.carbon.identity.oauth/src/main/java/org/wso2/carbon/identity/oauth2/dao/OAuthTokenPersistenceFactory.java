@@ -33,6 +33,7 @@ public class OAuthTokenPersistenceFactory {
     private AccessTokenDAO tokenDAO;
     private OAuthScopeDAO scopeDAO;
     private TokenManagementDAO managementDAO;
+    private BulkTokenRevocationDAO bulkTokenRevocationDAO;
 
     public OAuthTokenPersistenceFactory() {
 
@@ -40,6 +41,7 @@ public class OAuthTokenPersistenceFactory {
         this.tokenDAO = new AccessTokenDAOImpl();
         this.scopeDAO = new OAuthScopeDAOImpl();
         this.managementDAO = new TokenManagementDAOImpl();
+        this.bulkTokenRevocationDAO = new BulkTokenRevocationDAOImpl();
     }
 
     public static OAuthTokenPersistenceFactory getInstance() {
@@ -69,4 +71,9 @@ public class OAuthTokenPersistenceFactory {
 
         return managementDAO;
     }
+
+    public BulkTokenRevocationDAO getBulkTokenRevocationDAO() {
+
+        return bulkTokenRevocationDAO;
+    }
 }
@@ -149,6 +149,21 @@ public class SQLQueries {
 //            "WHERE ACCESS_TOKEN=? AND TOKEN_STATE='ACTIVE') ACCESS_TOKEN_TABLE LEFT JOIN IDN_OAUTH2_ACCESS_TOKEN_SCOPE " +
 //            "ON ACCESS_TOKEN_TABLE.TOKEN_ID = IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID";
 
+    public static final String RETRIEVE_ACTIVE_ACCESS_TOKENS =
+            "SELECT CONSUMER_KEY, AUTHZ_USER, ACCESS_TOKEN_TABLE.TENANT_ID, "
+                    + "USER_DOMAIN, TOKEN_SCOPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, "
+                    + "REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, ACCESS_TOKEN_TABLE.TOKEN_ID, GRANT_TYPE, "
+                    + "SUBJECT_IDENTIFIER, ACCESS_TOKEN FROM (SELECT TOKEN_ID, ACCESS_TOKEN, CONSUMER_KEY, AUTHZ_USER, "
+                    + "IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID AS TENANT_ID, "
+                    + "IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN AS USER_DOMAIN,TIME_CREATED,"
+                    + "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, IDN_OAUTH2_ACCESS_TOKEN.GRANT_TYPE AS GRANT_TYPE,"
+                    + "SUBJECT_IDENTIFIER FROM (SELECT * FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN IN ";
+
+    public static final String RETRIEVE_ACTIVE_ACCESS_TOKENS_CONDITION =
+            " AND TOKEN_STATE='ACTIVE') IDN_OAUTH2_ACCESS_TOKEN "
+                    +"JOIN IDN_OAUTH_CONSUMER_APPS ON CONSUMER_KEY_ID = ID) ACCESS_TOKEN_TABLE"
+                    +" LEFT JOIN IDN_OAUTH2_ACCESS_TOKEN_SCOPE ON ACCESS_TOKEN_TABLE.TOKEN_ID = IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID";
+
     public static final String RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN = "SELECT CONSUMER_KEY, AUTHZ_USER, " +
             "ACCESS_TOKEN_TABLE.TENANT_ID, USER_DOMAIN, TOKEN_SCOPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, " +
             "VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, ACCESS_TOKEN_TABLE.TOKEN_ID, " +
@@ -521,6 +536,10 @@ public class SQLQueries {
             "IDN_OAUTH2_SCOPE AS Scopes, IDN_OAUTH2_RESOURCE_SCOPE AS ScopeResources WHERE RESOURCE_PATH = ? AND " +
             "ScopeResources.SCOPE_ID = Scopes.SCOPE_ID";
 
+    public static final String RETRIEVE_SCOPES_WITH_TENANT_FOR_ALL_RESOURCES = "SELECT ScopeResources.RESOURCE_PATH, " +
+            "Scopes.NAME, Scopes.TENANT_ID FROM IDN_OAUTH2_SCOPE AS Scopes, IDN_OAUTH2_RESOURCE_SCOPE AS " +
+            "ScopeResources WHERE ScopeResources.SCOPE_ID = Scopes.SCOPE_ID";
+
     public static final String RETRIEVE_BINDINGS_OF_SCOPE =
             "SELECT ScopeBindings.SCOPE_BINDING FROM IDN_OAUTH2_SCOPE AS Scopes " +
                     "LEFT JOIN IDN_OAUTH2_SCOPE_BINDING AS ScopeBindings ON Scopes.SCOPE_ID=ScopeBindings.SCOPE_ID " +
@@ -531,6 +550,48 @@ public class SQLQueries {
                     "LEFT JOIN IDN_OAUTH2_SCOPE_BINDING AS ScopeBindings ON Scopes.SCOPE_ID=ScopeBindings.SCOPE_ID " +
                     "WHERE Scopes.NAME = ? AND TENANT_ID = ?";
 
+    // Bulk token revocation. The filter condition and, for the first chunk, the keyset condition are appended by
+    // the DAO. The table aliases T, C and A are referred by TokenRevocationFilter.
+    public static final String RETRIEVE_REVOCABLE_ACCESS_TOKENS = "SELECT T.TOKEN_ID, T.ACCESS_TOKEN, " +
+            "A.CONSUMER_KEY, T.AUTHZ_USER, T.TENANT_ID, T.USER_DOMAIN FROM IDN_OAUTH2_ACCESS_TOKEN T JOIN " +
+            "IDN_OAUTH_CONSUMER_APPS A ON T.CONSUMER_KEY_ID = A.ID WHERE (T.TOKEN_STATE=? OR T.TOKEN_STATE=?)";
+
+    // AUTHZ_USER is not qualified with the alias so that it can be replaced for case insensitive user stores.
+    public static final String RETRIEVE_REVOCABLE_ACCESS_TOKENS_OF_USER = "SELECT T.TOKEN_ID, T.ACCESS_TOKEN, " +
+            "A.CONSUMER_KEY, S.TOKEN_SCOPE FROM IDN_OAUTH2_ACCESS_TOKEN T JOIN IDN_OAUTH_CONSUMER_APPS A ON " +
+            "T.CONSUMER_KEY_ID = A.ID LEFT JOIN IDN_OAUTH2_ACCESS_TOKEN_SCOPE S ON T.TOKEN_ID = S.TOKEN_ID WHERE " +
+            "AUTHZ_USER=? AND T.TENANT_ID=? AND T.USER_DOMAIN=? AND (T.TOKEN_STATE=? OR T.TOKEN_STATE=?)";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_AFTER_TOKEN_ID = " AND T.TOKEN_ID > ?";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_ORDER_BY = " ORDER BY T.TOKEN_ID";
+
+    public static final String RETRIEVE_SCOPES_OF_ACCESS_TOKENS = "SELECT TOKEN_ID, TOKEN_SCOPE FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN_SCOPE WHERE TOKEN_ID IN ";
+
+    // TOKEN_STATE_ID is set to the unique TOKEN_ID so that a single statement can revoke several tokens of the same
+    // client, user and scope without violating the CON_APP_KEY constraint.
+    public static final String REVOKE_ACCESS_TOKENS_BY_TOKEN_IDS = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET " +
+            "TOKEN_STATE=?, TOKEN_STATE_ID=TOKEN_ID WHERE (TOKEN_STATE=? OR TOKEN_STATE=?) AND TOKEN_ID IN ";
+
+    public static final String RETRIEVE_REVOCABLE_AUTHORIZATION_CODES = "SELECT C.CODE_ID, C.AUTHORIZATION_CODE, " +
+            "A.CONSUMER_KEY FROM IDN_OAUTH2_AUTHORIZATION_CODE C JOIN IDN_OAUTH_CONSUMER_APPS A ON " +
+            "C.CONSUMER_KEY_ID = A.ID WHERE C.STATE=?";
+
+    public static final String REVOCABLE_AUTHORIZATION_CODES_AFTER_CODE_ID = " AND C.CODE_ID > ?";
+
+    public static final String REVOCABLE_AUTHORIZATION_CODES_ORDER_BY = " ORDER BY C.CODE_ID";
+
+    public static final String REVOKE_AUTHORIZATION_CODES_BY_CODE_IDS = "UPDATE IDN_OAUTH2_AUTHORIZATION_CODE SET " +
+            "STATE=? WHERE STATE=? AND CODE_ID IN ";
+
+    // Active grants of a set of users of a user store. The IN list of user names is appended by the DAO.
+    public static final String RETRIEVE_ACTIVE_ACCESS_TOKENS_OF_USERS = "SELECT TOKEN_ID, ACCESS_TOKEN FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_STATE=? AND TENANT_ID=? AND USER_DOMAIN=? AND AUTHZ_USER IN ";
+
+    public static final String RETRIEVE_ACTIVE_AUTHORIZATION_CODES_OF_USERS = "SELECT CODE_ID, AUTHORIZATION_CODE " +
+            "FROM IDN_OAUTH2_AUTHORIZATION_CODE WHERE STATE=? AND TENANT_ID=? AND USER_DOMAIN=? AND AUTHZ_USER IN ";
+
     private SQLQueries() {
 
     }
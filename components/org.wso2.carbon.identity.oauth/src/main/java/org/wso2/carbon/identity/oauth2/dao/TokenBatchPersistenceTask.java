@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer of the access token persistence queue which drains queued tokens into bounded micro batches and
+ * persists each batch in a single transaction. A batch is flushed when it reaches the configured batch size or when
+ * the flush interval elapses after the first token of the batch was taken, whichever happens first.
+ * <p>
+ * The tasks consume the {@link AccessTokenPersistenceQueue}, which is fed by {@link AccessTokenDAOImpl} and the
+ * deprecated {@link TokenMgtDAO} when {@code OAuth.TokenPersistence.PoolSize} is greater than zero.
+ */
+public class TokenBatchPersistenceTask implements Runnable {
+
+    private static final Log log = LogFactory.getLog(TokenBatchPersistenceTask.class);
+
+    private final BlockingQueue<AccessContextTokenDO> accessContextTokenQueue;
+    private final int batchSize;
+    private final long flushIntervalInNanos;
+    private final TokenPersistenceMetrics metrics;
+
+    public TokenBatchPersistenceTask(BlockingQueue<AccessContextTokenDO> accessContextTokenQueue, int batchSize,
+                                     long flushIntervalInMillis, TokenPersistenceMetrics metrics) {
+
+        this.accessContextTokenQueue = accessContextTokenQueue;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalInNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushIntervalInMillis));
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run() {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Access token batch persist consumer is started with batch size: " + batchSize);
+        }
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                persistBatch(nextBatch());
+            } catch (InterruptedException e) {
+                log.error("Access token batch persist consumer was interrupted while waiting for access tokens", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Block until at least one access token is available and then collect further tokens until the batch is full
+     * or the flush interval is over.
+     *
+     * @return non empty batch of access tokens
+     * @throws InterruptedException if interrupted while waiting for the first access token
+     */
+    List<AccessContextTokenDO> nextBatch() throws InterruptedException {
+
+        List<AccessContextTokenDO> batch = new ArrayList<>(batchSize);
+        batch.add(accessContextTokenQueue.take());
+
+        long deadline = System.nanoTime() + flushIntervalInNanos;
+        while (batch.size() < batchSize) {
+            accessContextTokenQueue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            AccessContextTokenDO accessContextTokenDO = accessContextTokenQueue.poll(remaining,
+                    TimeUnit.NANOSECONDS);
+            if (accessContextTokenDO == null) {
+                break;
+            }
+            batch.add(accessContextTokenDO);
+        }
+        return batch;
+    }
+
+    void persistBatch(List<AccessContextTokenDO> batch) {
+
+        long start = System.nanoTime();
+        try {
+            OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO().insertAccessTokens(batch);
+            metrics.recordBatchCommit(batch.size(), System.nanoTime() - start);
+            if (log.isDebugEnabled()) {
+                log.debug("Persisted a batch of " + batch.size() + " access tokens. " + metrics);
+            }
+        } catch (IdentityOAuth2Exception e) {
+            metrics.recordBatchFailure(batch.size());
+            log.error("Error occurred while persisting a batch of " + batch.size() + " access tokens", e);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.wso2.carbon.identity.application.common.IdentityApplicationManagement
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
 
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
@@ -43,6 +44,20 @@ public interface TokenManagementDAO {
 
     Pair<String, Integer> findTenantAndScopeOfResource(String resourceUri) throws IdentityOAuth2Exception;
 
+    /**
+     * Retrieve the scope of every resource, so that the scopes of resources can be matched in memory.
+     * <p>
+     * The default implementation is kept for DAOs which do not implement it. It returns null, in which case the scope
+     * of each resource is looked up with {@link #findTenantAndScopeOfResource(String)}.
+     *
+     * @return scope name and the tenant id of the scope keyed by resource path or null if not supported
+     * @throws IdentityOAuth2Exception if the scopes cannot be retrieved
+     */
+    default Map<String, Pair<String, Integer>> findTenantAndScopeOfAllResources() throws IdentityOAuth2Exception {
+
+        return null;
+    }
+
     void revokeOAuthConsentByApplicationAndUser(String username, String tenantDomain, String applicationName)
             throws IdentityOAuth2Exception;
 
@@ -44,6 +44,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -226,6 +227,37 @@ public class TokenManagementDAOImpl extends AbstractOAuthDAO implements TokenMan
         }
     }
 
+    /**
+     * Find the scope and the tenant id of the scope of every resource, to be matched in memory.
+     *
+     * @return Map of resource path to a pair which contains resource scope key and the tenant id
+     * @throws IdentityOAuth2Exception if failed to find the tenant and resource scope
+     */
+    @Override
+    public Map<String, Pair<String, Integer>> findTenantAndScopeOfAllResources() throws IdentityOAuth2Exception {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving tenant and scope of all resources.");
+        }
+        Map<String, Pair<String, Integer>> resourceScopes = new HashMap<>();
+        String sql = SQLQueries.RETRIEVE_SCOPES_WITH_TENANT_FOR_ALL_RESOURCES;
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                resourceScopes.put(rs.getString("RESOURCE_PATH"), Pair.of(rs.getString("NAME"),
+                        rs.getInt("TENANT_ID")));
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Found scopes of " + resourceScopes.size() + " resources.");
+            }
+            return resourceScopes;
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error getting scopes of all resources", e);
+        }
+    }
+
     /**
      * Revoke the OAuth Consent which is recorded in the IDN_OPENID_USER_RPS table against the user for a particular
      * Application
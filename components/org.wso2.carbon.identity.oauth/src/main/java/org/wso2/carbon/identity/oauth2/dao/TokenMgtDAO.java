@@ -94,8 +94,6 @@ public class TokenMgtDAO {
     private static int tokenPersistRetryCount;
     private boolean enablePersist;
 
-    private static BlockingDeque<AccessContextTokenDO> accessContextTokenQueue = new LinkedBlockingDeque<>();
-
     private static BlockingDeque<AuthContextTokenDO> authContextTokenQueue = new LinkedBlockingDeque<>();
 
     private static final Log log = LogFactory.getLog(TokenMgtDAO.class);
@@ -119,16 +117,9 @@ public class TokenMgtDAO {
 
         maxPoolSize = getTokenPersistPoolSize();
         if (maxPoolSize > 0) {
-            log.info("Thread pool size for OAuth Token persistent consumer : " + maxPoolSize);
-
+            // Access tokens are persisted by the consumers of the AccessTokenPersistenceQueue.
             ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
 
-            for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new TokenPersistenceTask(accessContextTokenQueue));
-            }
-
-            threadPool = Executors.newFixedThreadPool(maxPoolSize);
-
             for (int i = 0; i < maxPoolSize; i++) {
                 threadPool.execute(new AuthPersistenceTask(authContextTokenQueue));
             }
@@ -433,10 +424,8 @@ public class TokenMgtDAO {
 
         userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(userStoreDomain);
 
-        if (maxPoolSize > 0) {
-            accessContextTokenQueue.push(new AccessContextTokenDO(accessToken, consumerKey, newAccessTokenDO
-                    , existingAccessTokenDO, userStoreDomain));
-        } else {
+        if (!AccessTokenPersistenceQueue.getInstance().offer(new AccessContextTokenDO(accessToken, consumerKey,
+                newAccessTokenDO, existingAccessTokenDO, userStoreDomain))) {
             persistAccessToken(accessToken, consumerKey, newAccessTokenDO, existingAccessTokenDO, userStoreDomain);
         }
     }
@@ -3226,6 +3215,17 @@ public class TokenMgtDAO {
         return enablePersist;
     }
 
+    /**
+     * Returns the runtime statistics of the asynchronous access token persistence pipeline such as the queue depth,
+     * batch sizes and commit latency.
+     *
+     * @return access token persistence metrics
+     */
+    public static TokenPersistenceMetrics getAccessTokenPersistenceMetrics() {
+
+        return AccessTokenPersistenceQueue.getInstance().getMetrics();
+    }
+
     private static int getTokenPersistPoolSize () {
 
         int maxPoolSize = DEFAULT_POOL_SIZE;
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime statistics of the asynchronous access token persistence pipeline.
+ */
+public class TokenPersistenceMetrics {
+
+    private final BlockingQueue<?> accessContextTokenQueue;
+
+    private final AtomicLong committedBatchCount = new AtomicLong();
+    private final AtomicLong committedTokenCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    private final AtomicLong backPressureCount = new AtomicLong();
+    private final AtomicLong totalCommitLatencyInNanos = new AtomicLong();
+    private final AtomicLong maxCommitLatencyInNanos = new AtomicLong();
+    private volatile int lastBatchSize;
+
+    public TokenPersistenceMetrics(BlockingQueue<?> accessContextTokenQueue) {
+
+        this.accessContextTokenQueue = accessContextTokenQueue;
+    }
+
+    void recordBatchCommit(int batchSize, long commitLatencyInNanos) {
+
+        lastBatchSize = batchSize;
+        committedBatchCount.incrementAndGet();
+        committedTokenCount.addAndGet(batchSize);
+        totalCommitLatencyInNanos.addAndGet(commitLatencyInNanos);
+
+        long currentMax = maxCommitLatencyInNanos.get();
+        while (commitLatencyInNanos > currentMax &&
+                !maxCommitLatencyInNanos.compareAndSet(currentMax, commitLatencyInNanos)) {
+            currentMax = maxCommitLatencyInNanos.get();
+        }
+    }
+
+    void recordBatchFailure(int batchSize) {
+
+        lastBatchSize = batchSize;
+        failedBatchCount.incrementAndGet();
+    }
+
+    void recordBackPressure() {
+
+        backPressureCount.incrementAndGet();
+    }
+
+    /**
+     * @return number of access tokens waiting to be persisted
+     */
+    public int getQueueDepth() {
+
+        return accessContextTokenQueue.size();
+    }
+
+    /**
+     * @return number of access tokens that can be queued before callers persist tokens on their own thread
+     */
+    public int getRemainingQueueCapacity() {
+
+        return accessContextTokenQueue.remainingCapacity();
+    }
+
+    public long getCommittedBatchCount() {
+
+        return committedBatchCount.get();
+    }
+
+    public long getCommittedTokenCount() {
+
+        return committedTokenCount.get();
+    }
+
+    public long getFailedBatchCount() {
+
+        return failedBatchCount.get();
+    }
+
+    /**
+     * @return number of times the queue was full and the access token was persisted on the caller's thread
+     */
+    public long getBackPressureCount() {
+
+        return backPressureCount.get();
+    }
+
+    public int getLastBatchSize() {
+
+        return lastBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+
+        long batches = committedBatchCount.get();
+        return batches == 0 ? 0 : (double) committedTokenCount.get() / batches;
+    }
+
+    public double getAverageCommitLatencyInMillis() {
+
+        long batches = committedBatchCount.get();
+        return batches == 0 ? 0 :
+                (double) totalCommitLatencyInNanos.get() / batches / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getMaxCommitLatencyInMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(maxCommitLatencyInNanos.get());
+    }
+
+    @Override
+    public String toString() {
+
+        return "TokenPersistenceMetrics{queueDepth=" + getQueueDepth() + ", committedBatches=" +
+                getCommittedBatchCount() + ", committedTokens=" + getCommittedTokenCount() + ", failedBatches=" +
+                getFailedBatchCount() + ", backPressure=" + getBackPressureCount() + ", lastBatchSize=" +
+                getLastBatchSize() + ", averageCommitLatencyInMillis=" + getAverageCommitLatencyInMillis() +
+                ", maxCommitLatencyInMillis=" + getMaxCommitLatencyInMillis() + "}";
+    }
+}
@@ -24,8 +24,9 @@ import org.wso2.carbon.identity.base.IdentityException;
 import java.util.concurrent.BlockingDeque;
 
 /**
- *
+ * @deprecated access tokens are persisted in batches by {@link TokenBatchPersistenceTask}.
  */
+@Deprecated
 public class TokenPersistenceTask implements Runnable {
 
     private static Log log = LogFactory.getLog(TokenPersistenceTask.class);
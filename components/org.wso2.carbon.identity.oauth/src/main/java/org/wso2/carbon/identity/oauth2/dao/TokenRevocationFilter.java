@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Predicate selecting the access tokens and authorization codes to be revoked by a bulk revocation, i.e. the tokens
+ * of a client, of a user, of a user store or of a tenant.
+ */
+public class TokenRevocationFilter {
+
+    private static final String CONSUMER_APPS_ALIAS = "A";
+
+    private String consumerKey;
+    private AuthenticatedUser authenticatedUser;
+    private String userName;
+    private boolean usernameCaseSensitive = true;
+    private Integer tenantId;
+    private String userStoreDomain;
+
+    private TokenRevocationFilter() {
+
+    }
+
+    /**
+     * @param consumerKey client id
+     * @return filter matching all tokens issued to the client
+     */
+    public static TokenRevocationFilter forConsumerKey(String consumerKey) {
+
+        if (StringUtils.isBlank(consumerKey)) {
+            throw new IllegalArgumentException("Consumer key cannot be empty");
+        }
+        TokenRevocationFilter filter = new TokenRevocationFilter();
+        filter.consumerKey = consumerKey;
+        return filter;
+    }
+
+    /**
+     * @param authenticatedUser user
+     * @return filter matching all tokens issued to the user
+     * @throws IdentityOAuth2Exception if the tenant of the user cannot be resolved
+     */
+    public static TokenRevocationFilter forUser(AuthenticatedUser authenticatedUser) throws IdentityOAuth2Exception {
+
+        if (authenticatedUser == null || StringUtils.isBlank(authenticatedUser.getUserName())) {
+            throw new IllegalArgumentException("User cannot be empty");
+        }
+        TokenRevocationFilter filter = new TokenRevocationFilter();
+        filter.authenticatedUser = authenticatedUser;
+        filter.usernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(authenticatedUser.toString());
+        filter.userName = filter.usernameCaseSensitive ? authenticatedUser.getUserName() :
+                authenticatedUser.getUserName().toLowerCase();
+        filter.tenantId = OAuth2Util.getTenantId(authenticatedUser.getTenantDomain());
+        filter.userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(authenticatedUser.getUserStoreDomain());
+        return filter;
+    }
+
+    /**
+     * @param tenantId        tenant id
+     * @param userStoreDomain user store domain
+     * @return filter matching all tokens issued to the users of the user store
+     */
+    public static TokenRevocationFilter forUserStore(int tenantId, String userStoreDomain) {
+
+        TokenRevocationFilter filter = new TokenRevocationFilter();
+        filter.tenantId = tenantId;
+        filter.userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(userStoreDomain);
+        return filter;
+    }
+
+    /**
+     * @param tenantId tenant id
+     * @return filter matching all tokens issued to the users of the tenant
+     */
+    public static TokenRevocationFilter forTenant(int tenantId) {
+
+        TokenRevocationFilter filter = new TokenRevocationFilter();
+        filter.tenantId = tenantId;
+        return filter;
+    }
+
+    public String getConsumerKey() {
+
+        return consumerKey;
+    }
+
+    public AuthenticatedUser getAuthenticatedUser() {
+
+        return authenticatedUser;
+    }
+
+    public Integer getTenantId() {
+
+        return tenantId;
+    }
+
+    public String getUserStoreDomain() {
+
+        return userStoreDomain;
+    }
+
+    /**
+     * Build the SQL condition of this filter. The consumer key is matched against the IDN_OAUTH_CONSUMER_APPS table
+     * joined with the alias A.
+     *
+     * @param alias alias of the access token or authorization code table
+     * @return condition starting with AND, or an empty string if the filter has no conditions
+     */
+    String getCondition(String alias) {
+
+        StringBuilder condition = new StringBuilder();
+        if (consumerKey != null) {
+            condition.append(" AND ").append(CONSUMER_APPS_ALIAS).append(".CONSUMER_KEY=?");
+        }
+        if (userName != null) {
+            if (usernameCaseSensitive) {
+                condition.append(" AND ").append(alias).append(".AUTHZ_USER=?");
+            } else {
+                condition.append(" AND LOWER(").append(alias).append(".AUTHZ_USER)=?");
+            }
+        }
+        if (tenantId != null) {
+            condition.append(" AND ").append(alias).append(".TENANT_ID=?");
+        }
+        if (userStoreDomain != null) {
+            condition.append(" AND ").append(alias).append(".USER_DOMAIN=?");
+        }
+        return condition.toString();
+    }
+
+    /**
+     * Set the parameters of the condition built by {@link #getCondition(String)}.
+     *
+     * @param ps    prepared statement
+     * @param index index of the first parameter of the condition
+     * @return index of the parameter following the condition
+     * @throws SQLException if a parameter cannot be set
+     */
+    int setParameters(PreparedStatement ps, int index) throws SQLException {
+
+        if (consumerKey != null) {
+            ps.setString(index++, consumerKey);
+        }
+        if (userName != null) {
+            ps.setString(index++, userName);
+        }
+        if (tenantId != null) {
+            ps.setInt(index++, tenantId);
+        }
+        if (userStoreDomain != null) {
+            ps.setString(index++, userStoreDomain);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder builder = new StringBuilder("TokenRevocationFilter{");
+        if (consumerKey != null) {
+            builder.append("consumerKey=").append(consumerKey).append(", ");
+        }
+        if (authenticatedUser != null) {
+            builder.append("user=").append(authenticatedUser.toString()).append(", ");
+        }
+        if (tenantId != null) {
+            builder.append("tenantId=").append(tenantId).append(", ");
+        }
+        if (userStoreDomain != null) {
+            builder.append("userStoreDomain=").append(userStoreDomain).append(", ");
+        }
+        if (builder.charAt(builder.length() - 1) == ' ') {
+            builder.setLength(builder.length() - 2);
+        }
+        return builder.append("}").toString();
+    }
+}
@@ -33,16 +33,20 @@ import org.wso2.carbon.identity.application.mgt.listener.ApplicationMgtListener;
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
 import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEvent;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.OAuth2ScopeService;
 import org.wso2.carbon.identity.oauth2.OAuth2Service;
 import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
 import org.wso2.carbon.identity.oauth2.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth2.listener.IdPValidationContextCacheListener;
 import org.wso2.carbon.identity.oauth2.listener.TenantCreationEventListener;
+import org.wso2.carbon.identity.oauth2.util.AuthorizationGrantCacheEvictor;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.openidconnect.OpenIDConnectClaimFilter;
 import org.wso2.carbon.identity.openidconnect.OpenIDConnectClaimFilterImpl;
 import org.wso2.carbon.identity.user.store.configuration.listener.UserStoreConfigListener;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 
@@ -119,6 +123,16 @@ public class OAuth2ServiceComponent {
             } else {
                 log.error("OAuth - ApplicationMgtListener could not be registered.");
             }
+
+            ServiceRegistration idpValidationContextCacheListenerSR = bundleContext.registerService(
+                    IdentityProviderMgtListener.class.getName(), new IdPValidationContextCacheListener(), null);
+            if (idpValidationContextCacheListenerSR != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("OAuth - IdPValidationContextCacheListener registered.");
+                }
+            } else {
+                log.error("OAuth - IdPValidationContextCacheListener could not be registered.");
+            }
             if (checkPKCESupport()) {
                 OAuth2ServiceComponentHolder.setPkceEnabled(true);
                 log.info("PKCE Support enabled.");
@@ -148,6 +162,17 @@ public class OAuth2ServiceComponent {
         }
     }
 
+    protected void deactivate(ComponentContext context) {
+
+        // Complete the scheduled cache evictions first, since they may queue writes to the session data store, and
+        // then write the authorization grant cache entries which are still queued before the bundle goes down.
+        AuthorizationGrantCacheEvictor.getInstance().shutdown();
+        AuthorizationGrantCache.getInstance().getSessionStore().shutdown();
+        if (log.isDebugEnabled()) {
+            log.debug("Identity OAuth2 bundle is deactivated");
+        }
+    }
+
     /**
      * Set Application management service implementation
      *
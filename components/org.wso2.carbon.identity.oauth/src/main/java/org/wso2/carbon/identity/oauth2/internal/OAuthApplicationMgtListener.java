@@ -44,6 +44,8 @@ import org.wso2.carbon.identity.oauth.dao.OAuthAppDAO;
 import org.wso2.carbon.identity.oauth.dao.OAuthConsumerDAO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.util.ClientCredentialVerifier;
+import org.wso2.carbon.identity.openidconnect.RequestedClaimsPlanCache;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -246,6 +248,8 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
                             .getAuthorizationCodeDAO().getAuthorizationCodesByConsumerKey(oauthKey));
                     // Remove client credential from AppInfoCache
                     appInfoCache.clearCacheEntry(oauthKey);
+                    RequestedClaimsPlanCache.getInstance().clearCacheEntry(tenantDomain, oauthKey);
+                    ClientCredentialVerifier.getInstance().invalidate(oauthKey);
                 }
             }
             if (accessTokens.size() > 0) {
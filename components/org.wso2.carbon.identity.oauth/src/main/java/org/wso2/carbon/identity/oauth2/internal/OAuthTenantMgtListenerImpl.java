@@ -25,6 +25,7 @@ import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.stratos.common.beans.TenantInfoBean;
 import org.wso2.carbon.stratos.common.exception.StratosException;
 
 import java.util.ArrayList;
@@ -35,8 +36,23 @@ import java.util.Set;
 
 public class OAuthTenantMgtListenerImpl extends AbstractIdentityTenantMgtListener {
 
+    @Override
+    public void onTenantUpdate(TenantInfoBean tenantInfo) throws StratosException {
+
+        // The keystore of the tenant may have been replaced along with the tenant, so drop the cached signing keys.
+        OAuth2Util.clearSigningKeyCache(tenantInfo.getTenantId());
+    }
+
+    @Override
+    public void onTenantDeactivation(int tenantId) throws StratosException {
+
+        OAuth2Util.clearSigningKeyCache(tenantId);
+    }
+
     @Override
     public void onPreDelete(int tenantId) throws StratosException {
+
+        OAuth2Util.clearSigningKeyCache(tenantId);
         try {
             Set<AccessTokenDO> accessTokenDOs = OAuthTokenPersistenceFactory.getInstance()
                     .getAccessTokenDAO().getAccessTokensByTenant(tenantId);
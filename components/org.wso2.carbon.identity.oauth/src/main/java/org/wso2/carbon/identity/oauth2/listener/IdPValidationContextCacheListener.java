@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.oauth2.util.IdPValidationContextCache;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.listener.AbstractIdentityProviderMgtListener;
+
+/**
+ * Identity provider management listener which clears the cached validation context of an identity provider when it
+ * is updated or deleted.
+ */
+public class IdPValidationContextCacheListener extends AbstractIdentityProviderMgtListener {
+
+    private static final Log log = LogFactory.getLog(IdPValidationContextCacheListener.class);
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return 60;
+    }
+
+    @Override
+    public boolean doPostUpdateResidentIdP(IdentityProvider identityProvider, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        clearCacheEntry(tenantDomain, IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME);
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateIdP(String oldIdPName, IdentityProvider identityProvider, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        clearCacheEntry(tenantDomain, oldIdPName);
+        if (identityProvider != null) {
+            clearCacheEntry(tenantDomain, identityProvider.getIdentityProviderName());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteIdP(String idPName, String tenantDomain) throws IdentityProviderManagementException {
+
+        clearCacheEntry(tenantDomain, idPName);
+        return true;
+    }
+
+    private void clearCacheEntry(String tenantDomain, String idpName) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing the cached validation context of Identity Provider: " + idpName + " of tenant: " +
+                    tenantDomain);
+        }
+        IdPValidationContextCache.getInstance().clearCacheEntry(tenantDomain, idpName);
+    }
+}
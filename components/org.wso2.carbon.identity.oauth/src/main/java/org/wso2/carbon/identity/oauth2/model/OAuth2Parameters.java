@@ -26,6 +26,7 @@ import java.util.Set;
 
 /**
  * A Bean class which is used to store the OAuth parameters available in a OAuth request in the Cache.
+ * Fields added to this class also need to be added to the encoding of SessionDataCacheEntry in CacheEntryCodec.
  */
 public class OAuth2Parameters implements Serializable {
 
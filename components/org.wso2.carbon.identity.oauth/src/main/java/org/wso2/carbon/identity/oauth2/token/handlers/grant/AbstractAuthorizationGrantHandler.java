@@ -45,12 +45,14 @@ import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.TokenIssuanceLockRegistry;
 import org.wso2.carbon.identity.oauth2.validators.OAuth2ScopeHandler;
 
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 import static org.wso2.carbon.identity.oauth.common.OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE;
 
@@ -107,7 +109,8 @@ public abstract class AbstractAuthorizationGrantHandler implements Authorization
         String consumerKey = tokReqMsgCtx.getOauth2AccessTokenReqDTO().getClientId();
         String authorizedUser = tokReqMsgCtx.getAuthorizedUser().toString();
 
-        synchronized ((consumerKey + ":" + authorizedUser + ":" + scope).intern()) {
+        Lock tokenIssuanceLock = TokenIssuanceLockRegistry.getInstance().lock(consumerKey, authorizedUser, scope);
+        try {
             AccessTokenDO existingTokenBean = getExistingToken(tokReqMsgCtx,
                     getOAuthCacheKey(scope, consumerKey, authorizedUser));
             // Return a new access token in each request when JWTTokenIssuer is used.
@@ -127,6 +130,8 @@ public abstract class AbstractAuthorizationGrantHandler implements Authorization
                 }
             }
             return generateNewAccessTokenResponse(tokReqMsgCtx, scope, consumerKey, existingTokenBean);
+        } finally {
+            tokenIssuanceLock.unlock();
         }
     }
 
@@ -42,12 +42,9 @@ import org.w3c.dom.NodeList;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
-import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
-import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
-import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
@@ -59,6 +56,8 @@ import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.AbstractAuthorizationGrantHandler;
+import org.wso2.carbon.identity.oauth2.util.IdPValidationContext;
+import org.wso2.carbon.identity.oauth2.util.IdPValidationContextCache;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.util.X509CredentialImpl;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
@@ -70,8 +69,6 @@ import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 import java.nio.charset.StandardCharsets;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
@@ -339,27 +336,31 @@ public class SAML2BearerGrantHandler extends AbstractAuthorizationGrantHandler {
 
     protected void validateSignatureAgainstIdpCertificate(Assertion assertion, String tenantDomain,
                                                         IdentityProvider identityProvider) throws IdentityOAuth2Exception {
-        X509Certificate x509Certificate = getIdpCertificate(tenantDomain, identityProvider);
+        IdPValidationContext idpValidationContext = getIdPValidationContext(tenantDomain, identityProvider);
+        // The signature validator only holds the IdP certificate, hence it is built once and shared.
+        SignatureValidator signatureValidator = idpValidationContext.getSignatureValidator();
+        if (signatureValidator == null) {
+            X509Credential x509Credential = new X509CredentialImpl(idpValidationContext.getCertificate());
+            signatureValidator = new SignatureValidator(x509Credential);
+            idpValidationContext.setSignatureValidator(signatureValidator);
+        }
         try {
-            X509Credential x509Credential = new X509CredentialImpl(x509Certificate);
-            SignatureValidator signatureValidator = new SignatureValidator(x509Credential);
             signatureValidator.validate(assertion.getSignature());
         } catch (ValidationException e) {
             throw new IdentityOAuth2Exception("Error while validating the signature.", e);
         }
     }
 
-    private X509Certificate getIdpCertificate(String tenantDomain, IdentityProvider identityProvider)
+    private IdPValidationContext getIdPValidationContext(String tenantDomain, IdentityProvider identityProvider)
             throws IdentityOAuth2Exception {
-        X509Certificate x509Certificate;
         try {
-            x509Certificate = (X509Certificate) IdentityApplicationManagementUtil
-                    .decodeCertificate(identityProvider.getCertificate());
-        } catch (CertificateException e) {
-            throw new IdentityOAuth2Exception("Error occurred while decoding public certificate of Identity Provider "
-                    + identityProvider.getIdentityProviderName() + " for tenant domain " + tenantDomain, e);
+            return IdPValidationContextCache.getInstance().getContext(tenantDomain, identityProvider);
+        } catch (IdentityProviderManagementException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while retrieving resident identity provider for tenantDomain : " + tenantDomain, e);
+            }
+            throw new IdentityOAuth2Exception("Error while retrieving identity provider");
         }
-        return x509Certificate;
     }
 
     /**
@@ -463,14 +464,12 @@ public class SAML2BearerGrantHandler extends AbstractAuthorizationGrantHandler {
 
     private String getTokenEPAlias(Assertion assertion, IdentityProvider identityProvider, String tenantDomain)
             throws IdentityOAuth2Exception {
-        String tokenEndpointAlias;
-        if (isResidentIdp(identityProvider)) {
-            tokenEndpointAlias = getTokenEPAliasFromResidentIdp(assertion, identityProvider, tenantDomain);
-        } else {
-            // Get Alias from Federated IDP
-            tokenEndpointAlias = identityProvider.getAlias();
+        IdPValidationContext idpValidationContext = getIdPValidationContext(tenantDomain, identityProvider);
+        if (idpValidationContext.isResidentIdP()) {
+            validateIdpEntityId(assertion, tenantDomain, idpValidationContext.getSAMLEntityId());
         }
-        return tokenEndpointAlias;
+        // Token endpoint URL of the resident IDP or the alias of a federated IDP
+        return idpValidationContext.getTokenEndpointAlias();
     }
 
     /**
@@ -553,26 +552,6 @@ public class SAML2BearerGrantHandler extends AbstractAuthorizationGrantHandler {
         return true;
     }
 
-    private String getTokenEPAliasFromResidentIdp(Assertion assertion, IdentityProvider identityProvider,
-                                                  String tenantDomain) throws IdentityOAuth2Exception {
-        String tokenEndpointAlias = null;
-        FederatedAuthenticatorConfig[] fedAuthnConfigs = identityProvider.getFederatedAuthenticatorConfigs();
-        validateIdpEntityId(assertion, tenantDomain,  getIdpEntityId(fedAuthnConfigs));
-        // Get OpenIDConnect authenticator == OAuth
-        // authenticator
-        FederatedAuthenticatorConfig oauthAuthenticatorConfig =
-                IdentityApplicationManagementUtil.getFederatedAuthenticator(fedAuthnConfigs,
-                        IdentityApplicationConstants.Authenticator.OIDC.NAME);
-        // Get OAuth token endpoint
-        Property oauthProperty = IdentityApplicationManagementUtil.getProperty(
-                oauthAuthenticatorConfig.getProperties(),
-                IdentityApplicationConstants.Authenticator.OIDC.OAUTH2_TOKEN_URL);
-        if (oauthProperty != null) {
-            tokenEndpointAlias = oauthProperty.getValue();
-        }
-        return tokenEndpointAlias;
-    }
-
     private boolean validateIdpEntityId(Assertion assertion, String tenantDomain, String idpEntityId) throws IdentityOAuth2Exception {
         if (idpEntityId == null || !assertion.getIssuer().getValue().equals(idpEntityId)) {
             if(log.isDebugEnabled()) {
@@ -585,22 +564,6 @@ public class SAML2BearerGrantHandler extends AbstractAuthorizationGrantHandler {
         return true;
     }
 
-    private String getIdpEntityId(FederatedAuthenticatorConfig[] fedAuthnConfigs) {
-        String idpEntityId = null;
-        // Get SAML authenticator
-        FederatedAuthenticatorConfig samlAuthenticatorConfig =
-                IdentityApplicationManagementUtil.getFederatedAuthenticator(fedAuthnConfigs,
-                        IdentityApplicationConstants.Authenticator.SAML2SSO.NAME);
-        // Get Entity ID from SAML authenticator
-        Property samlProperty = IdentityApplicationManagementUtil.getProperty(
-                samlAuthenticatorConfig.getProperties(),
-                IdentityApplicationConstants.Authenticator.SAML2SSO.IDP_ENTITY_ID);
-        if (samlProperty != null) {
-            idpEntityId = samlProperty.getValue();
-        }
-        return idpEntityId;
-    }
-
     private boolean isResidentIdp(IdentityProvider identityProvider) {
         return IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME.equals(
                 identityProvider.getIdentityProviderName());
@@ -612,7 +575,8 @@ public class SAML2BearerGrantHandler extends AbstractAuthorizationGrantHandler {
             IdentityProvider identityProvider = getIdentityProviderFromManager(assertion, tenantDomain);
             checkNullIdentityProvider(assertion, tenantDomain, identityProvider);
             if (isResidentIdp(identityProvider)) {
-                identityProvider = IdentityProviderManager.getInstance().getResidentIdP(tenantDomain);
+                identityProvider = IdPValidationContextCache.getInstance().getResidentIdPContext(tenantDomain)
+                        .getIdentityProvider();
             }
             if (log.isDebugEnabled()) {
                 log.debug("Found an idp with given information. IDP name : " + identityProvider.getIdentityProviderName());
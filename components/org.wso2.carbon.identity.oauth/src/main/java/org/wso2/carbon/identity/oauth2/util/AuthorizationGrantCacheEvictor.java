@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
+import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.authcontext.AuthorizationContextTokenCache;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationDAO;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evicts the {@link AuthorizationGrantCache} entries of the access tokens and authorization codes of a set of users,
+ * e.g. when users are added to or removed from a role, so that the user attributes of their grants are read again.
+ * The {@link AuthorizationContextTokenCache} entries of the access tokens are cleared as well, since the context tokens
+ * carry the roles and claims of the user.
+ * <p>
+ * Evictions run in the background on a pool of {@code OAuth.AuthorizationGrantCacheEviction.PoolSize} threads. The
+ * grants of the users are resolved with one query per chunk of users, using the chunk size of
+ * {@link BulkTokenRevocationEngine}, and the cache entries are cleared without reading them first. If the pool size
+ * is set to 0, or once the pool is shut down with the bundle, evictions run on the caller's thread.
+ */
+public class AuthorizationGrantCacheEvictor {
+
+    private static final Log log = LogFactory.getLog(AuthorizationGrantCacheEvictor.class);
+
+    // This config property is defined in identity.xml
+    private static final String POOL_SIZE = "OAuth.AuthorizationGrantCacheEviction.PoolSize";
+    private static final int DEFAULT_POOL_SIZE = 1;
+    private static final long SHUTDOWN_TIMEOUT_IN_SECONDS = 10;
+
+    private static volatile AuthorizationGrantCacheEvictor instance;
+
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    AuthorizationGrantCacheEvictor(ExecutorService executor, int chunkSize) {
+
+        this.executor = executor;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public static AuthorizationGrantCacheEvictor getInstance() {
+
+        if (instance == null) {
+            synchronized (AuthorizationGrantCacheEvictor.class) {
+                if (instance == null) {
+                    int poolSize = OAuth2PropertyUtil.getIntProperty(POOL_SIZE, DEFAULT_POOL_SIZE, 0);
+                    ExecutorService executor = null;
+                    if (poolSize > 0) {
+                        final AtomicInteger threadCount = new AtomicInteger();
+                        executor = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable runnable) {
+
+                                Thread thread = new Thread(runnable, "AuthorizationGrantCacheEvictor-" +
+                                        threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+                    }
+                    instance = new AuthorizationGrantCacheEvictor(executor,
+                            BulkTokenRevocationEngine.getInstance().getChunkSize());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Evict the cached grants of the given users of a user store. The method returns once the eviction is scheduled.
+     *
+     * @param tenantDomain    tenant domain of the users
+     * @param userStoreDomain user store domain of the users
+     * @param userNames       user names without the user store domain
+     */
+    public void evict(final String tenantDomain, final String userStoreDomain, Collection<String> userNames) {
+
+        if (CollectionUtils.isEmpty(userNames)) {
+            return;
+        }
+        final List<String> distinctUserNames = new ArrayList<>(new LinkedHashSet<>(userNames));
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+
+                evictNow(tenantDomain, userStoreDomain, distinctUserNames);
+            }
+        };
+
+        if (executor == null || executor.isShutdown()) {
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Could not schedule the eviction of cached authorization grants of " +
+                    distinctUserNames.size() + " users. Evicting them on the caller's thread.");
+            task.run();
+        }
+    }
+
+    /**
+     * Stop the eviction pool and wait for the scheduled evictions to complete. Evictions requested afterwards run on
+     * the caller's thread.
+     */
+    public void shutdown() {
+
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Timed out while waiting for the scheduled evictions of cached authorization grants.");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void evictNow(String tenantDomain, String userStoreDomain, List<String> userNames) {
+
+        long start = System.currentTimeMillis();
+        String sanitizedUserStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(userStoreDomain);
+        try {
+            int tenantId = OAuth2Util.getTenantId(tenantDomain);
+            boolean usernameCaseSensitive = isUsernameCaseSensitive(tenantDomain, sanitizedUserStoreDomain,
+                    userNames.get(0));
+            String partitionUserStoreDomain = null;
+            if (OAuth2Util.checkAccessTokenPartitioningEnabled() && OAuth2Util.checkUserNameAssertionEnabled()) {
+                partitionUserStoreDomain = sanitizedUserStoreDomain;
+            }
+
+            BulkTokenRevocationDAO tokenDAO = OAuthTokenPersistenceFactory.getInstance().getBulkTokenRevocationDAO();
+            int accessTokenCount = 0;
+            int authzCodeCount = 0;
+            for (int from = 0; from < userNames.size(); from += chunkSize) {
+                List<String> chunk = getChunk(userNames, from, usernameCaseSensitive);
+                List<AccessTokenDO> accessTokens = tokenDAO.getActiveAccessTokensOfUsers(tenantId,
+                        sanitizedUserStoreDomain, chunk, usernameCaseSensitive, partitionUserStoreDomain);
+                for (AccessTokenDO accessTokenDO : accessTokens) {
+                    AuthorizationContextTokenCache.getInstance().clearCacheEntry(accessTokenDO.getAccessToken());
+                    AuthorizationGrantCache.getInstance().clearCacheEntryByTokenId(
+                            new AuthorizationGrantCacheKey(accessTokenDO.getAccessToken()), accessTokenDO.getTokenId());
+                }
+                List<AuthzCodeDO> authzCodes = tokenDAO.getActiveAuthorizationCodesOfUsers(tenantId,
+                        sanitizedUserStoreDomain, chunk, usernameCaseSensitive);
+                for (AuthzCodeDO authzCodeDO : authzCodes) {
+                    AuthorizationGrantCache.getInstance().clearCacheEntryByCodeId(
+                            new AuthorizationGrantCacheKey(authzCodeDO.getAuthorizationCode()),
+                            authzCodeDO.getAuthzCodeId());
+                }
+                accessTokenCount += accessTokens.size();
+                authzCodeCount += authzCodes.size();
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Evicted the cached authorization grants of " + accessTokenCount + " access tokens and " +
+                        authzCodeCount + " authorization codes of " + userNames.size() + " users of user store: " +
+                        sanitizedUserStoreDomain + " in tenant: " + tenantDomain + " in " +
+                        (System.currentTimeMillis() - start) + "ms");
+            }
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while evicting the cached authorization grants of " + userNames.size() +
+                    " users of user store: " + sanitizedUserStoreDomain + " in tenant: " + tenantDomain, e);
+        }
+    }
+
+    private List<String> getChunk(List<String> userNames, int from, boolean usernameCaseSensitive) {
+
+        List<String> chunk = userNames.subList(from, Math.min(from + chunkSize, userNames.size()));
+        if (usernameCaseSensitive) {
+            return chunk;
+        }
+        Set<String> lowerCaseUserNames = new LinkedHashSet<>();
+        for (String userName : chunk) {
+            lowerCaseUserNames.add(userName.toLowerCase());
+        }
+        return new ArrayList<>(lowerCaseUserNames);
+    }
+
+    /**
+     * User names are case sensitive or not per user store, hence any user of the user store can be used to find it.
+     */
+    private boolean isUsernameCaseSensitive(String tenantDomain, String userStoreDomain, String userName) {
+
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName(userName);
+        authenticatedUser.setTenantDomain(tenantDomain);
+        authenticatedUser.setUserStoreDomain(userStoreDomain);
+        return IdentityUtil.isUserStoreInUsernameCaseSensitive(authenticatedUser.toString());
+    }
+}
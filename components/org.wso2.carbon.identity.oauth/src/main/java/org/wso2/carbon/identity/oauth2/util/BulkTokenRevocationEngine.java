@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationDAO;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.dao.TokenRevocationFilter;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revokes all access tokens and authorization codes matching a {@link TokenRevocationFilter}, e.g. when a user is
+ * deleted or locked, when an application is revoked or when a user store is removed.
+ * <p>
+ * Instead of revoking and clearing the cache of one token at a time, tokens are revoked with set based updates in
+ * chunks of {@code OAuth.BulkTokenRevocation.ChunkSize} tokens, each chunk in its own transaction. The cache entries
+ * of a chunk are invalidated once the chunk is committed. Locks on the token tables are therefore only held for the
+ * duration of a chunk and token issuance for other users and clients is not blocked by a large revocation.
+ * <p>
+ * EXPIRED tokens are revoked along with the ACTIVE ones, since their refresh tokens can still be used to obtain new
+ * access tokens. The per token revocations this engine replaces only revoked ACTIVE tokens.
+ * <p>
+ * A failed chunk does not roll back the chunks committed before it. Revoking with the same filter again resumes the
+ * revocation, since revoked tokens no longer match the filter.
+ */
+public class BulkTokenRevocationEngine {
+
+    private static final Log log = LogFactory.getLog(BulkTokenRevocationEngine.class);
+
+    // This config property is defined in identity.xml
+    private static final String CHUNK_SIZE = "OAuth.BulkTokenRevocation.ChunkSize";
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+    // Oracle does not allow more than 1000 expressions in an IN list.
+    private static final int MAX_CHUNK_SIZE = 1000;
+
+    private static final BulkTokenRevocationEngine instance = new BulkTokenRevocationEngine(
+            OAuth2PropertyUtil.getIntProperty(CHUNK_SIZE, DEFAULT_CHUNK_SIZE, 1));
+
+    private final int chunkSize;
+    private final Set<BulkTokenRevocationProgress> runningRevocations =
+            Collections.newSetFromMap(new ConcurrentHashMap<BulkTokenRevocationProgress, Boolean>());
+
+    BulkTokenRevocationEngine(int chunkSize) {
+
+        this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+    }
+
+    public static BulkTokenRevocationEngine getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Revoke the ACTIVE and EXPIRED access tokens and the ACTIVE authorization codes matching the filter.
+     *
+     * @param filter revocation filter
+     * @return progress of the completed revocation
+     * @throws IdentityOAuth2Exception if a chunk cannot be revoked. Chunks committed before the failure stay revoked.
+     */
+    public BulkTokenRevocationProgress revokeTokens(TokenRevocationFilter filter) throws IdentityOAuth2Exception {
+
+        return revokeTokens(filter, true);
+    }
+
+    /**
+     * Revoke the ACTIVE and EXPIRED access tokens matching the filter and optionally the ACTIVE authorization codes.
+     *
+     * @param filter                   revocation filter
+     * @param revokeAuthorizationCodes whether the authorization codes matching the filter should be revoked
+     * @return progress of the completed revocation
+     * @throws IdentityOAuth2Exception if a chunk cannot be revoked. Chunks committed before the failure stay revoked.
+     */
+    public BulkTokenRevocationProgress revokeTokens(TokenRevocationFilter filter, boolean revokeAuthorizationCodes)
+            throws IdentityOAuth2Exception {
+
+        BulkTokenRevocationDAO revocationDAO = OAuthTokenPersistenceFactory.getInstance().getBulkTokenRevocationDAO();
+        BulkTokenRevocationProgress progress = new BulkTokenRevocationProgress(filter);
+        runningRevocations.add(progress);
+        try {
+            if (filter.getAuthenticatedUser() != null) {
+                // The tokens of a user live in a single partition, hence they are read and revoked in one transaction.
+                List<AccessTokenDO> accessTokens = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                        .revokeAccessTokensOfUser(filter.getAuthenticatedUser());
+                if (!accessTokens.isEmpty()) {
+                    clearCache(accessTokens);
+                    progress.recordAccessTokenChunk(accessTokens.size());
+                }
+            } else {
+                revokeAccessTokensInChunks(filter, revocationDAO, progress);
+            }
+
+            if (revokeAuthorizationCodes) {
+                String afterCodeId = null;
+                List<AuthzCodeDO> authzCodes;
+                do {
+                    authzCodes = revocationDAO.revokeAuthorizationCodes(filter, afterCodeId, chunkSize);
+                    if (!authzCodes.isEmpty()) {
+                        clearAuthorizationCodeCache(authzCodes);
+                        afterCodeId = authzCodes.get(authzCodes.size() - 1).getAuthzCodeId();
+                        progress.recordAuthorizationCodeChunk(authzCodes.size());
+                        logProgress(progress);
+                    }
+                } while (authzCodes.size() >= chunkSize);
+            }
+        } finally {
+            progress.complete();
+            runningRevocations.remove(progress);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Completed bulk token revocation. " + progress);
+        }
+        return progress;
+    }
+
+    private void revokeAccessTokensInChunks(TokenRevocationFilter filter, BulkTokenRevocationDAO revocationDAO,
+                                            BulkTokenRevocationProgress progress) throws IdentityOAuth2Exception {
+
+        for (String partitionUserStoreDomain : getPartitionUserStoreDomains(filter)) {
+            String afterTokenId = null;
+            List<AccessTokenDO> accessTokens;
+            do {
+                accessTokens = revocationDAO.revokeAccessTokens(filter, partitionUserStoreDomain, afterTokenId,
+                        chunkSize);
+                if (!accessTokens.isEmpty()) {
+                    clearCache(accessTokens);
+                    afterTokenId = accessTokens.get(accessTokens.size() - 1).getTokenId();
+                    progress.recordAccessTokenChunk(accessTokens.size());
+                    logProgress(progress);
+                }
+            } while (accessTokens.size() >= chunkSize);
+        }
+    }
+
+    /**
+     * Remove the ACTIVE and EXPIRED access tokens matching the filter from the caches without revoking them, e.g.
+     * before the user store domain of the tokens is renamed or before the tokens are deleted with their application.
+     *
+     * @param filter token filter
+     * @return progress of the completed cache invalidation
+     * @throws IdentityOAuth2Exception if the tokens cannot be retrieved
+     */
+    public BulkTokenRevocationProgress clearCachedTokens(TokenRevocationFilter filter) throws IdentityOAuth2Exception {
+
+        BulkTokenRevocationDAO revocationDAO = OAuthTokenPersistenceFactory.getInstance().getBulkTokenRevocationDAO();
+        BulkTokenRevocationProgress progress = new BulkTokenRevocationProgress(filter);
+        runningRevocations.add(progress);
+        try {
+            for (String partitionUserStoreDomain : getPartitionUserStoreDomains(filter)) {
+                String afterTokenId = null;
+                List<AccessTokenDO> accessTokens;
+                do {
+                    accessTokens = revocationDAO.getAccessTokens(filter, partitionUserStoreDomain, afterTokenId,
+                            chunkSize);
+                    if (!accessTokens.isEmpty()) {
+                        clearCache(accessTokens);
+                        afterTokenId = accessTokens.get(accessTokens.size() - 1).getTokenId();
+                        progress.recordAccessTokenChunk(accessTokens.size());
+                    }
+                } while (accessTokens.size() >= chunkSize);
+            }
+        } finally {
+            progress.complete();
+            runningRevocations.remove(progress);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Removed the access tokens matching the filter from the cache. " + progress);
+        }
+        return progress;
+    }
+
+    /**
+     * @return progress of the bulk revocations currently running on this node
+     */
+    public Set<BulkTokenRevocationProgress> getRunningRevocations() {
+
+        return Collections.unmodifiableSet(runningRevocations);
+    }
+
+    public int getChunkSize() {
+
+        return chunkSize;
+    }
+
+    /**
+     * Invalidate the cache entries of a chunk of access tokens. Tokens of the same client, user and scope share
+     * cache entries, so each of those entries is only cleared once per chunk.
+     */
+    private void clearCache(List<AccessTokenDO> accessTokens) {
+
+        Set<String> clearedKeys = new HashSet<>();
+        for (AccessTokenDO accessTokenDO : accessTokens) {
+            String consumerKey = accessTokenDO.getConsumerKey();
+            String user = accessTokenDO.getAuthzUser().toString();
+            String scope = OAuth2Util.buildScopeString(accessTokenDO.getScope());
+            if (clearedKeys.add(consumerKey + ":" + user + ":" + scope)) {
+                OAuthUtil.clearOAuthCache(consumerKey, accessTokenDO.getAuthzUser(), scope);
+            }
+            if (clearedKeys.add(consumerKey + ":" + user)) {
+                OAuthUtil.clearOAuthCache(consumerKey, accessTokenDO.getAuthzUser());
+            }
+            OAuthUtil.clearOAuthCache(accessTokenDO.getAccessToken());
+        }
+    }
+
+    private void clearAuthorizationCodeCache(List<AuthzCodeDO> authzCodes) {
+
+        for (AuthzCodeDO authzCodeDO : authzCodes) {
+            OAuthUtil.clearOAuthCache(OAuth2Util.buildCacheKeyStringForAuthzCode(authzCodeDO.getConsumerKey(),
+                    authzCodeDO.getAuthorizationCode()));
+            OAuthUtil.clearOAuthCache(authzCodeDO.getAuthorizationCode());
+        }
+    }
+
+    /**
+     * Access tokens are spread over several tables when access token partitioning is enabled. Tokens of a user or a
+     * user store live in a single partition while the tokens of a client or a tenant may live in any of them.
+     */
+    private List<String> getPartitionUserStoreDomains(TokenRevocationFilter filter) throws IdentityOAuth2Exception {
+
+        List<String> userStoreDomains = new ArrayList<>();
+        if (!OAuth2Util.checkAccessTokenPartitioningEnabled() || !OAuth2Util.checkUserNameAssertionEnabled()) {
+            userStoreDomains.add(null);
+        } else if (filter.getAuthenticatedUser() != null) {
+            userStoreDomains.add(OAuth2Util.getUserStoreForFederatedUser(filter.getAuthenticatedUser()));
+        } else if (filter.getUserStoreDomain() != null) {
+            userStoreDomains.add(filter.getUserStoreDomain());
+        } else {
+            userStoreDomains.add(IdentityUtil.getPrimaryDomainName());
+            userStoreDomains.addAll(OAuth2Util.getAvailableUserStoreDomainMappings().keySet());
+        }
+        return userStoreDomains;
+    }
+
+    private void logProgress(BulkTokenRevocationProgress progress) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Bulk token revocation in progress. " + progress);
+        } else if (progress.getChunkCount() % 100 == 0) {
+            log.info("Bulk token revocation in progress. " + progress);
+        }
+    }
+}
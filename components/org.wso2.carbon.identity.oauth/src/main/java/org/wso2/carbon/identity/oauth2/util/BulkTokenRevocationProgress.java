@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.wso2.carbon.identity.oauth2.dao.TokenRevocationFilter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a bulk token revocation. The counters are updated after each committed chunk, so a revocation in
+ * progress can be observed through {@link BulkTokenRevocationEngine#getRunningRevocations()}.
+ */
+public class BulkTokenRevocationProgress {
+
+    private final TokenRevocationFilter filter;
+    private final long startTime = System.currentTimeMillis();
+
+    private final AtomicLong accessTokenCount = new AtomicLong();
+    private final AtomicLong authorizationCodeCount = new AtomicLong();
+    private final AtomicLong chunkCount = new AtomicLong();
+    private volatile long endTime;
+
+    BulkTokenRevocationProgress(TokenRevocationFilter filter) {
+
+        this.filter = filter;
+    }
+
+    void recordAccessTokenChunk(int size) {
+
+        chunkCount.incrementAndGet();
+        accessTokenCount.addAndGet(size);
+    }
+
+    void recordAuthorizationCodeChunk(int size) {
+
+        chunkCount.incrementAndGet();
+        authorizationCodeCount.addAndGet(size);
+    }
+
+    void complete() {
+
+        endTime = System.currentTimeMillis();
+    }
+
+    public TokenRevocationFilter getFilter() {
+
+        return filter;
+    }
+
+    /**
+     * @return number of access tokens processed so far
+     */
+    public long getAccessTokenCount() {
+
+        return accessTokenCount.get();
+    }
+
+    /**
+     * @return number of authorization codes processed so far
+     */
+    public long getAuthorizationCodeCount() {
+
+        return authorizationCodeCount.get();
+    }
+
+    public long getChunkCount() {
+
+        return chunkCount.get();
+    }
+
+    public boolean isCompleted() {
+
+        return endTime != 0;
+    }
+
+    public long getElapsedTimeInMillis() {
+
+        return (isCompleted() ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    @Override
+    public String toString() {
+
+        return "BulkTokenRevocationProgress{filter=" + filter + ", accessTokens=" + getAccessTokenCount() +
+                ", authorizationCodes=" + getAuthorizationCodeCount() + ", chunks=" + getChunkCount() +
+                ", completed=" + isCompleted() + ", elapsedTimeInMillis=" + getElapsedTimeInMillis() + "}";
+    }
+}
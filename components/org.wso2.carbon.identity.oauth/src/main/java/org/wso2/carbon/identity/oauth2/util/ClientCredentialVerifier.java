@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
+import org.wso2.carbon.identity.oauth.cache.ClientCredentialCache;
+import org.wso2.carbon.identity.oauth.cache.ClientCredentialCacheEntry;
+import org.wso2.carbon.identity.oauth.dao.OAuthConsumerDAO;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies client secrets against the {@link ClientCredentialCache}. On a cache miss the secret is read from the
+ * database once per client, however many requests of the client arrive while it is being read, since reading the
+ * secret may also involve decrypting it.
+ */
+public class ClientCredentialVerifier {
+
+    private static final Log log = LogFactory.getLog(ClientCredentialVerifier.class);
+
+    private static volatile ClientCredentialVerifier instance;
+
+    private final ClientCredentialCache clientCredentialCache;
+    private final ConcurrentMap<String, FutureTask<ClientCredentialCacheEntry>> pendingLoads =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong coalescedLoadCount = new AtomicLong();
+
+    ClientCredentialVerifier(ClientCredentialCache clientCredentialCache) {
+
+        this.clientCredentialCache = clientCredentialCache;
+    }
+
+    public static ClientCredentialVerifier getInstance() {
+
+        if (instance == null) {
+            synchronized (ClientCredentialVerifier.class) {
+                if (instance == null) {
+                    instance = new ClientCredentialVerifier(ClientCredentialCache.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Verify the secret of a client.
+     *
+     * @param clientId     client id
+     * @param clientSecret client secret provided by the client
+     * @return true if the client exists and the secret matches
+     * @throws IdentityOAuthAdminException if the secret could not be read from the database
+     */
+    public boolean verify(String clientId, String clientSecret) throws IdentityOAuthAdminException {
+
+        ClientCredentialCacheEntry entry = clientCredentialCache.getValueFromCache(clientId);
+        if (entry != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Client credentials were available in the cache for client id : " + clientId);
+            }
+        } else {
+            entry = load(clientId);
+            if (entry == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Provided Client ID : " + clientId + " is not valid.");
+                }
+                return false;
+            }
+        }
+        return entry.matches(clientSecret);
+    }
+
+    /**
+     * Remove the cached secret of a client. Must be called after the secret is changed or the client is removed in
+     * the database. A read of the secret which is in progress at that time is not cached.
+     *
+     * @param clientId client id
+     */
+    public void invalidate(String clientId) {
+
+        pendingLoads.remove(clientId);
+        clientCredentialCache.clearCacheEntry(clientId);
+        if (log.isDebugEnabled()) {
+            log.debug("Client credentials are removed from the cache for client id : " + clientId);
+        }
+    }
+
+    private ClientCredentialCacheEntry load(final String clientId) throws IdentityOAuthAdminException {
+
+        FutureTask<ClientCredentialCacheEntry> task = new FutureTask<>(new Callable<ClientCredentialCacheEntry>() {
+            @Override
+            public ClientCredentialCacheEntry call() throws Exception {
+
+                String clientSecret = loadClientSecret(clientId);
+                return clientSecret == null ? null : new ClientCredentialCacheEntry(clientSecret);
+            }
+        });
+        FutureTask<ClientCredentialCacheEntry> pendingTask = pendingLoads.putIfAbsent(clientId, task);
+        if (pendingTask != null) {
+            coalescedLoadCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Waiting for the client credentials of client id : " + clientId + " being read by " +
+                        "another request.");
+            }
+            return getResult(clientId, pendingTask);
+        }
+
+        loadCount.incrementAndGet();
+        task.run();
+        ClientCredentialCacheEntry entry;
+        try {
+            entry = getResult(clientId, task);
+        } catch (IdentityOAuthAdminException e) {
+            pendingLoads.remove(clientId, task);
+            throw e;
+        }
+        if (entry == null) {
+            pendingLoads.remove(clientId, task);
+            return null;
+        }
+
+        // The entry is added before the task is removed, so that an invalidation in between either removes the task,
+        // in which case the entry is cleared here, or clears the entry itself.
+        clientCredentialCache.addToCache(clientId, entry);
+        if (!pendingLoads.remove(clientId, task)) {
+            clientCredentialCache.clearCacheEntry(clientId);
+            if (log.isDebugEnabled()) {
+                log.debug("Client credentials of client id : " + clientId + " were invalidated while being read. " +
+                        "Hence not cached.");
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug("Client credentials were added to the cache for client id : " + clientId);
+        }
+        return entry;
+    }
+
+    private ClientCredentialCacheEntry getResult(String clientId, FutureTask<ClientCredentialCacheEntry> task)
+            throws IdentityOAuthAdminException {
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityOAuthAdminException("Interrupted while reading the client credentials of client id : " +
+                    clientId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IdentityOAuthAdminException) {
+                throw (IdentityOAuthAdminException) e.getCause();
+            }
+            throw new IdentityOAuthAdminException("Error while reading the client credentials of client id : " +
+                    clientId, e.getCause());
+        }
+    }
+
+    /**
+     * Read the secret of a client from the database.
+     *
+     * @param clientId client id
+     * @return client secret or null if there is no such client
+     * @throws IdentityOAuthAdminException if the secret could not be read
+     */
+    protected String loadClientSecret(String clientId) throws IdentityOAuthAdminException {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Reading the client credentials of client id : " + clientId + " from the database.");
+        }
+        return new OAuthConsumerDAO().getOAuthConsumerSecret(clientId);
+    }
+
+    /**
+     * @return number of times a client secret was read from the database
+     */
+    public long getLoadCount() {
+
+        return loadCount.get();
+    }
+
+    /**
+     * @return number of cache misses which waited for a read of the same client secret instead of reading it again
+     */
+    public long getCoalescedLoadCount() {
+
+        return coalescedLoadCount.get();
+    }
+}
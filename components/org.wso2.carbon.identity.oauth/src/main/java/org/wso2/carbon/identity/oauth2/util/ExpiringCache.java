@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, node local map whose entries expire at a time given when they are added. It backs the node local caches
+ * of this component which hold data that is either cheap to reload or cleared by local events, and which do not need
+ * the cluster invalidation of the distributed caches.
+ * <p>
+ * Expired entries are removed when they are read, and when the map is full. If the map is still full once the expired
+ * entries are removed, the entries which would expire the soonest are evicted, so that new entries are always cached
+ * under sustained load.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+    // Share of the capacity evicted at once when the map is full, so that eviction is not repeated for every new entry.
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final int capacity;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity maximum number of entries
+     */
+    public ExpiringCache(int capacity) {
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param key key
+     * @return value of the key or null if there is no value or it has expired
+     */
+    public V get(K key) {
+
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Add or replace the value of a key. Values which have already expired are not added.
+     *
+     * @param key        key
+     * @param value      value
+     * @param expiryTime time in milliseconds at which the value expires
+     */
+    public void put(K key, V value, long expiryTime) {
+
+        long now = System.currentTimeMillis();
+        if (capacity <= 0 || expiryTime <= now) {
+            return;
+        }
+        if (entries.size() >= capacity && !entries.containsKey(key)) {
+            evict(now);
+        }
+        entries.put(key, new Entry<>(value, expiryTime));
+    }
+
+    public void remove(K key) {
+
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * @return live view of the keys, which can be used to remove entries
+     */
+    public Set<K> keySet() {
+
+        return entries.keySet();
+    }
+
+    public void clear() {
+
+        entries.clear();
+    }
+
+    public int size() {
+
+        return entries.size();
+    }
+
+    private synchronized void evict(long now) {
+
+        if (entries.size() < capacity) {
+            // Another thread made room while this one was waiting.
+            return;
+        }
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+
+        int evictionCount = entries.size() - capacity + Math.max(1, capacity / EVICTION_DIVISOR);
+        if (evictionCount <= 0) {
+            return;
+        }
+        // Keeps the entries which expire the soonest, with the latest of them at the head.
+        PriorityQueue<Map.Entry<K, Entry<V>>> soonestToExpire = new PriorityQueue<>(evictionCount,
+                new Comparator<Map.Entry<K, Entry<V>>>() {
+                    @Override
+                    public int compare(Map.Entry<K, Entry<V>> entry1, Map.Entry<K, Entry<V>> entry2) {
+
+                        return Long.compare(entry2.getValue().expiryTime, entry1.getValue().expiryTime);
+                    }
+                });
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            soonestToExpire.offer(entry);
+            if (soonestToExpire.size() > evictionCount) {
+                soonestToExpire.poll();
+            }
+        }
+        for (Map.Entry<K, Entry<V>> entry : soonestToExpire) {
+            entries.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiryTime;
+
+        private Entry(V value, long expiryTime) {
+
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+
+        private boolean isExpired(long now) {
+
+            return now >= expiryTime;
+        }
+    }
+}
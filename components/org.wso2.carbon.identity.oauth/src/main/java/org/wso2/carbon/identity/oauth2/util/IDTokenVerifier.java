@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.ReadOnlyJWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.core.util.KeyStoreManager;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the signature of ID tokens sent back by relying parties, i.e. the id_token_hint of authorization and
+ * logout requests. The ID token is parsed only once and the verifier of the tenant which signed it is built from the
+ * tenant public key on first use and shared by all later verifications, so that prompt=none and logout traffic does
+ * not load the tenant key store per request.
+ * <p>
+ * Verifiers are cleared when the signing keys of the tenant are cleared on this node, and otherwise expire after the
+ * configured time, so that a key rotated on another node of a cluster is picked up.
+ */
+public class IDTokenVerifier {
+
+    private static final Log log = LogFactory.getLog(IDTokenVerifier.class);
+
+    // This config property is defined in identity.xml
+    private static final String VERIFIER_EXPIRY_TIME = "OAuth.IDTokenVerifier.ExpiryTime";
+    private static final int DEFAULT_VERIFIER_EXPIRY_TIME_IN_SECONDS = 900;
+
+    private static volatile IDTokenVerifier instance;
+
+    private final long expiryTimeInMillis;
+    private final ExpiringCache<String, JWSVerifier> verifiers = new ExpiringCache<>(Integer.MAX_VALUE);
+
+    IDTokenVerifier(long expiryTimeInMillis) {
+
+        this.expiryTimeInMillis = expiryTimeInMillis;
+    }
+
+    public static IDTokenVerifier getInstance() {
+
+        if (instance == null) {
+            synchronized (IDTokenVerifier.class) {
+                if (instance == null) {
+                    int expiryTime = OAuth2PropertyUtil.getIntProperty(VERIFIER_EXPIRY_TIME,
+                            DEFAULT_VERIFIER_EXPIRY_TIME_IN_SECONDS, 0);
+                    instance = new IDTokenVerifier(TimeUnit.SECONDS.toMillis(expiryTime));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Parse the given ID token and verify its signature with the public key of the tenant which issued it.
+     *
+     * @param idToken serialized ID token
+     * @return parsed ID token if the signature is valid, null if the ID token is malformed or the signature is invalid
+     */
+    public SignedJWT verify(String idToken) {
+
+        if (StringUtils.isBlank(idToken)) {
+            return null;
+        }
+        try {
+            SignedJWT signedJWT = SignedJWT.parse(idToken);
+            String tenantDomain = getTenantDomain(signedJWT.getJWTClaimsSet());
+            if (StringUtils.isEmpty(tenantDomain)) {
+                return null;
+            }
+            if (signedJWT.verify(getVerifier(tenantDomain))) {
+                return signedJWT;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Signature of the ID token is not valid for tenant: " + tenantDomain);
+            }
+        } catch (Exception e) {
+            log.error("Error occurred while validating id token signature.", e);
+        }
+        return null;
+    }
+
+    /**
+     * Remove the cached verifier of the given tenant. This is called when the signing keys of the tenant are cleared.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void clearVerifier(String tenantDomain) {
+
+        if (tenantDomain != null) {
+            verifiers.remove(tenantDomain);
+        }
+    }
+
+    /**
+     * Resolve the tenant whose key signed the ID token. When ID tokens are signed with the key of the service
+     * provider's tenant it is the tenant of the client in the audience, otherwise it is the tenant of the subject.
+     */
+    private String getTenantDomain(ReadOnlyJWTClaimsSet claimsSet)
+            throws IdentityOAuth2Exception, InvalidOAuthClientException {
+
+        if (OAuthServerConfiguration.getInstance().isJWTSignedWithSPKey()) {
+            List<String> audience = claimsSet.getAudience();
+            if (CollectionUtils.isEmpty(audience)) {
+                return null;
+            }
+            OAuthAppDO oAuthAppDO = OAuth2Util.getAppInformationByClientId(audience.get(0));
+            return OAuth2Util.getTenantDomainOfOauthApp(oAuthAppDO);
+        }
+        // Tenant domain is not sent with the subject of the id_token by default. The option "Use tenant domain in
+        // local subject identifier" needs to be enabled in the SP config for this to work as expected.
+        String subject = claimsSet.getSubject();
+        return subject == null ? null : MultitenantUtils.getTenantDomain(subject);
+    }
+
+    JWSVerifier getVerifier(String tenantDomain) throws IdentityOAuth2Exception {
+
+        JWSVerifier verifier = verifiers.get(tenantDomain);
+        if (verifier == null) {
+            verifier = new RSASSAVerifier(getPublicKey(tenantDomain));
+            verifiers.put(tenantDomain, verifier, System.currentTimeMillis() + expiryTimeInMillis);
+            if (log.isDebugEnabled()) {
+                log.debug("Cached the ID token verifier of tenant: " + tenantDomain);
+            }
+        }
+        return verifier;
+    }
+
+    private RSAPublicKey getPublicKey(String tenantDomain) throws IdentityOAuth2Exception {
+
+        PublicKey publicKey;
+        try {
+            KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(IdentityTenantUtil.getTenantId(tenantDomain));
+            if (!MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
+                String jksName = tenantDomain.trim().replace(".", "-") + ".jks";
+                Certificate certificate = keyStoreManager.getKeyStore(jksName).getCertificate(tenantDomain);
+                publicKey = certificate == null ? null : certificate.getPublicKey();
+            } else {
+                publicKey = keyStoreManager.getDefaultPublicKey();
+            }
+        } catch (Exception e) {
+            throw new IdentityOAuth2Exception("Error while obtaining the public key of tenant: " + tenantDomain, e);
+        }
+        if (!(publicKey instanceof RSAPublicKey)) {
+            throw new IdentityOAuth2Exception("RSA public key of tenant: " + tenantDomain + " is not available");
+        }
+        return (RSAPublicKey) publicKey;
+    }
+}
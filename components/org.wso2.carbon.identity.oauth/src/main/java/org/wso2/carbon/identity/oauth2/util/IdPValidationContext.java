@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JWSVerifier;
+import org.apache.commons.lang.StringUtils;
+import org.opensaml.xml.signature.SignatureValidator;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Everything needed to validate an assertion or a JWT issued by an identity provider of a tenant: the identity
+ * provider, its decoded certificate, the entity ids and token endpoint alias read from its authenticator
+ * configurations and the signature validators built from its certificate. Instances are shared through
+ * {@link IdPValidationContextCache}.
+ */
+public class IdPValidationContext {
+
+    // This is the property name of the issuer in the OIDC authenticator of the resident IdP.
+    private static final String OIDC_IDP_ENTITY_ID = "IdPEntityId";
+
+    private final String tenantDomain;
+    private final IdentityProvider identityProvider;
+    private final String samlEntityId;
+    private final String oidcEntityId;
+    private final String tokenEndpointAlias;
+
+    private volatile X509Certificate certificate;
+    private volatile SignatureValidator signatureValidator;
+    private volatile JWSVerifierHolder jwsVerifierHolder;
+
+    IdPValidationContext(String tenantDomain, IdentityProvider identityProvider) {
+
+        this.tenantDomain = tenantDomain;
+        this.identityProvider = identityProvider;
+        if (isResidentIdP()) {
+            FederatedAuthenticatorConfig[] fedAuthnConfigs = identityProvider.getFederatedAuthenticatorConfigs();
+            FederatedAuthenticatorConfig samlAuthenticatorConfig = IdentityApplicationManagementUtil
+                    .getFederatedAuthenticator(fedAuthnConfigs, IdentityApplicationConstants.Authenticator.SAML2SSO.NAME);
+            FederatedAuthenticatorConfig oauthAuthenticatorConfig = IdentityApplicationManagementUtil
+                    .getFederatedAuthenticator(fedAuthnConfigs, IdentityApplicationConstants.Authenticator.OIDC.NAME);
+            samlEntityId = getPropertyValue(samlAuthenticatorConfig,
+                    IdentityApplicationConstants.Authenticator.SAML2SSO.IDP_ENTITY_ID);
+            oidcEntityId = getPropertyValue(oauthAuthenticatorConfig, OIDC_IDP_ENTITY_ID);
+            tokenEndpointAlias = getPropertyValue(oauthAuthenticatorConfig,
+                    IdentityApplicationConstants.Authenticator.OIDC.OAUTH2_TOKEN_URL);
+        } else {
+            samlEntityId = null;
+            oidcEntityId = null;
+            tokenEndpointAlias = identityProvider.getAlias();
+        }
+    }
+
+    public IdentityProvider getIdentityProvider() {
+
+        return identityProvider;
+    }
+
+    public boolean isResidentIdP() {
+
+        return IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME.equals(
+                identityProvider.getIdentityProviderName());
+    }
+
+    /**
+     * @return entity id of the SAML2 SSO authenticator of the resident IdP, null for federated IdPs
+     */
+    public String getSAMLEntityId() {
+
+        return samlEntityId;
+    }
+
+    /**
+     * @return entity id of the OpenID Connect authenticator of the resident IdP, null for federated IdPs
+     */
+    public String getOIDCEntityId() {
+
+        return oidcEntityId;
+    }
+
+    /**
+     * @return token endpoint URL of the resident IdP or the alias of a federated IdP
+     */
+    public String getTokenEndpointAlias() {
+
+        return tokenEndpointAlias;
+    }
+
+    /**
+     * Get the certificate of the identity provider. The certificate is decoded on first use.
+     *
+     * @return decoded certificate of the identity provider
+     * @throws IdentityOAuth2Exception if the certificate can not be decoded
+     */
+    public X509Certificate getCertificate() throws IdentityOAuth2Exception {
+
+        X509Certificate x509Certificate = certificate;
+        if (x509Certificate == null) {
+            try {
+                x509Certificate = (X509Certificate) IdentityApplicationManagementUtil
+                        .decodeCertificate(identityProvider.getCertificate());
+            } catch (CertificateException e) {
+                throw new IdentityOAuth2Exception("Error occurred while decoding public certificate of Identity " +
+                        "Provider " + identityProvider.getIdentityProviderName() + " for tenant domain " +
+                        tenantDomain, e);
+            }
+            certificate = x509Certificate;
+        }
+        return x509Certificate;
+    }
+
+    /**
+     * @return XML signature validator built from the certificate of the identity provider or null if none is set
+     */
+    public SignatureValidator getSignatureValidator() {
+
+        return signatureValidator;
+    }
+
+    public void setSignatureValidator(SignatureValidator signatureValidator) {
+
+        this.signatureValidator = signatureValidator;
+    }
+
+    /**
+     * @param x509Certificate certificate the verifier should be bound to
+     * @return JWS verifier of the given certificate or null if none is set for it
+     */
+    public JWSVerifier getJWSVerifier(X509Certificate x509Certificate) {
+
+        JWSVerifierHolder holder = jwsVerifierHolder;
+        if (holder != null && holder.certificate.equals(x509Certificate)) {
+            return holder.verifier;
+        }
+        return null;
+    }
+
+    public void setJWSVerifier(X509Certificate x509Certificate, JWSVerifier verifier) {
+
+        jwsVerifierHolder = new JWSVerifierHolder(x509Certificate, verifier);
+    }
+
+    /**
+     * A federated IdP is looked up by the caller on every request, so a context built for it is reused only while
+     * the certificate and alias it was built from are unchanged.
+     */
+    boolean isBuiltFrom(IdentityProvider idp) {
+
+        return StringUtils.equals(identityProvider.getCertificate(), idp.getCertificate()) &&
+                StringUtils.equals(identityProvider.getAlias(), idp.getAlias());
+    }
+
+    private static String getPropertyValue(FederatedAuthenticatorConfig authenticatorConfig, String propertyName) {
+
+        if (authenticatorConfig == null) {
+            return null;
+        }
+        Property property = IdentityApplicationManagementUtil.getProperty(authenticatorConfig.getProperties(),
+                propertyName);
+        return property != null ? property.getValue() : null;
+    }
+
+    private static class JWSVerifierHolder {
+
+        private final X509Certificate certificate;
+        private final JWSVerifier verifier;
+
+        private JWSVerifierHolder(X509Certificate certificate, JWSVerifier verifier) {
+
+            this.certificate = certificate;
+            this.verifier = verifier;
+        }
+    }
+}
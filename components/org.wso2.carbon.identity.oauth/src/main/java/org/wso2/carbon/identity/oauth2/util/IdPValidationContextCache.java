@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node local cache of {@link IdPValidationContext}s keyed by tenant domain and identity provider name, used by the
+ * SAML2 bearer grant and the JWT access token validator so that the resident IdP is not fetched and the IdP
+ * certificate is not decoded for every request.
+ * <p>
+ * Entries are cleared by the identity provider management listener of this component when an IdP of the tenant is
+ * updated or deleted on this node. Changes made on other nodes of a cluster are picked up when the entry expires.
+ */
+public class IdPValidationContextCache {
+
+    private static final Log log = LogFactory.getLog(IdPValidationContextCache.class);
+
+    // This config property is defined in identity.xml
+    private static final String CACHE_EXPIRY_TIME = "OAuth.IdPValidationContextCache.ExpiryTime";
+    private static final int DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS = 900;
+
+    private static volatile IdPValidationContextCache instance;
+
+    private final long expiryTimeInMillis;
+    private final ExpiringCache<String, IdPValidationContext> contexts = new ExpiringCache<>(Integer.MAX_VALUE);
+
+    IdPValidationContextCache(long expiryTimeInMillis) {
+
+        this.expiryTimeInMillis = expiryTimeInMillis;
+    }
+
+    public static IdPValidationContextCache getInstance() {
+
+        if (instance == null) {
+            synchronized (IdPValidationContextCache.class) {
+                if (instance == null) {
+                    int expiryTime = OAuth2PropertyUtil.getIntProperty(CACHE_EXPIRY_TIME,
+                            DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS, 0);
+                    instance = new IdPValidationContextCache(TimeUnit.SECONDS.toMillis(expiryTime));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the validation context of the resident IdP of the given tenant.
+     *
+     * @param tenantDomain tenant domain
+     * @return validation context of the resident IdP
+     * @throws IdentityProviderManagementException if the resident IdP can not be retrieved
+     */
+    public IdPValidationContext getResidentIdPContext(String tenantDomain) throws IdentityProviderManagementException {
+
+        String key = getKey(tenantDomain, IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME);
+        IdPValidationContext context = contexts.get(key);
+        if (context == null) {
+            IdentityProvider residentIdP = IdentityProviderManager.getInstance().getResidentIdP(tenantDomain);
+            context = addToCache(key, tenantDomain, residentIdP);
+        }
+        return context;
+    }
+
+    /**
+     * Get the validation context of the given identity provider. The resident IdP is always resolved through
+     * {@link #getResidentIdPContext(String)} since the resident IdP returned by authenticator property lookups does
+     * not carry all of its authenticator configurations.
+     *
+     * @param tenantDomain     tenant domain
+     * @param identityProvider identity provider
+     * @return validation context of the identity provider
+     * @throws IdentityProviderManagementException if the resident IdP can not be retrieved
+     */
+    public IdPValidationContext getContext(String tenantDomain, IdentityProvider identityProvider)
+            throws IdentityProviderManagementException {
+
+        String idpName = identityProvider.getIdentityProviderName();
+        if (IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME.equals(idpName)) {
+            return getResidentIdPContext(tenantDomain);
+        }
+
+        String key = getKey(tenantDomain, idpName);
+        IdPValidationContext context = contexts.get(key);
+        if (context == null || !context.isBuiltFrom(identityProvider)) {
+            context = addToCache(key, tenantDomain, identityProvider);
+        }
+        return context;
+    }
+
+    public void clearCacheEntry(String tenantDomain, String idpName) {
+
+        if (tenantDomain != null && idpName != null) {
+            contexts.remove(getKey(tenantDomain, idpName));
+        }
+    }
+
+    public void clear() {
+
+        contexts.clear();
+    }
+
+    private IdPValidationContext addToCache(String key, String tenantDomain, IdentityProvider identityProvider) {
+
+        IdPValidationContext context = new IdPValidationContext(tenantDomain, identityProvider);
+        contexts.put(key, context, System.currentTimeMillis() + expiryTimeInMillis);
+        if (log.isDebugEnabled()) {
+            log.debug("Cached the validation context of Identity Provider: " +
+                    identityProvider.getIdentityProviderName() + " of tenant: " + tenantDomain);
+        }
+        return context;
+    }
+
+    private static String getKey(String tenantDomain, String idpName) {
+
+        return tenantDomain + ":" + idpName;
+    }
+}
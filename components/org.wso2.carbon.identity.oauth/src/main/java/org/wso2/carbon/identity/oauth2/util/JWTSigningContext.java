@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.interfaces.RSAPrivateKey;
+
+/**
+ * Signing material of a tenant which is resolved once and shared by all JWT issuers of the tenant. It holds the
+ * private key, a reusable signer and the certificate thumbprint used as the kid and x5t header values.
+ * <p>
+ * Instances are immutable. JWS headers are mutable, hence a new header is built for each JWT.
+ */
+public class JWTSigningContext {
+
+    private final RSAPrivateKey privateKey;
+    private final JWSSigner signer;
+    private final String keyId;
+    private final Base64URL x509CertThumbprint;
+
+    public JWTSigningContext(RSAPrivateKey privateKey, String thumbPrint) {
+
+        this.privateKey = privateKey;
+        this.signer = new RSASSASigner(privateKey);
+        this.keyId = thumbPrint;
+        this.x509CertThumbprint = new Base64URL(thumbPrint);
+    }
+
+    public RSAPrivateKey getPrivateKey() {
+
+        return privateKey;
+    }
+
+    /**
+     * @return RSA signer of the tenant private key. Signers are stateless and safe to use from multiple threads.
+     */
+    public JWSSigner getSigner() {
+
+        return signer;
+    }
+
+    public String getKeyId() {
+
+        return keyId;
+    }
+
+    public Base64URL getX509CertThumbprint() {
+
+        return x509CertThumbprint;
+    }
+
+    /**
+     * @param algorithm JWS algorithm
+     * @return new JWS header of the given algorithm carrying the kid and x5t values of the tenant certificate
+     */
+    public JWSHeader getHeader(JWSAlgorithm algorithm) {
+
+        JWSHeader header = new JWSHeader(algorithm);
+        header.setKeyID(keyId);
+        header.setX509CertThumbprint(x509CertThumbprint);
+        return header;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the optional tuning properties of this component from identity.xml. A property which is not configured
+ * resolves to the given default value, and a property with an invalid value resolves to the default value with a
+ * warning which is logged once per property.
+ */
+public class OAuth2PropertyUtil {
+
+    private static final Log log = LogFactory.getLog(OAuth2PropertyUtil.class);
+
+    private static final Set<String> invalidProperties =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private OAuth2PropertyUtil() {
+
+    }
+
+    /**
+     * @param propertyName name of the property in identity.xml
+     * @param defaultValue value used when the property is not configured or is not valid
+     * @param minValue     smallest valid value of the property
+     * @return configured value of the property or the default value
+     */
+    public static int getIntProperty(String propertyName, int defaultValue, int minValue) {
+
+        String value = getTrimmedProperty(propertyName);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value);
+            if (intValue >= minValue) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while parsing " + propertyName, e);
+            }
+        }
+        logInvalidValue(propertyName, defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * @param propertyName name of the property in identity.xml
+     * @param defaultValue value used when the property is not configured or is not valid
+     * @return configured value of the property or the default value
+     */
+    public static boolean getBooleanProperty(String propertyName, boolean defaultValue) {
+
+        String value = getTrimmedProperty(propertyName);
+        if (value == null) {
+            return defaultValue;
+        }
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        logInvalidValue(propertyName, defaultValue);
+        return defaultValue;
+    }
+
+    private static String getTrimmedProperty(String propertyName) {
+
+        String value = IdentityUtil.getProperty(propertyName);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private static void logInvalidValue(String propertyName, Object defaultValue) {
+
+        if (invalidProperties.add(propertyName)) {
+            log.warn("Invalid value configured for " + propertyName + ". Using default value: " + defaultValue);
+        }
+    }
+}
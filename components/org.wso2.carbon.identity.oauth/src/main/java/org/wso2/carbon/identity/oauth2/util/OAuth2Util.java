@@ -21,12 +21,6 @@ package org.wso2.carbon.identity.oauth2.util;
 import com.nimbusds.jose.Algorithm;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSASigner;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
-import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
@@ -52,6 +46,7 @@ import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
+import org.wso2.carbon.identity.oauth.cache.AccessTokenNearCache;
 import org.wso2.carbon.identity.oauth.cache.AppInfoCache;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
@@ -97,11 +92,10 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
 import java.sql.Timestamp;
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -109,7 +103,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -220,6 +213,9 @@ public class OAuth2Util {
 
     private static Map<Integer, Certificate> publicCerts = new ConcurrentHashMap<Integer, Certificate>();
     private static Map<Integer, Key> privateKeys = new ConcurrentHashMap<Integer, Key>();
+    private static Map<Integer, String> thumbPrints = new ConcurrentHashMap<>();
+    private static Map<Integer, JWTSigningContext> signingContexts = new ConcurrentHashMap<>();
+    private static Map<String, Long> signingKeyClearedTimes = new ConcurrentHashMap<>();
 
     // Supported Signature Algorithms
     private static final String NONE = "NONE";
@@ -366,59 +362,17 @@ public class OAuth2Util {
     public static boolean authenticateClient(String clientId, String clientSecretProvided)
             throws IdentityOAuthAdminException, IdentityOAuth2Exception, InvalidOAuthClientException {
 
-        boolean cacheHit = false;
-        String clientSecret = null;
-
-        // Check the cache first.
-        CacheEntry cacheResult = OAuthCache.getInstance().getValueFromCache(new OAuthCacheKey(clientId));
-        if (cacheResult != null && cacheResult instanceof ClientCredentialDO) {
-            ClientCredentialDO clientCredentialDO = (ClientCredentialDO) cacheResult;
-            clientSecret = clientCredentialDO.getClientSecret();
-            cacheHit = true;
-            if (log.isDebugEnabled()) {
-                log.debug("Client credentials were available in the cache for client id : " +
-                        clientId);
-            }
-        }
-
-        // Cache miss
-        if (clientSecret == null) {
-            OAuthConsumerDAO oAuthConsumerDAO = new OAuthConsumerDAO();
-            clientSecret = oAuthConsumerDAO.getOAuthConsumerSecret(clientId);
-            if (log.isDebugEnabled()) {
-                log.debug("Client credentials were fetched from the database.");
-            }
-        }
-
-        if (clientSecret == null) {
-            if (log.isDebugEnabled()) {
-                log.debug("Provided Client ID : " + clientId + "is not valid.");
-            }
-            return false;
-        }
-
-        if (!clientSecret.equals(clientSecretProvided)) {
-
+        if (!ClientCredentialVerifier.getInstance().verify(clientId, clientSecretProvided)) {
             if (log.isDebugEnabled()) {
                 log.debug("Provided the Client ID : " + clientId +
                         " and Client Secret do not match with the issued credentials.");
             }
-
             return false;
         }
 
         if (log.isDebugEnabled()) {
             log.debug("Successfully authenticated the client with client id : " + clientId);
         }
-
-        if (!cacheHit) {
-
-            OAuthCache.getInstance().addToCache(new OAuthCacheKey(clientId), new ClientCredentialDO(clientSecret));
-            if (log.isDebugEnabled()) {
-                log.debug("Client credentials were added to the cache for client id : " + clientId);
-            }
-        }
-
         return true;
     }
 
@@ -554,20 +508,7 @@ public class OAuth2Util {
 
     public static Map<String, String> getAvailableUserStoreDomainMappings() throws
             IdentityOAuth2Exception {
-        //TreeMap is used to ignore the case sensitivity of key. Because when user logged in, the case of the user name is ignored.
-        Map<String, String> userStoreDomainMap = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
-        String domainsStr = getAccessTokenPartitioningDomains();
-        if (domainsStr != null) {
-            String[] userStoreDomainsArr = domainsStr.split(",");
-            for (String userStoreDomains : userStoreDomainsArr) {
-                String[] mapping = userStoreDomains.trim().split(":"); //A:foo.com , B:bar.com
-                if (mapping.length < 2) {
-                    throw new IdentityOAuth2Exception("Domain mapping has not defined correctly");
-                }
-                userStoreDomainMap.put(mapping[1].trim(), mapping[0].trim()); //key=domain & value=mapping
-            }
-        }
-        return userStoreDomainMap;
+        return TokenPartitionedSqlRegistry.parseUserStoreDomainMappings(getAccessTokenPartitioningDomains());
     }
 
     /**
@@ -580,14 +521,7 @@ public class OAuth2Util {
      */
     public static String getMappedUserStoreDomain(String userStoreDomain) throws IdentityOAuth2Exception {
 
-        String mappedUserStoreDomain = userStoreDomain;
-
-        Map<String, String> availableDomainMappings = OAuth2Util.getAvailableUserStoreDomainMappings();
-        if (userStoreDomain != null && availableDomainMappings.containsKey(userStoreDomain)) {
-            mappedUserStoreDomain = availableDomainMappings.get(userStoreDomain);
-        }
-
-        return mappedUserStoreDomain;
+        return TokenPartitionedSqlRegistry.getInstance().getMappedUserStoreDomain(userStoreDomain);
     }
 
     /**
@@ -604,13 +538,7 @@ public class OAuth2Util {
     public static String getPartitionedTableByUserStore(String tableName, String userStoreDomain)
             throws IdentityOAuth2Exception {
 
-        if (StringUtils.isNotBlank(tableName) && StringUtils.isNotBlank(userStoreDomain) &&
-                !IdentityUtil.getPrimaryDomainName().equalsIgnoreCase(userStoreDomain)) {
-            String mappedUserStoreDomain = OAuth2Util.getMappedUserStoreDomain(userStoreDomain);
-            tableName = tableName + "_" + mappedUserStoreDomain;
-        }
-
-        return tableName;
+        return TokenPartitionedSqlRegistry.getInstance().getPartitionedTable(tableName, userStoreDomain);
     }
 
     /**
@@ -618,7 +546,8 @@ public class OAuth2Util {
      * or the original sql otherwise.
      *
      * Updated sql derived by replacing original table names IDN_OAUTH2_ACCESS_TOKEN & IDN_OAUTH2_ACCESS_TOKEN_SCOPE
-     * with the updated table names which derived using {@code getPartitionedTableByUserStore()} method.
+     * with the updated table names which derived using {@code getPartitionedTableByUserStore()} method. The updated
+     * sql is generated once per user store domain and reused from the {@link TokenPartitionedSqlRegistry}.
      *
      * @param sql
      * @param userStoreDomain
@@ -631,30 +560,7 @@ public class OAuth2Util {
         String partitionedSql = sql;
 
         if (OAuth2Util.checkAccessTokenPartitioningEnabled() && OAuth2Util.checkUserNameAssertionEnabled()) {
-
-            String partitionedAccessTokenTable = OAuth2Util.getPartitionedTableByUserStore(OAuthConstants.
-                    ACCESS_TOKEN_STORE_TABLE, userStoreDomain);
-
-            String accessTokenScopeTable = "IDN_OAUTH2_ACCESS_TOKEN_SCOPE";
-            String partitionedAccessTokenScopeTable = OAuth2Util.getPartitionedTableByUserStore(accessTokenScopeTable,
-                    userStoreDomain);
-
-            if (log.isDebugEnabled()) {
-                log.debug("PartitionedAccessTokenTable: " + partitionedAccessTokenTable +
-                        " & PartitionedAccessTokenScopeTable: " + partitionedAccessTokenScopeTable +
-                        " for user store domain: " + userStoreDomain);
-            }
-
-            String wordBoundaryRegex = "\\b";
-            partitionedSql = sql.replaceAll(wordBoundaryRegex + OAuthConstants.ACCESS_TOKEN_STORE_TABLE
-                    + wordBoundaryRegex, partitionedAccessTokenTable);
-            partitionedSql = partitionedSql.replaceAll(wordBoundaryRegex + accessTokenScopeTable + wordBoundaryRegex,
-                    partitionedAccessTokenScopeTable);
-
-            if (log.isDebugEnabled()) {
-                log.debug("Original SQL: " + sql);
-                log.debug("Partitioned SQL: " + partitionedSql);
-            }
+            partitionedSql = TokenPartitionedSqlRegistry.getInstance().getPartitionedSql(sql, userStoreDomain);
         }
 
         return partitionedSql;
@@ -682,9 +588,9 @@ public class OAuth2Util {
 
             String userStore = null;
             if (username != null) {
-                String[] strArr = username.split(UserCoreConstants.DOMAIN_SEPARATOR);
-                if (strArr != null && strArr.length > 1) {
-                    userStore = strArr[0];
+                int domainSeparatorIndex = username.indexOf(UserCoreConstants.DOMAIN_SEPARATOR);
+                if (domainSeparatorIndex >= 0 && domainSeparatorIndex < username.length() - 1) {
+                    userStore = username.substring(0, domainSeparatorIndex);
                 }
             }
 
@@ -1245,6 +1151,15 @@ public class OAuth2Util {
         boolean cacheHit = false;
         AccessTokenDO accessTokenDO = null;
 
+        // check the node local near cache first, if it is enabled.
+        AccessTokenNearCache nearCache = AccessTokenNearCache.getInstance();
+        if (nearCache.isEnabled()) {
+            accessTokenDO = nearCache.getValueFromCache(accessTokenIdentifier);
+            if (accessTokenDO != null) {
+                return accessTokenDO;
+            }
+        }
+
         // check the cache, if caching is enabled.
         OAuthCacheKey cacheKey = new OAuthCacheKey(accessTokenIdentifier);
         CacheEntry result = OAuthCache.getInstance().getValueFromCache(cacheKey);
@@ -1273,10 +1188,65 @@ public class OAuth2Util {
                 log.debug("Access Token Info object was added back to the cache.");
             }
         }
+        nearCache.addToCache(accessTokenIdentifier, accessTokenDO);
 
         return accessTokenDO;
     }
 
+    /**
+     * Get the access tokens of the given identifiers. Each token is looked up in the caches first, and the tokens
+     * which are not cached are loaded from the database together and added back to the caches.
+     *
+     * @param accessTokenIdentifiers access token identifiers
+     * @return active access tokens keyed by identifier. Identifiers of tokens which are not active are not included.
+     * @throws IdentityOAuth2Exception if the access tokens cannot be loaded
+     */
+    public static Map<String, AccessTokenDO> getAccessTokenDOsFromTokenIdentifiers(
+            Collection<String> accessTokenIdentifiers) throws IdentityOAuth2Exception {
+
+        Map<String, AccessTokenDO> accessTokens = new HashMap<>();
+        List<String> missedTokenIdentifiers = new ArrayList<>();
+        AccessTokenNearCache nearCache = AccessTokenNearCache.getInstance();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            if (accessTokenIdentifier == null || accessTokens.containsKey(accessTokenIdentifier)) {
+                continue;
+            }
+            AccessTokenDO accessTokenDO = null;
+            if (nearCache.isEnabled()) {
+                accessTokenDO = nearCache.getValueFromCache(accessTokenIdentifier);
+            }
+            if (accessTokenDO == null) {
+                CacheEntry result = OAuthCache.getInstance().getValueFromCache(
+                        new OAuthCacheKey(accessTokenIdentifier));
+                if (result instanceof AccessTokenDO) {
+                    accessTokenDO = (AccessTokenDO) result;
+                    nearCache.addToCache(accessTokenIdentifier, accessTokenDO);
+                }
+            }
+            if (accessTokenDO != null) {
+                accessTokens.put(accessTokenIdentifier, accessTokenDO);
+            } else {
+                missedTokenIdentifiers.add(accessTokenIdentifier);
+            }
+        }
+
+        if (!missedTokenIdentifiers.isEmpty()) {
+            Map<String, AccessTokenDO> loadedAccessTokens = OAuthTokenPersistenceFactory.getInstance()
+                    .getAccessTokenDAO().getActiveAccessTokens(missedTokenIdentifiers);
+            for (Map.Entry<String, AccessTokenDO> loadedAccessToken : loadedAccessTokens.entrySet()) {
+                OAuthCache.getInstance().addToCache(new OAuthCacheKey(loadedAccessToken.getKey()),
+                        loadedAccessToken.getValue());
+                nearCache.addToCache(loadedAccessToken.getKey(), loadedAccessToken.getValue());
+            }
+            accessTokens.putAll(loadedAccessTokens);
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded " + loadedAccessTokens.size() + " of " + missedTokenIdentifiers.size() +
+                        " access tokens which were not cached.");
+            }
+        }
+        return accessTokens;
+    }
+
 
     public static String getClientIdForAccessToken(String accessTokenIdentifier) throws IdentityOAuth2Exception {
         AccessTokenDO accessTokenDO = getAccessTokenDOfromTokenIdentifier(accessTokenIdentifier);
@@ -1616,47 +1586,11 @@ public class OAuth2Util {
      *
      * @param idToken Id token
      * @return validation state
+     * @see IDTokenVerifier#verify(String)
      */
     public static boolean validateIdToken(String idToken) {
 
-        boolean isJWTSignedWithSPKey = OAuthServerConfiguration.getInstance().isJWTSignedWithSPKey();
-        String tenantDomain;
-        try {
-            String clientId = SignedJWT.parse(idToken).getJWTClaimsSet().getAudience().get(0);
-            if (isJWTSignedWithSPKey) {
-                OAuthAppDO oAuthAppDO = OAuth2Util.getAppInformationByClientId(clientId);
-                tenantDomain = OAuth2Util.getTenantDomainOfOauthApp(oAuthAppDO);
-            } else {
-                //It is not sending tenant domain with the subject in id_token by default, So to work this as
-                //expected, need to enable the option "Use tenant domain in local subject identifier" in SP config
-                tenantDomain = MultitenantUtils.getTenantDomain(SignedJWT.parse(idToken).getJWTClaimsSet().getSubject());
-            }
-            if (StringUtils.isEmpty(tenantDomain)) {
-                return false;
-            }
-            int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-            RSAPublicKey publicKey;
-            KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
-
-            if (!tenantDomain.equals(org.wso2.carbon.base.MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
-                String ksName = tenantDomain.trim().replace(".", "-");
-                String jksName = ksName + ".jks";
-                publicKey = (RSAPublicKey) keyStoreManager.getKeyStore(jksName).getCertificate(tenantDomain)
-                        .getPublicKey();
-            } else {
-                publicKey = (RSAPublicKey) keyStoreManager.getDefaultPublicKey();
-            }
-            SignedJWT signedJWT = SignedJWT.parse(idToken);
-            JWSVerifier verifier = new RSASSAVerifier(publicKey);
-
-            return signedJWT.verify(verifier);
-        } catch (JOSEException | ParseException e) {
-            log.error("Error occurred while validating id token signature.");
-            return false;
-        } catch (Exception e) {
-            log.error("Error occurred while validating id token signature.");
-            return false;
-        }
+        return IDTokenVerifier.getInstance().verify(idToken) != null;
     }
 
     /**
@@ -1736,19 +1670,75 @@ public class OAuth2Util {
             }
 
             int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-            Key privateKey = getPrivateKey(tenantDomain, tenantId);
-            JWSSigner signer = new RSASSASigner((RSAPrivateKey) privateKey);
-            JWSHeader header = new JWSHeader((JWSAlgorithm) signatureAlgorithm);
-            header.setKeyID(getThumbPrint(tenantDomain, tenantId));
-            header.setX509CertThumbprint(new Base64URL(getThumbPrint(tenantDomain, tenantId)));
-            SignedJWT signedJWT = new SignedJWT(header, jwtClaimsSet);
-            signedJWT.sign(signer);
+            JWTSigningContext signingContext = getJWTSigningContext(tenantDomain, tenantId);
+            SignedJWT signedJWT = new SignedJWT(signingContext.getHeader(signatureAlgorithm), jwtClaimsSet);
+            signedJWT.sign(signingContext.getSigner());
             return signedJWT;
         } catch (JOSEException e) {
             throw new IdentityOAuth2Exception("Error occurred while signing JWT", e);
         }
     }
 
+    /**
+     * Get the signing context of the given tenant. The private key, signer and certificate thumbprint are resolved
+     * on the first call and reused by every JWT signed for the tenant afterwards.
+     *
+     * @param tenantDomain tenant domain
+     * @param tenantId     tenant id
+     * @return signing context of the tenant
+     * @throws IdentityOAuth2Exception if the private key or the certificate of the tenant cannot be obtained
+     */
+    public static JWTSigningContext getJWTSigningContext(String tenantDomain, int tenantId)
+            throws IdentityOAuth2Exception {
+
+        JWTSigningContext signingContext = signingContexts.get(tenantId);
+        if (signingContext == null) {
+            Key privateKey = getPrivateKey(tenantDomain, tenantId);
+            if (!(privateKey instanceof RSAPrivateKey)) {
+                throw new IdentityOAuth2Exception("Private key of tenant " + tenantDomain + " is not an RSA key");
+            }
+            signingContext = new JWTSigningContext((RSAPrivateKey) privateKey, getThumbPrint(tenantDomain, tenantId));
+            signingContexts.put(tenantId, signingContext);
+        }
+        return signingContext;
+    }
+
+    /**
+     * Clear the cached private key, certificate, thumbprint, signing context and ID token verifier of the given
+     * tenant. This is called by the tenant management listener of this component when a tenant is updated,
+     * deactivated or deleted, so that the new keys are picked for signing and verification.
+     *
+     * @param tenantId tenant id
+     */
+    public static void clearSigningKeyCache(int tenantId) {
+
+        signingContexts.remove(tenantId);
+        thumbPrints.remove(tenantId);
+        privateKeys.remove(tenantId);
+        publicCerts.remove(tenantId);
+        String tenantDomain = IdentityTenantUtil.getTenantDomain(tenantId);
+        IDTokenVerifier.getInstance().clearVerifier(tenantDomain);
+        if (tenantDomain != null) {
+            signingKeyClearedTimes.put(tenantDomain, System.currentTimeMillis());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the cached signing keys of tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * Get the last time the cached signing keys of the given tenant were cleared on this node. Data derived from the
+     * tenant keys outside this component, such as the JWKS document, needs to be rebuilt if it is older than this.
+     *
+     * @param tenantDomain tenant domain
+     * @return time in milliseconds at which the signing keys were cleared, or 0 if they were never cleared
+     */
+    public static long getSigningKeyClearedTime(String tenantDomain) {
+
+        Long clearedTime = signingKeyClearedTimes.get(tenantDomain);
+        return clearedTime == null ? 0 : clearedTime;
+    }
+
     public static Key getPrivateKey(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
         Key privateKey;
         if (!(privateKeys.containsKey(tenantId))) {
@@ -1796,12 +1786,20 @@ public class OAuth2Util {
      */
     public static String getThumbPrint(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
 
+        String thumbPrint = thumbPrints.get(tenantId);
+        if (thumbPrint == null) {
+            thumbPrint = generateThumbPrint(tenantDomain, tenantId);
+            thumbPrints.put(tenantId, thumbPrint);
+        }
+        return thumbPrint;
+    }
+
+    private static String generateThumbPrint(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
+
         try {
 
             Certificate certificate = getCertificate(tenantDomain, tenantId);
 
-            // TODO: maintain a hashmap with tenants' pubkey thumbprints after first initialization
-
             //generate the SHA-1 thumbprint of the certificate
             MessageDigest digestValue = MessageDigest.getInstance("SHA-1");
             byte[] der = certificate.getEncoded();
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable index of the resources protected by scopes, matching a requested resource to the scope of the resource
+ * in memory.
+ * <p>
+ * Resource paths are matched in the following order.
+ * <ol>
+ * <li>A resource path equal to the requested resource.</li>
+ * <li>A resource path with templates, where a <code>{name}</code> or <code>*</code> segment matches exactly one
+ * segment of the requested resource. Literal segments are preferred over templates, segment by segment.</li>
+ * <li>The longest resource path ending with <code>/*</code>, which matches the path and the resources under it.</li>
+ * </ol>
+ * The query part of the requested resource is ignored when matching templates and prefixes. A trailing
+ * <code>:VERB</code> suffix, such as <code>/pets/{petId}:GET</code>, is split off both the resource paths and the
+ * requested resource before the path is matched. A template with a verb only matches requested resources with the same
+ * verb, and is preferred over the same template without a verb.
+ */
+public class ResourceScopeIndex {
+
+    private static final String SEGMENT_SEPARATOR = "/";
+    private static final String WILDCARD_SEGMENT = "*";
+    private static final String PREFIX_SUFFIX = "/*";
+    private static final char VERB_SEPARATOR = ':';
+
+    private final Map<String, Pair<String, Integer>> exactResources;
+    private final Node root = new Node();
+    private final int resourceCount;
+
+    /**
+     * @param resourceScopes resource paths mapped to the scope name and the tenant id of the scope
+     */
+    public ResourceScopeIndex(Map<String, Pair<String, Integer>> resourceScopes) {
+
+        Map<String, Pair<String, Integer>> exact = new HashMap<>();
+        for (Map.Entry<String, Pair<String, Integer>> resourceScope : resourceScopes.entrySet()) {
+            String resourcePath = resourceScope.getKey();
+            if (resourcePath == null) {
+                continue;
+            }
+            String verb = getVerb(resourcePath);
+            String path = removeVerb(resourcePath, verb);
+            if (verb == null && path.endsWith(PREFIX_SUFFIX)) {
+                getOrAddNode(path.substring(0, path.length() - PREFIX_SUFFIX.length()))
+                        .prefixScope = resourceScope.getValue();
+            } else if (isTemplate(path)) {
+                Node node = getOrAddNode(path);
+                if (verb == null) {
+                    node.scope = resourceScope.getValue();
+                } else {
+                    node.verbScopes.put(verb, resourceScope.getValue());
+                }
+            }
+            exact.put(resourcePath, resourceScope.getValue());
+        }
+        this.exactResources = Collections.unmodifiableMap(exact);
+        this.resourceCount = exact.size();
+    }
+
+    /**
+     * @param resource requested resource
+     * @return scope name and the tenant id of the scope protecting the resource or null if it is not protected
+     */
+    public Pair<String, Integer> match(String resource) {
+
+        if (resource == null) {
+            return null;
+        }
+        Pair<String, Integer> scope = exactResources.get(resource);
+        if (scope != null) {
+            return scope;
+        }
+        String verb = getVerb(resource);
+        String path = removeVerb(resource, verb);
+        int queryIndex = path.indexOf('?');
+        if (queryIndex >= 0) {
+            path = path.substring(0, queryIndex);
+            scope = exactResources.get(verb == null ? path : path + VERB_SEPARATOR + verb);
+            if (scope != null) {
+                return scope;
+            }
+        }
+        return match(root, path.split(SEGMENT_SEPARATOR, -1), 0, verb);
+    }
+
+    public int getResourceCount() {
+
+        return resourceCount;
+    }
+
+    private Pair<String, Integer> match(Node node, String[] segments, int index, String verb) {
+
+        if (index == segments.length) {
+            Pair<String, Integer> verbScope = verb == null ? null : node.verbScopes.get(verb);
+            if (verbScope != null) {
+                return verbScope;
+            }
+            return node.scope != null ? node.scope : node.prefixScope;
+        }
+        Pair<String, Integer> scope = null;
+        Node literalChild = node.literalChildren.get(segments[index]);
+        if (literalChild != null) {
+            scope = match(literalChild, segments, index + 1, verb);
+        }
+        if (scope == null && node.templateChild != null && !segments[index].isEmpty()) {
+            scope = match(node.templateChild, segments, index + 1, verb);
+        }
+        return scope != null ? scope : node.prefixScope;
+    }
+
+    private Node getOrAddNode(String resourcePath) {
+
+        Node node = root;
+        for (String segment : resourcePath.split(SEGMENT_SEPARATOR, -1)) {
+            if (isTemplateSegment(segment)) {
+                if (node.templateChild == null) {
+                    node.templateChild = new Node();
+                }
+                node = node.templateChild;
+            } else {
+                Node child = node.literalChildren.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    node.literalChildren.put(segment, child);
+                }
+                node = child;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @param resource resource path or requested resource
+     * @return the letters after the last colon of the last path segment, or null if there is no such verb suffix
+     */
+    private static String getVerb(String resource) {
+
+        int separatorIndex = resource.lastIndexOf(VERB_SEPARATOR);
+        if (separatorIndex < 0 || separatorIndex == resource.length() - 1 ||
+                separatorIndex < resource.lastIndexOf(SEGMENT_SEPARATOR)) {
+            return null;
+        }
+        for (int i = separatorIndex + 1; i < resource.length(); i++) {
+            if (!Character.isLetter(resource.charAt(i))) {
+                return null;
+            }
+        }
+        return resource.substring(separatorIndex + 1);
+    }
+
+    private static String removeVerb(String resource, String verb) {
+
+        return verb == null ? resource : resource.substring(0, resource.length() - verb.length() - 1);
+    }
+
+    private static boolean isTemplate(String resourcePath) {
+
+        for (String segment : resourcePath.split(SEGMENT_SEPARATOR, -1)) {
+            if (isTemplateSegment(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTemplateSegment(String segment) {
+
+        return WILDCARD_SEGMENT.equals(segment) ||
+                (segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}');
+    }
+
+    /**
+     * Node of the path trie. Nodes are only modified while the index is built.
+     */
+    private static class Node {
+
+        private final Map<String, Node> literalChildren = new HashMap<>();
+        private final Map<String, Pair<String, Integer>> verbScopes = new HashMap<>();
+        private Node templateChild;
+        private Pair<String, Integer> scope;
+        private Pair<String, Integer> prefixScope;
+    }
+}
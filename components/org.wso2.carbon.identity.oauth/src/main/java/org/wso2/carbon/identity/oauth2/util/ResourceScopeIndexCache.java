@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node local holder of the {@link ResourceScopeIndex}, used by the scope validator so that the scope of a resource is
+ * matched in memory instead of being looked up in the database and cached for every distinct resource.
+ * <p>
+ * Resource paths are unique across tenants, hence a single index of all resources is kept. The index is loaded on
+ * first use and reloaded when it expires, while requests keep using the previous index until the reload completes.
+ * <p>
+ * Only {@link org.wso2.carbon.identity.oauth2.OAuth2ScopeService} invalidates the index, and only on the node the scope
+ * is changed on. Resource scopes changed on other nodes, or written to the database by other components, are picked
+ * up only when the index expires after {@code OAuth.ResourceScopeIndex.RefreshInterval} (300 seconds by default).
+ * <p>
+ * If the token management DAO cannot load the scopes of all resources, the scope of each resource is looked up from
+ * the DAO instead.
+ */
+public class ResourceScopeIndexCache {
+
+    private static final Log log = LogFactory.getLog(ResourceScopeIndexCache.class);
+
+    // This config property is defined in identity.xml
+    private static final String REFRESH_INTERVAL = "OAuth.ResourceScopeIndex.RefreshInterval";
+    private static final int DEFAULT_REFRESH_INTERVAL_IN_SECONDS = 300;
+
+    private static volatile ResourceScopeIndexCache instance;
+
+    private final long refreshIntervalInMillis;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile LoadedIndex loadedIndex;
+    private volatile boolean indexSupported = true;
+    private final AtomicLong generation = new AtomicLong();
+
+    ResourceScopeIndexCache(long refreshIntervalInMillis) {
+
+        this.refreshIntervalInMillis = refreshIntervalInMillis;
+    }
+
+    public static ResourceScopeIndexCache getInstance() {
+
+        if (instance == null) {
+            synchronized (ResourceScopeIndexCache.class) {
+                if (instance == null) {
+                    instance = new ResourceScopeIndexCache(TimeUnit.SECONDS.toMillis(OAuth2PropertyUtil
+                            .getIntProperty(REFRESH_INTERVAL, DEFAULT_REFRESH_INTERVAL_IN_SECONDS, 0)));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Find the scope of a resource.
+     *
+     * @param resource requested resource
+     * @return scope name and the tenant id of the scope or null if the resource is not protected by a scope
+     * @throws IdentityOAuth2Exception if the index could not be loaded
+     */
+    public Pair<String, Integer> findTenantAndScopeOfResource(String resource) throws IdentityOAuth2Exception {
+
+        ResourceScopeIndex index = getIndex();
+        if (index == null) {
+            return OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO()
+                    .findTenantAndScopeOfResource(resource);
+        }
+        return index.match(resource);
+    }
+
+    /**
+     * Get the index, loading it if it has not been loaded, has expired or has been invalidated.
+     *
+     * @return resource scope index or null if the token management DAO cannot load the scopes of all resources
+     * @throws IdentityOAuth2Exception if the index could not be loaded
+     */
+    public ResourceScopeIndex getIndex() throws IdentityOAuth2Exception {
+
+        if (!indexSupported) {
+            return null;
+        }
+
+        LoadedIndex current = loadedIndex;
+        if (current != null && !current.isExpired(System.currentTimeMillis())) {
+            return current.index;
+        }
+        // An expired index is used while another request reloads it.
+        if (current != null) {
+            if (!loadLock.tryLock()) {
+                return current.index;
+            }
+        } else {
+            loadLock.lock();
+        }
+        try {
+            current = loadedIndex;
+            if (current != null && !current.isExpired(System.currentTimeMillis())) {
+                return current.index;
+            }
+            long loadGeneration = generation.get();
+            Map<String, Pair<String, Integer>> resourceScopes = loadResourceScopes();
+            if (resourceScopes == null) {
+                indexSupported = false;
+                if (log.isDebugEnabled()) {
+                    log.debug("Token management DAO does not load the scopes of all resources. Scopes of resources " +
+                            "will be looked up individually.");
+                }
+                return null;
+            }
+            ResourceScopeIndex index = new ResourceScopeIndex(resourceScopes);
+            // An index loaded while the index was invalidated may not include the change, hence it is not kept.
+            if (loadGeneration == generation.get()) {
+                loadedIndex = new LoadedIndex(index, System.currentTimeMillis() + refreshIntervalInMillis);
+                if (loadGeneration != generation.get()) {
+                    loadedIndex = null;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded the scopes of " + index.getResourceCount() + " resources.");
+            }
+            return index;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Invalidate the index, so that it is loaded again on the next request.
+     */
+    public void invalidate() {
+
+        generation.incrementAndGet();
+        loadedIndex = null;
+        if (log.isDebugEnabled()) {
+            log.debug("Resource scope index is invalidated.");
+        }
+    }
+
+    protected Map<String, Pair<String, Integer>> loadResourceScopes() throws IdentityOAuth2Exception {
+
+        return OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO().findTenantAndScopeOfAllResources();
+    }
+
+    private static class LoadedIndex {
+
+        private final ResourceScopeIndex index;
+        private final long expiryTime;
+
+        LoadedIndex(ResourceScopeIndex index, long expiryTime) {
+
+            this.index = index;
+            this.expiryTime = expiryTime;
+        }
+
+        boolean isExpired(long now) {
+
+            return now >= expiryTime;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded set of striped locks guarding the "reuse or issue" access token critical section for a given client,
+ * user and scope combination. Requests for the same combination always map to the same lock while the number of
+ * locks stays fixed, so no per request key is allocated or interned.
+ */
+public class TokenIssuanceLockRegistry {
+
+    private static final Log log = LogFactory.getLog(TokenIssuanceLockRegistry.class);
+
+    // This config property is defined in identity.xml
+    private static final String LOCK_STRIPE_COUNT = "OAuth.TokenGeneration.LockStripeCount";
+    private static final int DEFAULT_LOCK_STRIPE_COUNT = 1024;
+    private static final int MAX_LOCK_STRIPE_COUNT = 1 << 16;
+
+    private static final TokenIssuanceLockRegistry instance = new TokenIssuanceLockRegistry(
+            OAuth2PropertyUtil.getIntProperty(LOCK_STRIPE_COUNT, DEFAULT_LOCK_STRIPE_COUNT, 1));
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    private final AtomicLong acquisitionCount = new AtomicLong();
+    private final AtomicLong contendedAcquisitionCount = new AtomicLong();
+    private final AtomicLong totalWaitTimeInNanos = new AtomicLong();
+
+    TokenIssuanceLockRegistry(int stripeCount) {
+
+        int size = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, MAX_LOCK_STRIPE_COUNT) * 2 - 1));
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public static TokenIssuanceLockRegistry getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Acquire the lock of the given client, user and scope combination. The returned lock must be released by the
+     * caller in a finally block.
+     *
+     * @param consumerKey    client id
+     * @param authorizedUser authorized user
+     * @param scope          scope string
+     * @return acquired lock
+     */
+    public Lock lock(String consumerKey, String authorizedUser, String scope) {
+
+        ReentrantLock lock = getLock(consumerKey, authorizedUser, scope);
+        if (!lock.tryLock()) {
+            contendedAcquisitionCount.incrementAndGet();
+            long start = System.nanoTime();
+            lock.lock();
+            totalWaitTimeInNanos.addAndGet(System.nanoTime() - start);
+        }
+        acquisitionCount.incrementAndGet();
+        return lock;
+    }
+
+    ReentrantLock getLock(String consumerKey, String authorizedUser, String scope) {
+
+        int hash = hashCode(consumerKey);
+        hash = 31 * hash + hashCode(authorizedUser);
+        hash = 31 * hash + hashCode(scope);
+        // Spread the higher bits since only the lower bits select the stripe.
+        hash ^= (hash >>> 16);
+        return locks[hash & mask];
+    }
+
+    private static int hashCode(String value) {
+
+        return value == null ? 0 : value.hashCode();
+    }
+
+    public int getStripeCount() {
+
+        return locks.length;
+    }
+
+    public long getAcquisitionCount() {
+
+        return acquisitionCount.get();
+    }
+
+    /**
+     * @return number of acquisitions which had to wait for another thread to release the lock
+     */
+    public long getContendedAcquisitionCount() {
+
+        return contendedAcquisitionCount.get();
+    }
+
+    public long getTotalWaitTimeInMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitTimeInNanos.get());
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the user store domain mappings and the partitioned SQL statements used when access token partitioning
+ * is enabled.
+ * <p>
+ * The domain mappings are parsed once from the AccessTokenPartitioningDomains configuration, and the partitioned
+ * variant of a statement is generated on first use per user store domain and reused afterwards, so that the token
+ * DAOs do not rewrite the SQL on every call. Statements are keyed by the SQL text, which is one of the constants of
+ * SQLQueries for most callers. The registry is rebuilt if the domain mapping configuration changes.
+ */
+public class TokenPartitionedSqlRegistry {
+
+    private static final Log log = LogFactory.getLog(TokenPartitionedSqlRegistry.class);
+
+    private static final String ACCESS_TOKEN_SCOPE_TABLE = "IDN_OAUTH2_ACCESS_TOKEN_SCOPE";
+
+    private static final Pattern ACCESS_TOKEN_TABLE_PATTERN =
+            Pattern.compile("\\b" + OAuthConstants.ACCESS_TOKEN_STORE_TABLE + "\\b");
+    private static final Pattern ACCESS_TOKEN_SCOPE_TABLE_PATTERN =
+            Pattern.compile("\\b" + ACCESS_TOKEN_SCOPE_TABLE + "\\b");
+
+    // Bounds the statements of a domain, since a few callers build the SQL at runtime.
+    private static final int MAX_STATEMENTS_PER_DOMAIN = 1000;
+
+    private static volatile TokenPartitionedSqlRegistry instance;
+
+    private volatile Partitioning partitioning;
+
+    TokenPartitionedSqlRegistry() {
+
+    }
+
+    public static TokenPartitionedSqlRegistry getInstance() {
+
+        if (instance == null) {
+            synchronized (TokenPartitionedSqlRegistry.class) {
+                if (instance == null) {
+                    instance = new TokenPartitionedSqlRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Parse the AccessTokenPartitioningDomains configuration, i.e. "A:foo.com, B:bar.com".
+     *
+     * @param domains configured domain mappings
+     * @return mapping of each user store domain, keyed case insensitively
+     * @throws IdentityOAuth2Exception if a mapping is not defined correctly
+     */
+    static Map<String, String> parseUserStoreDomainMappings(String domains) throws IdentityOAuth2Exception {
+
+        //TreeMap is used to ignore the case sensitivity of key. Because when user logged in, the case of the user name is ignored.
+        Map<String, String> userStoreDomainMap = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        if (domains != null) {
+            String[] userStoreDomainsArr = domains.split(",");
+            for (String userStoreDomains : userStoreDomainsArr) {
+                String[] mapping = userStoreDomains.trim().split(":"); //A:foo.com , B:bar.com
+                if (mapping.length < 2) {
+                    throw new IdentityOAuth2Exception("Domain mapping has not defined correctly");
+                }
+                userStoreDomainMap.put(mapping[1].trim(), mapping[0].trim()); //key=domain & value=mapping
+            }
+        }
+        return userStoreDomainMap;
+    }
+
+    /**
+     * @param userStoreDomain user store domain
+     * @return mapped user store domain, or the given domain if a mapping is not defined for it
+     * @throws IdentityOAuth2Exception if the domain mappings are not defined correctly
+     */
+    public String getMappedUserStoreDomain(String userStoreDomain) throws IdentityOAuth2Exception {
+
+        if (userStoreDomain == null) {
+            return null;
+        }
+        String mappedUserStoreDomain = getPartitioning().mappings.get(userStoreDomain);
+        return mappedUserStoreDomain != null ? mappedUserStoreDomain : userStoreDomain;
+    }
+
+    /**
+     * @param tableName       table name
+     * @param userStoreDomain user store domain
+     * @return table name suffixed with the mapped user store domain, or the given table name for the primary domain
+     * @throws IdentityOAuth2Exception if the domain mappings are not defined correctly
+     */
+    public String getPartitionedTable(String tableName, String userStoreDomain) throws IdentityOAuth2Exception {
+
+        if (StringUtils.isBlank(tableName) || !isPartitionedDomain(userStoreDomain)) {
+            return tableName;
+        }
+        return tableName + "_" + getMappedUserStoreDomain(userStoreDomain);
+    }
+
+    /**
+     * @param sql             SQL statement on the access token and access token scope tables
+     * @param userStoreDomain user store domain
+     * @return statement on the partitioned tables of the user store domain
+     * @throws IdentityOAuth2Exception if the domain mappings are not defined correctly
+     */
+    public String getPartitionedSql(String sql, String userStoreDomain) throws IdentityOAuth2Exception {
+
+        if (!isPartitionedDomain(userStoreDomain)) {
+            return sql;
+        }
+        DomainStatements domainStatements = getPartitioning().getDomainStatements(userStoreDomain);
+        String partitionedSql = domainStatements.statements.get(sql);
+        if (partitionedSql == null) {
+            partitionedSql = domainStatements.partition(sql);
+            if (domainStatements.statements.size() < MAX_STATEMENTS_PER_DOMAIN) {
+                domainStatements.statements.put(sql, partitionedSql);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Original SQL: " + sql);
+                log.debug("Partitioned SQL: " + partitionedSql);
+            }
+        }
+        return partitionedSql;
+    }
+
+    public void clear() {
+
+        partitioning = null;
+    }
+
+    private boolean isPartitionedDomain(String userStoreDomain) {
+
+        return StringUtils.isNotBlank(userStoreDomain) &&
+                !IdentityUtil.getPrimaryDomainName().equalsIgnoreCase(userStoreDomain);
+    }
+
+    private Partitioning getPartitioning() throws IdentityOAuth2Exception {
+
+        String domains = OAuth2Util.getAccessTokenPartitioningDomains();
+        Partitioning current = partitioning;
+        if (current == null || !StringUtils.equals(current.domains, domains)) {
+            current = new Partitioning(domains, parseUserStoreDomainMappings(domains));
+            partitioning = current;
+        }
+        return current;
+    }
+
+    /**
+     * Domain mappings of a domain mapping configuration along with the statements partitioned with them.
+     */
+    private static class Partitioning {
+
+        private final String domains;
+        private final Map<String, String> mappings;
+        private final Map<String, DomainStatements> domainStatements = new ConcurrentHashMap<>();
+
+        Partitioning(String domains, Map<String, String> mappings) {
+
+            this.domains = domains;
+            this.mappings = Collections.unmodifiableMap(mappings);
+        }
+
+        DomainStatements getDomainStatements(String userStoreDomain) {
+
+            DomainStatements statements = domainStatements.get(userStoreDomain);
+            if (statements == null) {
+                String mappedUserStoreDomain = mappings.get(userStoreDomain);
+                if (mappedUserStoreDomain == null) {
+                    mappedUserStoreDomain = userStoreDomain;
+                }
+                DomainStatements newStatements = new DomainStatements(
+                        OAuthConstants.ACCESS_TOKEN_STORE_TABLE + "_" + mappedUserStoreDomain,
+                        ACCESS_TOKEN_SCOPE_TABLE + "_" + mappedUserStoreDomain);
+                statements = domainStatements.putIfAbsent(userStoreDomain, newStatements);
+                if (statements == null) {
+                    statements = newStatements;
+                    if (log.isDebugEnabled()) {
+                        log.debug("PartitionedAccessTokenTable: " + newStatements.accessTokenTable +
+                                " & PartitionedAccessTokenScopeTable: " + newStatements.accessTokenScopeTable +
+                                " for user store domain: " + userStoreDomain);
+                    }
+                }
+            }
+            return statements;
+        }
+    }
+
+    /**
+     * Partitioned table names and statements of a user store domain.
+     */
+    private static class DomainStatements {
+
+        private final String accessTokenTable;
+        private final String accessTokenScopeTable;
+        private final Map<String, String> statements = new ConcurrentHashMap<>();
+
+        DomainStatements(String accessTokenTable, String accessTokenScopeTable) {
+
+            this.accessTokenTable = accessTokenTable;
+            this.accessTokenScopeTable = accessTokenScopeTable;
+        }
+
+        String partition(String sql) {
+
+            String partitionedSql = ACCESS_TOKEN_TABLE_PATTERN.matcher(sql)
+                    .replaceAll(Matcher.quoteReplacement(accessTokenTable));
+            return ACCESS_TOKEN_SCOPE_TABLE_PATTERN.matcher(partitionedSql)
+                    .replaceAll(Matcher.quoteReplacement(accessTokenScopeTable));
+        }
+    }
+}
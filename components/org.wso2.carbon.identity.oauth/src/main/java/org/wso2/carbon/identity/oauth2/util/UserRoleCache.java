@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserCoreConstants;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Node local cache of the roles of users, used by the scope validator so that the user store is not searched for the
+ * roles of the user on every validation.
+ * <p>
+ * Role names are interned per tenant to a role id and the roles of a user are kept as a bit set of role ids, so that
+ * checking whether a user has any of the roles bound to a scope is a lookup per bound role without building any
+ * intermediate collection.
+ * <p>
+ * Entries are cleared by the user operation event listener of this component when the roles of a user or the users of
+ * a role are updated on this node, and the entries of the tenant are cleared when a role is renamed or deleted.
+ * Changes made on other nodes of a cluster, or directly in the user store, are picked up when the entry expires,
+ * hence the expiry time is kept short.
+ */
+public class UserRoleCache {
+
+    private static final Log log = LogFactory.getLog(UserRoleCache.class);
+
+    // This config property is defined in identity.xml
+    private static final String CACHE_EXPIRY_TIME = "OAuth.UserRoleCache.ExpiryTime";
+    private static final int DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS = 60;
+    // This config property is defined in identity.xml
+    private static final String MAX_ENTRIES = "OAuth.UserRoleCache.MaxEntries";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    // Bounds the role ids of a tenant, since role names are only released when the tenant is cleared.
+    private static final int MAX_ROLES_PER_TENANT = 1 << 16;
+
+    private static volatile UserRoleCache instance;
+
+    private final long expiryTimeInMillis;
+    private final ExpiringCache<String, UserRoles> entries;
+    private final Map<Integer, RoleIndex> roleIndexes = new ConcurrentHashMap<>();
+
+    UserRoleCache(long expiryTimeInMillis, int maxEntries) {
+
+        this.expiryTimeInMillis = expiryTimeInMillis;
+        this.entries = new ExpiringCache<>(maxEntries);
+    }
+
+    public static UserRoleCache getInstance() {
+
+        if (instance == null) {
+            synchronized (UserRoleCache.class) {
+                if (instance == null) {
+                    int expiryTime = OAuth2PropertyUtil.getIntProperty(CACHE_EXPIRY_TIME,
+                            DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS, 0);
+                    int maxEntries = OAuth2PropertyUtil.getIntProperty(MAX_ENTRIES, DEFAULT_MAX_ENTRIES, 0);
+                    instance = new UserRoleCache(TimeUnit.SECONDS.toMillis(expiryTime), maxEntries);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param tenantId        tenant id of the user
+     * @param userStoreDomain user store domain of the user
+     * @param userName        user name without the user store domain
+     * @return cached roles of the user or null if they are not cached or have expired
+     */
+    public UserRoles getUserRoles(int tenantId, String userStoreDomain, String userName) {
+
+        return entries.get(getKey(tenantId, userStoreDomain, userName));
+    }
+
+    /**
+     * Cache the roles of a user.
+     *
+     * @param tenantId        tenant id of the user
+     * @param userStoreDomain user store domain of the user
+     * @param userName        user name without the user store domain
+     * @param roles           roles of the user
+     * @return roles of the user, whether they were cached or not
+     */
+    public UserRoles addUserRoles(int tenantId, String userStoreDomain, String userName, String[] roles) {
+
+        UserRoles userRoles = new UserRoles(getRoleIndex(tenantId), roles);
+        entries.put(getKey(tenantId, userStoreDomain, userName), userRoles,
+                System.currentTimeMillis() + expiryTimeInMillis);
+        return userRoles;
+    }
+
+    public void clearCacheEntry(int tenantId, String userStoreDomain, String userName) {
+
+        if (userName != null) {
+            entries.remove(getKey(tenantId, userStoreDomain, userName));
+        }
+    }
+
+    /**
+     * Clear the roles of all users of a tenant along with the role ids of the tenant.
+     *
+     * @param tenantId tenant id
+     */
+    public void clearTenant(int tenantId) {
+
+        roleIndexes.remove(tenantId);
+        String keyPrefix = tenantId + ":";
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(keyPrefix)) {
+                iterator.remove();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the cached user roles of tenant: " + tenantId);
+        }
+    }
+
+    public void clear() {
+
+        entries.clear();
+        roleIndexes.clear();
+    }
+
+    int size() {
+
+        return entries.size();
+    }
+
+    private RoleIndex getRoleIndex(int tenantId) {
+
+        RoleIndex roleIndex = roleIndexes.get(tenantId);
+        if (roleIndex == null || roleIndex.isFull()) {
+            RoleIndex newRoleIndex = new RoleIndex();
+            if (roleIndex == null) {
+                roleIndex = roleIndexes.putIfAbsent(tenantId, newRoleIndex);
+                if (roleIndex == null) {
+                    roleIndex = newRoleIndex;
+                }
+            } else if (roleIndexes.replace(tenantId, roleIndex, newRoleIndex)) {
+                // Roles cached with the previous index stay valid, since they refer to the index they were built with.
+                roleIndex = newRoleIndex;
+            } else {
+                roleIndex = roleIndexes.get(tenantId);
+                if (roleIndex == null) {
+                    roleIndex = newRoleIndex;
+                }
+            }
+        }
+        return roleIndex;
+    }
+
+    private static String getKey(int tenantId, String userStoreDomain, String userName) {
+
+        return tenantId + ":" + getNormalizedUserStoreDomain(userStoreDomain) + "/" + userName;
+    }
+
+    /**
+     * Entries are added with the user store domain of the authorized user and cleared with the domain of the user
+     * store manager raising the event, hence both are normalized the same way so that they map to the same key.
+     *
+     * @param userStoreDomain user store domain, which may be blank for users of the primary user store
+     * @return upper case user store domain
+     */
+    public static String getNormalizedUserStoreDomain(String userStoreDomain) {
+
+        if (userStoreDomain == null || userStoreDomain.trim().isEmpty()) {
+            userStoreDomain = IdentityUtil.getPrimaryDomainName();
+            if (userStoreDomain == null || userStoreDomain.trim().isEmpty()) {
+                userStoreDomain = UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+            }
+        }
+        return userStoreDomain.trim().toUpperCase();
+    }
+
+    /**
+     * Role ids of a tenant. Ids are assigned in the order the roles are first seen and are never reassigned.
+     */
+    static class RoleIndex {
+
+        private final Map<String, Integer> roleIds = new ConcurrentHashMap<>();
+        private final AtomicInteger nextRoleId = new AtomicInteger();
+
+        int getRoleId(String role) {
+
+            Integer roleId = roleIds.get(role);
+            return roleId == null ? -1 : roleId;
+        }
+
+        int getOrAssignRoleId(String role) {
+
+            Integer roleId = roleIds.get(role);
+            if (roleId == null) {
+                synchronized (this) {
+                    roleId = roleIds.get(role);
+                    if (roleId == null) {
+                        roleId = nextRoleId.getAndIncrement();
+                        roleIds.put(role, roleId);
+                    }
+                }
+            }
+            return roleId;
+        }
+
+        boolean isFull() {
+
+            return nextRoleId.get() >= MAX_ROLES_PER_TENANT;
+        }
+    }
+
+    /**
+     * Roles of a user, as a bit set of the role ids of the tenant.
+     */
+    public static class UserRoles {
+
+        private final RoleIndex roleIndex;
+        private final long[] roleBits;
+        private final int roleCount;
+
+        UserRoles(RoleIndex roleIndex, String[] roles) {
+
+            this.roleIndex = roleIndex;
+
+            int count = 0;
+            long[] bits = new long[0];
+            if (roles != null) {
+                for (String role : roles) {
+                    if (role == null) {
+                        continue;
+                    }
+                    int roleId = roleIndex.getOrAssignRoleId(role);
+                    int word = roleId >>> 6;
+                    if (word >= bits.length) {
+                        long[] newBits = new long[Math.max(word + 1, bits.length * 2)];
+                        System.arraycopy(bits, 0, newBits, 0, bits.length);
+                        bits = newBits;
+                    }
+                    long mask = 1L << roleId;
+                    if ((bits[word] & mask) == 0) {
+                        bits[word] |= mask;
+                        count++;
+                    }
+                }
+            }
+            this.roleBits = bits;
+            this.roleCount = count;
+        }
+
+        /**
+         * @param role role name
+         * @return true if the user has the role
+         */
+        public boolean hasRole(String role) {
+
+            int roleId = roleIndex.getRoleId(role);
+            if (roleId < 0) {
+                return false;
+            }
+            int word = roleId >>> 6;
+            return word < roleBits.length && (roleBits[word] & (1L << roleId)) != 0;
+        }
+
+        /**
+         * @param roles role names
+         * @return true if the user has at least one of the roles
+         */
+        public boolean hasAnyRole(List<String> roles) {
+
+            for (int i = 0; i < roles.size(); i++) {
+                if (hasRole(roles.get(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isEmpty() {
+
+            return roleCount == 0;
+        }
+
+        public int getRoleCount() {
+
+            return roleCount;
+        }
+    }
+}
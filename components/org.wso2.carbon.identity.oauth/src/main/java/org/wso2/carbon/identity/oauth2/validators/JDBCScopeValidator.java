@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.oauth2.validators;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,14 +31,20 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.OAuthScopeCacheKey;
+import org.wso2.carbon.identity.oauth.cache.ScopeBindingCache;
+import org.wso2.carbon.identity.oauth.cache.ScopeBindingCacheEntry;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.ResourceScopeCacheEntry;
+import org.wso2.carbon.identity.oauth2.util.ResourceScopeIndexCache;
+import org.wso2.carbon.identity.oauth2.util.UserRoleCache;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.api.UserStoreManager;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 import java.util.ArrayList;
@@ -79,7 +86,8 @@ public class JDBCScopeValidator extends OAuth2ScopeValidator {
         int resourceTenantId = -1;
 
         boolean cacheHit = false;
-        // Check the cache, if caching is enabled.
+        // Check the cache, if caching is enabled. Resource scopes are matched through the resource scope index, but
+        // entries added to the cache by other components are still honoured.
         OAuthCacheKey cacheKey = new OAuthCacheKey(resource);
         CacheEntry result = OAuthCache.getInstance().getValueFromCache(cacheKey);
 
@@ -90,24 +98,16 @@ public class JDBCScopeValidator extends OAuth2ScopeValidator {
             cacheHit = true;
         }
 
-
-        // Cache was not hit. So retrieve from database.
+        // Cache was not hit. So match the resource against the resource scopes loaded from the database, which
+        // does not need a database call or a cache entry per distinct resource.
         if (!cacheHit) {
-            Pair<String, Integer> scopeMap = OAuthTokenPersistenceFactory.getInstance()
-                    .getTokenManagementDAO().findTenantAndScopeOfResource(resource);
+            Pair<String, Integer> scopeMap = ResourceScopeIndexCache.getInstance()
+                    .findTenantAndScopeOfResource(resource);
 
             if (scopeMap != null) {
                 resourceScope = scopeMap.getLeft();
                 resourceTenantId = scopeMap.getRight();
             }
-
-            cacheKey = new OAuthCacheKey(resource);
-            ResourceScopeCacheEntry cacheEntry = new ResourceScopeCacheEntry(resourceScope);
-            cacheEntry.setTenantId(resourceTenantId);
-            //Store resourceScope in cache even if it is null (to avoid database calls when accessing resources for
-            //which scopes haven't been defined).
-            OAuthCache.getInstance().addToCache(cacheKey, cacheEntry);
-
         }
 
         //Return TRUE if - There does not exist a scope definition for the resource
@@ -139,11 +139,10 @@ public class JDBCScopeValidator extends OAuth2ScopeValidator {
 
         try {
             //Get the roles associated with the scope, if any
-            Set<String> rolesOfScope = OAuthTokenPersistenceFactory.getInstance()
-                    .getOAuthScopeDAO().getBindingsOfScopeByScopeName(resourceScope, resourceTenantId);
+            List<String> rolesOfScope = getBindingsOfScope(resourceScope, resourceTenantId);
 
             //If the scope doesn't have any roles associated with it.
-            if(rolesOfScope == null || rolesOfScope.isEmpty()){
+            if(rolesOfScope.isEmpty()){
                 if(log.isDebugEnabled()){
                     log.debug("Did not find any roles associated to the scope " + resourceScope);
                 }
@@ -169,42 +168,27 @@ public class JDBCScopeValidator extends OAuth2ScopeValidator {
                 tenantId = IdentityTenantUtil.getTenantIdOfUser(authzUser.getUserName());
             }
 
-            UserStoreManager userStoreManager;
-            String[] userRoles;
-            boolean tenantFlowStarted = false;
-
-            try{
-                //If this is a tenant user
-                if(tenantId != MultitenantConstants.SUPER_TENANT_ID){
-                    PrivilegedCarbonContext.startTenantFlow();
-                    PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
-                                                            realmService.getTenantManager().getDomain(tenantId),true);
-                    tenantFlowStarted = true;
-                }
-
-                userStoreManager = realmService.getTenantUserRealm(tenantId).getUserStoreManager();
-                userRoles = userStoreManager.getRoleListOfUser(
-                        MultitenantUtils.getTenantAwareUsername(authzUser.getUserName()));
-            } finally {
-                if (tenantFlowStarted) {
-                    PrivilegedCarbonContext.endTenantFlow();
-                }
+            String tenantAwareUsername = MultitenantUtils.getTenantAwareUsername(authzUser.getUserName());
+            // The user name of the authorized user does not carry the user store domain, hence the domain of the
+            // user is used so that the entry is keyed the same way as the user store events clearing it.
+            String userStoreDomain = authzUser.getUserStoreDomain();
+            if (StringUtils.isBlank(userStoreDomain)) {
+                userStoreDomain = UserCoreUtil.extractDomainFromName(tenantAwareUsername);
+            }
+            String userName = UserCoreUtil.removeDomainFromName(tenantAwareUsername);
+
+            UserRoleCache userRoleCache = UserRoleCache.getInstance();
+            UserRoleCache.UserRoles userRoles = userRoleCache.getUserRoles(tenantId, userStoreDomain, userName);
+            if (userRoles == null) {
+                userRoles = userRoleCache.addUserRoles(tenantId, userStoreDomain, userName,
+                        getRoleListOfUser(realmService, tenantId, tenantAwareUsername));
+            } else if (log.isDebugEnabled()) {
+                log.debug("Roles of user " + authzUser.getUserName() + " were available in the cache.");
             }
 
-            if(userRoles != null && userRoles.length > 0){
-                if(log.isDebugEnabled()){
-                    StringBuilder logMessage = new StringBuilder("Found roles of user ");
-                    logMessage.append(authzUser.getUserName());
-                    logMessage.append(" ");
-                    for(String role : userRoles){
-                        logMessage.append(role);
-                        logMessage.append(", ");
-                    }
-                    log.debug(logMessage.toString());
-                }
+            if(!userRoles.isEmpty()){
                 //Check if the user still has a valid role for this scope.
-                rolesOfScope.retainAll(Arrays.asList(userRoles));
-                return !rolesOfScope.isEmpty();
+                return userRoles.hasAnyRole(rolesOfScope);
             }
             else{
                 if(log.isDebugEnabled()){
@@ -219,4 +203,60 @@ public class JDBCScopeValidator extends OAuth2ScopeValidator {
             return false;
         }
     }
+
+    /**
+     * Get the roles bound to a scope of a tenant, from the cache if available.
+     *
+     * @param scopeName scope name
+     * @param tenantId  tenant id of the scope
+     * @return roles bound to the scope
+     * @throws IdentityOAuth2Exception if the bindings can not be retrieved
+     */
+    private List<String> getBindingsOfScope(String scopeName, int tenantId) throws IdentityOAuth2Exception {
+
+        OAuthScopeCacheKey cacheKey = new OAuthScopeCacheKey(scopeName, Integer.toString(tenantId));
+        ScopeBindingCacheEntry cacheEntry = ScopeBindingCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry == null) {
+            Set<String> bindings = OAuthTokenPersistenceFactory.getInstance()
+                    .getOAuthScopeDAO().getBindingsOfScopeByScopeName(scopeName, tenantId);
+            cacheEntry = new ScopeBindingCacheEntry(bindings);
+            ScopeBindingCache.getInstance().addToCache(cacheKey, cacheEntry);
+        }
+        return cacheEntry.getBindings();
+    }
+
+    private String[] getRoleListOfUser(RealmService realmService, int tenantId, String tenantAwareUsername)
+            throws UserStoreException {
+
+        String[] userRoles;
+        boolean tenantFlowStarted = false;
+        try {
+            //If this is a tenant user
+            if (tenantId != MultitenantConstants.SUPER_TENANT_ID) {
+                PrivilegedCarbonContext.startTenantFlow();
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                        realmService.getTenantManager().getDomain(tenantId), true);
+                tenantFlowStarted = true;
+            }
+
+            UserStoreManager userStoreManager = realmService.getTenantUserRealm(tenantId).getUserStoreManager();
+            userRoles = userStoreManager.getRoleListOfUser(tenantAwareUsername);
+        } finally {
+            if (tenantFlowStarted) {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+
+        if (log.isDebugEnabled() && userRoles != null) {
+            StringBuilder logMessage = new StringBuilder("Found roles of user ");
+            logMessage.append(tenantAwareUsername);
+            logMessage.append(" ");
+            for (String role : userRoles) {
+                logMessage.append(role);
+                logMessage.append(", ");
+            }
+            log.debug(logMessage.toString());
+        }
+        return userRoles;
+    }
 }
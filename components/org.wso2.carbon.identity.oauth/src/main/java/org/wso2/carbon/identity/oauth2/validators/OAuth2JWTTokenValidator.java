@@ -28,17 +28,14 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
-import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
-import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
-import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.IdPValidationContext;
+import org.wso2.carbon.identity.oauth2.util.IdPValidationContextCache;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
-import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 import java.security.PublicKey;
-import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
@@ -52,7 +49,6 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
 
     private static final String ALGO_PREFIX = "RS";
     private static final Log log = LogFactory.getLog(OAuth2JWTTokenValidator.class);
-    private static final String OIDC_IDP_ENTITY_ID = "IdPEntityId";
 
     @Override
     public boolean validateAccessToken(OAuth2TokenValidationMessageContext validationReqDTO)
@@ -65,13 +61,26 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
             }
 
             validateRequiredFields(claimsSet);
-            IdentityProvider identityProvider = getResidentIDPForIssuer(claimsSet.getIssuer());
 
-            if (!validateSignature(signedJWT, identityProvider)) {
-                return false;
+            String tenantDomain = getTenantDomain();
+            String jwt = validationReqDTO.getRequestDTO().getAccessToken().getIdentifier();
+            VerifiedJWTCache verifiedJWTCache = VerifiedJWTCache.getInstance();
+            boolean verified = verifiedJWTCache.isVerified(tenantDomain, jwt);
+            if (verified) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Signature of the token was verified before. Skipping signature validation.");
+                }
+            } else {
+                IdentityProvider identityProvider = getResidentIDPForIssuer(claimsSet.getIssuer());
+                if (!validateSignature(signedJWT, identityProvider)) {
+                    return false;
+                }
             }
             checkExpirationTime(claimsSet.getExpirationTime());
             checkNotBeforeTime(claimsSet.getNotBeforeTime());
+            if (!verified) {
+                verifiedJWTCache.addToCache(tenantDomain, jwt, claimsSet.getExpirationTime());
+            }
         } catch (JOSEException | ParseException e) {
             throw new IdentityOAuth2Exception("Error while validating Token.", e);
         }
@@ -90,16 +99,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
      */
     protected X509Certificate resolveSignerCertificate(ReadOnlyJWSHeader header,
                                                        IdentityProvider idp) throws IdentityOAuth2Exception {
-        X509Certificate x509Certificate;
-        String tenantDomain = getTenantDomain();
-        try {
-            x509Certificate = (X509Certificate) IdentityApplicationManagementUtil
-                    .decodeCertificate(idp.getCertificate());
-        } catch (CertificateException e) {
-            throw new IdentityOAuth2Exception("Error occurred while decoding public certificate of Identity Provider "
-                    + idp.getIdentityProviderName() + " for tenant domain " + tenantDomain, e);
-        }
-        return x509Certificate;
+        return getIdPValidationContext(idp).getCertificate();
     }
 
     private SignedJWT getSignedJWT(OAuth2TokenValidationMessageContext validationReqDTO) throws ParseException {
@@ -113,27 +113,29 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
     private IdentityProvider getResidentIDPForIssuer(String jwtIssuer) throws IdentityOAuth2Exception {
 
         String tenantDomain = getTenantDomain();
-        String issuer = StringUtils.EMPTY;
-        IdentityProvider residentIdentityProvider;
+        IdPValidationContext residentIdPContext;
         try {
-            residentIdentityProvider = IdentityProviderManager.getInstance().getResidentIdP(tenantDomain);
+            residentIdPContext = IdPValidationContextCache.getInstance().getResidentIdPContext(tenantDomain);
         } catch (IdentityProviderManagementException e) {
             String errorMsg = String.format("Error while getting Resident Identity Provider of '%s' tenant.", tenantDomain);
             throw new IdentityOAuth2Exception(errorMsg, e);
         }
-        FederatedAuthenticatorConfig[] fedAuthnConfigs = residentIdentityProvider.getFederatedAuthenticatorConfigs();
-        FederatedAuthenticatorConfig oauthAuthenticatorConfig =
-                IdentityApplicationManagementUtil.getFederatedAuthenticator(fedAuthnConfigs,
-                        IdentityApplicationConstants.Authenticator.OIDC.NAME);
-        if (oauthAuthenticatorConfig != null) {
-            issuer = IdentityApplicationManagementUtil.getProperty(oauthAuthenticatorConfig.getProperties(),
-                    OIDC_IDP_ENTITY_ID).getValue();
-        }
 
-        if (!jwtIssuer.equals(issuer)) {
+        if (!jwtIssuer.equals(residentIdPContext.getOIDCEntityId())) {
             throw new IdentityOAuth2Exception("No Registered IDP found for the token with issuer name : " + jwtIssuer);
         }
-        return residentIdentityProvider;
+        return residentIdPContext.getIdentityProvider();
+    }
+
+    private IdPValidationContext getIdPValidationContext(IdentityProvider idp) throws IdentityOAuth2Exception {
+
+        String tenantDomain = getTenantDomain();
+        try {
+            return IdPValidationContextCache.getInstance().getContext(tenantDomain, idp);
+        } catch (IdentityProviderManagementException e) {
+            String errorMsg = String.format("Error while getting Resident Identity Provider of '%s' tenant.", tenantDomain);
+            throw new IdentityOAuth2Exception(errorMsg, e);
+        }
     }
 
     private boolean validateSignature(SignedJWT signedJWT, IdentityProvider idp)
@@ -157,12 +159,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
             }
             if (alg.indexOf(ALGO_PREFIX) == 0) {
                 // At this point 'x509Certificate' will never be null.
-                PublicKey publicKey = x509Certificate.getPublicKey();
-                if (publicKey instanceof RSAPublicKey) {
-                    verifier = new RSASSAVerifier((RSAPublicKey) publicKey);
-                } else {
-                    throw new IdentityOAuth2Exception("Public key is not an RSA public key.");
-                }
+                verifier = getRSAVerifier(x509Certificate, idp);
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug("Signature Algorithm not supported yet: " + alg);
@@ -180,6 +177,28 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
         return isValid;
     }
 
+    /**
+     * Get the RSA verifier of the given certificate. Verifiers are stateless, so the verifier is kept in the
+     * validation context of the IdP and reused for as long as the same certificate is resolved.
+     */
+    private JWSVerifier getRSAVerifier(X509Certificate x509Certificate, IdentityProvider idp)
+            throws IdentityOAuth2Exception {
+
+        IdPValidationContext idpValidationContext = getIdPValidationContext(idp);
+        JWSVerifier verifier = idpValidationContext.getJWSVerifier(x509Certificate);
+        if (verifier != null) {
+            return verifier;
+        }
+
+        PublicKey publicKey = x509Certificate.getPublicKey();
+        if (!(publicKey instanceof RSAPublicKey)) {
+            throw new IdentityOAuth2Exception("Public key is not an RSA public key.");
+        }
+        verifier = new RSASSAVerifier((RSAPublicKey) publicKey);
+        idpValidationContext.setJWSVerifier(x509Certificate, verifier);
+        return verifier;
+    }
+
     private boolean checkExpirationTime(Date expirationTime) throws IdentityOAuth2Exception {
         long timeStampSkewMillis = OAuthServerConfiguration.getInstance().getTimeStampSkewInSeconds() * 1000;
         long expirationTimeInMillis = expirationTime.getTime();
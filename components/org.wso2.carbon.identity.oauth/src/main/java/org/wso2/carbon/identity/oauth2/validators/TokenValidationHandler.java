@@ -40,6 +40,9 @@ import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -214,6 +217,38 @@ public class TokenValidationHandler {
     public OAuth2IntrospectionResponseDTO buildIntrospectionResponse(OAuth2TokenValidationRequestDTO validationRequest)
             throws IdentityOAuth2Exception {
 
+        return buildIntrospectionResponse(validationRequest, null);
+    }
+
+    /**
+     * Returns back the introspection responses of several tokens, in the order of the requests. The access tokens of
+     * all requests are resolved together before the requests are validated, so that the tokens which are not cached
+     * are loaded from the database with one query.
+     *
+     * @param validationRequests validation requests
+     * @return introspection responses
+     */
+    public List<OAuth2IntrospectionResponseDTO> buildIntrospectionResponses(
+            List<OAuth2TokenValidationRequestDTO> validationRequests) {
+
+        Map<String, AccessTokenDO> accessTokens = findAccessTokens(validationRequests);
+        List<OAuth2IntrospectionResponseDTO> introspectionResponses = new ArrayList<>(validationRequests.size());
+        for (OAuth2TokenValidationRequestDTO validationRequest : validationRequests) {
+            try {
+                introspectionResponses.add(buildIntrospectionResponse(validationRequest, accessTokens));
+            } catch (IdentityOAuth2Exception e) {
+                log.error("Error occurred while building the introspection response", e);
+                introspectionResponses.add(buildIntrospectionErrorResponse(
+                        "Server error occurred while building the introspection response"));
+            }
+        }
+        return introspectionResponses;
+    }
+
+    private OAuth2IntrospectionResponseDTO buildIntrospectionResponse(
+            OAuth2TokenValidationRequestDTO validationRequest, Map<String, AccessTokenDO> accessTokens)
+            throws IdentityOAuth2Exception {
+
         OAuth2TokenValidationResponseDTO responseDTO = new OAuth2TokenValidationResponseDTO();
         OAuth2IntrospectionResponseDTO introResp = new OAuth2IntrospectionResponseDTO();
 
@@ -264,7 +299,7 @@ public class TokenValidationHandler {
         } else {
 
             try {
-                accessTokenDO = findAccessToken(validationRequest.getAccessToken().getIdentifier());
+                accessTokenDO = findAccessToken(validationRequest.getAccessToken().getIdentifier(), accessTokens);
             } catch (IllegalArgumentException e) {
                 // access token not found in the system.
                 return buildIntrospectionErrorResponse(e.getMessage());
@@ -484,11 +519,82 @@ public class TokenValidationHandler {
      * @throws IdentityOAuth2Exception
      */
     private AccessTokenDO findAccessToken(String tokenIdentifier) throws IdentityOAuth2Exception {
+
+        return OAuth2Util.getAccessTokenDOfromTokenIdentifier(getPersistedTokenIdentifier(tokenIdentifier));
+    }
+
+    /**
+     * @param tokenIdentifier token identifier of a validation request
+     * @param accessTokens    access tokens resolved for a set of validation requests, which may be null
+     * @return access token resolved for the request, or the access token looked up individually if it was not
+     * resolved together with the other requests
+     * @throws IdentityOAuth2Exception
+     */
+    private AccessTokenDO findAccessToken(String tokenIdentifier, Map<String, AccessTokenDO> accessTokens)
+            throws IdentityOAuth2Exception {
+
+        if (accessTokens != null && accessTokens.containsKey(tokenIdentifier)) {
+            AccessTokenDO accessTokenDO = accessTokens.get(tokenIdentifier);
+            if (accessTokenDO == null) {
+                // this means the token is not active so we can't proceed further
+                throw new IllegalArgumentException("Invalid Access Token. Access token is not ACTIVE.");
+            }
+            return accessTokenDO;
+        }
+        return findAccessToken(tokenIdentifier);
+    }
+
+    /**
+     * Resolve the access tokens of a set of validation requests together.
+     *
+     * @param validationRequests validation requests
+     * @return access tokens keyed by the token identifiers of the requests. Identifiers of tokens which are not
+     * active are mapped to null, and identifiers which could not be resolved are not included.
+     */
+    private Map<String, AccessTokenDO> findAccessTokens(List<OAuth2TokenValidationRequestDTO> validationRequests) {
+
+        Map<String, String> persistedTokenIdentifiers = new HashMap<>();
+        for (OAuth2TokenValidationRequestDTO validationRequest : validationRequests) {
+            OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequest.getAccessToken();
+            if (accessToken == null || accessToken.getIdentifier() == null ||
+                    tokenValidators.get(accessToken.getTokenType()) == null) {
+                continue;
+            }
+            try {
+                persistedTokenIdentifiers.put(accessToken.getIdentifier(),
+                        getPersistedTokenIdentifier(accessToken.getIdentifier()));
+            } catch (IdentityOAuth2Exception e) {
+                // The token is looked up individually, which reports the error for the request.
+                if (log.isDebugEnabled()) {
+                    log.debug("Access token of a validation request is not resolved with the other requests.", e);
+                }
+            }
+        }
+
+        Map<String, AccessTokenDO> accessTokens = new HashMap<>();
+        if (persistedTokenIdentifiers.isEmpty()) {
+            return accessTokens;
+        }
+        try {
+            Map<String, AccessTokenDO> persistedAccessTokens =
+                    OAuth2Util.getAccessTokenDOsFromTokenIdentifiers(persistedTokenIdentifiers.values());
+            for (Map.Entry<String, String> persistedTokenIdentifier : persistedTokenIdentifiers.entrySet()) {
+                accessTokens.put(persistedTokenIdentifier.getKey(),
+                        persistedAccessTokens.get(persistedTokenIdentifier.getValue()));
+            }
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while retrieving the access tokens of the validation requests. Access tokens " +
+                    "will be retrieved individually.", e);
+        }
+        return accessTokens;
+    }
+
+    private String getPersistedTokenIdentifier(String tokenIdentifier) throws IdentityOAuth2Exception {
         try {
             if (usePersistedAccessTokenAlias) {
-                return OAuth2Util.getAccessTokenDOfromTokenIdentifier(oauthIssuerImpl.getAccessTokenHash(tokenIdentifier));
+                return oauthIssuerImpl.getAccessTokenHash(tokenIdentifier);
             } else {
-                return OAuth2Util.getAccessTokenDOfromTokenIdentifier(tokenIdentifier);
+                return tokenIdentifier;
             }
         } catch (OAuthSystemException e) {
             if (log.isDebugEnabled()) {
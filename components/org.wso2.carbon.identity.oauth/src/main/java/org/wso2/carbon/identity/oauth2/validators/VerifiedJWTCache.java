@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.util.ExpiringCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node local, bounded cache of self-contained JWT access tokens whose signature has already been verified. Entries
+ * are keyed by the tenant domain and a SHA-256 digest of the compact serialization of the token, so a cache hit
+ * means that exactly the same bytes were verified before and the RSA verification can be skipped.
+ * <p>
+ * Only successful verifications are cached. An entry lives until the earlier of the token expiry time and the
+ * configured time to live, which bounds how long a token stays trusted after a signing certificate change. The cache
+ * is disabled unless {@code OAuth.VerifiedJWTCache.Enable} is set to true.
+ */
+public class VerifiedJWTCache {
+
+    private static final Log log = LogFactory.getLog(VerifiedJWTCache.class);
+
+    // These config properties are defined in identity.xml
+    private static final String VERIFIED_JWT_CACHE_ENABLE = "OAuth.VerifiedJWTCache.Enable";
+    private static final String VERIFIED_JWT_CACHE_CAPACITY = "OAuth.VerifiedJWTCache.Capacity";
+    private static final String VERIFIED_JWT_CACHE_TIME_TO_LIVE = "OAuth.VerifiedJWTCache.TimeToLive";
+
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_TIME_TO_LIVE_IN_SECONDS = 300;
+
+    private static volatile VerifiedJWTCache instance;
+
+    private final boolean enabled;
+    private final long timeToLiveInMillis;
+    private final ExpiringCache<String, Boolean> verifiedTokens;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    VerifiedJWTCache(boolean enabled, int capacity, long timeToLiveInMillis) {
+
+        this.enabled = enabled;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+        this.verifiedTokens = new ExpiringCache<>(capacity);
+    }
+
+    public static VerifiedJWTCache getInstance() {
+
+        if (instance == null) {
+            synchronized (VerifiedJWTCache.class) {
+                if (instance == null) {
+                    boolean enabled = OAuth2PropertyUtil.getBooleanProperty(VERIFIED_JWT_CACHE_ENABLE, false);
+                    int capacity = OAuth2PropertyUtil.getIntProperty(VERIFIED_JWT_CACHE_CAPACITY, DEFAULT_CAPACITY,
+                            1);
+                    int timeToLive = OAuth2PropertyUtil.getIntProperty(VERIFIED_JWT_CACHE_TIME_TO_LIVE,
+                            DEFAULT_TIME_TO_LIVE_IN_SECONDS, 1);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Verified JWT cache enabled: " + enabled + ", capacity: " + capacity +
+                                ", time to live: " + timeToLive + "s");
+                    }
+                    instance = new VerifiedJWTCache(enabled, capacity, TimeUnit.SECONDS.toMillis(timeToLive));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * @param tenantDomain tenant domain the token is validated in
+     * @param jwt          compact serialization of the token
+     * @return true if the signature of the exact same token was verified before and the entry is still valid
+     */
+    public boolean isVerified(String tenantDomain, String jwt) {
+
+        if (!enabled || jwt == null) {
+            return false;
+        }
+
+        if (verifiedTokens.get(getKey(tenantDomain, jwt)) == null) {
+            missCount.incrementAndGet();
+            return false;
+        }
+        hitCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Remember that the signature of the given token was verified successfully.
+     *
+     * @param tenantDomain   tenant domain the token is validated in
+     * @param jwt            compact serialization of the token
+     * @param expirationTime value of the exp claim of the token
+     */
+    public void addToCache(String tenantDomain, String jwt, Date expirationTime) {
+
+        if (!enabled || jwt == null || expirationTime == null) {
+            return;
+        }
+
+        long expiryTime = Math.min(System.currentTimeMillis() + timeToLiveInMillis, expirationTime.getTime());
+        verifiedTokens.put(getKey(tenantDomain, jwt), Boolean.TRUE, expiryTime);
+    }
+
+    public void clear() {
+
+        verifiedTokens.clear();
+    }
+
+    public int size() {
+
+        return verifiedTokens.size();
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    private String getKey(String tenantDomain, String jwt) {
+
+        return tenantDomain + ":" + DigestUtils.sha256Hex(jwt);
+    }
+}
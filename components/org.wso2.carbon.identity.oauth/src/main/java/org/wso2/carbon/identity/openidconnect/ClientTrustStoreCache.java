@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.openidconnect;
+
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
+import org.wso2.carbon.identity.oauth2.RequestObjectException;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client truststore used to verify the signature of request objects, indexed by the hex encoded SHA-1 thumbprint of
+ * each certificate to a ready to use {@link RSASSAVerifier}.
+ * <p>
+ * The truststore is loaded on first use and reloaded when the truststore file is modified. The modification time is
+ * checked at most once per {@code OAuth.RequestObject.TrustStoreReloadCheckInterval} seconds, so verifying a request
+ * object normally costs a map lookup and a signature check.
+ */
+public class ClientTrustStoreCache {
+
+    private static final Log log = LogFactory.getLog(ClientTrustStoreCache.class);
+
+    // This config property is defined in identity.xml
+    private static final String RELOAD_CHECK_INTERVAL = "OAuth.RequestObject.TrustStoreReloadCheckInterval";
+    private static final int DEFAULT_RELOAD_CHECK_INTERVAL_IN_SECONDS = 30;
+
+    private static final ClientTrustStoreCache instance = new ClientTrustStoreCache(
+            TimeUnit.SECONDS.toMillis(OAuth2PropertyUtil.getIntProperty(RELOAD_CHECK_INTERVAL,
+                    DEFAULT_RELOAD_CHECK_INTERVAL_IN_SECONDS, 0)));
+
+    private final long reloadCheckIntervalInMillis;
+    private volatile TrustStoreSnapshot snapshot;
+
+    ClientTrustStoreCache(long reloadCheckIntervalInMillis) {
+
+        this.reloadCheckIntervalInMillis = reloadCheckIntervalInMillis;
+    }
+
+    public static ClientTrustStoreCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * @param thumbprint     hex encoded SHA-1 thumbprint of the certificate
+     * @param trustStorePath path of the client truststore
+     * @param password       password of the client truststore
+     * @return verifier of the certificate with the given thumbprint or null if the truststore has no such certificate
+     * @throws RequestObjectException if the truststore cannot be loaded
+     */
+    public RSASSAVerifier getVerifier(String thumbprint, String trustStorePath, String password)
+            throws RequestObjectException {
+
+        return getSnapshot(trustStorePath, password).verifiers.get(thumbprint);
+    }
+
+    /**
+     * Drop the loaded truststore so that it is loaded again on next use.
+     */
+    public void clear() {
+
+        snapshot = null;
+    }
+
+    private TrustStoreSnapshot getSnapshot(String trustStorePath, String password) throws RequestObjectException {
+
+        TrustStoreSnapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && current.path.equals(trustStorePath) && now < current.nextCheckTime) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            now = System.currentTimeMillis();
+            if (current != null && current.path.equals(trustStorePath)) {
+                if (now < current.nextCheckTime) {
+                    return current;
+                }
+                if (new File(trustStorePath).lastModified() == current.lastModified) {
+                    current.nextCheckTime = now + reloadCheckIntervalInMillis;
+                    return current;
+                }
+            }
+            current = load(trustStorePath, password);
+            current.nextCheckTime = now + reloadCheckIntervalInMillis;
+            snapshot = current;
+            return current;
+        }
+    }
+
+    private TrustStoreSnapshot load(String trustStorePath, String password) throws RequestObjectException {
+
+        File trustStoreFile = new File(trustStorePath);
+        long lastModified = trustStoreFile.lastModified();
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(trustStoreFile);
+            KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            keyStore.load(inputStream, password == null ? null : password.toCharArray());
+
+            MessageDigest sha = MessageDigest.getInstance("SHA-1");
+            Map<String, RSASSAVerifier> verifiers = new HashMap<>();
+            for (Enumeration<String> aliases = keyStore.aliases(); aliases.hasMoreElements(); ) {
+                String alias = aliases.nextElement();
+                Certificate certificate = getCertificate(keyStore, alias);
+                if (certificate == null) {
+                    continue;
+                }
+                if (!(certificate.getPublicKey() instanceof RSAPublicKey)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Skipping the certificate with alias: " + alias + " since it does not have an RSA " +
+                                "public key.");
+                    }
+                    continue;
+                }
+                String thumbprint = Hex.encodeHexString(sha.digest(certificate.getEncoded()));
+                verifiers.put(thumbprint, new RSASSAVerifier((RSAPublicKey) certificate.getPublicKey()));
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded " + verifiers.size() + " certificates from the client truststore: " +
+                        trustStorePath);
+            }
+            return new TrustStoreSnapshot(trustStorePath, lastModified, Collections.unmodifiableMap(verifiers));
+        } catch (IOException | GeneralSecurityException e) {
+            throw new RequestObjectException(RequestObjectException.ERROR_CODE_INVALID_REQUEST, "Error while " +
+                    "loading the client truststore: " + e.getMessage());
+        } finally {
+            IdentityIOStreamUtils.closeInputStream(inputStream);
+        }
+    }
+
+    private static Certificate getCertificate(KeyStore keyStore, String alias) throws GeneralSecurityException {
+
+        Certificate[] certificates = keyStore.getCertificateChain(alias);
+        if (certificates == null || certificates.length == 0) {
+            return keyStore.getCertificate(alias);
+        }
+        return certificates[0];
+    }
+
+    private static class TrustStoreSnapshot {
+
+        private final String path;
+        private final long lastModified;
+        private final Map<String, RSASSAVerifier> verifiers;
+        private volatile long nextCheckTime;
+
+        private TrustStoreSnapshot(String path, long lastModified, Map<String, RSASSAVerifier> verifiers) {
+
+            this.path = path;
+            this.lastModified = lastModified;
+            this.verifiers = verifiers;
+        }
+    }
+}
@@ -18,7 +18,6 @@ package org.wso2.carbon.identity.openidconnect;
 import com.nimbusds.jwt.JWTClaimsSet;
 import net.minidev.json.JSONArray;
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -46,6 +45,7 @@ import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheEntry;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.util.ClaimResolutionCache;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
@@ -297,15 +297,15 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
             throws IdentityApplicationManagementException, IdentityException, UserStoreException {
 
         Map<String, Object> userClaimsMappedToOIDCDialect = new HashMap<>();
-        ServiceProvider serviceProvider = getServiceProvider(spTenantDomain, clientId);
-        if (serviceProvider == null) {
+        RequestedClaimsPlan requestedClaimsPlan = getRequestedClaimsPlan(spTenantDomain, clientId);
+        if (requestedClaimsPlan == null) {
             log.warn("Unable to find a service provider associated with client_id: " + clientId + " in tenantDomain: " +
                     spTenantDomain + ". Returning empty claim map for user.");
             return userClaimsMappedToOIDCDialect;
         }
 
-        ClaimMapping[] requestClaimMappings = getRequestedClaimMappings(serviceProvider);
-        if (ArrayUtils.isEmpty(requestClaimMappings)) {
+        ServiceProvider serviceProvider = requestedClaimsPlan.getServiceProvider();
+        if (requestedClaimsPlan.getRequestedClaimUris().isEmpty()) {
             if (log.isDebugEnabled()) {
                 String spName = serviceProvider.getApplicationName();
                 log.debug("No requested claims configured for service provider: " + spName + " of tenantDomain: "
@@ -316,16 +316,30 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
 
         String userTenantDomain = authenticatedUser.getTenantDomain();
         String fullQualifiedUsername = authenticatedUser.toFullQualifiedUsername();
-        UserRealm realm = IdentityTenantUtil.getRealm(userTenantDomain, fullQualifiedUsername);
-        if (realm == null) {
-            log.warn("Invalid tenant domain: " + userTenantDomain + " provided. Cannot get claims for user: "
-                    + fullQualifiedUsername);
-            return userClaimsMappedToOIDCDialect;
+        String claimCacheKey = ClaimResolutionCache.getCacheKey(authenticatedUser.getUserName(),
+                authenticatedUser.getUserStoreDomain(), userTenantDomain);
+        Map<String, String> userClaims = ClaimResolutionCache.getInstance().getClaims(claimCacheKey,
+                requestedClaimsPlan.getClaimSetKey());
+        if (userClaims != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("User claims of " + fullQualifiedUsername + " requested by service provider: " +
+                        serviceProvider.getApplicationName() + " were found in the cache.");
+            }
+        } else {
+            UserRealm realm = IdentityTenantUtil.getRealm(userTenantDomain, fullQualifiedUsername);
+            if (realm == null) {
+                log.warn("Invalid tenant domain: " + userTenantDomain + " provided. Cannot get claims for user: "
+                        + fullQualifiedUsername);
+                return userClaimsMappedToOIDCDialect;
+            }
+            userClaims = getUserClaimsInLocalDialect(fullQualifiedUsername, realm,
+                    requestedClaimsPlan.getRequestedClaimUris());
+            if (isNotEmpty(userClaims)) {
+                ClaimResolutionCache.getInstance().addClaims(claimCacheKey, requestedClaimsPlan.getClaimSetKey(),
+                        userClaims);
+            }
         }
 
-        List<String> requestedClaimUris = getRequestedClaimUris(requestClaimMappings);
-        Map<String, String> userClaims = getUserClaimsInLocalDialect(fullQualifiedUsername, realm, requestedClaimUris);
-
         if (isEmpty(userClaims)) {
             // User claims can be empty if user does not exist in user stores. Probably a federated user.
             if (log.isDebugEnabled()) {
@@ -347,11 +361,24 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
         return userClaimsMappedToOIDCDialect;
     }
 
-    private ClaimMapping[] getRequestedClaimMappings(ServiceProvider serviceProvider) {
-        if (serviceProvider.getClaimConfig() == null) {
-            return new ClaimMapping[0];
+    /**
+     * Get the requested claims plan of the service provider of the given client, computing it if it is not cached.
+     *
+     * @return requested claims plan or null if there is no service provider for the client
+     */
+    private RequestedClaimsPlan getRequestedClaimsPlan(String spTenantDomain, String clientId)
+            throws IdentityApplicationManagementException {
+
+        RequestedClaimsPlanCache requestedClaimsPlanCache = RequestedClaimsPlanCache.getInstance();
+        RequestedClaimsPlan requestedClaimsPlan = requestedClaimsPlanCache.getPlan(spTenantDomain, clientId);
+        if (requestedClaimsPlan == null) {
+            ServiceProvider serviceProvider = getServiceProvider(spTenantDomain, clientId);
+            if (serviceProvider == null) {
+                return null;
+            }
+            requestedClaimsPlan = requestedClaimsPlanCache.addPlan(spTenantDomain, clientId, serviceProvider);
         }
-        return serviceProvider.getClaimConfig().getClaimMappings();
+        return requestedClaimsPlan;
     }
 
     private Map<String, Object> getUserClaimsInOIDCDialect(String spTenantDomain,
@@ -403,16 +430,6 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
         return spTenantDomain;
     }
 
-    private List<String> getRequestedClaimUris(ClaimMapping[] requestedLocalClaimMap) {
-        List<String> claimURIList = new ArrayList<>();
-        for (ClaimMapping mapping : requestedLocalClaimMap) {
-            if (mapping.isRequested()) {
-                claimURIList.add(mapping.getLocalClaim().getClaimUri());
-            }
-        }
-        return claimURIList;
-    }
-
     private ServiceProvider getServiceProvider(String spTenantDomain,
                                                String clientId) throws IdentityApplicationManagementException {
         ApplicationManagementService applicationMgtService = OAuth2ServiceComponentHolder.getApplicationMgtService();
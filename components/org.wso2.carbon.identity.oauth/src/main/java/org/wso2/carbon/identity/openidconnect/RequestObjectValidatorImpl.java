@@ -42,17 +42,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import java.security.Key;
-import java.security.KeyStore;
-import java.security.MessageDigest;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.InvalidKeyException;
-import java.security.SignatureException;
-import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
 import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
-import java.util.Enumeration;
 import java.util.Properties;
 
 /**
@@ -214,19 +204,17 @@ public class RequestObjectValidatorImpl implements RequestObjectValidator {
 
         if (jwtAssertion != null && jwtSignature != null) {
             try {
-                KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-                keyStore.load(new FileInputStream(buildFilePath(getPropertyValue(OAuthConstants.CLIENT_TRUST_STORE))),
-                        getPropertyValue(OAuthConstants.CLIENT_TRUST_STORE_PASSWORD).toCharArray());
-                String alias = getAliasForX509CertThumb(thumbPrint.getBytes(), keyStore);
+                RSASSAVerifier verifier = ClientTrustStoreCache.getInstance().getVerifier(thumbPrint,
+                        buildFilePath(getPropertyValue(OAuthConstants.CLIENT_TRUST_STORE)),
+                        getPropertyValue(OAuthConstants.CLIENT_TRUST_STORE_PASSWORD));
 
-                if (StringUtils.isEmpty(alias)) {
-                    log.error("Could not obtain the alias from the certificate.");
+                if (verifier == null) {
+                    log.error("Could not obtain the certificate for the given thumbprint from the client truststore.");
                     throw new RequestObjectException(RequestObjectException.ERROR_CODE_INVALID_REQUEST, "Could not obtain" +
                             " the alias from the certificate.");
                 }
-                verifySignature(requestObject, keyStore, alias);
-            } catch (KeyStoreException | IOException | NoSuchAlgorithmException | CertificateException |
-                    InvalidKeyException | SignatureException | JOSEException | java.text.ParseException e) {
+                verifySignature(requestObject, verifier);
+            } catch (IOException | JOSEException | java.text.ParseException e) {
                 throw new RequestObjectException(RequestObjectException.ERROR_CODE_INVALID_REQUEST, e.getMessage());
             }
         } else {
@@ -234,14 +222,9 @@ public class RequestObjectValidatorImpl implements RequestObjectValidator {
         }
     }
 
-    private void verifySignature(String requestObject, KeyStore keyStore
-            , String alias) throws KeyStoreException, NoSuchAlgorithmException, InvalidKeyException, SignatureException,
-            JOSEException, java.text.ParseException, RequestObjectException {
+    private void verifySignature(String requestObject, JWSVerifier verifier) throws JOSEException,
+            java.text.ParseException, RequestObjectException {
 
-        Certificate certificate = keyStore.getCertificate(alias);
-        // Get public key
-        RSAPublicKey publicKey = (RSAPublicKey) certificate.getPublicKey();
-        JWSVerifier verifier = new RSASSAVerifier(publicKey);
         SignedJWT signedJWT = SignedJWT.parse(requestObject);
         if (!signedJWT.verify(verifier)) {
             throw new RequestObjectException(RequestObjectException.ERROR_CODE_INVALID_REQUEST, "Signature validation failed.");
@@ -304,48 +287,4 @@ public class RequestObjectValidatorImpl implements RequestObjectValidator {
         }
         return properties.getProperty(key);
     }
-
-    private static String getAliasForX509CertThumb(byte[] thumb, KeyStore keyStore) throws RequestObjectException {
-
-        Certificate cert;
-        MessageDigest sha;
-        String alias = null;
-        try {
-            sha = MessageDigest.getInstance("SHA-1");
-            for (Enumeration e = keyStore.aliases(); e.hasMoreElements(); ) {
-                alias = (String) e.nextElement();
-                Certificate[] certs = keyStore.getCertificateChain(alias);
-                if (certs == null || certs.length == 0) {
-                    cert = keyStore.getCertificate(alias);
-                    if (cert == null) {
-                        return null;
-                    }
-                } else {
-                    cert = certs[0];
-                }
-                sha.update(cert.getEncoded());
-                byte[] data = sha.digest();
-                if (new String(thumb).equals(hexify(data))) {
-                    return alias;
-                }
-            }
-        } catch (NoSuchAlgorithmException | KeyStoreException | CertificateException e) {
-            throw new RequestObjectException(RequestObjectException.ERROR_CODE_INVALID_REQUEST, "Failed to extract alias" +
-                    " from the cert thumb.");
-        }
-        return alias;
-    }
-
-    private static String hexify(byte bytes[]) {
-
-        char[] hexDigits =
-                {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
-        StringBuilder buf = new StringBuilder(bytes.length * 2);
-        for (byte aByte : bytes) {
-            buf.append(hexDigits[(aByte & 0xf0) >> 4]);
-            buf.append(hexDigits[aByte & 0x0f]);
-        }
-        return buf.toString();
-    }
 }
-
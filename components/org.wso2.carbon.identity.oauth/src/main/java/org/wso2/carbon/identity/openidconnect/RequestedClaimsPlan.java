@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openidconnect;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The local claims requested by a service provider, computed once from its claim configuration and reused for every
+ * token issued to the service provider until the plan expires or the service provider is updated.
+ */
+public class RequestedClaimsPlan {
+
+    private final ServiceProvider serviceProvider;
+    private final List<String> requestedClaimUris;
+    private final String claimSetKey;
+
+    public RequestedClaimsPlan(ServiceProvider serviceProvider) {
+
+        this.serviceProvider = serviceProvider;
+
+        List<String> claimUris = new ArrayList<>();
+        ClaimConfig claimConfig = serviceProvider.getClaimConfig();
+        if (claimConfig != null && claimConfig.getClaimMappings() != null) {
+            for (ClaimMapping claimMapping : claimConfig.getClaimMappings()) {
+                if (claimMapping.isRequested()) {
+                    claimUris.add(claimMapping.getLocalClaim().getClaimUri());
+                }
+            }
+        }
+        this.requestedClaimUris = Collections.unmodifiableList(claimUris);
+        // The order of the claims does not change the claim values of a user, hence the key is order independent.
+        this.claimSetKey = StringUtils.join(new TreeSet<>(claimUris), ",");
+    }
+
+    public ServiceProvider getServiceProvider() {
+
+        return serviceProvider;
+    }
+
+    /**
+     * @return URIs of the requested local claims
+     */
+    public List<String> getRequestedClaimUris() {
+
+        return requestedClaimUris;
+    }
+
+    /**
+     * @return key identifying the set of requested local claims, shared by service providers requesting the same claims
+     */
+    public String getClaimSetKey() {
+
+        return claimSetKey;
+    }
+}
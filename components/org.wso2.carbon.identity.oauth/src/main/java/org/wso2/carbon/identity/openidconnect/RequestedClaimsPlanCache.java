@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openidconnect;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.oauth2.util.ExpiringCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2PropertyUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node local cache of {@link RequestedClaimsPlan}s keyed by tenant domain and client id, used when resolving the
+ * claims of local users so that the service provider is not fetched and its claim configuration is not evaluated for
+ * every token.
+ * <p>
+ * Entries are cleared by the application management listener of this component when the service provider is updated
+ * or deleted on this node. Changes made on other nodes of a cluster are picked up when the entry expires.
+ */
+public class RequestedClaimsPlanCache {
+
+    private static final Log log = LogFactory.getLog(RequestedClaimsPlanCache.class);
+
+    // This config property is defined in identity.xml
+    private static final String CACHE_EXPIRY_TIME = "OAuth.RequestedClaimsPlanCache.ExpiryTime";
+    private static final int DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS = 300;
+
+    private static volatile RequestedClaimsPlanCache instance;
+
+    private final long expiryTimeInMillis;
+    private final ExpiringCache<String, RequestedClaimsPlan> plans = new ExpiringCache<>(Integer.MAX_VALUE);
+
+    RequestedClaimsPlanCache(long expiryTimeInMillis) {
+
+        this.expiryTimeInMillis = expiryTimeInMillis;
+    }
+
+    public static RequestedClaimsPlanCache getInstance() {
+
+        if (instance == null) {
+            synchronized (RequestedClaimsPlanCache.class) {
+                if (instance == null) {
+                    int expiryTime = OAuth2PropertyUtil.getIntProperty(CACHE_EXPIRY_TIME,
+                            DEFAULT_CACHE_EXPIRY_TIME_IN_SECONDS, 0);
+                    instance = new RequestedClaimsPlanCache(TimeUnit.SECONDS.toMillis(expiryTime));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param tenantDomain tenant domain of the service provider
+     * @param clientId     client id of the service provider
+     * @return cached plan or null if there is no plan or it has expired
+     */
+    public RequestedClaimsPlan getPlan(String tenantDomain, String clientId) {
+
+        return plans.get(getKey(tenantDomain, clientId));
+    }
+
+    /**
+     * Compute and cache the plan of a service provider.
+     *
+     * @param tenantDomain    tenant domain of the service provider
+     * @param clientId        client id of the service provider
+     * @param serviceProvider service provider
+     * @return plan of the service provider
+     */
+    public RequestedClaimsPlan addPlan(String tenantDomain, String clientId, ServiceProvider serviceProvider) {
+
+        RequestedClaimsPlan plan = new RequestedClaimsPlan(serviceProvider);
+        plans.put(getKey(tenantDomain, clientId), plan, System.currentTimeMillis() + expiryTimeInMillis);
+        if (log.isDebugEnabled()) {
+            log.debug("Cached the requested claims plan of service provider: " +
+                    serviceProvider.getApplicationName() + " of tenant: " + tenantDomain + " with " +
+                    plan.getRequestedClaimUris().size() + " requested claims.");
+        }
+        return plan;
+    }
+
+    public void clearCacheEntry(String tenantDomain, String clientId) {
+
+        if (tenantDomain != null && clientId != null) {
+            plans.remove(getKey(tenantDomain, clientId));
+        }
+    }
+
+    public void clear() {
+
+        plans.clear();
+    }
+
+    private static String getKey(String tenantDomain, String clientId) {
+
+        return tenantDomain + ":" + clientId;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+
+import java.sql.Timestamp;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for AccessTokenNearCache.
+ */
+public class AccessTokenNearCacheTest {
+
+    private static final String TOKEN_ID = "tokenIdentifier";
+
+    @Test
+    public void testDisabledCache() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(false, 10, 60000);
+        nearCache.addToCache(TOKEN_ID, createAccessTokenDO(3600000));
+        assertNull(nearCache.getValueFromCache(TOKEN_ID));
+        assertEquals(nearCache.size(), 0);
+    }
+
+    @Test
+    public void testAddGetAndClear() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 10, 60000);
+        AccessTokenDO accessTokenDO = createAccessTokenDO(3600000);
+        nearCache.addToCache(TOKEN_ID, accessTokenDO);
+
+        assertSame(nearCache.getValueFromCache(TOKEN_ID), accessTokenDO);
+        assertEquals(nearCache.getHitCount(), 1);
+
+        nearCache.clearCacheEntry(TOKEN_ID);
+        assertNull(nearCache.getValueFromCache(TOKEN_ID));
+        assertEquals(nearCache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 10, 60000);
+        nearCache.addToCache(TOKEN_ID, createAccessTokenDO(-1000));
+        assertNull(nearCache.getValueFromCache(TOKEN_ID));
+    }
+
+    @Test
+    public void testTimeToLiveIsCappedAtTokenLifetime() throws Exception {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 10, 60000);
+        nearCache.addToCache(TOKEN_ID, createAccessTokenDO(50));
+        Thread.sleep(100);
+        assertNull(nearCache.getValueFromCache(TOKEN_ID), "Entry should expire with the access token.");
+    }
+
+    @Test
+    public void testCapacityIsBounded() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 5, 60000);
+        for (int i = 0; i < 20; i++) {
+            nearCache.addToCache(TOKEN_ID + i, createAccessTokenDO(3600000));
+        }
+        assertEquals(nearCache.size(), 5);
+    }
+
+    private AccessTokenDO createAccessTokenDO(long remainingValidityInMillis) {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        long now = System.currentTimeMillis();
+        accessTokenDO.setIssuedTime(new Timestamp(now - 1000));
+        accessTokenDO.setValidityPeriodInMillis(remainingValidityInMillis + 1000);
+        return accessTokenDO;
+    }
+}
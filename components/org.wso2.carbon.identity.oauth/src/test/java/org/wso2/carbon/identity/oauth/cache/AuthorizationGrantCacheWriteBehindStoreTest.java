@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.util.HashMap;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for AuthorizationGrantCacheWriteBehindStore.
+ */
+@PrepareForTest({SessionDataStore.class})
+public class AuthorizationGrantCacheWriteBehindStoreTest extends PowerMockTestCase {
+
+    private static final String CACHE_NAME = "AuthorizationGrantCache";
+    private static final String CODE_ID = "codeId";
+    private static final String TOKEN_ID = "tokenId";
+
+    @Mock
+    private SessionDataStore sessionDataStore;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(SessionDataStore.class);
+        when(SessionDataStore.getInstance()).thenReturn(sessionDataStore);
+    }
+
+    @Test
+    public void testDisabledStoreWritesThrough() {
+
+        AuthorizationGrantCacheWriteBehindStore store = new AuthorizationGrantCacheWriteBehindStore(CACHE_NAME,
+                false, 10);
+        AuthorizationGrantCacheEntry entry = createEntry();
+        store.store(CODE_ID, entry, true);
+        store.clear(CODE_ID);
+
+        verify(sessionDataStore).storeSessionData(CODE_ID, CACHE_NAME, entry);
+        verify(sessionDataStore).clearSessionData(CODE_ID, CACHE_NAME);
+        assertEquals(store.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testPendingEntryIsReadBeforeFlush() {
+
+        AuthorizationGrantCacheWriteBehindStore store = new AuthorizationGrantCacheWriteBehindStore(CACHE_NAME,
+                true, 10);
+        AuthorizationGrantCacheEntry entry = createEntry();
+        store.store(TOKEN_ID, entry, false);
+
+        assertSame(store.get(TOKEN_ID), entry);
+        verify(sessionDataStore, never()).getSessionData(anyString(), anyString());
+
+        store.flush();
+        verify(sessionDataStore).storeSessionData(TOKEN_ID, CACHE_NAME, entry);
+        assertEquals(store.getPendingCount(), 0);
+        assertEquals(store.getStoredCount(), 1);
+    }
+
+    @Test
+    public void testCodeEntryReplacedByTokenEntryIsNotWritten() {
+
+        AuthorizationGrantCacheWriteBehindStore store = new AuthorizationGrantCacheWriteBehindStore(CACHE_NAME,
+                true, 10);
+        AuthorizationGrantCacheEntry entry = createEntry();
+        store.store(CODE_ID, entry, true);
+        store.store(TOKEN_ID, entry, false);
+        store.clear(CODE_ID);
+        store.flush();
+
+        verify(sessionDataStore, never()).storeSessionData(CODE_ID, CACHE_NAME, entry);
+        verify(sessionDataStore, never()).clearSessionData(CODE_ID, CACHE_NAME);
+        verify(sessionDataStore).storeSessionData(TOKEN_ID, CACHE_NAME, entry);
+        assertEquals(store.getSkippedCount(), 1);
+    }
+
+    @Test
+    public void testClearOfExistingEntryIsWritten() {
+
+        AuthorizationGrantCacheWriteBehindStore store = new AuthorizationGrantCacheWriteBehindStore(CACHE_NAME,
+                true, 10);
+        store.store(TOKEN_ID, createEntry(), false);
+        store.clear(TOKEN_ID);
+
+        assertNull(store.get(TOKEN_ID));
+        store.flush();
+
+        verify(sessionDataStore, never()).storeSessionData(anyString(), anyString(),
+                any(AuthorizationGrantCacheEntry.class));
+        verify(sessionDataStore).clearSessionData(TOKEN_ID, CACHE_NAME);
+        assertEquals(store.getCoalescedCount(), 1);
+        assertEquals(store.getClearedCount(), 1);
+    }
+
+    @Test
+    public void testFullStoreWritesOnCallerThread() {
+
+        AuthorizationGrantCacheWriteBehindStore store = new AuthorizationGrantCacheWriteBehindStore(CACHE_NAME,
+                true, 1);
+        AuthorizationGrantCacheEntry entry = createEntry();
+        store.store(CODE_ID, entry, true);
+        store.store(TOKEN_ID, entry, false);
+
+        verify(sessionDataStore).storeSessionData(TOKEN_ID, CACHE_NAME, entry);
+        assertEquals(store.getPendingCount(), 1);
+        assertEquals(store.getSynchronousWriteCount(), 1);
+    }
+
+    @Test
+    public void testFailedWriteIsRetriedAndThenDropped() {
+
+        AuthorizationGrantCacheWriteBehindStore store = new AuthorizationGrantCacheWriteBehindStore(CACHE_NAME,
+                true, 10);
+        AuthorizationGrantCacheEntry entry = createEntry();
+        doThrow(new IllegalStateException("test")).when(sessionDataStore).storeSessionData(TOKEN_ID, CACHE_NAME,
+                entry);
+        store.store(TOKEN_ID, entry, false);
+
+        store.flush();
+        store.flush();
+        assertEquals(store.getPendingCount(), 1, "Failed write should be kept for the next flush.");
+        assertSame(store.get(TOKEN_ID), entry);
+
+        store.flush();
+        verify(sessionDataStore, times(3)).storeSessionData(TOKEN_ID, CACHE_NAME, entry);
+        assertEquals(store.getPendingCount(), 0, "Write should be dropped after the last attempt.");
+        assertEquals(store.getFailedWriteCount(), 3);
+    }
+
+    @Test
+    public void testShutdownFlushesPendingOperations() {
+
+        AuthorizationGrantCacheWriteBehindStore store = new AuthorizationGrantCacheWriteBehindStore(CACHE_NAME,
+                true, 10);
+        AuthorizationGrantCacheEntry entry = createEntry();
+        store.store(TOKEN_ID, entry, false);
+
+        store.shutdown();
+        verify(sessionDataStore).storeSessionData(TOKEN_ID, CACHE_NAME, entry);
+        assertEquals(store.getPendingCount(), 0);
+
+        store.store(CODE_ID, entry, true);
+        verify(sessionDataStore).storeSessionData(CODE_ID, CACHE_NAME, entry);
+        assertEquals(store.getPendingCount(), 0, "Writes after shutdown should not be queued.");
+    }
+
+    private AuthorizationGrantCacheEntry createEntry() {
+
+        return new AuthorizationGrantCacheEntry(new HashMap<ClaimMapping, String>());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.oauth2.model.OAuth2Parameters;
+import org.wso2.carbon.identity.openidconnect.model.RequestObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for CacheEntryCodec.
+ */
+public class CacheEntryCodecTest {
+
+    private static final String EMAIL_CLAIM = "http://wso2.org/claims/emailaddress";
+    private static final String ROLE_CLAIM = "http://wso2.org/claims/role";
+
+    @Test
+    public void testAuthorizationGrantCacheEntryRoundTrip() throws Exception {
+
+        Map<ClaimMapping, String> userAttributes = new HashMap<>();
+        userAttributes.put(ClaimMapping.build(EMAIL_CLAIM, EMAIL_CLAIM, null, true), "admin@wso2.com");
+        userAttributes.put(ClaimMapping.build(ROLE_CLAIM, "roles", null, false), "admin,Internal/everyone");
+        AuthorizationGrantCacheEntry entry = new AuthorizationGrantCacheEntry(userAttributes);
+        entry.setCodeId("codeId");
+        entry.setTokenId("tokenId");
+        entry.setNonceValue("nonce");
+        entry.setPkceCodeChallenge("challenge");
+        entry.setPkceCodeChallengeMethod("S256");
+        LinkedHashSet<String> acrValues = new LinkedHashSet<>(Arrays.asList("acr1", "acr2"));
+        entry.setAcrValue(acrValues);
+        entry.setEssentialClaims("{\"id_token\":{}}");
+        entry.setAuthTime(1514764800000L);
+        entry.setMaxAge(-1);
+        entry.setSubjectClaim("admin");
+
+        AuthorizationGrantCacheEntry copy = roundTrip(entry);
+
+        assertEquals(copy.getCodeId(), "codeId");
+        assertEquals(copy.getTokenId(), "tokenId");
+        assertEquals(copy.getUserAttributes().size(), userAttributes.size());
+        assertEquals(new HashSet<>(copy.getUserAttributes().values()), new HashSet<>(userAttributes.values()));
+        assertEquals(copy.getNonceValue(), "nonce");
+        assertEquals(copy.getPkceCodeChallenge(), "challenge");
+        assertEquals(copy.getPkceCodeChallengeMethod(), "S256");
+        assertEquals(copy.getAcrValue(), acrValues);
+        assertEquals(copy.getEssentialClaims(), "{\"id_token\":{}}");
+        assertEquals(copy.getAuthTime(), 1514764800000L);
+        assertEquals(copy.getMaxAge(), -1);
+        assertNull(copy.getRequestObject());
+        assertEquals(copy.getSubjectClaim(), "admin");
+
+        for (ClaimMapping claimMapping : copy.getUserAttributes().keySet()) {
+            if (EMAIL_CLAIM.equals(claimMapping.getLocalClaim().getClaimUri())) {
+                assertSame(claimMapping.getLocalClaim().getClaimUri(), claimMapping.getRemoteClaim().getClaimUri(),
+                        "Repeated claim URIs should be shared.");
+                assertTrue(claimMapping.isRequested());
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyAuthorizationGrantCacheEntryRoundTrip() throws Exception {
+
+        AuthorizationGrantCacheEntry copy = roundTrip(new AuthorizationGrantCacheEntry(null));
+        assertNull(copy.getUserAttributes());
+        assertNull(copy.getAcrValue());
+        assertNull(copy.getCodeId());
+    }
+
+    @Test
+    public void testSessionDataCacheEntryRoundTrip() throws Exception {
+
+        SessionDataCacheEntry entry = new SessionDataCacheEntry();
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName("admin");
+        user.setTenantDomain("carbon.super");
+        user.setUserStoreDomain("PRIMARY");
+        entry.setLoggedInUser(user);
+        entry.setoAuth2Parameters(createOAuth2Parameters());
+        entry.setAuthTime(1514764800000L);
+        entry.setAuthenticatedIdPs("idps");
+        entry.setEssentialClaims("claims");
+        entry.setQueryString("client_id=client");
+        entry.getParamMap().put("scope", new String[]{"openid", "profile"});
+
+        SessionDataCacheEntry copy = roundTrip(entry);
+
+        assertEquals(copy.getLoggedInUser().getUserName(), "admin");
+        assertEquals(copy.getAuthTime(), 1514764800000L);
+        assertEquals(copy.getAuthenticatedIdPs(), "idps");
+        assertEquals(copy.getEssentialClaims(), "claims");
+        assertEquals(copy.getQueryString(), "client_id=client");
+        assertEquals(copy.getParamMap().get("scope"), new String[]{"openid", "profile"});
+        assertOAuth2ParametersEqual(copy.getoAuth2Parameters(), entry.getoAuth2Parameters());
+    }
+
+    @Test
+    public void testSessionDataCacheEntryWithoutParameters() throws Exception {
+
+        SessionDataCacheEntry copy = roundTrip(new SessionDataCacheEntry());
+        assertNull(copy.getoAuth2Parameters());
+        assertNotNull(copy.getParamMap());
+        assertTrue(copy.getParamMap().isEmpty());
+    }
+
+    /**
+     * Sets every field of the parameters, so that a field that is not encoded by the codec fails the test.
+     */
+    private OAuth2Parameters createOAuth2Parameters() throws IllegalAccessException {
+
+        OAuth2Parameters parameters = new OAuth2Parameters();
+        for (Field field : getFields()) {
+            Class<?> type = field.getType();
+            if (type == String.class) {
+                field.set(parameters, field.getName());
+            } else if (type == long.class) {
+                field.setLong(parameters, field.getName().length());
+            } else if (Set.class.isAssignableFrom(type)) {
+                field.set(parameters, new LinkedHashSet<>(Arrays.asList(field.getName(), "value")));
+            } else if (type == RequestObject.class) {
+                field.set(parameters, new RequestObject());
+            } else {
+                throw new AssertionError("Unexpected field type " + type + " of field " + field.getName());
+            }
+        }
+        return parameters;
+    }
+
+    private void assertOAuth2ParametersEqual(OAuth2Parameters actual, OAuth2Parameters expected)
+            throws IllegalAccessException {
+
+        for (Field field : getFields()) {
+            if (field.getType() == RequestObject.class) {
+                assertNotNull(field.get(actual), field.getName());
+            } else {
+                assertEquals(field.get(actual), field.get(expected), field.getName());
+            }
+        }
+    }
+
+    private List<Field> getFields() {
+
+        List<Field> fields = new ArrayList<>();
+        for (Field field : OAuth2Parameters.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T roundTrip(T entry) throws IOException, ClassNotFoundException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(entry);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.wso2.carbon.identity.oauth.listener;
 
 import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
 import org.testng.IObjectFactory;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.ObjectFactory;
@@ -26,22 +27,31 @@ import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.oauth.util.ClaimCacheKey;
 import org.wso2.carbon.identity.oauth.util.ClaimMetaDataCache;
+import org.wso2.carbon.identity.oauth.util.ClaimResolutionCache;
 import org.wso2.carbon.identity.oauth.util.UserClaims;
 
+import java.util.Collections;
 import java.util.SortedMap;
 import javax.cache.Cache;
 import javax.cache.event.CacheEntryEvent;
 
+import static org.powermock.api.mockito.PowerMockito.doReturn;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.spy;
 import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
-@PrepareForTest({ClaimMetaDataCache.class})
+@PrepareForTest({ClaimMetaDataCache.class, ClaimResolutionCache.class})
 public class ClaimCacheRemoveListenerTest {
 
     @Mock
     private ClaimMetaDataCache mockedClaimMetaDataCache;
 
+    @Mock
+    private ClaimResolutionCache mockedClaimResolutionCache;
+
     @DataProvider(name = "provideParams")
     public Object[][] providePostParams() {
         Cache cache = mock(Cache.class);
@@ -102,10 +112,49 @@ public class ClaimCacheRemoveListenerTest {
     public void testEntryRemoved(Object object) throws Exception {
         mockStatic(ClaimMetaDataCache.class);
         when(ClaimMetaDataCache.getInstance()).thenReturn(mockedClaimMetaDataCache);
+        mockStatic(ClaimResolutionCache.class);
+        when(ClaimResolutionCache.getInstance()).thenReturn(mockedClaimResolutionCache);
         ClaimCacheRemoveListener claimCacheRemoveListener = new ClaimCacheRemoveListener();
         claimCacheRemoveListener.entryRemoved((CacheEntryEvent<? extends ClaimCacheKey, ? extends UserClaims>) object);
     }
 
+    @Test
+    public void testEntryRemovedClearsResolvedClaimsOfSecondaryUser() throws Exception {
+        mockStatic(ClaimMetaDataCache.class);
+        when(ClaimMetaDataCache.getInstance()).thenReturn(mockedClaimMetaDataCache);
+        ClaimResolutionCache claimResolutionCache = Whitebox.invokeConstructor(ClaimResolutionCache.class,
+                new Class[]{long.class, int.class}, new Object[]{60000L, 100});
+        // The cache keys are built by the real static methods, hence only the instance is stubbed.
+        spy(ClaimResolutionCache.class);
+        doReturn(claimResolutionCache).when(ClaimResolutionCache.class, "getInstance");
+
+        // Added with the user store domain of the authenticated user, which is not normalized.
+        String cacheKey = ClaimResolutionCache.getCacheKey("user1", "secondary", "carbon.super");
+        claimResolutionCache.addClaims(cacheKey, "claimSet", Collections.singletonMap("claim1", "value1"));
+        assertNotNull(claimResolutionCache.getClaims(cacheKey, "claimSet"));
+
+        final AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName("user1");
+        authenticatedUser.setUserStoreDomain("SECONDARY");
+        authenticatedUser.setTenantDomain("carbon.super");
+        CacheEntryEvent<ClaimCacheKey, UserClaims> cacheEntryEvent =
+                new CacheEntryEvent<ClaimCacheKey, UserClaims>(mock(Cache.class)) {
+                    @Override
+                    public ClaimCacheKey getKey() {
+                        return new ClaimCacheKey(authenticatedUser);
+                    }
+
+                    @Override
+                    public UserClaims getValue() {
+                        return null;
+                    }
+                };
+
+        new ClaimCacheRemoveListener().entryRemoved(cacheEntryEvent);
+        assertNull(claimResolutionCache.getClaims(cacheKey, "claimSet"),
+                "Resolved claims of the secondary user store user should be evicted.");
+    }
+
     @ObjectFactory
     public IObjectFactory getObjectFactory() {
         return new org.powermock.modules.testng.PowerMockObjectFactory();
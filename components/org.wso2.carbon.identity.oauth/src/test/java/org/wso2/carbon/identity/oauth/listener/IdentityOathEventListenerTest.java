@@ -35,14 +35,19 @@ import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth.util.ClaimCache;
 import org.wso2.carbon.identity.oauth.util.ClaimMetaDataCache;
+import org.wso2.carbon.identity.oauth.util.ClaimResolutionCache;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.TokenMgtDAO;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.AuthorizationGrantCacheEvictor;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.UserRoleCache;
 import org.wso2.carbon.identity.testutil.IdentityBaseTest;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -51,6 +56,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.mock;
@@ -58,11 +64,13 @@ import static org.powermock.api.mockito.PowerMockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 import static org.powermock.api.mockito.PowerMockito.spy;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 @PrepareForTest({UserCoreUtil.class, IdentityTenantUtil.class, OAuthServerConfiguration.class,
         IdentityOathEventListener.class, AuthorizationGrantCache.class, IdentityUtil.class,
-        StringUtils.class, ClaimMetaDataCache.class,OAuth2Util.class})
+        StringUtils.class, ClaimMetaDataCache.class,OAuth2Util.class, AuthorizationGrantCacheEvictor.class})
 public class IdentityOathEventListenerTest extends IdentityBaseTest {
 
     private IdentityOathEventListener identityOathEventListener = new IdentityOathEventListener();
@@ -147,6 +155,71 @@ public class IdentityOathEventListenerTest extends IdentityBaseTest {
         assertTrue(listener2.doPreDeleteUser(username, userStoreManager));
     }
 
+    @Test
+    public void testDoPostUpdateRoleListOfUserClearsRolesOfSecondaryUser() throws Exception {
+        // Added the way the scope validator adds it, with the user store domain of the authorized user.
+        UserRoleCache userRoleCache = UserRoleCache.getInstance();
+        userRoleCache.addUserRoles(1, "secondary", username, new String[]{"role1"});
+        assertNotNull(userRoleCache.getUserRoles(1, "secondary", username));
+
+        IdentityEventListenerConfig listenerConfig = mock(IdentityEventListenerConfig.class);
+        when(IdentityUtil.readEventListenerProperty(anyString(), anyString())).thenReturn(listenerConfig);
+        when(StringUtils.isNotBlank(anyString())).thenReturn(true);
+        when(UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration())).thenReturn("SECONDARY");
+        when(userStoreManager.getTenantId()).thenReturn(1);
+
+        IdentityOathEventListener listener = new IdentityOathEventListener();
+        assertTrue(listener.doPostUpdateRoleListOfUser(username, new String[]{"role1"}, new String[0],
+                userStoreManager));
+        assertNull(userRoleCache.getUserRoles(1, "secondary", username),
+                "Roles of the secondary user store user should be evicted.");
+    }
+
+    @Test
+    public void testDoPostAddRoleClearsRolesOfUsers() throws Exception {
+        UserRoleCache userRoleCache = UserRoleCache.getInstance();
+        userRoleCache.addUserRoles(1, "secondary", "user1", new String[0]);
+        userRoleCache.addUserRoles(1, "secondary", "user2", new String[0]);
+        AuthorizationGrantCacheEvictor grantCacheEvictor = mock(AuthorizationGrantCacheEvictor.class);
+        mockStatic(AuthorizationGrantCacheEvictor.class);
+        when(AuthorizationGrantCacheEvictor.getInstance()).thenReturn(grantCacheEvictor);
+
+        IdentityEventListenerConfig listenerConfig = mock(IdentityEventListenerConfig.class);
+        when(IdentityUtil.readEventListenerProperty(anyString(), anyString())).thenReturn(listenerConfig);
+        when(StringUtils.isNotBlank(anyString())).thenReturn(true);
+        when(UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration())).thenReturn("SECONDARY");
+        when(userStoreManager.getTenantId()).thenReturn(1);
+        when(IdentityTenantUtil.getTenantDomain(1)).thenReturn("carbon.super");
+
+        IdentityOathEventListener listener = new IdentityOathEventListener();
+        assertTrue(listener.doPostAddRole("role1", new String[]{"user1", "user2"}, null, userStoreManager));
+        assertNull(userRoleCache.getUserRoles(1, "secondary", "user1"),
+                "Roles of the users of a new role should be evicted.");
+        assertNull(userRoleCache.getUserRoles(1, "secondary", "user2"),
+                "Roles of the users of a new role should be evicted.");
+        verify(grantCacheEvictor).evict("carbon.super", "SECONDARY", Arrays.asList("user1", "user2"));
+    }
+
+    @Test
+    public void testDoPostUpdateRoleListOfUserClearsResolvedClaimsOfSecondaryUser() throws Exception {
+        // Added the way the claims callback handler adds it, with the user store domain of the authenticated user.
+        ClaimResolutionCache claimResolutionCache = ClaimResolutionCache.getInstance();
+        String cacheKey = ClaimResolutionCache.getCacheKey(username, "secondary", "carbon.super");
+        claimResolutionCache.addClaims(cacheKey, "claimSet", Collections.singletonMap(claimUri, claimValue));
+        assertNotNull(claimResolutionCache.getClaims(cacheKey, "claimSet"));
+
+        when(IdentityUtil.readEventListenerProperty(anyString(), anyString())).thenReturn(null);
+        when(UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration())).thenReturn("SECONDARY");
+        when(userStoreManager.getTenantId()).thenReturn(1);
+        when(IdentityTenantUtil.getTenantDomain(1)).thenReturn("carbon.super");
+
+        IdentityOathEventListener listener = new IdentityOathEventListener();
+        assertTrue(listener.doPostUpdateRoleListOfUser(username, new String[]{"role1"}, new String[0],
+                userStoreManager));
+        assertNull(claimResolutionCache.getClaims(cacheKey, "claimSet"),
+                "Resolved claims of the secondary user store user should be evicted.");
+    }
+
     @Test
     public void testDoPreSetUserClaimValue() throws Exception {
         Set<String> accessToken = new HashSet<>();
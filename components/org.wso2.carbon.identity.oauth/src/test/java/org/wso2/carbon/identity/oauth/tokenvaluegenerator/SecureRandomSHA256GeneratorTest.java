@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.tokenvaluegenerator;
+
+import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for SecureRandomSHA256Generator.
+ */
+public class SecureRandomSHA256GeneratorTest {
+
+    @Test
+    public void testGenerateValue() throws Exception {
+
+        SecureRandomSHA256Generator generator = new SecureRandomSHA256Generator();
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String value = generator.generateValue();
+            assertTrue(value.matches("[0-9a-f]{64}"), "Should generate a 64 character hex value: " + value);
+            values.add(value);
+        }
+        assertEquals(values.size(), 100, "Generated values should be unique.");
+    }
+
+    @Test
+    public void testGenerateValueIsCompatibleWithSHA256Generator() throws Exception {
+
+        SecureRandomSHA256Generator generator = new SecureRandomSHA256Generator();
+        String value = generator.generateValue("value");
+        assertEquals(value, new SHA256Generator().generateValue("value"));
+        assertEquals(generator.generateValue("value"), value, "Buffers should not leak into the next value.");
+        assertNotEquals(generator.generateValue("other"), value);
+    }
+
+    @Test(expectedExceptions = OAuthSystemException.class)
+    public void testGenerateValueException() throws Exception {
+
+        new SecureRandomSHA256Generator().generateValue(null);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.util;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit tests for ClaimResolutionCache.
+ */
+public class ClaimResolutionCacheTest extends IdentityBaseTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String USER_NAME = "user1";
+    private static final String CLAIM_SET_KEY = "claimSet";
+
+    @Test
+    public void testSecondaryUserEntryIsClearedWithNormalizedDomain() {
+
+        ClaimResolutionCache cache = new ClaimResolutionCache(60000, 100);
+        // Added with the user store domain of the authenticated user and cleared with the domain of the user store.
+        cache.addClaims(ClaimResolutionCache.getCacheKey(USER_NAME, "secondary", TENANT_DOMAIN), CLAIM_SET_KEY,
+                Collections.singletonMap("http://wso2.org/claims/email", "user1@wso2.com"));
+        assertNotNull(cache.getClaims(ClaimResolutionCache.getCacheKey(USER_NAME, "SECONDARY", TENANT_DOMAIN),
+                CLAIM_SET_KEY));
+
+        cache.clearCacheEntry(USER_NAME, "SECONDARY", TENANT_DOMAIN);
+        assertNull(cache.getClaims(ClaimResolutionCache.getCacheKey(USER_NAME, "secondary", TENANT_DOMAIN),
+                CLAIM_SET_KEY));
+    }
+
+    @Test
+    public void testClaimsArePerClaimSet() {
+
+        ClaimResolutionCache cache = new ClaimResolutionCache(60000, 100);
+        String key = ClaimResolutionCache.getCacheKey(USER_NAME, "PRIMARY", TENANT_DOMAIN);
+        cache.addClaims(key, CLAIM_SET_KEY, Collections.singletonMap("claim1", "value1"));
+        cache.addClaims(key, "otherClaimSet", Collections.singletonMap("claim2", "value2"));
+
+        Map<String, String> claims = cache.getClaims(key, CLAIM_SET_KEY);
+        assertEquals(claims, Collections.singletonMap("claim1", "value1"));
+        assertEquals(cache.getClaims(key, "otherClaimSet"), Collections.singletonMap("claim2", "value2"));
+
+        claims.put("claim3", "value3");
+        assertEquals(cache.getClaims(key, CLAIM_SET_KEY).size(), 1, "Cached claims should not be modified.");
+    }
+
+    @Test
+    public void testExpiredClaimsAreNotReturned() {
+
+        ClaimResolutionCache cache = new ClaimResolutionCache(0, 100);
+        String key = ClaimResolutionCache.getCacheKey(USER_NAME, "PRIMARY", TENANT_DOMAIN);
+        cache.addClaims(key, CLAIM_SET_KEY, Collections.singletonMap("claim1", "value1"));
+        assertNull(cache.getClaims(key, CLAIM_SET_KEY));
+    }
+
+    @Test
+    public void testUnknownUserIsNotCached() {
+
+        assertNull(ClaimResolutionCache.getCacheKey(null, "PRIMARY", TENANT_DOMAIN));
+        assertNull(ClaimResolutionCache.getCacheKey(USER_NAME, "PRIMARY", null));
+    }
+}
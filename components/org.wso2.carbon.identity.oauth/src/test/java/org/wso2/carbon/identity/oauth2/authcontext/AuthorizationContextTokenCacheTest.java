@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.authcontext;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for AuthorizationContextTokenCache.
+ */
+public class AuthorizationContextTokenCacheTest extends IdentityBaseTest {
+
+    private static final String ACCESS_TOKEN = "accessToken";
+    private static final String CLAIM_SET_KEY = "RS256 http://wso2.org/claims/email";
+
+    @Test
+    public void testGetToken() {
+
+        AuthorizationContextTokenCache cache = new AuthorizationContextTokenCache(10);
+        OAuthAppDO appDO = new OAuthAppDO();
+        long now = System.currentTimeMillis();
+        cache.addToken(ACCESS_TOKEN, CLAIM_SET_KEY,
+                new AuthorizationContextTokenCache.ContextToken("contextToken", appDO, now + 60000));
+
+        AuthorizationContextTokenCache.ContextToken token = cache.getToken(ACCESS_TOKEN, CLAIM_SET_KEY, now);
+        assertNotNull(token);
+        assertEquals(token.getTokenString(), "contextToken");
+        assertSame(token.getAppDO(), appDO);
+        assertNull(cache.getToken(ACCESS_TOKEN, "RS256 *", now), "Tokens should be cached per claim set.");
+        assertNull(cache.getToken("otherAccessToken", CLAIM_SET_KEY, now));
+    }
+
+    @Test
+    public void testTokenAboutToExpireIsNotReturned() {
+
+        AuthorizationContextTokenCache cache = new AuthorizationContextTokenCache(10);
+        long now = System.currentTimeMillis();
+        cache.addToken(ACCESS_TOKEN, CLAIM_SET_KEY,
+                new AuthorizationContextTokenCache.ContextToken("contextToken", null, now + 1000));
+
+        assertNull(cache.getToken(ACCESS_TOKEN, CLAIM_SET_KEY, now + 1000));
+        assertNull(cache.getToken(ACCESS_TOKEN, CLAIM_SET_KEY, now), "Expired token should be removed.");
+    }
+
+    @Test
+    public void testClearCacheEntry() {
+
+        AuthorizationContextTokenCache cache = new AuthorizationContextTokenCache(10);
+        long expiryTime = System.currentTimeMillis() + 60000;
+        cache.addToken(ACCESS_TOKEN, CLAIM_SET_KEY,
+                new AuthorizationContextTokenCache.ContextToken("contextToken", null, expiryTime));
+        cache.addToken(ACCESS_TOKEN, "RS256 *",
+                new AuthorizationContextTokenCache.ContextToken("defaultClaimsToken", null, expiryTime));
+
+        cache.clearCacheEntry(ACCESS_TOKEN);
+        assertNull(cache.getToken(ACCESS_TOKEN, CLAIM_SET_KEY, 0));
+        assertNull(cache.getToken(ACCESS_TOKEN, "RS256 *", 0));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testMaxEntries() {
+
+        AuthorizationContextTokenCache cache = new AuthorizationContextTokenCache(1);
+        long now = System.currentTimeMillis();
+        cache.addToken(ACCESS_TOKEN, CLAIM_SET_KEY,
+                new AuthorizationContextTokenCache.ContextToken("contextToken", null, now + 60000));
+        cache.addToken(ACCESS_TOKEN, "RS256 *",
+                new AuthorizationContextTokenCache.ContextToken("defaultClaimsToken", null, now + 30000));
+        assertEquals(cache.size(), 1, "Tokens of the same access token should share an entry.");
+
+        cache.addToken("otherAccessToken", CLAIM_SET_KEY,
+                new AuthorizationContextTokenCache.ContextToken("otherToken", null, now + 120000));
+        assertNotNull(cache.getToken("otherAccessToken", CLAIM_SET_KEY, now), "Full cache should still add entries.");
+        assertNull(cache.getToken(ACCESS_TOKEN, CLAIM_SET_KEY, now), "Soonest to expire entry should be evicted.");
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testEntryIsKeptUntilLastTokenExpires() {
+
+        AuthorizationContextTokenCache cache = new AuthorizationContextTokenCache(1);
+        long now = System.currentTimeMillis();
+        cache.addToken(ACCESS_TOKEN, CLAIM_SET_KEY,
+                new AuthorizationContextTokenCache.ContextToken("contextToken", null, now + 120000));
+        cache.addToken(ACCESS_TOKEN, "RS256 *",
+                new AuthorizationContextTokenCache.ContextToken("defaultClaimsToken", null, now + 30000));
+        cache.addToken("otherAccessToken", CLAIM_SET_KEY,
+                new AuthorizationContextTokenCache.ContextToken("otherToken", null, now + 60000));
+
+        assertNotNull(cache.getToken(ACCESS_TOKEN, CLAIM_SET_KEY, now));
+        assertNull(cache.getToken("otherAccessToken", CLAIM_SET_KEY, now));
+    }
+}
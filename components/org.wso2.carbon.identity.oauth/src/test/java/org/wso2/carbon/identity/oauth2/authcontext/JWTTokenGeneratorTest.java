@@ -16,10 +16,12 @@
 package org.wso2.carbon.identity.oauth2.authcontext;
 
 import com.nimbusds.jose.JWSAlgorithm;
+import org.mockito.ArgumentCaptor;
 import org.mockito.internal.util.reflection.Whitebox;
 import org.testng.Assert;
 import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeTest;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
@@ -50,7 +52,13 @@ import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @WithCarbonHome
 @WithRealmService(tenantId = MultitenantConstants.SUPER_TENANT_ID,
@@ -183,6 +191,83 @@ public class JWTTokenGeneratorTest extends PowerMockIdentityBaseTest {
         Assert.assertEquals(signatureAlgorithm.getName(), "none");
     }
 
+    @DataProvider(name = "accessTokenValidityProvider")
+    public Object[][] accessTokenValidityProvider() {
+
+        return new Object[][]{
+                // Access token expires before the context token
+                {10 * 60 * 1000L},
+                // Context token expires before the access token
+                {60 * 60 * 1000L}
+        };
+    }
+
+    @Test(dependsOnMethods = "testGenerateToken", dataProvider = "accessTokenValidityProvider")
+    public void testGenerateTokenUsesCachedToken(long accessTokenValidityPeriod) throws Exception {
+
+        long ttl = 15L;
+        JWTTokenGenerator tokenGenerator = new JWTTokenGenerator(includeClaims, enableSigning);
+        tokenGenerator.init();
+        Whitebox.setInternalState(tokenGenerator, "ttl", ttl);
+        Whitebox.setInternalState(tokenGenerator, "claimsLocalCache", ClaimCache.getInstance());
+        AuthorizationContextTokenCache contextTokenCache = spy(new AuthorizationContextTokenCache(10));
+        Whitebox.setInternalState(tokenGenerator, "contextTokenCache", contextTokenCache);
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setAccessToken("accessToken" + accessTokenValidityPeriod);
+        accessTokenDO.setConsumerKey("sampleConsumerKey");
+        accessTokenDO.setIssuedTime(new Timestamp(System.currentTimeMillis()));
+        accessTokenDO.setValidityPeriodInMillis(accessTokenValidityPeriod);
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName("testUser");
+        user.setUserStoreDomain("PRIMARY");
+        user.setTenantDomain("carbon.super");
+        accessTokenDO.setAuthzUser(user);
+        accessTokenDO.setTenantID(MultitenantConstants.SUPER_TENANT_ID);
+
+        long startTime = System.currentTimeMillis();
+        OAuth2TokenValidationMessageContext firstContext = createMessageContext(accessTokenDO);
+        tokenGenerator.generateToken(firstContext);
+        long endTime = System.currentTimeMillis();
+        OAuth2TokenValidationMessageContext secondContext = createMessageContext(accessTokenDO);
+        tokenGenerator.generateToken(secondContext);
+
+        // The context token is only added to the cache right after it is built and signed
+        ArgumentCaptor<AuthorizationContextTokenCache.ContextToken> contextToken =
+                ArgumentCaptor.forClass(AuthorizationContextTokenCache.ContextToken.class);
+        verify(contextTokenCache, times(1)).addToken(eq(accessTokenDO.getAccessToken()), anyString(),
+                contextToken.capture());
+        verify(contextTokenCache, times(2)).getToken(eq(accessTokenDO.getAccessToken()), anyString(),
+                anyLong());
+
+        String tokenString = firstContext.getResponseDTO().getAuthorizationContextToken().getTokenString();
+        Assert.assertEquals(secondContext.getResponseDTO().getAuthorizationContextToken().getTokenString(),
+                tokenString, "Cached context token should be returned.");
+        Assert.assertEquals(contextToken.getValue().getTokenString(), tokenString);
+        Assert.assertNotNull(secondContext.getProperty("OAuthAppDO"));
+
+        long accessTokenExpiryTime = accessTokenDO.getIssuedTime().getTime() + accessTokenValidityPeriod;
+        long ttlInMillis = ttl * 60 * 1000;
+        if (accessTokenExpiryTime < startTime + ttlInMillis) {
+            Assert.assertEquals(contextToken.getValue().getExpiryTime(), accessTokenExpiryTime,
+                    "Cached token should expire with the access token.");
+        } else {
+            Assert.assertTrue(contextToken.getValue().getExpiryTime() >= startTime + ttlInMillis &&
+                            contextToken.getValue().getExpiryTime() <= endTime + ttlInMillis,
+                    "Cached token should expire with the context token.");
+        }
+    }
+
+    private OAuth2TokenValidationMessageContext createMessageContext(AccessTokenDO accessTokenDO) {
+
+        OAuth2TokenValidationResponseDTO responseDTO = new OAuth2TokenValidationResponseDTO();
+        responseDTO.setAuthorizedUser("testUser");
+        OAuth2TokenValidationMessageContext messageContext =
+                new OAuth2TokenValidationMessageContext(new OAuth2TokenValidationRequestDTO(), responseDTO);
+        messageContext.addProperty("AccessTokenDO", accessTokenDO);
+        return messageContext;
+    }
+
     private void addSampleOauth2Application() throws IdentityOAuthAdminException {
 
         OAuthAppDO oAuthAppDO = new OAuthAppDO();
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
+import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for AccessTokenDAOImpl.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class, OAuthServerConfiguration.class})
+public class AccessTokenDAOImplTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "ACCESS_TOKEN_DAO_DB";
+    private static final String USER_NAME = "TestUser";
+
+    @Mock
+    private OAuthServerConfiguration mockedOAuthServerConfiguration;
+
+    @Mock
+    private RealmService mockedRealmService;
+
+    @Mock
+    private TenantManager mockedTenantManager;
+
+    private Connection connection;
+    private AccessTokenDAOImpl accessTokenDAO;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("token.sql"));
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(mockedOAuthServerConfiguration);
+        when(mockedOAuthServerConfiguration.getPersistenceProcessor()).thenReturn(new PlainTextPersistenceProcessor());
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getPrimaryDomainName()).thenReturn("PRIMARY");
+
+        OAuthComponentServiceHolder.getInstance().setRealmService(mockedRealmService);
+        when(mockedRealmService.getTenantManager()).thenReturn(mockedTenantManager);
+        when(mockedTenantManager.getTenantId(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME))
+                .thenReturn(MultitenantConstants.SUPER_TENANT_ID);
+
+        connection = DAOUtils.getConnection(DB_NAME);
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection()).thenReturn(connection);
+        accessTokenDAO = new AccessTokenDAOImpl();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        connection.close();
+    }
+
+    @Test
+    public void testRevokeAccessTokensOfUser() throws Exception {
+
+        when(IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString())).thenReturn(true);
+        String consumerKey = createApplication();
+        String otherConsumerKey = createApplication();
+        createAccessToken(consumerKey, "user1", USER_NAME, "PRIMARY", OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE,
+                "scope1", "scope2");
+        createAccessToken(consumerKey, "user2", USER_NAME, "PRIMARY", OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED,
+                "scope1", "scope2");
+        createAccessToken(otherConsumerKey, "user3", USER_NAME, "PRIMARY",
+                OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        createAccessToken(consumerKey, "user4", USER_NAME, "PRIMARY", OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE);
+        createAccessToken(consumerKey, "user5", USER_NAME, "SECONDARY", OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        createAccessToken(consumerKey, "user6", "OtherUser", "PRIMARY", OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+
+        List<AccessTokenDO> revokedTokens = accessTokenDAO.revokeAccessTokensOfUser(getUser(USER_NAME));
+
+        Map<String, AccessTokenDO> revokedTokensById = new HashMap<>();
+        for (AccessTokenDO accessTokenDO : revokedTokens) {
+            revokedTokensById.put(accessTokenDO.getTokenId(), accessTokenDO);
+        }
+        assertEquals(revokedTokensById.keySet().size(), 3);
+        assertTrue(revokedTokensById.keySet().containsAll(Arrays.asList("user1", "user2", "user3")));
+        AccessTokenDO accessTokenDO = revokedTokensById.get("user1");
+        assertEquals(accessTokenDO.getAccessToken(), "accessToken-user1");
+        assertEquals(accessTokenDO.getConsumerKey(), consumerKey);
+        assertEquals(accessTokenDO.getTenantID(), MultitenantConstants.SUPER_TENANT_ID);
+        assertEquals(Arrays.asList(accessTokenDO.getScope()).size(), 2);
+        assertTrue(Arrays.asList(accessTokenDO.getScope()).containsAll(Arrays.asList("scope1", "scope2")));
+        assertEquals(revokedTokensById.get("user3").getScope().length, 0);
+
+        for (String tokenId : Arrays.asList("user1", "user2", "user3")) {
+            assertEquals(getAccessTokenState(tokenId), OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        }
+        assertEquals(getAccessTokenState("user4"), OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE);
+        assertEquals(getAccessTokenState("user5"), OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        assertEquals(getAccessTokenState("user6"), OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        assertTrue(accessTokenDAO.revokeAccessTokensOfUser(getUser(USER_NAME)).isEmpty(),
+                "Revoked tokens should not be revoked again.");
+    }
+
+    @Test
+    public void testRevokeAccessTokensOfUserWithCaseInsensitiveUsername() throws Exception {
+
+        String consumerKey = createApplication();
+        createAccessToken(consumerKey, "case1", "CaseUser", "PRIMARY", OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+
+        when(IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString())).thenReturn(true);
+        assertTrue(accessTokenDAO.revokeAccessTokensOfUser(getUser("CASEUSER")).isEmpty());
+        assertEquals(getAccessTokenState("case1"), OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+
+        when(IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString())).thenReturn(false);
+        List<AccessTokenDO> revokedTokens = accessTokenDAO.revokeAccessTokensOfUser(getUser("CASEUSER"));
+        assertEquals(revokedTokens.size(), 1);
+        assertEquals(revokedTokens.get(0).getTokenId(), "case1");
+        assertEquals(getAccessTokenState("case1"), OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+    }
+
+    private AuthenticatedUser getUser(String userName) {
+
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName(userName);
+        authenticatedUser.setUserStoreDomain("PRIMARY");
+        authenticatedUser.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        return authenticatedUser;
+    }
+
+    private String createApplication() throws Exception {
+
+        String consumerKey = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH_CONSUMER_APPS " +
+                     "(CONSUMER_KEY, CONSUMER_SECRET, USERNAME, TENANT_ID, USER_DOMAIN, APP_NAME) VALUES " +
+                     "(?,?,?,?,?,?)")) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, "testUser");
+            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            prepStmt.setString(5, "PRIMARY");
+            prepStmt.setString(6, consumerKey);
+            prepStmt.execute();
+        }
+        return consumerKey;
+    }
+
+    private void createAccessToken(String consumerKey, String tokenId, String userName, String userStoreDomain,
+                                   String tokenState, String... scopes) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN " +
+                     "(TOKEN_ID, ACCESS_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, TOKEN_STATE, " +
+                     "TOKEN_STATE_ID) SELECT ?,?,ID,?,?,?,?,? FROM IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY=?");
+             PreparedStatement scopeStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE " +
+                     "(TOKEN_ID, TOKEN_SCOPE) VALUES (?,?)")) {
+            prepStmt.setString(1, tokenId);
+            prepStmt.setString(2, "accessToken-" + tokenId);
+            prepStmt.setString(3, userName);
+            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            prepStmt.setString(5, userStoreDomain);
+            prepStmt.setString(6, tokenState);
+            prepStmt.setString(7, tokenId);
+            prepStmt.setString(8, consumerKey);
+            prepStmt.execute();
+            for (String scope : scopes) {
+                scopeStmt.setString(1, tokenId);
+                scopeStmt.setString(2, scope);
+                scopeStmt.execute();
+            }
+        }
+    }
+
+    private String getAccessTokenState(String tokenId) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("SELECT TOKEN_STATE FROM " +
+                     "IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID=?")) {
+            prepStmt.setString(1, tokenId);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+}
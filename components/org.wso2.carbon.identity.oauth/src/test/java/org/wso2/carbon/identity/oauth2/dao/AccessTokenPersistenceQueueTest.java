@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for AccessTokenPersistenceQueue.
+ */
+public class AccessTokenPersistenceQueueTest extends IdentityBaseTest {
+
+    @Test
+    public void testOfferWhenDisabled() {
+
+        AccessTokenPersistenceQueue persistenceQueue = new AccessTokenPersistenceQueue(0, 10);
+
+        assertFalse(persistenceQueue.isEnabled());
+        assertFalse(persistenceQueue.offer(createAccessContextTokenDO("token")),
+                "Access tokens should be persisted synchronously when the pool size is zero.");
+        assertEquals(persistenceQueue.getMetrics().getQueueDepth(), 0);
+    }
+
+    @Test
+    public void testOfferWhenQueueIsFull() {
+
+        AccessTokenPersistenceQueue persistenceQueue = new AccessTokenPersistenceQueue(1, 1);
+
+        assertTrue(persistenceQueue.isEnabled());
+        assertTrue(persistenceQueue.offer(createAccessContextTokenDO("token1")));
+        assertFalse(persistenceQueue.offer(createAccessContextTokenDO("token2")),
+                "Access tokens should be persisted synchronously when the queue is full.");
+        assertEquals(persistenceQueue.getMetrics().getQueueDepth(), 1);
+        assertEquals(persistenceQueue.getMetrics().getBackPressureCount(), 1);
+    }
+
+    private AccessContextTokenDO createAccessContextTokenDO(String accessToken) {
+
+        return new AccessContextTokenDO(accessToken, "consumerKey", new AccessTokenDO(), null, "PRIMARY");
+    }
+}
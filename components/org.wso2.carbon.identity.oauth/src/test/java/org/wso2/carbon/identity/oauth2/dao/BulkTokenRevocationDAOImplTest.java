@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
+import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for BulkTokenRevocationDAOImpl.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, OAuthServerConfiguration.class})
+public class BulkTokenRevocationDAOImplTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "BULK_TOKEN_REVOCATION_DB";
+
+    @Mock
+    private OAuthServerConfiguration mockedOAuthServerConfiguration;
+
+    @Mock
+    private RealmService mockedRealmService;
+
+    @Mock
+    private TenantManager mockedTenantManager;
+
+    private Connection connection;
+    private BulkTokenRevocationDAOImpl revocationDAO;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("token.sql"));
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(mockedOAuthServerConfiguration);
+        when(mockedOAuthServerConfiguration.getPersistenceProcessor()).thenReturn(new PlainTextPersistenceProcessor());
+
+        OAuthComponentServiceHolder.getInstance().setRealmService(mockedRealmService);
+        when(mockedRealmService.getTenantManager()).thenReturn(mockedTenantManager);
+        when(mockedTenantManager.getDomain(MultitenantConstants.SUPER_TENANT_ID))
+                .thenReturn(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+        connection = DAOUtils.getConnection(DB_NAME);
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection()).thenReturn(connection);
+        revocationDAO = new BulkTokenRevocationDAOImpl();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        connection.close();
+    }
+
+    @Test
+    public void testAccessTokensArePagedByTokenId() throws Exception {
+
+        String consumerKey = createApplication();
+        List<String> tokenIds = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            tokenIds.add(createAccessToken(consumerKey, "page" + i, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE,
+                    "scope1", "scope2"));
+        }
+        createAccessToken(createApplication(), "otherApplication", OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        TokenRevocationFilter filter = TokenRevocationFilter.forConsumerKey(consumerKey);
+
+        List<AccessTokenDO> firstChunk = revocationDAO.getAccessTokens(filter, null, null, 2);
+        assertEquals(getTokenIds(firstChunk), tokenIds.subList(0, 2));
+        List<AccessTokenDO> secondChunk = revocationDAO.getAccessTokens(filter, null, "page2", 2);
+        assertEquals(getTokenIds(secondChunk), tokenIds.subList(2, 4));
+        List<AccessTokenDO> lastChunk = revocationDAO.getAccessTokens(filter, null, "page4", 2);
+        assertEquals(getTokenIds(lastChunk), tokenIds.subList(4, 5));
+
+        AccessTokenDO accessTokenDO = firstChunk.get(0);
+        assertEquals(accessTokenDO.getConsumerKey(), consumerKey);
+        assertEquals(accessTokenDO.getAccessToken(), "accessToken-page1");
+        assertEquals(accessTokenDO.getAuthzUser().getTenantDomain(), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        assertEquals(Arrays.asList(accessTokenDO.getScope()).size(), 2);
+        assertTrue(Arrays.asList(accessTokenDO.getScope()).containsAll(Arrays.asList("scope1", "scope2")));
+        assertEquals(getAccessTokenState("page1"), OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE,
+                "Retrieving tokens should not revoke them.");
+    }
+
+    @Test
+    public void testRevokeChunkOfExactlyChunkSize() throws Exception {
+
+        String consumerKey = createApplication();
+        createAccessToken(consumerKey, "boundary1", OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        createAccessToken(consumerKey, "boundary2", OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+        createAccessToken(consumerKey, "boundary3", OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        createAccessToken(consumerKey, "boundary4", OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE);
+        TokenRevocationFilter filter = TokenRevocationFilter.forConsumerKey(consumerKey);
+
+        List<AccessTokenDO> revokedTokens = revocationDAO.revokeAccessTokens(filter, null, null, 3);
+        assertEquals(getTokenIds(revokedTokens), Arrays.asList("boundary1", "boundary2", "boundary3"));
+        assertTrue(revocationDAO.revokeAccessTokens(filter, null, "boundary3", 3).isEmpty(),
+                "Chunk following a full chunk should be empty.");
+
+        assertEquals(getAccessTokenState("boundary1"), OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        assertEquals(getAccessTokenState("boundary2"), OAuthConstants.TokenStates.TOKEN_STATE_REVOKED,
+                "EXPIRED tokens should be revoked.");
+        assertEquals(getAccessTokenState("boundary3"), OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        assertEquals(getAccessTokenState("boundary4"), OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE);
+        assertTrue(revocationDAO.revokeAccessTokens(filter, null, null, 3).isEmpty(),
+                "Revoked tokens should not match the filter again.");
+    }
+
+    @Test
+    public void testRevokeAuthorizationCodesInChunks() throws Exception {
+
+        String consumerKey = createApplication();
+        createAuthorizationCode(consumerKey, "code1", OAuthConstants.AuthorizationCodeState.ACTIVE);
+        createAuthorizationCode(consumerKey, "code2", OAuthConstants.AuthorizationCodeState.ACTIVE);
+        createAuthorizationCode(consumerKey, "code3", OAuthConstants.AuthorizationCodeState.INACTIVE);
+        TokenRevocationFilter filter = TokenRevocationFilter.forConsumerKey(consumerKey);
+
+        List<AuthzCodeDO> revokedCodes = revocationDAO.revokeAuthorizationCodes(filter, null, 2);
+        assertEquals(revokedCodes.size(), 2);
+        assertEquals(revokedCodes.get(0).getAuthzCodeId(), "code1");
+        assertEquals(revokedCodes.get(0).getAuthorizationCode(), "authorizationCode-code1");
+        assertEquals(revokedCodes.get(0).getConsumerKey(), consumerKey);
+        assertTrue(revocationDAO.revokeAuthorizationCodes(filter, "code2", 2).isEmpty());
+
+        assertEquals(getAuthorizationCodeState("code1"), OAuthConstants.AuthorizationCodeState.REVOKED);
+        assertEquals(getAuthorizationCodeState("code2"), OAuthConstants.AuthorizationCodeState.REVOKED);
+        assertEquals(getAuthorizationCodeState("code3"), OAuthConstants.AuthorizationCodeState.INACTIVE);
+    }
+
+    private List<String> getTokenIds(List<AccessTokenDO> accessTokens) {
+
+        List<String> tokenIds = new ArrayList<>();
+        for (AccessTokenDO accessTokenDO : accessTokens) {
+            tokenIds.add(accessTokenDO.getTokenId());
+        }
+        return tokenIds;
+    }
+
+    private String createApplication() throws Exception {
+
+        String consumerKey = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH_CONSUMER_APPS " +
+                     "(CONSUMER_KEY, CONSUMER_SECRET, USERNAME, TENANT_ID, USER_DOMAIN, APP_NAME) VALUES " +
+                     "(?,?,?,?,?,?)")) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, "testUser");
+            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            prepStmt.setString(5, "PRIMARY");
+            prepStmt.setString(6, consumerKey);
+            prepStmt.execute();
+        }
+        return consumerKey;
+    }
+
+    private String createAccessToken(String consumerKey, String tokenId, String tokenState, String... scopes)
+            throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN " +
+                     "(TOKEN_ID, ACCESS_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, TOKEN_STATE, " +
+                     "TOKEN_STATE_ID) SELECT ?,?,ID,?,?,?,?,? FROM IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY=?");
+             PreparedStatement scopeStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE " +
+                     "(TOKEN_ID, TOKEN_SCOPE) VALUES (?,?)")) {
+            prepStmt.setString(1, tokenId);
+            prepStmt.setString(2, "accessToken-" + tokenId);
+            prepStmt.setString(3, "testUser");
+            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            prepStmt.setString(5, "PRIMARY");
+            prepStmt.setString(6, tokenState);
+            prepStmt.setString(7, tokenId);
+            prepStmt.setString(8, consumerKey);
+            prepStmt.execute();
+            for (String scope : scopes) {
+                scopeStmt.setString(1, tokenId);
+                scopeStmt.setString(2, scope);
+                scopeStmt.execute();
+            }
+        }
+        return tokenId;
+    }
+
+    private void createAuthorizationCode(String consumerKey, String codeId, String state) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH2_AUTHORIZATION_CODE " +
+                     "(CODE_ID, AUTHORIZATION_CODE, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, STATE) " +
+                     "SELECT ?,?,ID,?,?,?,? FROM IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY=?")) {
+            prepStmt.setString(1, codeId);
+            prepStmt.setString(2, "authorizationCode-" + codeId);
+            prepStmt.setString(3, "testUser");
+            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            prepStmt.setString(5, "PRIMARY");
+            prepStmt.setString(6, state);
+            prepStmt.setString(7, consumerKey);
+            prepStmt.execute();
+        }
+    }
+
+    private String getAccessTokenState(String tokenId) throws Exception {
+
+        return getState("SELECT TOKEN_STATE FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID=?", tokenId);
+    }
+
+    private String getAuthorizationCodeState(String codeId) throws Exception {
+
+        return getState("SELECT STATE FROM IDN_OAUTH2_AUTHORIZATION_CODE WHERE CODE_ID=?", codeId);
+    }
+
+    private String getState(String sql, String id) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            prepStmt.setString(1, id);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for TokenBatchPersistenceTask.
+ */
+public class TokenBatchPersistenceTaskTest extends IdentityBaseTest {
+
+    private static final int QUEUE_SIZE = 10;
+
+    private BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+
+    private TokenPersistenceMetrics metrics;
+
+    @BeforeMethod
+    public void setUp() {
+
+        accessContextTokenQueue = new LinkedBlockingDeque<>(QUEUE_SIZE);
+        metrics = new TokenPersistenceMetrics(accessContextTokenQueue);
+    }
+
+    @Test
+    public void testNextBatchIsBoundedByBatchSize() throws Exception {
+
+        for (int i = 0; i < 7; i++) {
+            accessContextTokenQueue.offerLast(createAccessContextTokenDO("token" + i));
+        }
+        TokenBatchPersistenceTask task = new TokenBatchPersistenceTask(accessContextTokenQueue, 5, 1000, metrics);
+
+        List<AccessContextTokenDO> batch = task.nextBatch();
+        assertEquals(batch.size(), 5, "Batch should be flushed once the batch size is reached.");
+        assertEquals(batch.get(0).getAccessToken(), "token0", "Tokens should be drained in FIFO order.");
+        assertEquals(metrics.getQueueDepth(), 2, "Remaining tokens should stay in the queue.");
+    }
+
+    @Test
+    public void testNextBatchIsFlushedAfterInterval() throws Exception {
+
+        accessContextTokenQueue.offerLast(createAccessContextTokenDO("token"));
+        TokenBatchPersistenceTask task = new TokenBatchPersistenceTask(accessContextTokenQueue, 100, 20, metrics);
+
+        long start = System.nanoTime();
+        List<AccessContextTokenDO> batch = task.nextBatch();
+        assertEquals(batch.size(), 1, "Partial batch should be flushed when the interval elapses.");
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "Partial batch was not flushed in time.");
+    }
+
+    @Test
+    public void testMetrics() {
+
+        metrics.recordBatchCommit(4, TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.recordBatchCommit(2, TimeUnit.MILLISECONDS.toNanos(30));
+        metrics.recordBatchFailure(3);
+        metrics.recordBackPressure();
+
+        assertEquals(metrics.getCommittedBatchCount(), 2);
+        assertEquals(metrics.getCommittedTokenCount(), 6);
+        assertEquals(metrics.getFailedBatchCount(), 1);
+        assertEquals(metrics.getBackPressureCount(), 1);
+        assertEquals(metrics.getLastBatchSize(), 3);
+        assertEquals(metrics.getAverageBatchSize(), 3.0);
+        assertEquals(metrics.getAverageCommitLatencyInMillis(), 20.0);
+        assertEquals(metrics.getMaxCommitLatencyInMillis(), 30);
+        assertEquals(metrics.getRemainingQueueCapacity(), QUEUE_SIZE);
+    }
+
+    private AccessContextTokenDO createAccessContextTokenDO(String accessToken) {
+
+        return new AccessContextTokenDO(accessToken, "consumerKey", new AccessTokenDO(), null, "PRIMARY");
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.sql.PreparedStatement;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for TokenRevocationFilter.
+ */
+public class TokenRevocationFilterTest extends IdentityBaseTest {
+
+    @Test
+    public void testConsumerKeyFilter() throws Exception {
+
+        TokenRevocationFilter filter = TokenRevocationFilter.forConsumerKey("consumerKey");
+        assertEquals(filter.getCondition("T"), " AND A.CONSUMER_KEY=?");
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        assertEquals(filter.setParameters(ps, 3), 4);
+        verify(ps).setString(3, "consumerKey");
+        verifyNoMoreInteractions(ps);
+    }
+
+    @Test
+    public void testUserStoreFilter() throws Exception {
+
+        TokenRevocationFilter filter = TokenRevocationFilter.forUserStore(1, "secondary");
+        assertEquals(filter.getUserStoreDomain(), "SECONDARY", "User store domain should be sanitized.");
+        assertEquals(filter.getCondition("C"), " AND C.TENANT_ID=? AND C.USER_DOMAIN=?");
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        assertEquals(filter.setParameters(ps, 1), 3);
+        verify(ps).setInt(1, 1);
+        verify(ps).setString(2, "SECONDARY");
+        verifyNoMoreInteractions(ps);
+    }
+
+    @Test
+    public void testTenantFilter() throws Exception {
+
+        TokenRevocationFilter filter = TokenRevocationFilter.forTenant(2);
+        assertEquals(filter.getCondition("T"), " AND T.TENANT_ID=?");
+        assertEquals(filter.toString(), "TokenRevocationFilter{tenantId=2}");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEmptyConsumerKeyFilter() {
+
+        TokenRevocationFilter.forConsumerKey("");
+    }
+}
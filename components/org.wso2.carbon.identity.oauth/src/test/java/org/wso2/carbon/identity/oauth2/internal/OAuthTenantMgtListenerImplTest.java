@@ -25,13 +25,16 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.oauth.OAuthUtil;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.TestConstants;
 import org.wso2.carbon.identity.oauth2.dao.TokenMgtDAO;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.stratos.common.beans.TenantInfoBean;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -40,15 +43,18 @@ import java.util.List;
 import java.util.Set;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 
-@PrepareForTest({OAuthTenantMgtListenerImpl.class, OAuthServerConfiguration.class, OAuthUtil.class})
+@PrepareForTest({OAuthTenantMgtListenerImpl.class, OAuthServerConfiguration.class, OAuthUtil.class,
+        IdentityTenantUtil.class, OAuth2Util.class})
 public class OAuthTenantMgtListenerImplTest extends PowerMockIdentityBaseTest {
 
     @Mock
@@ -60,6 +66,8 @@ public class OAuthTenantMgtListenerImplTest extends PowerMockIdentityBaseTest {
         oAuthServerConfiguration = mock(OAuthServerConfiguration.class);
         mockStatic(OAuthServerConfiguration.class);
         when(OAuthServerConfiguration.getInstance()).thenReturn(oAuthServerConfiguration);
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.getTenantDomain(TestConstants.TENANT_ID)).thenReturn(TestConstants.TENANT_DOMAIN);
     }
 
     @AfterMethod
@@ -93,4 +101,19 @@ public class OAuthTenantMgtListenerImplTest extends PowerMockIdentityBaseTest {
         oAuthTenantMgtListener.onPreDelete(TestConstants.TENANT_ID);
         verify(oAuthTenantMgtListener).onPreDelete(TestConstants.TENANT_ID);
     }
+
+    @Test
+    public void testSigningKeysAreClearedOnTenantUpdateAndDeactivation() throws Exception {
+
+        mockStatic(OAuth2Util.class);
+        TenantInfoBean tenantInfoBean = new TenantInfoBean();
+        tenantInfoBean.setTenantId(TestConstants.TENANT_ID);
+        OAuthTenantMgtListenerImpl oAuthTenantMgtListener = new OAuthTenantMgtListenerImpl();
+
+        oAuthTenantMgtListener.onTenantUpdate(tenantInfoBean);
+        oAuthTenantMgtListener.onTenantDeactivation(TestConstants.TENANT_ID);
+
+        verifyStatic(times(2));
+        OAuth2Util.clearSigningKeyCache(TestConstants.TENANT_ID);
+    }
 }
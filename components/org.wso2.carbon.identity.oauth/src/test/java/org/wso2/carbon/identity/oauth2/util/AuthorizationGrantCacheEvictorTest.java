@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
+import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
+import org.wso2.carbon.identity.oauth2.authcontext.AuthorizationContextTokenCache;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationDAO;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for AuthorizationGrantCacheEvictor.
+ */
+@PrepareForTest({OAuthTokenPersistenceFactory.class, AuthorizationGrantCache.class,
+        AuthorizationContextTokenCache.class, OAuth2Util.class, IdentityUtil.class})
+public class AuthorizationGrantCacheEvictorTest extends PowerMockIdentityBaseTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String USER_STORE_DOMAIN = "PRIMARY";
+
+    @Mock
+    private OAuthTokenPersistenceFactory persistenceFactory;
+
+    @Mock
+    private BulkTokenRevocationDAO tokenDAO;
+
+    @Mock
+    private AuthorizationGrantCache authorizationGrantCache;
+
+    @Mock
+    private AuthorizationContextTokenCache contextTokenCache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthTokenPersistenceFactory.class);
+        when(OAuthTokenPersistenceFactory.getInstance()).thenReturn(persistenceFactory);
+        when(persistenceFactory.getBulkTokenRevocationDAO()).thenReturn(tokenDAO);
+
+        mockStatic(AuthorizationGrantCache.class);
+        when(AuthorizationGrantCache.getInstance()).thenReturn(authorizationGrantCache);
+
+        mockStatic(AuthorizationContextTokenCache.class);
+        when(AuthorizationContextTokenCache.getInstance()).thenReturn(contextTokenCache);
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTenantId(TENANT_DOMAIN)).thenReturn(-1234);
+        when(OAuth2Util.getSanitizedUserStoreDomain(USER_STORE_DOMAIN)).thenReturn(USER_STORE_DOMAIN);
+        when(OAuth2Util.checkAccessTokenPartitioningEnabled()).thenReturn(false);
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString())).thenReturn(true);
+    }
+
+    @Test
+    public void testGrantsAreResolvedPerChunkOfUsers() throws Exception {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setTokenId("tokenId");
+        accessTokenDO.setAccessToken("accessToken");
+        when(tokenDAO.getActiveAccessTokensOfUsers(anyInt(), anyString(), anyListOf(String.class), anyBoolean(),
+                anyString())).thenReturn(Collections.singletonList(accessTokenDO));
+        when(tokenDAO.getActiveAuthorizationCodesOfUsers(anyInt(), anyString(), anyListOf(String.class),
+                anyBoolean())).thenReturn(Collections.singletonList(new AuthzCodeDO(null, null, null, 0, null, null,
+                "code", "codeId")));
+
+        AuthorizationGrantCacheEvictor evictor = new AuthorizationGrantCacheEvictor(null, 2);
+        evictor.evict(TENANT_DOMAIN, USER_STORE_DOMAIN, Arrays.asList("user1", "user2", "user3", "user4", "user5"));
+
+        verify(tokenDAO).getActiveAccessTokensOfUsers(eq(-1234), eq(USER_STORE_DOMAIN),
+                eq(Arrays.asList("user1", "user2")), eq(true), (String) isNull());
+        verify(tokenDAO).getActiveAccessTokensOfUsers(eq(-1234), eq(USER_STORE_DOMAIN),
+                eq(Collections.singletonList("user5")), eq(true), (String) isNull());
+        verify(tokenDAO, times(3)).getActiveAuthorizationCodesOfUsers(anyInt(), anyString(),
+                anyListOf(String.class), anyBoolean());
+        verify(authorizationGrantCache, times(3)).clearCacheEntryByTokenId(any(AuthorizationGrantCacheKey.class),
+                eq("tokenId"));
+        verify(authorizationGrantCache, times(3)).clearCacheEntryByCodeId(any(AuthorizationGrantCacheKey.class),
+                eq("codeId"));
+        verify(contextTokenCache, times(3)).clearCacheEntry("accessToken");
+        verify(authorizationGrantCache, never()).getValueFromCacheByToken(any(AuthorizationGrantCacheKey.class));
+    }
+
+    @Test
+    public void testCaseInsensitiveUserNamesAreLowerCased() throws Exception {
+
+        when(IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString())).thenReturn(false);
+        List<AccessTokenDO> noAccessTokens = Collections.emptyList();
+        when(tokenDAO.getActiveAccessTokensOfUsers(anyInt(), anyString(), anyListOf(String.class), anyBoolean(),
+                anyString())).thenReturn(noAccessTokens);
+
+        AuthorizationGrantCacheEvictor evictor = new AuthorizationGrantCacheEvictor(null, 10);
+        evictor.evict(TENANT_DOMAIN, USER_STORE_DOMAIN, Arrays.asList("Alice", "alice", "Bob"));
+
+        verify(tokenDAO).getActiveAccessTokensOfUsers(eq(-1234), eq(USER_STORE_DOMAIN),
+                eq(Arrays.asList("alice", "bob")), eq(false), (String) isNull());
+    }
+
+    @Test
+    public void testEvictionRunsOnCallerThreadAfterShutdown() throws Exception {
+
+        List<AccessTokenDO> noAccessTokens = Collections.emptyList();
+        when(tokenDAO.getActiveAccessTokensOfUsers(anyInt(), anyString(), anyListOf(String.class), anyBoolean(),
+                anyString())).thenReturn(noAccessTokens);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        AuthorizationGrantCacheEvictor evictor = new AuthorizationGrantCacheEvictor(executor, 10);
+        evictor.shutdown();
+        assertTrue(executor.isTerminated(), "Eviction pool should be terminated on shutdown.");
+
+        evictor.evict(TENANT_DOMAIN, USER_STORE_DOMAIN, Collections.singletonList("user1"));
+        verify(tokenDAO).getActiveAccessTokensOfUsers(eq(-1234), eq(USER_STORE_DOMAIN),
+                eq(Collections.singletonList("user1")), eq(true), (String) isNull());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
+import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationDAO;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationDAOImpl;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.dao.TokenRevocationFilter;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for BulkTokenRevocationEngine.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class, OAuthServerConfiguration.class, OAuthUtil.class})
+public class BulkTokenRevocationEngineTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "BULK_TOKEN_REVOCATION_ENGINE_DB";
+    private static final String PARTITIONED_USER_STORE_DOMAIN = "FOO";
+
+    @Mock
+    private OAuthServerConfiguration mockedOAuthServerConfiguration;
+
+    @Mock
+    private RealmService mockedRealmService;
+
+    @Mock
+    private TenantManager mockedTenantManager;
+
+    private Connection connection;
+    private BulkTokenRevocationDAO revocationDAO;
+    private BulkTokenRevocationDAO originalRevocationDAO;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("token.sql"));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            connection.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS IDN_OAUTH2_ACCESS_TOKEN_A AS " +
+                    "SELECT * FROM IDN_OAUTH2_ACCESS_TOKEN WHERE 1=0");
+            connection.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS " +
+                    "IDN_OAUTH2_ACCESS_TOKEN_SCOPE_A AS SELECT * FROM IDN_OAUTH2_ACCESS_TOKEN_SCOPE WHERE 1=0");
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(mockedOAuthServerConfiguration);
+        when(mockedOAuthServerConfiguration.getPersistenceProcessor()).thenReturn(new PlainTextPersistenceProcessor());
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getPrimaryDomainName()).thenReturn("PRIMARY");
+        mockStatic(OAuthUtil.class);
+
+        OAuthComponentServiceHolder.getInstance().setRealmService(mockedRealmService);
+        when(mockedRealmService.getTenantManager()).thenReturn(mockedTenantManager);
+        when(mockedTenantManager.getDomain(MultitenantConstants.SUPER_TENANT_ID))
+                .thenReturn(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+        connection = DAOUtils.getConnection(DB_NAME);
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection()).thenReturn(connection);
+
+        OAuthTokenPersistenceFactory persistenceFactory = OAuthTokenPersistenceFactory.getInstance();
+        originalRevocationDAO = persistenceFactory.getBulkTokenRevocationDAO();
+        revocationDAO = spy(new BulkTokenRevocationDAOImpl());
+        Whitebox.setInternalState(persistenceFactory, "bulkTokenRevocationDAO", revocationDAO);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        Whitebox.setInternalState(OAuthTokenPersistenceFactory.getInstance(), "bulkTokenRevocationDAO",
+                originalRevocationDAO);
+        TokenPartitionedSqlRegistry.getInstance().clear();
+        connection.close();
+    }
+
+    @Test
+    public void testRevokeTokensWhenTokenCountIsMultipleOfChunkSize() throws Exception {
+
+        String consumerKey = createApplication();
+        for (int i = 1; i <= 4; i++) {
+            createAccessToken("IDN_OAUTH2_ACCESS_TOKEN", consumerKey, "chunk" + i,
+                    OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        }
+        TokenRevocationFilter filter = TokenRevocationFilter.forConsumerKey(consumerKey);
+
+        BulkTokenRevocationProgress progress = new BulkTokenRevocationEngine(2).revokeTokens(filter, false);
+
+        assertEquals(progress.getAccessTokenCount(), 4);
+        // Two full chunks are followed by an empty one which ends the revocation.
+        verify(revocationDAO, times(3)).revokeAccessTokens(eq(filter), anyString(), anyString(), eq(2));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(getAccessTokenState("IDN_OAUTH2_ACCESS_TOKEN", "chunk" + i),
+                    OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        }
+    }
+
+    @Test
+    public void testRevokeTokensOfAllPartitions() throws Exception {
+
+        when(mockedOAuthServerConfiguration.isAccessTokenPartitioningEnabled()).thenReturn(true);
+        when(mockedOAuthServerConfiguration.isUserNameAssertionEnabled()).thenReturn(true);
+        when(mockedOAuthServerConfiguration.getAccessTokenPartitioningDomains())
+                .thenReturn("A:" + PARTITIONED_USER_STORE_DOMAIN);
+
+        String consumerKey = createApplication();
+        createAccessToken("IDN_OAUTH2_ACCESS_TOKEN", consumerKey, "primary1",
+                OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        createAccessToken("IDN_OAUTH2_ACCESS_TOKEN", consumerKey, "primary2",
+                OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+        createAccessToken("IDN_OAUTH2_ACCESS_TOKEN_A", consumerKey, "partitioned1",
+                OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        TokenRevocationFilter filter = TokenRevocationFilter.forConsumerKey(consumerKey);
+
+        BulkTokenRevocationProgress progress = new BulkTokenRevocationEngine(10).revokeTokens(filter, false);
+
+        assertEquals(progress.getAccessTokenCount(), 3);
+        verify(revocationDAO).revokeAccessTokens(eq(filter), eq("PRIMARY"), anyString(), anyInt());
+        verify(revocationDAO).revokeAccessTokens(eq(filter), eq(PARTITIONED_USER_STORE_DOMAIN), anyString(),
+                anyInt());
+        assertEquals(getAccessTokenState("IDN_OAUTH2_ACCESS_TOKEN", "primary1"),
+                OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        assertEquals(getAccessTokenState("IDN_OAUTH2_ACCESS_TOKEN", "primary2"),
+                OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        assertEquals(getAccessTokenState("IDN_OAUTH2_ACCESS_TOKEN_A", "partitioned1"),
+                OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+    }
+
+    @Test
+    public void testClearCachedTokensDoesNotRevoke() throws Exception {
+
+        String consumerKey = createApplication();
+        createAccessToken("IDN_OAUTH2_ACCESS_TOKEN", consumerKey, "cached1",
+                OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        createAccessToken("IDN_OAUTH2_ACCESS_TOKEN", consumerKey, "cached2",
+                OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        TokenRevocationFilter filter = TokenRevocationFilter.forConsumerKey(consumerKey);
+
+        BulkTokenRevocationProgress progress = new BulkTokenRevocationEngine(1).clearCachedTokens(filter);
+
+        assertEquals(progress.getAccessTokenCount(), 2);
+        verify(revocationDAO, times(3)).getAccessTokens(any(TokenRevocationFilter.class), anyString(), anyString(),
+                eq(1));
+        assertEquals(getAccessTokenState("IDN_OAUTH2_ACCESS_TOKEN", "cached1"),
+                OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        assertEquals(getAccessTokenState("IDN_OAUTH2_ACCESS_TOKEN", "cached2"),
+                OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+    }
+
+    private String createApplication() throws Exception {
+
+        String consumerKey = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH_CONSUMER_APPS " +
+                     "(CONSUMER_KEY, CONSUMER_SECRET, USERNAME, TENANT_ID, USER_DOMAIN, APP_NAME) VALUES " +
+                     "(?,?,?,?,?,?)")) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, "testUser");
+            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            prepStmt.setString(5, "PRIMARY");
+            prepStmt.setString(6, consumerKey);
+            prepStmt.execute();
+        }
+        return consumerKey;
+    }
+
+    private void createAccessToken(String table, String consumerKey, String tokenId, String tokenState)
+            throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO " + table +
+                     " (TOKEN_ID, ACCESS_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, TOKEN_STATE, " +
+                     "TOKEN_STATE_ID) SELECT ?,?,ID,?,?,?,?,? FROM IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY=?")) {
+            prepStmt.setString(1, tokenId);
+            prepStmt.setString(2, "accessToken-" + tokenId);
+            prepStmt.setString(3, "testUser");
+            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            prepStmt.setString(5, "PRIMARY");
+            prepStmt.setString(6, tokenState);
+            prepStmt.setString(7, tokenId);
+            prepStmt.setString(8, consumerKey);
+            prepStmt.execute();
+        }
+    }
+
+    private String getAccessTokenState(String table, String tokenId) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("SELECT TOKEN_STATE FROM " + table +
+                     " WHERE TOKEN_ID=?")) {
+            prepStmt.setString(1, tokenId);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+}
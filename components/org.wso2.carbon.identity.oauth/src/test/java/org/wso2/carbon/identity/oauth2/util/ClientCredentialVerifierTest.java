@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
+import org.wso2.carbon.identity.oauth.cache.ClientCredentialCache;
+import org.wso2.carbon.identity.oauth.cache.ClientCredentialCacheEntry;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for ClientCredentialVerifier.
+ */
+public class ClientCredentialVerifierTest extends IdentityBaseTest {
+
+    private static final String CLIENT_ID = "clientId";
+    private static final String CLIENT_SECRET = "clientSecret";
+
+    private ClientCredentialCache clientCredentialCache;
+    private TestClientCredentialVerifier verifier;
+
+    @BeforeMethod
+    public void setUp() {
+
+        clientCredentialCache = mock(ClientCredentialCache.class);
+        verifier = new TestClientCredentialVerifier(clientCredentialCache);
+    }
+
+    @Test
+    public void testVerifyCachedSecret() throws Exception {
+
+        when(clientCredentialCache.getValueFromCache(CLIENT_ID)).thenReturn(
+                new ClientCredentialCacheEntry(CLIENT_SECRET));
+
+        assertTrue(verifier.verify(CLIENT_ID, CLIENT_SECRET));
+        assertFalse(verifier.verify(CLIENT_ID, "wrongSecret"));
+        assertFalse(verifier.verify(CLIENT_ID, null));
+        assertEquals(verifier.getLoadCount(), 0);
+    }
+
+    @Test
+    public void testVerifyLoadsSecretOnCacheMiss() throws Exception {
+
+        verifier.clientSecret = CLIENT_SECRET;
+
+        assertTrue(verifier.verify(CLIENT_ID, CLIENT_SECRET));
+        assertFalse(verifier.verify(CLIENT_ID, "wrongSecret"));
+        assertEquals(verifier.getLoadCount(), 2);
+        verify(clientCredentialCache, times(2)).addToCache(eq(CLIENT_ID), any(ClientCredentialCacheEntry.class));
+        verify(clientCredentialCache, never()).clearCacheEntry(anyString());
+    }
+
+    @Test
+    public void testVerifyUnknownClient() throws Exception {
+
+        assertFalse(verifier.verify(CLIENT_ID, CLIENT_SECRET));
+        verify(clientCredentialCache, never()).addToCache(anyString(), any(ClientCredentialCacheEntry.class));
+    }
+
+    @Test(expectedExceptions = IdentityOAuthAdminException.class)
+    public void testVerifyLoadError() throws Exception {
+
+        verifier.error = new IdentityOAuthAdminException("Error");
+        verifier.verify(CLIENT_ID, CLIENT_SECRET);
+    }
+
+    @Test
+    public void testConcurrentCacheMissesAreCoalesced() throws Exception {
+
+        verifier.clientSecret = CLIENT_SECRET;
+        verifier.release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = executorService.submit(verifyTask(CLIENT_SECRET));
+            assertTrue(verifier.started.await(5, TimeUnit.SECONDS));
+            Future<Boolean> second = executorService.submit(verifyTask(CLIENT_SECRET));
+            waitForCoalescedLoad();
+            verifier.release.countDown();
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(verifier.loads.get(), 1, "Secret should be read once for concurrent cache misses.");
+        assertEquals(verifier.getLoadCount(), 1);
+        assertEquals(verifier.getCoalescedLoadCount(), 1);
+    }
+
+    @Test
+    public void testInvalidationDuringLoad() throws Exception {
+
+        verifier.clientSecret = CLIENT_SECRET;
+        verifier.release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> result = executorService.submit(verifyTask(CLIENT_SECRET));
+            assertTrue(verifier.started.await(5, TimeUnit.SECONDS));
+            verifier.invalidate(CLIENT_ID);
+            verifier.release.countDown();
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+        // Once by the invalidation and once more since the secret read before the invalidation must not stay cached.
+        verify(clientCredentialCache, times(2)).clearCacheEntry(CLIENT_ID);
+    }
+
+    private Callable<Boolean> verifyTask(final String clientSecret) {
+
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+
+                return verifier.verify(CLIENT_ID, clientSecret);
+            }
+        };
+    }
+
+    private void waitForCoalescedLoad() throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (verifier.getCoalescedLoadCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class TestClientCredentialVerifier extends ClientCredentialVerifier {
+
+        private final AtomicInteger loads = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+        private volatile String clientSecret;
+        private volatile IdentityOAuthAdminException error;
+
+        TestClientCredentialVerifier(ClientCredentialCache clientCredentialCache) {
+
+            super(clientCredentialCache);
+        }
+
+        @Override
+        protected String loadClientSecret(String clientId) throws IdentityOAuthAdminException {
+
+            loads.incrementAndGet();
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            return clientSecret;
+        }
+    }
+}
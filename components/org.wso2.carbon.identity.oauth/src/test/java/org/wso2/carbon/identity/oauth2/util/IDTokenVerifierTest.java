@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.mockito.Mock;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.core.util.KeyStoreManager;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit tests for IDTokenVerifier.
+ */
+@PrepareForTest({KeyStoreManager.class, IdentityTenantUtil.class, OAuthServerConfiguration.class})
+public class IDTokenVerifierTest extends PowerMockIdentityBaseTest {
+
+    private static final String SUBJECT = "admin@" + MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+    private static final long EXPIRY_TIME_IN_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    @Mock
+    private KeyStoreManager keyStoreManager;
+
+    @Mock
+    private OAuthServerConfiguration oAuthServerConfiguration;
+
+    private KeyPair keyPair;
+
+    @BeforeClass
+    public void setUpKeys() throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(oAuthServerConfiguration);
+        when(oAuthServerConfiguration.isJWTSignedWithSPKey()).thenReturn(false);
+
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.getTenantId(anyString())).thenReturn(MultitenantConstants.SUPER_TENANT_ID);
+
+        mockStatic(KeyStoreManager.class);
+        when(KeyStoreManager.getInstance(anyInt())).thenReturn(keyStoreManager);
+        when(keyStoreManager.getDefaultPublicKey()).thenReturn(keyPair.getPublic());
+    }
+
+    @Test
+    public void testVerifierIsSharedAcrossVerifications() throws Exception {
+
+        IDTokenVerifier idTokenVerifier = new IDTokenVerifier(EXPIRY_TIME_IN_MILLIS);
+        String idToken = sign(SUBJECT, keyPair);
+
+        for (int i = 0; i < 3; i++) {
+            SignedJWT signedJWT = idTokenVerifier.verify(idToken);
+            assertNotNull(signedJWT, "Signature of the ID token should be valid.");
+            assertEquals(signedJWT.getJWTClaimsSet().getSubject(), SUBJECT);
+        }
+        PowerMockito.verifyStatic(times(1));
+        KeyStoreManager.getInstance(anyInt());
+    }
+
+    @Test
+    public void testExpiredVerifierIsRebuilt() throws Exception {
+
+        IDTokenVerifier idTokenVerifier = new IDTokenVerifier(0);
+        String idToken = sign(SUBJECT, keyPair);
+
+        assertNotNull(idTokenVerifier.verify(idToken));
+        assertNotNull(idTokenVerifier.verify(idToken));
+        PowerMockito.verifyStatic(times(2));
+        KeyStoreManager.getInstance(anyInt());
+    }
+
+    @Test
+    public void testClearVerifier() throws Exception {
+
+        IDTokenVerifier idTokenVerifier = new IDTokenVerifier(EXPIRY_TIME_IN_MILLIS);
+        String idToken = sign(SUBJECT, keyPair);
+
+        assertNotNull(idTokenVerifier.verify(idToken));
+        idTokenVerifier.clearVerifier(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        assertNotNull(idTokenVerifier.verify(idToken));
+        PowerMockito.verifyStatic(times(2));
+        KeyStoreManager.getInstance(anyInt());
+    }
+
+    @Test
+    public void testVerifyWhenTenantResolutionFails() throws Exception {
+
+        when(oAuthServerConfiguration.isJWTSignedWithSPKey()).thenThrow(new IllegalStateException("test"));
+        assertNull(new IDTokenVerifier(EXPIRY_TIME_IN_MILLIS).verify(sign(SUBJECT, keyPair)),
+                "Unexpected errors should fail the verification instead of being thrown.");
+    }
+
+    @Test
+    public void testVerifyWithInvalidSignature() throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        String idToken = sign(SUBJECT, keyPairGenerator.generateKeyPair());
+
+        assertNull(new IDTokenVerifier(EXPIRY_TIME_IN_MILLIS).verify(idToken), "ID token signed with a different key should fail.");
+    }
+
+    @Test
+    public void testVerifyMalformedIdToken() {
+
+        IDTokenVerifier idTokenVerifier = new IDTokenVerifier(EXPIRY_TIME_IN_MILLIS);
+        assertNull(idTokenVerifier.verify(null));
+        assertNull(idTokenVerifier.verify("invalid.id.token"));
+    }
+
+    private String sign(String subject, KeyPair signingKeyPair) throws Exception {
+
+        JWTClaimsSet claimsSet = new JWTClaimsSet();
+        claimsSet.setSubject(subject);
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claimsSet);
+        signedJWT.sign(new RSASSASigner((RSAPrivateKey) signingKeyPair.getPrivate()));
+        return signedJWT.serialize();
+    }
+}
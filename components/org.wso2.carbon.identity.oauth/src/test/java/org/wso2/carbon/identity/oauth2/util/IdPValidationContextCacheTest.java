@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import org.apache.commons.codec.binary.Base64;
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for IdPValidationContextCache.
+ */
+@PrepareForTest({IdentityProviderManager.class})
+public class IdPValidationContextCacheTest extends PowerMockIdentityBaseTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String SAML_ENTITY_ID = "localhost";
+    private static final String OIDC_ENTITY_ID = "https://localhost:9443/oauth2/token";
+    private static final String TOKEN_ENDPOINT = "https://localhost:9443/oauth2/token";
+
+    @Mock
+    private IdentityProviderManager identityProviderManager;
+
+    private IdPValidationContextCache idpValidationContextCache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityProviderManager.class);
+        when(IdentityProviderManager.getInstance()).thenReturn(identityProviderManager);
+        when(identityProviderManager.getResidentIdP(TENANT_DOMAIN)).thenReturn(getResidentIdP());
+        idpValidationContextCache = new IdPValidationContextCache(TimeUnit.MINUTES.toMillis(5));
+    }
+
+    @Test
+    public void testGetResidentIdPContext() throws Exception {
+
+        IdPValidationContext context = idpValidationContextCache.getResidentIdPContext(TENANT_DOMAIN);
+        assertTrue(context.isResidentIdP());
+        assertEquals(context.getSAMLEntityId(), SAML_ENTITY_ID);
+        assertEquals(context.getOIDCEntityId(), OIDC_ENTITY_ID);
+        assertEquals(context.getTokenEndpointAlias(), TOKEN_ENDPOINT);
+
+        assertSame(idpValidationContextCache.getResidentIdPContext(TENANT_DOMAIN), context,
+                "Resident IdP context should be served from the cache.");
+        verify(identityProviderManager, times(1)).getResidentIdP(TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testClearCacheEntry() throws Exception {
+
+        IdPValidationContext context = idpValidationContextCache.getResidentIdPContext(TENANT_DOMAIN);
+        idpValidationContextCache.clearCacheEntry(TENANT_DOMAIN,
+                IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME);
+
+        assertNotSame(idpValidationContextCache.getResidentIdPContext(TENANT_DOMAIN), context,
+                "Resident IdP should be fetched again once its context is cleared.");
+        verify(identityProviderManager, times(2)).getResidentIdP(TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testExpiredContextIsRebuilt() throws Exception {
+
+        idpValidationContextCache = new IdPValidationContextCache(0);
+        IdPValidationContext context = idpValidationContextCache.getResidentIdPContext(TENANT_DOMAIN);
+        assertNotSame(idpValidationContextCache.getResidentIdPContext(TENANT_DOMAIN), context);
+    }
+
+    @Test
+    public void testGetFederatedIdPContext() throws Exception {
+
+        String certificate = getEncodedCertificate();
+        IdPValidationContext context = idpValidationContextCache.getContext(TENANT_DOMAIN,
+                getFederatedIdP(certificate));
+        assertEquals(context.getTokenEndpointAlias(), "fedAlias");
+        assertNull(context.getSAMLEntityId());
+
+        X509Certificate x509Certificate = context.getCertificate();
+        assertEquals(Base64.encodeBase64String(x509Certificate.getEncoded()), certificate);
+        assertSame(context.getCertificate(), x509Certificate, "Certificate should be decoded only once.");
+
+        assertSame(idpValidationContextCache.getContext(TENANT_DOMAIN, getFederatedIdP(certificate)), context,
+                "Context should be reused while the IdP certificate is unchanged.");
+        assertNotSame(idpValidationContextCache.getContext(TENANT_DOMAIN, getFederatedIdP(null)), context,
+                "Context should be rebuilt when the IdP certificate changes.");
+    }
+
+    @Test
+    public void testJWSVerifierIsBoundToCertificate() throws Exception {
+
+        IdPValidationContext context = idpValidationContextCache.getContext(TENANT_DOMAIN,
+                getFederatedIdP(getEncodedCertificate()));
+        X509Certificate x509Certificate = context.getCertificate();
+        assertNull(context.getJWSVerifier(x509Certificate));
+
+        RSASSAVerifier verifier = new RSASSAVerifier((RSAPublicKey) x509Certificate.getPublicKey());
+        context.setJWSVerifier(x509Certificate, verifier);
+        assertSame(context.getJWSVerifier(x509Certificate), verifier);
+    }
+
+    private IdentityProvider getResidentIdP() {
+
+        FederatedAuthenticatorConfig samlConfig = new FederatedAuthenticatorConfig();
+        samlConfig.setName(IdentityApplicationConstants.Authenticator.SAML2SSO.NAME);
+        samlConfig.setProperties(new Property[]{getProperty(
+                IdentityApplicationConstants.Authenticator.SAML2SSO.IDP_ENTITY_ID, SAML_ENTITY_ID)});
+
+        FederatedAuthenticatorConfig oidcConfig = new FederatedAuthenticatorConfig();
+        oidcConfig.setName(IdentityApplicationConstants.Authenticator.OIDC.NAME);
+        oidcConfig.setProperties(new Property[]{
+                getProperty("IdPEntityId", OIDC_ENTITY_ID),
+                getProperty(IdentityApplicationConstants.Authenticator.OIDC.OAUTH2_TOKEN_URL, TOKEN_ENDPOINT)});
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName(IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME);
+        identityProvider.setFederatedAuthenticatorConfigs(new FederatedAuthenticatorConfig[]{samlConfig, oidcConfig});
+        return identityProvider;
+    }
+
+    private IdentityProvider getFederatedIdP(String certificate) {
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName("fedIdP");
+        identityProvider.setAlias("fedAlias");
+        identityProvider.setCertificate(certificate);
+        return identityProvider;
+    }
+
+    private Property getProperty(String name, String value) {
+
+        Property property = new Property();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+
+    private String getEncodedCertificate() throws Exception {
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream inputStream = new FileInputStream(Paths.get(System.getProperty("user.dir"), "src", "test",
+                "resources", "security", "client-truststore.jks").toString())) {
+            keyStore.load(inputStream, "wso2carbon".toCharArray());
+        }
+        return Base64.encodeBase64String(keyStore.getCertificate("wso2carbon").getEncoded());
+    }
+}
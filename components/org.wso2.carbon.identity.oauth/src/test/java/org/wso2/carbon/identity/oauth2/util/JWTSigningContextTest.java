@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for JWTSigningContext.
+ */
+public class JWTSigningContextTest extends IdentityBaseTest {
+
+    private static final String THUMB_PRINT = "dGh1bWJQcmludA";
+
+    private KeyPair keyPair;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @Test
+    public void testHeaderIsBuiltPerCall() {
+
+        JWTSigningContext signingContext = new JWTSigningContext((RSAPrivateKey) keyPair.getPrivate(), THUMB_PRINT);
+
+        JWSHeader header = signingContext.getHeader(JWSAlgorithm.RS256);
+        assertEquals(header.getAlgorithm(), JWSAlgorithm.RS256);
+        assertEquals(header.getKeyID(), THUMB_PRINT);
+        assertEquals(header.getX509CertThumbprint().toString(), THUMB_PRINT);
+        assertEquals(signingContext.getHeader(JWSAlgorithm.RS512).getAlgorithm(), JWSAlgorithm.RS512);
+
+        // Headers are mutable, hence changes made by one issuer should not leak to the next JWT.
+        header.setType(JOSEObjectType.JWT);
+        JWSHeader nextHeader = signingContext.getHeader(JWSAlgorithm.RS256);
+        assertNotSame(nextHeader, header, "A new header should be built for each JWT.");
+        assertNull(nextHeader.getType());
+        assertEquals(nextHeader.getKeyID(), THUMB_PRINT);
+    }
+
+    @Test
+    public void testSignerIsReusable() throws Exception {
+
+        JWTSigningContext signingContext = new JWTSigningContext((RSAPrivateKey) keyPair.getPrivate(), THUMB_PRINT);
+        RSASSAVerifier verifier = new RSASSAVerifier((RSAPublicKey) keyPair.getPublic());
+
+        for (int i = 0; i < 3; i++) {
+            JWTClaimsSet claimsSet = new JWTClaimsSet();
+            claimsSet.setSubject("user" + i);
+            SignedJWT signedJWT = new SignedJWT(signingContext.getHeader(JWSAlgorithm.RS256), claimsSet);
+            signedJWT.sign(signingContext.getSigner());
+
+            SignedJWT parsedJWT = SignedJWT.parse(signedJWT.serialize());
+            assertTrue(parsedJWT.verify(verifier), "Signature verification failed.");
+            assertEquals(parsedJWT.getHeader().getKeyID(), THUMB_PRINT);
+            assertEquals(parsedJWT.getJWTClaimsSet().getSubject(), "user" + i);
+        }
+    }
+}
@@ -531,6 +531,29 @@ public class OAuth2UtilTest extends PowerMockIdentityBaseTest {
         assertEquals(OAuth2Util.getTokenPartitionedSqlByToken(sql, apiKey), partitionedSql);
     }
 
+    @Test
+    public void testGetTokenPartitionedSqlReusesStatements() throws Exception {
+        String sql = "SELECT TOKEN_SCOPE FROM IDN_OAUTH2_ACCESS_TOKEN_SCOPE WHERE TOKEN_ID IN (SELECT TOKEN_ID FROM " +
+                "IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN = ?)";
+        when(oauthServerConfigurationMock.isAccessTokenPartitioningEnabled()).thenReturn(true);
+        when(oauthServerConfigurationMock.isUserNameAssertionEnabled()).thenReturn(true);
+        when(oauthServerConfigurationMock.getAccessTokenPartitioningDomains()).thenReturn("A:H2, B:AD");
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getPrimaryDomainName()).thenReturn("PRIMARY");
+
+        String partitionedSql = OAuth2Util.getTokenPartitionedSqlByUserStore(sql, "h2");
+        assertEquals(partitionedSql, "SELECT TOKEN_SCOPE FROM IDN_OAUTH2_ACCESS_TOKEN_SCOPE_A WHERE TOKEN_ID IN " +
+                "(SELECT TOKEN_ID FROM IDN_OAUTH2_ACCESS_TOKEN_A WHERE ACCESS_TOKEN = ?)");
+        assertTrue(partitionedSql == OAuth2Util.getTokenPartitionedSqlByUserStore(sql, "h2"),
+                "Partitioned statement should be reused.");
+        assertEquals(OAuth2Util.getTokenPartitionedSqlByUserStore(sql, "PRIMARY"), sql);
+
+        when(oauthServerConfigurationMock.getAccessTokenPartitioningDomains()).thenReturn("C:H2");
+        assertEquals(OAuth2Util.getTokenPartitionedSqlByUserStore(sql, "H2"), "SELECT TOKEN_SCOPE FROM " +
+                "IDN_OAUTH2_ACCESS_TOKEN_SCOPE_C WHERE TOKEN_ID IN (SELECT TOKEN_ID FROM IDN_OAUTH2_ACCESS_TOKEN_C " +
+                "WHERE ACCESS_TOKEN = ?)", "Statements should be regenerated when the domain mappings change.");
+    }
+
     @DataProvider(name = "UserStoreDomainFromUserIdData")
     public Object[][] userStoreDomainFromUserIdData() {
         return new Object[][]{
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for ResourceScopeIndexCache.
+ */
+public class ResourceScopeIndexCacheTest extends IdentityBaseTest {
+
+    @Test
+    public void testIndexIsLoadedOnce() throws Exception {
+
+        TestResourceScopeIndexCache cache = new TestResourceScopeIndexCache(60000);
+        ResourceScopeIndex index = cache.getIndex();
+        assertSame(cache.getIndex(), index);
+        assertEquals(cache.findTenantAndScopeOfResource("/pets/1").getLeft(), "scope");
+        assertNull(cache.findTenantAndScopeOfResource("/stores/1"));
+        assertEquals(cache.loadCount, 1, "Index should be loaded once until it expires.");
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+
+        TestResourceScopeIndexCache cache = new TestResourceScopeIndexCache(60000);
+        cache.getIndex();
+        cache.invalidate();
+        cache.getIndex();
+        assertEquals(cache.loadCount, 2, "Index should be loaded again once invalidated.");
+    }
+
+    @Test
+    public void testExpiredIndexIsReloaded() throws Exception {
+
+        TestResourceScopeIndexCache cache = new TestResourceScopeIndexCache(0);
+        cache.getIndex();
+        cache.getIndex();
+        assertEquals(cache.loadCount, 2);
+    }
+
+    @Test
+    public void testIndexIsNotReloadedWhenUnsupported() throws Exception {
+
+        TestResourceScopeIndexCache cache = new TestResourceScopeIndexCache(0) {
+            @Override
+            protected Map<String, Pair<String, Integer>> loadResourceScopes() throws IdentityOAuth2Exception {
+
+                super.loadResourceScopes();
+                return null;
+            }
+        };
+        assertNull(cache.getIndex());
+        assertNull(cache.getIndex());
+        assertEquals(cache.loadCount, 1);
+    }
+
+    private static class TestResourceScopeIndexCache extends ResourceScopeIndexCache {
+
+        private int loadCount;
+
+        TestResourceScopeIndexCache(long refreshIntervalInMillis) {
+
+            super(refreshIntervalInMillis);
+        }
+
+        @Override
+        protected Map<String, Pair<String, Integer>> loadResourceScopes() throws IdentityOAuth2Exception {
+
+            loadCount++;
+            return Collections.singletonMap("/pets/{petId}", Pair.of("scope", 1));
+        }
+    }
+}
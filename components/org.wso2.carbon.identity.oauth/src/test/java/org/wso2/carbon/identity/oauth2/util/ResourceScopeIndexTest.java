@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit tests for ResourceScopeIndex.
+ */
+public class ResourceScopeIndexTest extends IdentityBaseTest {
+
+    private ResourceScopeIndex index;
+
+    @BeforeClass
+    public void setUp() {
+
+        Map<String, Pair<String, Integer>> resourceScopes = new HashMap<>();
+        resourceScopes.put("/pets/1.0/pets:GET", Pair.of("exact", 1));
+        resourceScopes.put("/pets/1.0/pets/{petId}", Pair.of("template", 1));
+        resourceScopes.put("/pets/1.0/pets/{petId}/photos/*", Pair.of("templatePrefix", 1));
+        resourceScopes.put("/pets/1.0/pets/owners", Pair.of("literal", 2));
+        resourceScopes.put("/pets/1.0/pets/{petId}:DELETE", Pair.of("templateVerb", 1));
+        resourceScopes.put("/stores/{storeId}/items/{itemId}:GET", Pair.of("verbOnly", 1));
+        resourceScopes.put("/stores/*/orders", Pair.of("wildcard", 1));
+        resourceScopes.put("/admin/*", Pair.of("prefix", 3));
+        resourceScopes.put("/admin/users/*", Pair.of("longerPrefix", 3));
+        index = new ResourceScopeIndex(resourceScopes);
+    }
+
+    @DataProvider(name = "resourceProvider")
+    public Object[][] resourceProvider() {
+
+        return new Object[][]{
+                {"/pets/1.0/pets:GET", "exact"},
+                {"/pets/1.0/pets/123", "template"},
+                {"/pets/1.0/pets/123?expand=true", "template"},
+                {"/pets/1.0/pets/owners", "literal"},
+                {"/pets/1.0/pets/{petId}", "template"},
+                {"/pets/1.0/pets/123/photos", "templatePrefix"},
+                {"/pets/1.0/pets/123/photos/1/thumbnail", "templatePrefix"},
+                {"/pets/1.0/pets/123:GET", "template"},
+                {"/pets/1.0/pets/123:DELETE", "templateVerb"},
+                {"/pets/1.0/pets/123?expand=true:DELETE", "templateVerb"},
+                {"/pets/1.0/pets/owners:DELETE", "templateVerb"},
+                {"/stores/1/items/2:GET", "verbOnly"},
+                {"/stores/1/items/2:PUT", null},
+                {"/stores/1/items/2", null},
+                {"/stores/42/orders", "wildcard"},
+                {"/admin", "prefix"},
+                {"/admin/settings", "prefix"},
+                {"/admin/users/jane/roles", "longerPrefix"},
+                {"/pets/1.0/pets", null},
+                {"/pets/1.0/pets/123/owners", null},
+                {"/pets/1.0/pets/", null},
+                {"/stores/42/orders/1", null},
+                {"/unknown", null},
+                {null, null}
+        };
+    }
+
+    @Test(dataProvider = "resourceProvider")
+    public void testMatch(String resource, String expectedScope) {
+
+        Pair<String, Integer> scope = index.match(resource);
+        if (expectedScope == null) {
+            assertNull(scope, "Resource " + resource + " should not be protected.");
+        } else {
+            assertEquals(scope.getLeft(), expectedScope, "Unexpected scope for resource " + resource);
+        }
+    }
+
+    @Test
+    public void testMatchReturnsTenantOfScope() {
+
+        assertEquals(index.match("/pets/1.0/pets/owners").getRight(), Integer.valueOf(2));
+        assertEquals(index.getResourceCount(), 9);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for TokenIssuanceLockRegistry.
+ */
+public class TokenIssuanceLockRegistryTest extends IdentityBaseTest {
+
+    @DataProvider(name = "stripeCountProvider")
+    public Object[][] stripeCountProvider() {
+
+        return new Object[][]{
+                {1, 1},
+                {3, 4},
+                {1024, 1024},
+                {1000, 1024}
+        };
+    }
+
+    @Test(dataProvider = "stripeCountProvider")
+    public void testStripeCountIsRoundedToPowerOfTwo(int configured, int expected) {
+
+        assertEquals(new TokenIssuanceLockRegistry(configured).getStripeCount(), expected);
+    }
+
+    @Test
+    public void testSameKeyMapsToSameLock() {
+
+        TokenIssuanceLockRegistry registry = new TokenIssuanceLockRegistry(64);
+        assertSame(registry.getLock("clientId", "admin@carbon.super", "openid"),
+                registry.getLock("clientId", "admin@carbon.super", "openid"));
+        assertSame(registry.getLock("clientId", "admin@carbon.super", null),
+                registry.getLock("clientId", "admin@carbon.super", null));
+    }
+
+    @Test
+    public void testContendedAcquisitionIsRecorded() throws Exception {
+
+        final TokenIssuanceLockRegistry registry = new TokenIssuanceLockRegistry(16);
+        Lock lock = registry.lock("clientId", "user", "scope");
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+
+                Lock contendedLock = registry.lock("clientId", "user", "scope");
+                try {
+                    acquired.countDown();
+                } finally {
+                    contendedLock.unlock();
+                }
+            }
+        });
+        try {
+            thread.start();
+            while (!registry.getLock("clientId", "user", "scope").hasQueuedThreads()) {
+                Thread.sleep(5);
+            }
+        } finally {
+            lock.unlock();
+        }
+        assertTrue(acquired.await(5, TimeUnit.SECONDS), "Waiting thread did not acquire the lock.");
+        thread.join();
+
+        assertEquals(registry.getAcquisitionCount(), 2);
+        assertEquals(registry.getContendedAcquisitionCount(), 1);
+    }
+}
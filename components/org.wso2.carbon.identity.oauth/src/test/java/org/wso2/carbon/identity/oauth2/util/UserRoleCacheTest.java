@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for UserRoleCache.
+ */
+public class UserRoleCacheTest extends IdentityBaseTest {
+
+    private static final int TENANT_ID = 1;
+    private static final String USER_STORE_DOMAIN = "PRIMARY";
+    private static final String USER_NAME = "admin";
+
+    @Test
+    public void testHasAnyRole() {
+
+        UserRoleCache cache = new UserRoleCache(60000, 100);
+        UserRoleCache.UserRoles userRoles = cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME,
+                new String[]{"admin", "Internal/everyone", "admin"});
+
+        assertEquals(userRoles.getRoleCount(), 2, "Duplicate roles should be counted once.");
+        assertTrue(userRoles.hasAnyRole(Arrays.asList("manager", "admin")));
+        assertFalse(userRoles.hasAnyRole(Arrays.asList("manager", "Admin")), "Roles should be compared as is.");
+        assertFalse(userRoles.hasAnyRole(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testRolesOfUsersOfSameTenant() {
+
+        UserRoleCache cache = new UserRoleCache(60000, 100);
+        String[] manyRoles = new String[100];
+        for (int i = 0; i < manyRoles.length; i++) {
+            manyRoles[i] = "role" + i;
+        }
+        cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user1", manyRoles);
+        cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user2", new String[]{"role1"});
+
+        UserRoleCache.UserRoles user1Roles = cache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user1");
+        UserRoleCache.UserRoles user2Roles = cache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user2");
+        assertTrue(user1Roles.hasAnyRole(Collections.singletonList("role99")));
+        assertTrue(user2Roles.hasAnyRole(Collections.singletonList("role1")));
+        assertFalse(user2Roles.hasAnyRole(Collections.singletonList("role99")));
+    }
+
+    @Test
+    public void testUserWithoutRoles() {
+
+        UserRoleCache cache = new UserRoleCache(60000, 100);
+        assertTrue(cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME, null).isEmpty());
+        assertNotNull(cache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME),
+                "Users without roles should also be cached.");
+    }
+
+    @Test
+    public void testClearCacheEntry() {
+
+        UserRoleCache cache = new UserRoleCache(60000, 100);
+        cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME, new String[]{"admin"});
+        assertNotNull(cache.getUserRoles(TENANT_ID, "primary", USER_NAME),
+                "User store domain should not be case sensitive.");
+
+        cache.clearCacheEntry(TENANT_ID, USER_STORE_DOMAIN, USER_NAME);
+        assertNull(cache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME));
+    }
+
+    @Test
+    public void testClearTenant() {
+
+        UserRoleCache cache = new UserRoleCache(60000, 100);
+        cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME, new String[]{"admin"});
+        cache.addUserRoles(2, USER_STORE_DOMAIN, USER_NAME, new String[]{"admin"});
+
+        cache.clearTenant(TENANT_ID);
+        assertNull(cache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME));
+        assertNotNull(cache.getUserRoles(2, USER_STORE_DOMAIN, USER_NAME));
+    }
+
+    @Test
+    public void testExpiryAndMaxEntries() {
+
+        UserRoleCache expiringCache = new UserRoleCache(0, 100);
+        expiringCache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME, new String[]{"admin"});
+        assertNull(expiringCache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, USER_NAME));
+
+        UserRoleCache cache = new UserRoleCache(60000, 1);
+        cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user1", new String[]{"admin"});
+        UserRoleCache.UserRoles userRoles = cache.addUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user2",
+                new String[]{"admin"});
+        assertTrue(userRoles.hasAnyRole(Collections.singletonList("admin")));
+        assertEquals(cache.size(), 1);
+        assertNotNull(cache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user2"),
+                "Roles should be cached by evicting an existing entry when the cache is full.");
+        assertNull(cache.getUserRoles(TENANT_ID, USER_STORE_DOMAIN, "user1"));
+    }
+}
@@ -24,22 +24,51 @@ import org.testng.annotations.Test;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.common.model.LocalAndOutboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
 import org.wso2.carbon.identity.common.testng.WithAxisConfiguration;
 import org.wso2.carbon.identity.common.testng.WithCarbonHome;
 import org.wso2.carbon.identity.common.testng.WithH2Database;
 import org.wso2.carbon.identity.common.testng.WithRealmService;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.dao.SQLQueries;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
+import org.wso2.carbon.identity.oauth2.dao.AccessTokenDAO;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.dao.TokenMgtDAO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientApplicationDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.service.RealmService;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
 
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.internal.util.reflection.Whitebox.getInternalState;
+import static org.mockito.internal.util.reflection.Whitebox.setInternalState;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 import static org.wso2.carbon.utils.multitenancy.MultitenantConstants.SUPER_TENANT_ID;
 
 @WithCarbonHome
@@ -125,4 +154,113 @@ public class TokenValidationHandlerTest {
         assertNotNull(tokenValidationHandler.buildIntrospectionResponse(oAuth2TokenValidationRequestDTO));
     }
 
+    @Test
+    public void testBuildIntrospectionResponses() throws Exception {
+        OAuth2TokenValidationRequestDTO unknownTokenRequest = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken unknownToken = unknownTokenRequest.new OAuth2AccessToken();
+        unknownToken.setIdentifier("unknownAccessToken");
+        unknownToken.setTokenType("bearer");
+        unknownTokenRequest.setAccessToken(unknownToken);
+        OAuth2TokenValidationRequestDTO missingTokenRequest = new OAuth2TokenValidationRequestDTO();
+
+        List<OAuth2IntrospectionResponseDTO> responses = tokenValidationHandler.buildIntrospectionResponses(
+                Arrays.asList(unknownTokenRequest, missingTokenRequest));
+        assertEquals(responses.size(), 2);
+        assertFalse(responses.get(0).isActive());
+        assertNotNull(responses.get(0).getError());
+        assertFalse(responses.get(1).isActive());
+        assertNotNull(responses.get(1).getError());
+    }
+
+    @Test
+    public void testBuildIntrospectionResponsesOfActiveTokens() throws Exception {
+        RealmService realmService = IdentityTenantUtil.getRealmService();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                .setUserRealm(realmService.getTenantUserRealm(SUPER_TENANT_ID));
+        OAuthComponentServiceHolder.getInstance().setRealmService(realmService);
+
+        ApplicationManagementService applicationMgtService = OAuth2ServiceComponentHolder.getApplicationMgtService();
+        ApplicationManagementService mockedApplicationMgtService = mock(ApplicationManagementService.class);
+        ServiceProvider serviceProvider = mock(ServiceProvider.class);
+        when(serviceProvider.getLocalAndOutBoundAuthenticationConfig())
+                .thenReturn(new LocalAndOutboundAuthenticationConfig());
+        when(mockedApplicationMgtService.getServiceProviderByClientId(anyString(), anyString(), anyString()))
+                .thenReturn(serviceProvider);
+        OAuth2ServiceComponentHolder.setApplicationMgtService(mockedApplicationMgtService);
+
+        OAuthTokenPersistenceFactory persistenceFactory = OAuthTokenPersistenceFactory.getInstance();
+        AccessTokenDAO accessTokenDAO = (AccessTokenDAO) getInternalState(persistenceFactory, "tokenDAO");
+        AccessTokenDAO spiedAccessTokenDAO = spy(accessTokenDAO);
+        setInternalState(persistenceFactory, "tokenDAO", spiedAccessTokenDAO);
+        try {
+            String firstToken = persistActiveAccessToken("firstBatchConsumerKey", new String[]{"scope1", "scope2"});
+            String secondToken = persistActiveAccessToken("secondBatchConsumerKey",
+                    new String[]{"scope3", "scope4", "scope5"});
+
+            List<OAuth2IntrospectionResponseDTO> responses = tokenValidationHandler.buildIntrospectionResponses(
+                    Arrays.asList(buildValidationRequest(secondToken), buildValidationRequest("unknownBatchToken"),
+                            buildValidationRequest(firstToken)));
+
+            // All tokens which are not cached are loaded together
+            verify(spiedAccessTokenDAO, times(1)).getActiveAccessTokens(anyList());
+
+            assertEquals(responses.size(), 3);
+            assertTrue(responses.get(0).isActive());
+            assertEquals(responses.get(0).getClientId(), "secondBatchConsumerKey");
+            assertEquals(new HashSet<>(Arrays.asList(responses.get(0).getScope().split(" "))),
+                    new HashSet<>(Arrays.asList("scope3", "scope4", "scope5")));
+            assertFalse(responses.get(1).isActive());
+            assertTrue(responses.get(2).isActive());
+            assertEquals(responses.get(2).getClientId(), "firstBatchConsumerKey");
+            assertEquals(new HashSet<>(Arrays.asList(responses.get(2).getScope().split(" "))),
+                    new HashSet<>(Arrays.asList("scope1", "scope2")));
+        } finally {
+            setInternalState(persistenceFactory, "tokenDAO", accessTokenDAO);
+            OAuth2ServiceComponentHolder.setApplicationMgtService(applicationMgtService);
+        }
+    }
+
+    private OAuth2TokenValidationRequestDTO buildValidationRequest(String tokenIdentifier) {
+        OAuth2TokenValidationRequestDTO validationRequest = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequest.new OAuth2AccessToken();
+        accessToken.setIdentifier(tokenIdentifier);
+        accessToken.setTokenType("bearer");
+        validationRequest.setAccessToken(accessToken);
+        return validationRequest;
+    }
+
+    private String persistActiveAccessToken(String consumerKey, String[] scopes) throws Exception {
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection();
+             PreparedStatement prepStmt = connection.prepareStatement(SQLQueries.OAuthAppDAOSQLQueries.ADD_OAUTH_APP)) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, "testUser");
+            prepStmt.setInt(4, SUPER_TENANT_ID);
+            prepStmt.setString(5, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(6, consumerKey + "App");
+            prepStmt.setString(7, "OAuth-2.0");
+            prepStmt.setString(8, "http://localhost:8080/callback");
+            prepStmt.setString(9, "password");
+            prepStmt.setLong(10, 3600L);
+            prepStmt.setLong(11, 3600L);
+            prepStmt.setLong(12, 84600L);
+            prepStmt.execute();
+            connection.commit();
+        }
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName("testUser");
+        user.setUserStoreDomain(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        user.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        String accessToken = UUID.randomUUID().toString();
+        AccessTokenDO accessTokenDO = new AccessTokenDO(consumerKey, user, scopes, issuedTime,
+                refreshTokenIssuedTime, validityPeriodInMillis, refreshTokenValidityPeriodInMillis, tokenType);
+        accessTokenDO.setAccessToken(accessToken);
+        accessTokenDO.setTokenId(UUID.randomUUID().toString());
+        accessTokenDO.setTokenState(OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        tokenMgtDAO.persistAccessToken(accessToken, consumerKey, accessTokenDO, null,
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        return accessToken;
+    }
+
 }
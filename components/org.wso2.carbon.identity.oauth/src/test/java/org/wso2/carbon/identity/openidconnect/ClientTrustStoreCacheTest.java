@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.openidconnect;
+
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import org.apache.commons.codec.binary.Hex;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.RequestObjectException;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for ClientTrustStoreCache.
+ */
+public class ClientTrustStoreCacheTest extends IdentityBaseTest {
+
+    private static final String PASSWORD = "wso2carbon";
+
+    private String trustStorePath;
+    private String thumbprint;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        Path source = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "security",
+                "client-truststore.jks");
+        Path trustStore = Files.createTempFile("client-truststore", ".jks");
+        Files.copy(source, trustStore, StandardCopyOption.REPLACE_EXISTING);
+        trustStore.toFile().deleteOnExit();
+        trustStorePath = trustStore.toString();
+
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream inputStream = new FileInputStream(trustStorePath)) {
+            keyStore.load(inputStream, PASSWORD.toCharArray());
+        }
+        Certificate certificate = keyStore.getCertificate(keyStore.aliases().nextElement());
+        thumbprint = Hex.encodeHexString(MessageDigest.getInstance("SHA-1").digest(certificate.getEncoded()));
+    }
+
+    @Test
+    public void testGetVerifier() throws Exception {
+
+        ClientTrustStoreCache cache = new ClientTrustStoreCache(60000);
+        RSASSAVerifier verifier = cache.getVerifier(thumbprint, trustStorePath, PASSWORD);
+        assertNotNull(verifier, "Verifier should be found by the certificate thumbprint.");
+        assertSame(cache.getVerifier(thumbprint, trustStorePath, PASSWORD), verifier,
+                "Truststore should not be reloaded before the reload check interval.");
+        assertNull(cache.getVerifier("unknown", trustStorePath, PASSWORD));
+    }
+
+    @Test
+    public void testTrustStoreIsReloadedOnChange() throws Exception {
+
+        ClientTrustStoreCache cache = new ClientTrustStoreCache(0);
+        RSASSAVerifier verifier = cache.getVerifier(thumbprint, trustStorePath, PASSWORD);
+        assertSame(cache.getVerifier(thumbprint, trustStorePath, PASSWORD), verifier,
+                "Truststore should not be reloaded when the file has not changed.");
+
+        Paths.get(trustStorePath).toFile().setLastModified(System.currentTimeMillis() + 10000);
+        RSASSAVerifier reloadedVerifier = cache.getVerifier(thumbprint, trustStorePath, PASSWORD);
+        assertNotNull(reloadedVerifier);
+        assertNotSame(reloadedVerifier, verifier, "Truststore should be reloaded when the file has changed.");
+    }
+
+    @Test(expectedExceptions = RequestObjectException.class)
+    public void testInvalidPassword() throws Exception {
+
+        new ClientTrustStoreCache(0).getVerifier(thumbprint, trustStorePath, "invalid");
+    }
+}
@@ -36,6 +36,7 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.testng.IObjectFactory;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
@@ -58,6 +59,7 @@ import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheEntry;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.util.ClaimResolutionCache;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeReqDTO;
@@ -223,6 +225,13 @@ public class DefaultOIDCClaimsCallbackHandlerTest {
         defaultOIDCClaimsCallbackHandler = new DefaultOIDCClaimsCallbackHandler();
     }
 
+    @BeforeMethod
+    public void clearClaimCaches() {
+        // Test methods reuse the same application and user with different claim configurations and claim values.
+        RequestedClaimsPlanCache.getInstance().clear();
+        ClaimResolutionCache.getInstance().clear();
+    }
+
     @DataProvider(name = "samlAttributeValueProvider")
     public Object[][] provideSamlAttributeValues() {
         return new Object[][]{
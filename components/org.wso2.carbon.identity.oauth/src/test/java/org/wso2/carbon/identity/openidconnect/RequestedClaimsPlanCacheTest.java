@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openidconnect;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for RequestedClaimsPlanCache.
+ */
+public class RequestedClaimsPlanCacheTest extends IdentityBaseTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String CLIENT_ID = "clientId";
+    private static final String EMAIL_CLAIM_URI = "http://wso2.org/claims/email";
+    private static final String COUNTRY_CLAIM_URI = "http://wso2.org/claims/country";
+    private static final String ROLE_CLAIM_URI = "http://wso2.org/claims/role";
+
+    @Test
+    public void testAddPlan() {
+
+        RequestedClaimsPlanCache cache = new RequestedClaimsPlanCache(60000);
+        ServiceProvider serviceProvider = getServiceProvider(COUNTRY_CLAIM_URI, EMAIL_CLAIM_URI);
+        RequestedClaimsPlan plan = cache.addPlan(TENANT_DOMAIN, CLIENT_ID, serviceProvider);
+
+        assertSame(plan.getServiceProvider(), serviceProvider);
+        assertEquals(plan.getRequestedClaimUris(), Arrays.asList(COUNTRY_CLAIM_URI, EMAIL_CLAIM_URI),
+                "Only the requested claims should be in the plan.");
+        assertEquals(plan.getClaimSetKey(), getServiceProviderPlan(EMAIL_CLAIM_URI, COUNTRY_CLAIM_URI)
+                .getClaimSetKey(), "Claim set key should not depend on the order of the claims.");
+        assertSame(cache.getPlan(TENANT_DOMAIN, CLIENT_ID), plan);
+        assertNull(cache.getPlan("wso2.com", CLIENT_ID), "Plans should be cached per tenant.");
+    }
+
+    @Test
+    public void testClearCacheEntry() {
+
+        RequestedClaimsPlanCache cache = new RequestedClaimsPlanCache(60000);
+        RequestedClaimsPlan plan = cache.addPlan(TENANT_DOMAIN, CLIENT_ID, getServiceProvider(EMAIL_CLAIM_URI));
+        cache.clearCacheEntry(TENANT_DOMAIN, CLIENT_ID);
+        assertNull(cache.getPlan(TENANT_DOMAIN, CLIENT_ID));
+
+        RequestedClaimsPlan newPlan = cache.addPlan(TENANT_DOMAIN, CLIENT_ID, getServiceProvider(EMAIL_CLAIM_URI));
+        assertNotSame(newPlan, plan);
+        cache.clear();
+        assertNull(cache.getPlan(TENANT_DOMAIN, CLIENT_ID));
+    }
+
+    @Test
+    public void testExpiredPlan() {
+
+        RequestedClaimsPlanCache cache = new RequestedClaimsPlanCache(0);
+        cache.addPlan(TENANT_DOMAIN, CLIENT_ID, getServiceProvider(EMAIL_CLAIM_URI));
+        assertNull(cache.getPlan(TENANT_DOMAIN, CLIENT_ID), "Expired plans should not be returned.");
+    }
+
+    private RequestedClaimsPlan getServiceProviderPlan(String... requestedClaimUris) {
+
+        return new RequestedClaimsPlan(getServiceProvider(requestedClaimUris));
+    }
+
+    private ServiceProvider getServiceProvider(String... requestedClaimUris) {
+
+        ClaimMapping[] claimMappings = new ClaimMapping[requestedClaimUris.length + 1];
+        for (int i = 0; i < requestedClaimUris.length; i++) {
+            claimMappings[i] = getClaimMapping(requestedClaimUris[i], true);
+        }
+        claimMappings[requestedClaimUris.length] = getClaimMapping(ROLE_CLAIM_URI, false);
+
+        ClaimConfig claimConfig = new ClaimConfig();
+        claimConfig.setClaimMappings(claimMappings);
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setApplicationName("sampleSP");
+        serviceProvider.setClaimConfig(claimConfig);
+        return serviceProvider;
+    }
+
+    private ClaimMapping getClaimMapping(String claimUri, boolean requested) {
+
+        Claim claim = new Claim();
+        claim.setClaimUri(claimUri);
+        ClaimMapping claimMapping = new ClaimMapping();
+        claimMapping.setLocalClaim(claim);
+        claimMapping.setRemoteClaim(claim);
+        claimMapping.setRequested(requested);
+        return claimMapping;
+    }
+}
@@ -18,15 +18,10 @@
 
 package org.wso2.carbon.identity.oidc.session.servlet;
 
-import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jwt.SignedJWT;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.base.MultitenantConstants;
-import org.wso2.carbon.core.util.KeyStoreManager;
 import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorFlowStatus;
 import org.wso2.carbon.identity.application.authentication.framework.CommonAuthenticationHandler;
 import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationRequestCacheEntry;
@@ -34,7 +29,6 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.application.authentication.framework.model.CommonAuthRequestWrapper;
 import org.wso2.carbon.identity.application.authentication.framework.model.CommonAuthResponseWrapper;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
-import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
@@ -42,13 +36,12 @@ import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDAO;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
-import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.IDTokenVerifier;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionConstants;
 import org.wso2.carbon.identity.oidc.session.cache.OIDCSessionDataCache;
 import org.wso2.carbon.identity.oidc.session.cache.OIDCSessionDataCacheEntry;
 import org.wso2.carbon.identity.oidc.session.cache.OIDCSessionDataCacheKey;
 import org.wso2.carbon.identity.oidc.session.util.OIDCSessionManagementUtil;
-import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.Cookie;
@@ -56,7 +49,6 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -189,7 +181,8 @@ public class OIDCLogoutServlet extends HttpServlet {
 
         String clientId;
         try {
-            if (!validateIdToken(idTokenHint)) {
+            SignedJWT idToken = IDTokenVerifier.getInstance().verify(idTokenHint);
+            if (idToken == null) {
                 String msg = "ID token signature validation failed.";
                 log.error(msg);
                 redirectURL = OIDCSessionManagementUtil
@@ -197,7 +190,7 @@ public class OIDCLogoutServlet extends HttpServlet {
                 return redirectURL;
             }
 
-            clientId = extractClientFromIdToken(idTokenHint);
+            clientId = extractClientFromIdToken(idToken);
             OAuthAppDAO appDAO = new OAuthAppDAO();
             OAuthAppDO oAuthAppDO = appDAO.getAppInformation(clientId);
 
@@ -230,75 +223,6 @@ public class OIDCLogoutServlet extends HttpServlet {
         return redirectURL;
     }
 
-    /**
-     * Validate Id token signature
-     * @param idToken Id token
-     * @return validation state
-     */
-    private boolean validateIdToken(String idToken) {
-
-        String tenantDomain = getTenantDomainForSignatureValidation(idToken);
-        if (StringUtils.isEmpty(tenantDomain)) {
-            return false;
-        }
-        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-        RSAPublicKey publicKey;
-
-        try {
-            KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
-
-            if (!tenantDomain.equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
-                String ksName = tenantDomain.trim().replace(".", "-");
-                String jksName = ksName + ".jks";
-                publicKey = (RSAPublicKey) keyStoreManager.getKeyStore(jksName).getCertificate(tenantDomain)
-                        .getPublicKey();
-            } else {
-                publicKey = (RSAPublicKey) keyStoreManager.getDefaultPublicKey();
-            }
-            SignedJWT signedJWT = SignedJWT.parse(idToken);
-            JWSVerifier verifier = new RSASSAVerifier(publicKey);
-
-            return signedJWT.verify(verifier);
-        } catch (JOSEException | ParseException e) {
-            log.error("Error occurred while validating id token signature.");
-            return false;
-        } catch (Exception e) {
-            log.error("Error occurred while validating id token signature.");
-            return false;
-        }
-    }
-
-    /**
-     * Get tenant domain for signature validation.
-     * There is a problem If Id token signed using SP's tenant and there is no direct way to get the tenant domain
-     * using client id. So have iterate all the Tenants until get the right client id.
-     * @param idToken id token
-     * @return Tenant domain
-     */
-    private String getTenantDomainForSignatureValidation(String idToken) {
-        boolean isJWTSignedWithSPKey = OAuthServerConfiguration.getInstance().isJWTSignedWithSPKey();
-        String tenantDomain;
-
-        try {
-            String clientId = extractClientFromIdToken(idToken);
-            if (isJWTSignedWithSPKey) {
-                OAuthAppDO oAuthAppDO = OAuth2Util.getAppInformationByClientId(clientId);
-                tenantDomain = OAuth2Util.getTenantDomainOfOauthApp(oAuthAppDO);
-            } else {
-                //It is not sending tenant domain with the subject in id_token by default, So to work this as
-                //expected, need to enable the option "Use tenant domain in local subject identifier" in SP config
-                tenantDomain = MultitenantUtils.getTenantDomain(extractSubjectFromIdToken(idToken));
-            }
-        } catch (ParseException e) {
-            log.error("Error occurred while extracting client id from id token", e);
-            return null;
-        } catch (IdentityOAuth2Exception | InvalidOAuthClientException e) {
-            log.error("Error occurred while getting oauth application information.", e);
-            return null;
-        }
-        return tenantDomain;
-    }
-
     /**
      * Send request to consent URI
      * @param request Http servlet request
@@ -371,24 +295,13 @@ public class OIDCLogoutServlet extends HttpServlet {
 
     /**
      * Extract Client Id from Id token
-     * @param idToken id token
+     * @param idToken verified id token
      * @return Client Id
      * @throws ParseException
      */
-    private String extractClientFromIdToken(String idToken) throws ParseException {
-
-        return SignedJWT.parse(idToken).getJWTClaimsSet().getAudience().get(0);
-    }
-
-    /**
-     * Extract Subject from id token
-     * @param idToken id token
-     * @return Authenticated Subject
-     * @throws ParseException
-     */
-    private String extractSubjectFromIdToken(String idToken) throws ParseException {
+    private String extractClientFromIdToken(SignedJWT idToken) throws ParseException {
 
-        return SignedJWT.parse(idToken).getJWTClaimsSet().getSubject();
+        return idToken.getJWTClaimsSet().getAudience().get(0);
     }
 
     @Override
@@ -35,6 +35,8 @@ public class DefaultWebFingerProcessor implements WebFingerProcessor {
     private static Log log = LogFactory.getLog(DefaultWebFingerProcessor.class);
     private static DefaultWebFingerProcessor defaultWebFingerProcessor = new DefaultWebFingerProcessor();
 
+    private final WebFingerOIDCResponseBuilder responseBuilder = new WebFingerOIDCResponseBuilder();
+
     private DefaultWebFingerProcessor() {
         if (log.isDebugEnabled()) {
             log.debug("Initializing OIDCProcessor for OpenID connect discovery processor.");
@@ -49,7 +51,6 @@ public class DefaultWebFingerProcessor implements WebFingerProcessor {
             ServerConfigurationException {
         WebFingerRequestBuilder requestBuilder = new DefaultWebFingerRequestBuilder();
         WebFingerRequest requestObject = requestBuilder.buildRequest(request);
-        WebFingerOIDCResponseBuilder responseBuilder = new WebFingerOIDCResponseBuilder();
         return responseBuilder.buildWebFingerResponse(requestObject);
     }
 
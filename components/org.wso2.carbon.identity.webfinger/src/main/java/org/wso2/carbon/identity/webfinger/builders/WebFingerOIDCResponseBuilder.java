@@ -28,28 +28,46 @@ import org.wso2.carbon.identity.webfinger.WebFingerRequest;
 import org.wso2.carbon.identity.webfinger.WebFingerResponse;
 
 import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Build the WebFingerResponse only with the OpenID Provider Issuer.
  * Add other information when needed.
+ * <p>
+ * The subject of the response echoes the requested resource, so only the tenant specific discovery endpoint URL is
+ * cached by a builder instance. Reuse the builder across requests to benefit from it.
  */
 public class WebFingerOIDCResponseBuilder {
 
     private static Log log = LogFactory.getLog(WebFingerOIDCResponseBuilder.class);
 
+    private final Map<String, String> oidcDiscoveryUrls = new ConcurrentHashMap<>();
+
     public WebFingerResponse buildWebFingerResponse(WebFingerRequest request) throws WebFingerEndpointException,
             ServerConfigurationException {
 
         WebFingerResponse response;
-        String oidcDiscoveryUrl;
-        try {
-            oidcDiscoveryUrl = OAuth2Util.OAuthURL.getOidcDiscoveryEPUrl(request.getTenant());
-        } catch (URISyntaxException e) {
-            throw new ServerConfigurationException("Error while building discovery endpoint");
-        }
+        String oidcDiscoveryUrl = getOidcDiscoveryUrl(request.getTenant());
         response = new WebFingerResponse();
         response.setSubject(request.getResource());
         response.addLink(WebFingerConstants.OPENID_CONNETCT_ISSUER_REL, oidcDiscoveryUrl);
         return response;
     }
+
+    private String getOidcDiscoveryUrl(String tenant) throws ServerConfigurationException {
+
+        String oidcDiscoveryUrl = tenant == null ? null : oidcDiscoveryUrls.get(tenant);
+        if (oidcDiscoveryUrl == null) {
+            try {
+                oidcDiscoveryUrl = OAuth2Util.OAuthURL.getOidcDiscoveryEPUrl(tenant);
+            } catch (URISyntaxException e) {
+                throw new ServerConfigurationException("Error while building discovery endpoint");
+            }
+            if (tenant != null && oidcDiscoveryUrl != null) {
+                oidcDiscoveryUrls.put(tenant, oidcDiscoveryUrl);
+            }
+        }
+        return oidcDiscoveryUrl;
+    }
 }
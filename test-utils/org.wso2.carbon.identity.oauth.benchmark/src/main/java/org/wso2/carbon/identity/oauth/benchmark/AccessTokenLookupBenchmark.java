@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmark;
+package org.wso2.carbon.identity.oauth.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth2.dao.SQLQueries;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the active access token lookup which backs bearer token validation, run against an in-memory H2
+ * database with the identity schema. Each invocation prepares and executes the statement the same way
+ * AccessTokenDAOImpl does for every validation that misses the caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessTokenLookupBenchmark {
+
+    private static final String INSERT_APP = "INSERT INTO IDN_OAUTH_CONSUMER_APPS (CONSUMER_KEY, CONSUMER_SECRET, " +
+            "USERNAME, TENANT_ID, USER_DOMAIN, APP_NAME, OAUTH_VERSION) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TOKEN = "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, " +
+            "REFRESH_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, GRANT_TYPE, " +
+            "TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, " +
+            "TOKEN_SCOPE_HASH, TOKEN_STATE, SUBJECT_IDENTIFIER) VALUES (?, ?, ?, 1, ?, -1234, 'PRIMARY', " +
+            "'APPLICATION_USER', 'password', ?, ?, 3600000, 84600000, ?, 'ACTIVE', ?)";
+    private static final String INSERT_SCOPE = "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, " +
+            "TENANT_ID) VALUES (?, ?, -1234)";
+
+    @Param({"1000", "100000"})
+    private int tokenCount;
+
+    private Connection connection;
+    private String[] accessTokens;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        connection = BenchmarkEnvironment.createDatabase("tokenLookup" + tokenCount);
+        try (PreparedStatement appStatement = connection.prepareStatement(INSERT_APP)) {
+            appStatement.setString(1, "benchmarkClient");
+            appStatement.setString(2, "benchmarkSecret");
+            appStatement.setString(3, "admin");
+            appStatement.setInt(4, -1234);
+            appStatement.setString(5, "PRIMARY");
+            appStatement.setString(6, "benchmarkApp");
+            appStatement.setString(7, "OAuth-2.0");
+            appStatement.execute();
+        }
+
+        accessTokens = new String[tokenCount];
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement tokenStatement = connection.prepareStatement(INSERT_TOKEN);
+             PreparedStatement scopeStatement = connection.prepareStatement(INSERT_SCOPE)) {
+            for (int i = 0; i < tokenCount; i++) {
+                String tokenId = UUID.randomUUID().toString();
+                accessTokens[i] = UUID.randomUUID().toString();
+                tokenStatement.setString(1, tokenId);
+                tokenStatement.setString(2, accessTokens[i]);
+                tokenStatement.setString(3, UUID.randomUUID().toString());
+                tokenStatement.setString(4, "user" + i);
+                tokenStatement.setTimestamp(5, now);
+                tokenStatement.setTimestamp(6, now);
+                tokenStatement.setString(7, "369db21a386ae433e65c0ff34d35708d");
+                tokenStatement.setString(8, "user" + i);
+                tokenStatement.addBatch();
+
+                scopeStatement.setString(1, tokenId);
+                scopeStatement.setString(2, "openid");
+                scopeStatement.addBatch();
+            }
+            tokenStatement.executeBatch();
+            scopeStatement.executeBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+
+        connection.close();
+    }
+
+    @Benchmark
+    public int retrieveActiveAccessToken() throws SQLException {
+
+        String accessToken = accessTokens[next++ % accessTokens.length];
+        int rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN)) {
+            statement.setString(1, accessToken);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmark;
+
+import org.h2.Driver;
+import org.h2.tools.RunScript;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Sets up the minimum environment the OAuth component needs outside of an OSGi container, so that the benchmarks
+ * can call into the production classes directly.
+ */
+public final class BenchmarkEnvironment {
+
+    private static final String CARBON_HOME = "carbon.home";
+    private static final String IDENTITY_XML = "<Server xmlns=\"http://wso2.org/projects/carbon/carbon.xml\">\n" +
+            "</Server>\n";
+    private static final String SCHEMA = "dbScripts/identity.sql";
+
+    private BenchmarkEnvironment() {
+
+    }
+
+    /**
+     * Point carbon.home to a temporary directory holding an empty identity.xml, unless it is already set. The OAuth
+     * server configuration then falls back to its defaults.
+     */
+    public static synchronized void initCarbonHome() throws IOException {
+
+        if (System.getProperty(CARBON_HOME) != null) {
+            return;
+        }
+        Path carbonHome = Files.createTempDirectory("oauth-benchmark");
+        Path identityConfigDir = Files.createDirectories(carbonHome.resolve("repository").resolve("conf")
+                .resolve("identity"));
+        Files.write(identityConfigDir.resolve("identity.xml"), IDENTITY_XML.getBytes(StandardCharsets.UTF_8));
+        System.setProperty(CARBON_HOME, carbonHome.toString());
+    }
+
+    /**
+     * Create a new in-memory H2 database with the identity schema.
+     *
+     * @param databaseName name of the database
+     * @return connection to the database which keeps the database alive until it is closed
+     */
+    public static Connection createDatabase(String databaseName) throws SQLException, IOException {
+
+        // Older H2 drivers do not register themselves through the service loader.
+        Driver.load();
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + databaseName, "sa", "");
+        try (InputStream schema = BenchmarkEnvironment.class.getClassLoader().getResourceAsStream(SCHEMA)) {
+            if (schema == null) {
+                throw new IOException("Cannot find the database schema: " + SCHEMA);
+            }
+            RunScript.execute(connection, new InputStreamReader(schema, StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+}
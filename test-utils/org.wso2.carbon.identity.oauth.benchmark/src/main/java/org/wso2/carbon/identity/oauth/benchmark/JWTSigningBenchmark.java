@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmark;
+package org.wso2.carbon.identity.oauth.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth2.util.JWTSigningContext;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of RS256 signing of JWT access tokens and ID tokens. The shared signing context is what
+ * OAuth2Util.signJWTWithRSA and JWTTokenIssuer use once the keys of a tenant are loaded; the per token variant
+ * builds the signer, header and thumbprint for every token for comparison.
+ * <p>
+ * Tokens are signed with the key of the wso2carbon keystore of the OAuth component tests, and the thumbprint is
+ * computed from its certificate the same way as OAuth2Util does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTSigningBenchmark {
+
+    private static final String KEY_STORE = "wso2carbon.jks";
+    private static final String KEY_STORE_PASSWORD = "wso2carbon";
+    private static final String KEY_ALIAS = "wso2carbon";
+
+    private RSAPrivateKey privateKey;
+    private byte[] encodedCertificate;
+    private JWTSigningContext signingContext;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream inputStream = JWTSigningBenchmark.class.getClassLoader().getResourceAsStream(KEY_STORE)) {
+            keyStore.load(inputStream, KEY_STORE_PASSWORD.toCharArray());
+        }
+        privateKey = (RSAPrivateKey) keyStore.getKey(KEY_ALIAS, KEY_STORE_PASSWORD.toCharArray());
+        encodedCertificate = keyStore.getCertificate(KEY_ALIAS).getEncoded();
+        signingContext = new JWTSigningContext(privateKey, thumbPrint());
+    }
+
+    @Benchmark
+    public String signWithSharedContext() throws JOSEException {
+
+        SignedJWT signedJWT = new SignedJWT(signingContext.getHeader(JWSAlgorithm.RS256), createClaimsSet());
+        signedJWT.sign(signingContext.getSigner());
+        return signedJWT.serialize();
+    }
+
+    @Benchmark
+    public String signWithPerTokenContext() throws JOSEException {
+
+        JWSHeader header = new JWSHeader(JWSAlgorithm.RS256);
+        header.setKeyID(thumbPrint());
+        header.setX509CertThumbprint(new Base64URL(thumbPrint()));
+        SignedJWT signedJWT = new SignedJWT(header, createClaimsSet());
+        signedJWT.sign(new RSASSASigner(privateKey));
+        return signedJWT.serialize();
+    }
+
+    private String thumbPrint() {
+
+        return Base64URL.encode(DigestUtils.sha1Hex(encodedCertificate)).toString();
+    }
+
+    private JWTClaimsSet createClaimsSet() {
+
+        long now = System.currentTimeMillis();
+        JWTClaimsSet claimsSet = new JWTClaimsSet();
+        claimsSet.setIssuer("https://localhost:9443/oauth2/token");
+        claimsSet.setSubject("admin@carbon.super");
+        claimsSet.setAudience(Collections.singletonList("benchmarkClient"));
+        claimsSet.setIssueTime(new Date(now));
+        claimsSet.setExpirationTime(new Date(now + TimeUnit.HOURS.toMillis(1)));
+        claimsSet.setJWTID(UUID.randomUUID().toString());
+        return claimsSet;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmark;
+package org.wso2.carbon.identity.oauth.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth2.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth2.util.NamedPreparedStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of NamedPreparedStatement, which parses the named placeholders of the query every time a statement is
+ * created. Preparing the equivalent positional query directly is measured as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamedPreparedStatementBenchmark {
+
+    private static final String NAMED_QUERY = SQLQueries.RETRIEVE_SCOPES_WITH_PAGINATION_MYSQL;
+    private static final String POSITIONAL_QUERY = NAMED_QUERY.replaceAll(":[a-z_]+;", "?");
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        connection = BenchmarkEnvironment.createDatabase("namedStatement");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+
+        connection.close();
+    }
+
+    @Benchmark
+    public PreparedStatement namedPreparedStatement() throws SQLException {
+
+        NamedPreparedStatement namedPreparedStatement = new NamedPreparedStatement(connection, NAMED_QUERY);
+        try (PreparedStatement preparedStatement = namedPreparedStatement.getPreparedStatement()) {
+            return preparedStatement;
+        }
+    }
+
+    @Benchmark
+    public PreparedStatement positionalPreparedStatement() throws SQLException {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(POSITIONAL_QUERY)) {
+            return preparedStatement;
+        }
+    }
+}
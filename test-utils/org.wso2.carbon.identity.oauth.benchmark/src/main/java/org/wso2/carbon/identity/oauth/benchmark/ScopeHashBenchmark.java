@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmark;
+package org.wso2.carbon.identity.oauth.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of scope hashing which runs on every token request to look up existing tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeHashBenchmark {
+
+    @Param({"1", "5", "20"})
+    private int scopeCount;
+
+    private String scopeString;
+    private String[] scopes;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.initCarbonHome();
+        scopes = new String[scopeCount];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < scopeCount; i++) {
+            // Add the scopes in reverse order so that they need to be sorted.
+            scopes[i] = "scope" + (scopeCount - i);
+            builder.append(scopes[i]).append(' ');
+        }
+        scopeString = builder.toString().trim();
+    }
+
+    @Benchmark
+    public String hashScopeString() {
+
+        return OAuth2Util.hashScopes(scopeString);
+    }
+
+    @Benchmark
+    public String hashScopeArray() {
+
+        // Scopes are sorted in place, so hash a copy to keep the input unsorted.
+        return OAuth2Util.hashScopes(scopes.clone());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmark;
+package org.wso2.carbon.identity.oauth.benchmark;
+
+import org.apache.oltu.oauth2.as.issuer.MD5Generator;
+import org.apache.oltu.oauth2.as.issuer.UUIDValueGenerator;
+import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth.tokenvaluegenerator.SHA256Generator;
+import org.wso2.carbon.identity.oauth.tokenvaluegenerator.SecureRandomSHA256Generator;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuerImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of opaque token value generation through the default token issuer and the value generators it can be
+ * configured with. Run with "-prof gc" to compare the bytes allocated per generated token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenValueGeneratorBenchmark {
+
+    private OauthTokenIssuerImpl tokenIssuer;
+    private SHA256Generator sha256Generator;
+    private SecureRandomSHA256Generator secureRandomSHA256Generator;
+    private MD5Generator md5Generator;
+    private UUIDValueGenerator uuidValueGenerator;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.initCarbonHome();
+        tokenIssuer = new OauthTokenIssuerImpl();
+        sha256Generator = new SHA256Generator();
+        secureRandomSHA256Generator = new SecureRandomSHA256Generator();
+        md5Generator = new MD5Generator();
+        uuidValueGenerator = new UUIDValueGenerator();
+    }
+
+    @Benchmark
+    public String tokenIssuerAccessToken() throws OAuthSystemException {
+
+        return tokenIssuer.accessToken((OAuthTokenReqMessageContext) null);
+    }
+
+    @Benchmark
+    public String sha256Generator() throws OAuthSystemException {
+
+        return sha256Generator.generateValue();
+    }
+
+    @Benchmark
+    public String secureRandomSHA256Generator() throws OAuthSystemException {
+
+        return secureRandomSHA256Generator.generateValue();
+    }
+
+    @Benchmark
+    public String md5Generator() throws OAuthSystemException {
+
+        return md5Generator.generateValue();
+    }
+
+    @Benchmark
+    public String uuidValueGenerator() throws OAuthSystemException {
+
+        return uuidValueGenerator.generateValue();
+    }
+}